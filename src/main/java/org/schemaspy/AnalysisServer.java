@@ -0,0 +1,548 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy;
+
+import com.beust.jcommander.ParameterException;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.schemaspy.cli.CommandLineArgumentParser;
+import org.schemaspy.cli.CommandLineArguments;
+import org.schemaspy.cli.ConfigFileArgumentParser;
+import org.schemaspy.cli.PropertyFileDefaultProvider;
+import org.schemaspy.model.ConnectionFailure;
+import org.schemaspy.model.EmptySchemaException;
+import org.schemaspy.util.Markdown;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a JVM running so that repeated analyses don't have to pay for starting one.
+ * Drivers that have been loaded, compiled templates and what's been probed
+ * about Graphviz are reused by every analysis that the server runs.<p>
+ *
+ * Analyses are requested by <code>POST</code>ing the command line arguments of a run
+ * (one per line) to <code>/jobs</code>.  They're queued and run one at a time since
+ * {@link Config} is shared by the whole process.  The status of a job is available
+ * from <code>/jobs/&lt;id&gt;</code> and the recent jobs from <code>/jobs</code>.<p>
+ *
+ * The server only listens on the loopback interface since the arguments include credentials.
+ * Every request has to carry the token that the server generated when it started
+ * (<code>Authorization: Bearer &lt;token&gt;</code>), which it writes to a file only its user can read.
+ * Requests from browsers (with an <code>Origin</code>) are turned away, and jobs have to be posted
+ * as <code>{@value #ARGUMENTS_CONTENT_TYPE}</code>, which pages can't send without asking first.<p>
+ *
+ * Jobs can't pick the code or files that the server loads, under any of the names that an option goes by:
+ * the driver path (<code>-dp</code>) and meta files (<code>-meta</code>) are the ones that the server
+ * was started with, options that load classes (<code>-mmp</code>, <code>-mmc</code>, <code>-sqlFormatter</code>),
+ * run programs (<code>-gv</code>) or read files (<code>-configFile</code>, <code>-offline</code>,
+ * <code>-template</code>, <code>-css</code>, <code>@file</code>) aren't allowed, connection properties
+ * have to be given inline, database types can't be paths, and each job's output directory
+ * (<code>-o</code>) and bundle (<code>-bundle</code>) are resolved within the server's.
+ * <p>
+ * Usage: <code>java -jar schemaspy.jar -server [port] [queueSize] [-o outputRoot] [-dp driverPath] [-meta metaPath]</code>
+ */
+public class AnalysisServer implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(AnalysisServer.class.getName());
+    private static final String DEFAULT_PROPERTIES_FILE_NAME = "schemaspy.properties";
+    private static final int MAX_JOBS_KEPT = 1000;
+    static final String ARGUMENTS_CONTENT_TYPE = "application/x-schemaspy-args";
+    private static final String AUTHORIZATION_SCHEME = "Bearer ";
+    // what jobs can't specify themselves, by every name they're known by:
+    // anything that makes the server load code or read and write files of the job's choosing
+    private static final List<String> REJECTED_ARGUMENTS = Arrays.asList(
+            "-dp", "--driverPath", "driverPath", "schemaspy.dp", "schemaspy.driverPath", "-cp", "-loadjars",
+            "-mmp", "-metamodelPath", "schemaspy.mmp", "schemaspy.metamodelPath",
+            "-mmc", "-metamodelClass", "schemaspy.mmc", "schemaspy.metamodelClass",
+            "-meta", "-configFile", "-gv", "-sqlFormatter",
+            "-offline", "-template", "-css", "-pfp",
+            "--outputDirectory", "outputDirectory", "schemaspy.o", "schemaspy.outputDirectory");
+    private static final List<String> DATABASE_TYPE_ARGUMENTS = Arrays.asList(
+            "-t", "--database-type", "database-type", "schemaspy.t", "schemaspy.database-type");
+    private static final String CONNECTION_PROPERTIES_ARGUMENT = "-connprops";
+
+    private final HttpServer server;
+    private final ThreadPoolExecutor executor;
+    private final String token;
+    private final File outputRoot;
+    private final String driverPath;
+    private final String meta;
+    private final AtomicLong lastId = new AtomicLong();
+    private final Map<Long, Job> jobs = new LinkedHashMap<Long, Job>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Job> eldest) {
+            return size() > MAX_JOBS_KEPT;
+        }
+    };
+
+    /**
+     * @param port       port to listen on, <code>0</code> for any free one
+     * @param queueSize  how many jobs can be waiting to run before new ones are turned away
+     * @param outputRoot the directory that the output directories of jobs are resolved within
+     * @param driverPath the driver path of every job or <code>null</code> for the dbtype's
+     * @param meta       the meta file or directory of every job or <code>null</code> for none
+     */
+    public AnalysisServer(int port, int queueSize, File outputRoot, String driverPath, String meta) throws IOException {
+        this.outputRoot = outputRoot.getCanonicalFile();
+        this.driverPath = driverPath;
+        this.meta = meta;
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        token = Base64.getUrlEncoder().withoutPadding().encodeToString(secret);
+        executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize));
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/jobs", this::handle);
+    }
+
+    public static void main(String... args) throws IOException {
+        int positional = 0;
+        while (positional < args.length && positional < 2 && !args[positional].startsWith("-"))
+            ++positional;
+        int port = positional > 0 ? Integer.parseInt(args[0]) : 8080;
+        int queueSize = positional > 1 ? Integer.parseInt(args[1]) : 100;
+
+        Map<String, String> options = new LinkedHashMap<>();
+        options.put("-o", ".");
+        options.put("-dp", null);
+        options.put("-meta", null);
+        for (int i = positional; i < args.length; i += 2) {
+            if (!options.containsKey(args[i]) || i + 1 == args.length)
+                throw new IllegalArgumentException("Usage: -server [port] [queueSize] [-o outputRoot] [-dp driverPath] [-meta metaPath]");
+            options.put(args[i], args[i + 1]);
+        }
+
+        AnalysisServer server = new AnalysisServer(port, queueSize, new File(options.get("-o")),
+                options.get("-dp"), options.get("-meta"));
+        File tokenFile = server.writeToken(new File(new File(System.getProperty("user.home"), ".schemaspy"),
+                "server-" + server.getPort() + ".token"));
+        server.start();
+        System.out.println("Accepting analysis jobs on http://localhost:" + server.getPort() + "/jobs");
+        System.out.println("Writing to directories within " + server.outputRoot);
+        System.out.println("Requests need the token in " + tokenFile);
+    }
+
+    /**
+     * Writes the token that requests have to carry to <code>file</code>,
+     * which only the user running the server can read
+     */
+    File writeToken(File file) throws IOException {
+        Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        Files.deleteIfExists(file.toPath());
+        try {
+            Files.createFile(file.toPath(), PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException notPosix) {
+            Files.createFile(file.toPath());
+            if (!file.setReadable(false, false) || !file.setReadable(true, true) || !file.setWritable(true, true))
+                throw new IOException("Failed to make " + file + " readable by its owner only");
+        }
+        Files.write(file.toPath(), token.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests and waits for the job that's running (if any) to finish.
+     * Jobs that haven't started yet are dropped.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues an analysis with the specified command line arguments
+     *
+     * @throws ParameterException         if the arguments aren't valid or pick what the server was started with
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public Job submit(String... args) {
+        String[] restricted = restrict(args);
+        CommandLineArguments arguments = parse(restricted);
+        Job job = new Job(lastId.incrementAndGet(), arguments.getOutputDirectory());
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+        try {
+            executor.execute(() -> run(job, arguments, restricted));
+        } catch (RejectedExecutionException full) {
+            synchronized (jobs) {
+                jobs.remove(job.id);
+            }
+            throw full;
+        }
+        return job;
+    }
+
+    /**
+     * Returns the job or <code>null</code> if there isn't one with that id (anymore)
+     */
+    public Job getJob(long id) {
+        synchronized (jobs) {
+            return jobs.get(id);
+        }
+    }
+
+    /**
+     * Returns <code>args</code> with what the server was started with in place
+     * of what jobs aren't allowed to pick for themselves
+     *
+     * @throws ParameterException if the arguments try to pick them anyway
+     */
+    private String[] restrict(String... args) {
+        List<String> restricted = new ArrayList<>();
+        boolean hasOutputDirectory = false;
+        for (int i = 0; i < args.length; ++i) {
+            String arg = args[i];
+            if (REJECTED_ARGUMENTS.contains(arg))
+                throw new ParameterException(arg + " can't be specified by jobs, it's set when the server is started");
+            if (arg.startsWith("@"))
+                throw new ParameterException("Jobs can't read their arguments from files: " + arg);
+
+            restricted.add(arg);
+            if (i + 1 == args.length)
+                break;
+            if (DATABASE_TYPE_ARGUMENTS.contains(arg)) {
+                String type = args[++i];
+                if (type.contains("/") || type.contains("\\") || type.contains(".."))
+                    throw new ParameterException(arg + " has to name one of the database types that the server knows about");
+                restricted.add(type);
+            } else if (CONNECTION_PROPERTIES_ARGUMENT.equals(arg)) {
+                String properties = args[++i];
+                if (!properties.contains(Config.ESCAPED_EQUALS))
+                    throw new ParameterException(arg + " has to list the properties as key\\=value, jobs can't read them from files");
+                restricted.add(properties);
+            } else if ("-o".equals(arg)) {
+                restricted.add(resolveOutput(arg, args[++i]).getPath());
+                hasOutputDirectory = true;
+            } else if ("-bundle".equals(arg)) {
+                restricted.add(resolveOutput(arg, args[++i]).getPath());
+            }
+        }
+
+        if (!hasOutputDirectory)
+            throw new ParameterException("-o is required");
+        if (driverPath != null) {
+            restricted.add("-dp");
+            restricted.add(driverPath);
+        }
+        if (meta != null) {
+            restricted.add("-meta");
+            restricted.add(meta);
+        }
+        return restricted.toArray(new String[0]);
+    }
+
+    /**
+     * Resolves the output directory of a job within the server's
+     */
+    private File resolveOutput(String option, String name) {
+        try {
+            File resolved = new File(outputRoot, name).getCanonicalFile();
+            if (resolved.equals(outputRoot) || resolved.getPath().startsWith(outputRoot.getPath() + File.separator))
+                return resolved;
+        } catch (IOException exc) {
+            throw new ParameterException("Invalid " + option + " " + name + ": " + exc.getMessage());
+        }
+        throw new ParameterException(option + " has to be within " + outputRoot);
+    }
+
+    private static CommandLineArguments parse(String... args) {
+        Optional<String> configFileName = new ConfigFileArgumentParser().parseConfigFileArgumentValue(args);
+        PropertyFileDefaultProvider defaultProvider = null;
+        if (configFileName.isPresent()) {
+            if (!new File(configFileName.get()).exists())
+                throw new ParameterException("Could not find config file: " + configFileName.get());
+            defaultProvider = new PropertyFileDefaultProvider(configFileName.get());
+        } else if (new File(DEFAULT_PROPERTIES_FILE_NAME).exists()) {
+            defaultProvider = new PropertyFileDefaultProvider(DEFAULT_PROPERTIES_FILE_NAME);
+        }
+        return new CommandLineArgumentParser(defaultProvider).parse(args);
+    }
+
+    private static void run(Job job, CommandLineArguments arguments, String... args) {
+        job.started = Instant.now();
+        job.status = Status.RUNNING;
+        LOGGER.info("Starting job " + job.id + " writing to " + job.outputDirectory);
+
+        int rc = 1;
+        try {
+            // what other jobs registered shouldn't end up as links in this one's pages
+            Markdown.clear();
+
+            rc = Main.createAnalyzer(arguments).analyze(new Config(args)) == null ? 1 : 0;
+        } catch (ConnectionFailure couldntConnect) {
+            LOGGER.log(Level.WARNING, "Connection Failure", couldntConnect);
+            job.error = couldntConnect.getMessage();
+            rc = 3;
+        } catch (EmptySchemaException noData) {
+            LOGGER.log(Level.WARNING, "Empty schema", noData);
+            job.error = noData.getMessage();
+            rc = 2;
+        } catch (Exception exc) {
+            LOGGER.log(Level.SEVERE, exc.getMessage(), exc);
+            job.error = exc.getMessage() == null ? exc.toString() : exc.getMessage();
+        }
+
+        job.exitCode = rc;
+        job.finished = Instant.now();
+        job.status = rc == 0 ? Status.SUCCEEDED : Status.FAILED;
+        LOGGER.info("Finished job " + job.id + " with " + rc + " in "
+                + (job.finished.toEpochMilli() - job.started.toEpochMilli()) + "ms");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            // pages can make a browser send requests to localhost too
+            if (exchange.getRequestHeaders().containsKey("Origin")) {
+                sendError(exchange, 403, "Requests from browsers aren't accepted");
+                return;
+            }
+            if (!isAuthorized(exchange.getRequestHeaders().getFirst("Authorization"))) {
+                exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                sendError(exchange, 401, "The server's token is required");
+                return;
+            }
+
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith("/"))
+                path = path.substring(0, path.length() - 1);
+
+            if ("/jobs".equals(path)) {
+                if ("POST".equals(method))
+                    handleSubmit(exchange);
+                else if ("GET".equals(method))
+                    handleList(exchange);
+                else
+                    exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            if (!"GET".equals(method)) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            Job job = null;
+            try {
+                job = getJob(Long.parseLong(path.substring("/jobs/".length())));
+            } catch (NumberFormatException | StringIndexOutOfBoundsException notAnId) {
+                // not found
+            }
+            if (job == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            List<Job> found = new ArrayList<>();
+            found.add(job);
+            send(exchange, 200, found, false);
+        } catch (IOException | RuntimeException exc) {
+            LOGGER.warning("Failed to handle " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + ": " + exc);
+            throw exc;
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private boolean isAuthorized(String authorization) {
+        if (authorization == null || !authorization.startsWith(AUTHORIZATION_SCHEME))
+            return false;
+        byte[] given = authorization.substring(AUTHORIZATION_SCHEME.length()).trim().getBytes(StandardCharsets.US_ASCII);
+        return MessageDigest.isEqual(given, token.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void handleSubmit(HttpExchange exchange) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType == null || !contentType.split(";")[0].trim().equalsIgnoreCase(ARGUMENTS_CONTENT_TYPE)) {
+            sendError(exchange, 415, "Jobs have to be posted as " + ARGUMENTS_CONTENT_TYPE);
+            return;
+        }
+
+        // one argument per line, blank lines being empty arguments (e.g. an empty password)
+        String body = IOUtils.toString(exchange.getRequestBody(), "UTF-8");
+        if (body.endsWith("\n"))
+            body = body.substring(0, body.length() - 1);
+        String[] args = body.isEmpty() ? new String[0] : body.split("\r?\n", -1);
+
+        Job job;
+        try {
+            job = submit(args);
+        } catch (ParameterException | IllegalArgumentException badArgs) {
+            sendError(exchange, 400, badArgs.getMessage());
+            return;
+        } catch (RejectedExecutionException full) {
+            exchange.getResponseHeaders().set("Retry-After", "60");
+            sendError(exchange, 503, "Too many jobs are queued");
+            return;
+        }
+
+        exchange.getResponseHeaders().set("Location", "/jobs/" + job.id);
+        List<Job> submitted = new ArrayList<>();
+        submitted.add(job);
+        send(exchange, 202, submitted, false);
+    }
+
+    private void handleList(HttpExchange exchange) throws IOException {
+        List<Job> all;
+        synchronized (jobs) {
+            all = new ArrayList<>(jobs.values());
+        }
+        send(exchange, 200, all, true);
+    }
+
+    /**
+     * Sends the jobs as JSON.  Their arguments are never sent since they include the password.
+     */
+    private static void send(HttpExchange exchange, int status, List<Job> jobs, boolean asArray) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (JsonGenerator json = new JsonFactory().createGenerator(body, JsonEncoding.UTF8)) {
+            json.useDefaultPrettyPrinter();
+            if (asArray)
+                json.writeStartArray();
+            for (Job job : jobs) {
+                json.writeStartObject();
+                json.writeNumberField("id", job.id);
+                json.writeStringField("status", job.status.name().toLowerCase());
+                json.writeStringField("outputDirectory", job.outputDirectory.getPath());
+                json.writeStringField("queued", job.queued.toString());
+                if (job.started != null)
+                    json.writeStringField("started", job.started.toString());
+                if (job.finished != null)
+                    json.writeStringField("finished", job.finished.toString());
+                if (job.exitCode != null)
+                    json.writeNumberField("exitCode", job.exitCode);
+                if (job.error != null)
+                    json.writeStringField("error", job.error);
+                json.writeEndObject();
+            }
+            if (asArray)
+                json.writeEndArray();
+        }
+        send(exchange, status, "application/json", body.toByteArray());
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        send(exchange, status, "text/plain; charset=UTF-8", String.valueOf(message).getBytes("UTF-8"));
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        FAILED
+    }
+
+    /**
+     * An analysis that's been requested
+     */
+    public static final class Job {
+        private final long id;
+        private final File outputDirectory;
+        private final Instant queued = Instant.now();
+        private volatile Status status = Status.QUEUED;
+        private volatile Instant started;
+        private volatile Instant finished;
+        private volatile Integer exitCode;
+        private volatile String error;
+
+        Job(long id, File outputDirectory) {
+            this.id = id;
+            this.outputDirectory = outputDirectory;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public File getOutputDirectory() {
+            return outputDirectory;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * Returns what the process would have exited with had the job been run
+         * from the command line or <code>null</code> if it hasn't finished
+         */
+        public Integer getExitCode() {
+            return exitCode;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy;
+
+import org.schemaspy.model.Table;
+import org.schemaspy.model.TableColumn;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Evaluates all of the anomaly rules ('things that might not be quite right')
+ * in a single pass over the tables and their columns.<p>
+ *
+ * The tables are split up and scanned in parallel. Every {@link Rule} visits
+ * each table and each column of it and reports the anomalies it finds.
+ * The anomalies of each rule are kept in the order of the scanned tables
+ * before the rule gets to {@link Rule#sort(List) sort} them.
+ */
+public class AnomalyDetector {
+    private final List<Rule<?>> rules;
+
+    /**
+     * A visitor that looks for one kind of anomaly
+     *
+     * @param <T> the type of anomaly reported (typically {@link Table} or {@link TableColumn})
+     */
+    public interface Rule<T> {
+        /**
+         * Name the anomalies get exposed as (e.g. to the anomalies page template)
+         */
+        String getName();
+
+        default void visit(Table table, Consumer<? super T> anomalies) {
+        }
+
+        default void visit(TableColumn column, Consumer<? super T> anomalies) {
+        }
+
+        default List<T> sort(List<T> anomalies) {
+            return anomalies;
+        }
+    }
+
+    public AnomalyDetector(List<Rule<?>> rules) {
+        this.rules = new ArrayList<Rule<?>>(rules);
+    }
+
+    /**
+     * Detector for the anomalies that the anomalies page lists
+     */
+    public static AnomalyDetector getDefault() {
+        return new AnomalyDetector(Arrays.asList(UNINDEXED_TABLES, ONE_COLUMN_TABLES, INCREMENTING_COLUMN_NAMES, UNIQUE_NULLABLES));
+    }
+
+    /**
+     * Scans <code>tables</code> and returns the anomalies found by each rule
+     *
+     * @param tables Collection
+     * @return Anomalies
+     */
+    public Anomalies detect(Collection<Table> tables) {
+        Findings findings = tables.parallelStream().collect(() -> new Findings(rules), Findings::scan, Findings::addAll);
+
+        Anomalies anomalies = new Anomalies();
+        for (int i = 0; i < rules.size(); ++i) {
+            anomalies.add(rules.get(i), findings.found.get(i));
+        }
+        return anomalies;
+    }
+
+    /**
+     * The anomalies found by each of the rules
+     */
+    public static class Anomalies {
+        private final Map<Rule<?>, List<?>> found = new LinkedHashMap<Rule<?>, List<?>>();
+
+        @SuppressWarnings("unchecked")
+        private <T> void add(Rule<T> rule, List<?> anomalies) {
+            found.put(rule, rule.sort((List<T>)anomalies));
+        }
+
+        /**
+         * Returns the anomalies that <code>rule</code> found
+         * or <code>null</code> if it wasn't one of the rules
+         */
+        @SuppressWarnings("unchecked")
+        public <T> List<T> get(Rule<T> rule) {
+            return (List<T>)found.get(rule);
+        }
+
+        /**
+         * Returns the anomalies keyed by the name of the rule that found them
+         * (e.g. for the anomalies page template), ordered the same as the rules
+         */
+        public Map<String, List<?>> byName() {
+            Map<String, List<?>> byName = new LinkedHashMap<String, List<?>>();
+            for (Map.Entry<Rule<?>, List<?>> entry : found.entrySet()) {
+                byName.put(entry.getKey().getName(), entry.getValue());
+            }
+            return byName;
+        }
+    }
+
+    /**
+     * Anomalies found in one part of the tables being scanned
+     */
+    private static class Findings {
+        private final List<Rule<?>> rules;
+        private final List<List<Object>> found;
+        private final List<Consumer<Object>> reporters;
+
+        Findings(List<Rule<?>> rules) {
+            this.rules = rules;
+            found = new ArrayList<List<Object>>(rules.size());
+            reporters = new ArrayList<Consumer<Object>>(rules.size());
+            for (int i = 0; i < rules.size(); ++i) {
+                List<Object> anomalies = new ArrayList<Object>();
+                found.add(anomalies);
+                reporters.add(anomalies::add);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void scan(Table table) {
+            for (int i = 0; i < rules.size(); ++i) {
+                ((Rule<Object>)rules.get(i)).visit(table, reporters.get(i));
+            }
+
+            for (TableColumn column : table.getColumns()) {
+                for (int i = 0; i < rules.size(); ++i) {
+                    ((Rule<Object>)rules.get(i)).visit(column, reporters.get(i));
+                }
+            }
+        }
+
+        void addAll(Findings other) {
+            for (int i = 0; i < found.size(); ++i) {
+                found.get(i).addAll(other.found.get(i));
+            }
+        }
+    }
+
+    /**
+     * Tables that have neither an index nor a primary key
+     */
+    public static final Rule<Table> UNINDEXED_TABLES = new Rule<Table>() {
+        @Override
+        public String getName() {
+            return "unIndexedTables";
+        }
+
+        @Override
+        public void visit(Table table, Consumer<? super Table> anomalies) {
+            if (table.getIndexesMap().isEmpty() && !table.isView() && !table.isLogical())
+                anomalies.accept(table);
+        }
+
+        @Override
+        public List<Table> sort(List<Table> anomalies) {
+            return DbAnalyzer.sortTablesByName(anomalies);
+        }
+    };
+
+    /**
+     * Tables (not views) with only one column
+     */
+    public static final Rule<Table> ONE_COLUMN_TABLES = new Rule<Table>() {
+        @Override
+        public String getName() {
+            return "oneColumnTables";
+        }
+
+        @Override
+        public void visit(Table table, Consumer<? super Table> anomalies) {
+            if (table.getColumns().size() == 1 && !table.isView())
+                anomalies.accept(table);
+        }
+
+        @Override
+        public List<Table> sort(List<Table> anomalies) {
+            return DbAnalyzer.sortTablesByName(anomalies);
+        }
+    };
+
+    /**
+     * Tables (not views) with columns like <code>phone1</code> and <code>phone2</code>
+     */
+    public static final Rule<Table> INCREMENTING_COLUMN_NAMES = new Rule<Table>() {
+        @Override
+        public String getName() {
+            return "incrementingColumnNames";
+        }
+
+        @Override
+        public void visit(Table table, Consumer<? super Table> anomalies) {
+            if (!table.isView() && DbAnalyzer.hasIncrementingColumnNames(table))
+                anomalies.accept(table);
+        }
+
+        @Override
+        public List<Table> sort(List<Table> anomalies) {
+            return DbAnalyzer.sortTablesByName(anomalies);
+        }
+    };
+
+    /**
+     * Columns that have the word "NULL" or "null" as their default value
+     */
+    public static final Rule<TableColumn> UNIQUE_NULLABLES = new Rule<TableColumn>() {
+        @Override
+        public String getName() {
+            return "uniqueNullables";
+        }
+
+        @Override
+        public void visit(TableColumn column, Consumer<? super TableColumn> anomalies) {
+            if (DbAnalyzer.hasDefaultNullString(column))
+                anomalies.accept(column);
+        }
+
+        @Override
+        public List<TableColumn> sort(List<TableColumn> anomalies) {
+            return DbAnalyzer.sortColumnsByTable(anomalies);
+        }
+    };
+}
@@ -0,0 +1,203 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy;
+
+import org.schemaspy.model.*;
+import org.schemaspy.view.BinaryModelFormatter;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the model written by {@link BinaryModelFormatter}
+ */
+public class BinaryModelReader extends ModelReader {
+    private DataInputStream in;
+    private String[] strings;
+
+    public BinaryModelReader(Config config, ProgressListener listener) {
+        super(config, listener);
+    }
+
+    @Override
+    public Database read(InputStream input) throws IOException {
+        in = new DataInputStream(input);
+
+        byte[] magic = new byte[BinaryModelFormatter.MAGIC.length];
+        in.readFully(magic);
+        if (!Arrays.equals(magic, BinaryModelFormatter.MAGIC))
+            throw new IOException("Not a model written by SchemaSpy");
+        int version = in.read();
+        if (version != BinaryModelFormatter.VERSION)
+            throw new IOException("Unsupported model version " + version);
+
+        strings = new String[readVarInt()];
+        for (int i = 0; i < strings.length; ++i) {
+            byte[] bytes = new byte[readVarInt()];
+            in.readFully(bytes);
+            strings[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        String name = readString();
+        String catalog = readString();
+        String schema = readString();
+        createDatabase(name, catalog, schema, readString());
+        db.setComments(readString());
+
+        for (int count = readVarInt(); count > 0; --count) {
+            readVarInt();  // record length
+            readTable(false);
+        }
+
+        for (int count = readVarInt(); count > 0; --count) {
+            readVarInt();
+            readTable(true);
+        }
+
+        connectForeignKeys();
+
+        for (int count = readVarInt(); count > 0; --count) {
+            readVarInt();
+            readRoutine();
+        }
+
+        return db;
+    }
+
+    private void readTable(boolean remote) throws IOException {
+        String catalog = readString();
+        String schema = readString();
+        String name = readString();
+        Object id = toId(readString());
+        boolean isView = (in.readByte() & 1) != 0;
+        long numRows = readVarLong() - 1;
+        String remarks = readString();
+        String viewSql = readString();
+
+        Table table;
+        if (remote) {
+            table = getRemoteTable(catalog, schema, name);
+            table.setComments(remarks);
+        } else {
+            table = addTable(catalog, schema, name, remarks, isView, viewSql);
+        }
+        table.setId(id);
+        table.setNumRows(numRows);
+
+        int numColumns = readVarInt();
+        List<TableColumn> columns = new ArrayList<TableColumn>(numColumns);
+        for (int i = 0; i < numColumns; ++i) {
+            TableColumn column = addColumn(table, toId(readString()), readString());
+            column.setTypeName(readString());
+            setSize(column, unzigzag(readVarInt()), unzigzag(readVarInt()));
+            int flags = in.readByte();
+            column.setNullable((flags & 1) != 0);
+            column.setIsAutoUpdated((flags & 2) != 0);
+            column.setDefaultValue(readString());
+            column.setComments(readString());
+            columns.add(column);
+        }
+
+        for (int count = readVarInt(); count > 0; --count)
+            table.setPrimaryColumn(columns.get(readVarInt()));
+
+        for (int count = readVarInt(); count > 0; --count) {
+            String indexName = readString();
+            Object indexId = toId(readString());
+            int flags = in.readByte();
+            TableIndex index = new TableIndex(indexName, (flags & 1) != 0);
+            index.setId(indexId);
+            index.setIsPrimaryKey((flags & 2) != 0);
+            for (int numIndexColumns = readVarInt(); numIndexColumns > 0; --numIndexColumns) {
+                int column = readVarInt();
+                index.addColumn(columns.get(column >>> 1), (column & 1) != 0 ? "A" : "D");
+            }
+            table.getIndexesMap().put(indexName, index);
+        }
+
+        for (int count = readVarInt(); count > 0; --count) {
+            String foreignKeyName = readString();
+            boolean implied = (in.readByte() & 1) != 0;
+            int updateRule = readVarInt();
+            int deleteRule = readVarInt();
+            String parentCatalog = readString();
+            String parentSchema = readString();
+            String parentTable = readString();
+            for (int numForeignKeyColumns = readVarInt(); numForeignKeyColumns > 0; --numForeignKeyColumns) {
+                TableColumn childColumn = columns.get(readVarInt());
+                String parentColumn = readString();
+                if (!implied)
+                    addForeignKeyColumn(table, foreignKeyName, updateRule, deleteRule, childColumn.getName(),
+                            parentCatalog, parentSchema, parentTable, parentColumn);
+            }
+        }
+
+        for (int count = readVarInt(); count > 0; --count)
+            table.addCheckConstraint(readString(), readString());
+    }
+
+    private void readRoutine() throws IOException {
+        String name = readString();
+        String type = readString();
+        String returnType = readString();
+        String language = readString();
+        String dataAccess = readString();
+        String securityType = readString();
+        boolean deterministic = in.readByte() != 0;
+        String comment = readString();
+        String definition = readString();
+
+        Routine routine = new Routine(name, type, returnType, language, definition, deterministic, dataAccess, securityType, comment);
+        for (int count = readVarInt(); count > 0; --count)
+            routine.addParameter(new RoutineParameter(readString(), readString(), readString()));
+
+        db.getRoutinesMap().put(name, routine);
+    }
+
+    private String readString() throws IOException {
+        int index = readVarInt();
+        return index == 0 ? null : strings[index - 1];
+    }
+
+    private int readVarInt() throws IOException {
+        return (int)readVarLong();
+    }
+
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0)
+                throw new EOFException();
+            value |= (long)(b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed number");
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
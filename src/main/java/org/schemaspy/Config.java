@@ -51,9 +51,9 @@ import java.util.regex.PatternSyntaxException;
  *
  * @author John Currier
  */
-public final class Config {
+public final class Config implements Cloneable {
     private static Config instance;
-    private final List<String> options;
+    private List<String> options;
     private Map<String, String> dbSpecificOptions;
     private Map<String, String> originalDbSpecificOptions;
     private boolean helpRequired;
@@ -81,6 +81,7 @@ public final class Config {
     private String userConnectionPropertiesFile;
     private Properties userConnectionProperties;
     private Integer maxDbThreads;
+    private Integer maxSchemaThreads;
     private Integer maxDetailedTables;
     private String driverPath;
     private String metaModelPath;
@@ -91,6 +92,8 @@ public final class Config {
     private String description;
     private Properties dbProperties;
     private String dbPropertiesLoadedFrom;
+    private Properties dbPropertyNamesFrom;
+    private Map<String, String> dbPropertyNames;
     private Level logLevel;
     private SqlFormatter sqlFormatter;
     private String sqlFormatterClass;
@@ -107,6 +110,16 @@ public final class Config {
     private Boolean highQuality;
     private Boolean lowQuality;
     private Boolean paginationEnabled;
+    private Boolean incrementalEnabled;
+    private Boolean metadataCacheEnabled;
+    private Boolean metricsEnabled;
+    private Boolean gzipEnabled;
+    private Boolean gzipOnlyEnabled;
+    private String bundle;
+    private String offlineModel;
+    private Boolean commonMarkEnabled;
+    private Boolean jsonEnabled;
+    private Boolean binaryModelEnabled;
     private String imageFormat;
     private Boolean loadJDBCJarsEnabled = false;
     private String schemaSpec;  // used in conjunction with evaluateAll
@@ -115,7 +128,7 @@ public final class Config {
     private boolean populating;
     private List<String> columnDetails;
     public static final String DOT_CHARSET = "UTF-8";
-    private static final String ESCAPED_EQUALS = "\\=";
+    static final String ESCAPED_EQUALS = "\\=";
     private static final String DEFAULT_TABLE_INCLUSION = ".*"; // match everything
     private static final String DEFAULT_TABLE_EXCLUSION = "";   // match nothing
     private static final String DEFAULT_COLUMN_EXCLUSION = "[^.]";  // match nothing
@@ -735,6 +748,42 @@ public final class Config {
         return maxDbThreads;
     }
 
+    /**
+     * Maximum number of schemas to analyze at the same time when evaluating
+     * multiple schemas (with -all or -schemas).
+     * Each of them gets its own connection to the database.
+     *
+     * @param maxSchemaThreads
+     */
+    public void setMaxSchemaThreads(int maxSchemaThreads) {
+        this.maxSchemaThreads = maxSchemaThreads;
+    }
+
+    /**
+     * @throws InvalidConfigurationException if unable to load properties
+     * @see #setMaxSchemaThreads(int)
+     */
+    public int getMaxSchemaThreads() throws InvalidConfigurationException {
+        if (maxSchemaThreads == null) {
+            // databases that can't deal with concurrent queries limit their dbThreads
+            int max = Math.min(4, getMaxDbThreads());  // not scientifically derived
+            String threads = pullParam("-schemaThreads");
+            if (threads == null)
+                threads = pullParam("-schemathreads");
+            if (threads != null) {
+                try {
+                    max = Math.max(1, Integer.parseInt(threads));
+                } catch (NumberFormatException e) {
+                    LOGGER.log(Level.WARNING, e.getMessage(), e);
+                }
+            }
+
+            maxSchemaThreads = max;
+        }
+
+        return maxSchemaThreads;
+    }
+
     public boolean isLogoEnabled() {
         if (logoEnabled == null)
             logoEnabled = !options.remove("-nologo");
@@ -1142,6 +1191,40 @@ public final class Config {
         this.oneOfMultipleSchemas = oneOfMultipleSchemas;
     }
 
+    /**
+     * Returns a copy of this configuration for evaluating one of multiple schemas.<p>
+     * The copy isn't made the global instance, so several schemas can be
+     * evaluated at the same time without stepping on each other's settings.
+     *
+     * @param schema the schema (or database, if no database was specified) to evaluate
+     * @return
+     */
+    public Config forSchema(String schema) {
+        Config copy;
+        try {
+            copy = (Config)clone();
+        } catch (CloneNotSupportedException exc) {
+            throw new IllegalStateException(exc);
+        }
+
+        // anything that hasn't been pulled yet gets pulled from the copy's own options
+        copy.options = new ArrayList<>(options);
+        if (dbSpecificOptions != null)
+            copy.dbSpecificOptions = new HashMap<>(dbSpecificOptions);
+        copy.sqlFormatter = null;
+        copy.hasOrphans = false;
+        copy.hasRoutines = false;
+
+        // now we're analyzing a single schema (avoids an infinite loop)
+        copy.schemas = null;
+        copy.evaluateAll = false;
+        if (getDb() == null)
+            copy.db = schema;
+        else
+            copy.schema = schema;
+        return copy;
+    }
+
     /**
      * When -all (evaluateAll) is specified then this is the regular
      * expression that determines which schemas to evaluate.
@@ -1360,6 +1443,242 @@ public final class Config {
         return paginationEnabled;
     }
 
+    /**
+     * If enabled comments are rendered with the (faster) CommonMark renderer
+     * rather than PegDown.  The two don't produce identical HTML for every input.<p/>
+     * <p>
+     * Defaults to <code>false</code> (disabled).
+     *
+     * @param enabled
+     */
+    public void setCommonMarkEnabled(boolean enabled) {
+        commonMarkEnabled = enabled;
+    }
+
+    /**
+     * @return
+     * @see #setCommonMarkEnabled(boolean)
+     */
+    public boolean isCommonMarkEnabled() {
+        if (commonMarkEnabled == null)
+            commonMarkEnabled = options.remove("-commonmark");
+
+        return commonMarkEnabled;
+    }
+
+    /**
+     * If enabled the gathered model is also written as JSON
+     * (<code>&lt;db&gt;.&lt;schema&gt;.json</code>) alongside the XML.<p/>
+     * <p>
+     * Defaults to <code>false</code> (disabled).
+     *
+     * @param enabled
+     */
+    public void setJsonEnabled(boolean enabled) {
+        jsonEnabled = enabled;
+    }
+
+    /**
+     * @return
+     * @see #setJsonEnabled(boolean)
+     */
+    public boolean isJsonEnabled() {
+        if (jsonEnabled == null)
+            jsonEnabled = options.remove("-json");
+
+        return jsonEnabled;
+    }
+
+    /**
+     * If enabled the gathered model is also written in a compact binary form
+     * (<code>&lt;db&gt;.&lt;schema&gt;.bin</code>) alongside the XML.<p/>
+     * <p>
+     * Defaults to <code>false</code> (disabled).
+     *
+     * @param enabled
+     * @see org.schemaspy.view.BinaryModelFormatter
+     */
+    public void setBinaryModelEnabled(boolean enabled) {
+        binaryModelEnabled = enabled;
+    }
+
+    /**
+     * @return
+     * @see #setBinaryModelEnabled(boolean)
+     */
+    public boolean isBinaryModelEnabled() {
+        if (binaryModelEnabled == null)
+            binaryModelEnabled = options.remove("-binary");
+
+        return binaryModelEnabled;
+    }
+
+    /**
+     * If enabled only the pages and diagrams whose underlying tables changed since
+     * the previous run (based on the snapshot it left in the output directory)
+     * will be regenerated.<p/>
+     * <p>
+     * Defaults to <code>false</code> (disabled).
+     *
+     * @param enabled
+     */
+    public void setIncrementalEnabled(boolean enabled) {
+        incrementalEnabled = enabled;
+    }
+
+    /**
+     * @return
+     * @see #setIncrementalEnabled(boolean)
+     */
+    public boolean isIncrementalEnabled() {
+        if (incrementalEnabled == null)
+            incrementalEnabled = options.remove("-incremental");
+
+        return incrementalEnabled;
+    }
+
+    /**
+     * If enabled the columns, indexes and keys of each table are persisted in the
+     * output directory and subsequent runs only query those of the tables that
+     * were modified since (as reported by the dbtype's
+     * <code>selectTableModificationTimesSql</code>).<p/>
+     * <p>
+     * Defaults to <code>false</code> (disabled).
+     *
+     * @param enabled
+     * @see org.schemaspy.model.PersistentMetadataCache
+     */
+    public void setMetadataCacheEnabled(boolean enabled) {
+        metadataCacheEnabled = enabled;
+    }
+
+    /**
+     * @return
+     * @see #setMetadataCacheEnabled(boolean)
+     */
+    public boolean isMetadataCacheEnabled() {
+        if (metadataCacheEnabled == null)
+            metadataCacheEnabled = options.remove("-metacache");
+
+        return metadataCacheEnabled;
+    }
+
+    /**
+     * If enabled the time spent in each phase of the analysis, running SQL and running dot
+     * along with the files that were written is collected and written to
+     * <code>metrics.json</code> in the output directory.<p/>
+     * <p>
+     * Defaults to <code>false</code> (disabled).
+     *
+     * @param enabled
+     * @see org.schemaspy.util.RunMetrics
+     */
+    public void setMetricsEnabled(boolean enabled) {
+        metricsEnabled = enabled;
+    }
+
+    /**
+     * @return
+     * @see #setMetricsEnabled(boolean)
+     */
+    public boolean isMetricsEnabled() {
+        if (metricsEnabled == null)
+            metricsEnabled = options.remove("-metrics");
+
+        return metricsEnabled;
+    }
+
+    /**
+     * If enabled a gzip compressed copy (<code>.gz</code>) of the generated pages
+     * is written alongside them so web servers can serve them pre-compressed.<p/>
+     * <p>
+     * Defaults to <code>false</code> (disabled).
+     *
+     * @param enabled
+     */
+    public void setGzipEnabled(boolean enabled) {
+        gzipEnabled = enabled;
+    }
+
+    /**
+     * @return
+     * @see #setGzipEnabled(boolean)
+     * @see #setGzipOnlyEnabled(boolean)
+     */
+    public boolean isGzipEnabled() {
+        if (gzipEnabled == null)
+            gzipEnabled = options.remove("-gzip");
+
+        return gzipEnabled || isGzipOnlyEnabled();
+    }
+
+    /**
+     * If enabled only the gzip compressed copies of the generated pages are written,
+     * omitting the uncompressed ones.  Implies {@link #setGzipEnabled(boolean)}.<p/>
+     * <p>
+     * Defaults to <code>false</code> (disabled).
+     *
+     * @param enabled
+     */
+    public void setGzipOnlyEnabled(boolean enabled) {
+        gzipOnlyEnabled = enabled;
+    }
+
+    /**
+     * @return
+     * @see #setGzipOnlyEnabled(boolean)
+     */
+    public boolean isGzipOnlyEnabled() {
+        if (gzipOnlyEnabled == null)
+            gzipOnlyEnabled = options.remove("-gziponly");
+
+        return gzipOnlyEnabled;
+    }
+
+    /**
+     * ZIP file that the generated site should be bundled into instead of leaving
+     * it as individual files in the output directory.  The output directory is still
+     * used for intermediate files (e.g. the .dot files that diagrams are rendered from).
+     *
+     * @param bundle
+     */
+    public void setBundle(String bundle) {
+        this.bundle = bundle;
+    }
+
+    /**
+     * @return
+     * @see #setBundle(String)
+     */
+    public String getBundle() {
+        if (bundle == null)
+            bundle = pullParam("-bundle");
+
+        return bundle;
+    }
+
+
+    /**
+     * Model (the XML or the {@link #setBinaryModelEnabled(boolean) binary form}) written by a
+     * previous run to render the documentation from instead of connecting to the database.
+     * The file can be gzip compressed.
+     *
+     * @param offlineModel
+     */
+    public void setOfflineModel(String offlineModel) {
+        this.offlineModel = offlineModel;
+    }
+
+    /**
+     * @return
+     * @see #setOfflineModel(String)
+     */
+    public String getOfflineModel() {
+        if (offlineModel == null)
+            offlineModel = pullParam("-offline");
+
+        return offlineModel;
+    }
 
     /**
      * If enabled SchemaSpy will load from classpath additional jars used by JDBC Driver<p/>
@@ -1417,6 +1736,26 @@ public final class Config {
         return dbProperties;
     }
 
+    /**
+     * Returns the name of the {@link #getDbProperties() database property} whose value is
+     * <code>value</code> (the SQL of a query, for example), or <code>null</code> if none is.
+     * The names are looked up once per set of properties rather than on every call.
+     *
+     * @param value
+     * @return
+     */
+    public synchronized String getDbPropertyName(String value) {
+        Properties properties = getDbProperties();
+        if (dbPropertyNamesFrom != properties) {
+            Map<String, String> names = new HashMap<>();
+            for (String name : properties.stringPropertyNames())
+                names.put(properties.getProperty(name), name);
+            dbPropertyNames = names;
+            dbPropertyNamesFrom = properties;
+        }
+        return dbPropertyNames.get(value);
+    }
+
     /**
      * Determines the database properties associated with the specified type.
      * A call to {@link #setDbProperties(Properties)} is expected after determining
@@ -1843,6 +2182,22 @@ public final class Config {
             params.add("-noviews");
         if (!isPaginationEnabled())
             params.add("-nopages");
+        if (isIncrementalEnabled())
+            params.add("-incremental");
+        if (isMetadataCacheEnabled())
+            params.add("-metacache");
+        if (isMetricsEnabled())
+            params.add("-metrics");
+        if (isCommonMarkEnabled())
+            params.add("-commonmark");
+        if (isGzipOnlyEnabled())
+            params.add("-gziponly");
+        else if (isGzipEnabled())
+            params.add("-gzip");
+        if (isJsonEnabled())
+            params.add("-json");
+        if (isBinaryModelEnabled())
+            params.add("-binary");
         if (!isLoadJDBCJarsEnabled())
             params.add("-loadjars");
         if (isRankDirBugEnabled())
@@ -1939,6 +2294,16 @@ public final class Config {
             params.add("-meta");
             params.add(value);
         }
+        value = getBundle();
+        if (value != null) {
+            params.add("-bundle");
+            params.add(value);
+        }
+        value = getOfflineModel();
+        if (value != null) {
+            params.add("-offline");
+            params.add(value);
+        }
 
         value = getTemplateDirectory();
         if (value != null) {
@@ -1963,6 +2328,8 @@ public final class Config {
         params.add(getIndirectColumnExclusions().toString());
         params.add("-dbthreads");
         params.add(String.valueOf(getMaxDbThreads()));
+        params.add("-schemathreads");
+        params.add(String.valueOf(getMaxSchemaThreads()));
         params.add("-maxdet");
         params.add(String.valueOf(getMaxDetailedTables()));
 
@@ -19,16 +19,22 @@
 package org.schemaspy;
 
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
 import org.schemaspy.model.*;
 import org.schemaspy.util.Inflection;
+import org.schemaspy.util.MeasuredStatement;
 
 public class DbAnalyzer {
 	
@@ -56,43 +62,14 @@ public class DbAnalyzer {
         }
 
         sortColumnsByTable(columnsWithoutParents);
-        Set<DatabaseObject> primaryColumns = keyedTablesByPrimary.keySet();
+        PrimaryKeyIndex primaryKeyIndex = new PrimaryKeyIndex(keyedTablesByPrimary);
         List<ImpliedForeignKeyConstraint> impliedConstraints = new ArrayList<ImpliedForeignKeyConstraint>();
         
         for (TableColumn childColumn : columnsWithoutParents) {
-            DatabaseObject columnWithoutParent = new DatabaseObject(childColumn);
-            
-            // search for Parent(PK) table
-        	Table primaryTable = null;
-        	Integer numPrimaryTableFound=0;
-			for (Map.Entry<DatabaseObject, Table> entry : keyedTablesByPrimary.entrySet()) {
-				DatabaseObject key = entry.getKey();
-				if (columnWithoutParent.getName().compareToIgnoreCase(key.getName()) == 0
-						// if adress_id=adress_id OR shipping_adress_id like &description%_adress_id
-						|| columnWithoutParent.getName().matches("(?i).*_" + key.getName())
-						// if order.adressid=>adress.id. find FKs that made from %parentTablename%PKcol%
-						// if order.adress_id=>adress.id. find FKs that made from %tablename%_%PKcol%
-						|| columnWithoutParent.getName().matches("(?i)" +entry.getValue().getName() + ".*" + key.getName()) 
-						) {
-					// check f columnTypes Or ColumnTypeNames are same.
-					if ((columnWithoutParent.getType() != null && key.getType() != null
-							&& columnWithoutParent.getType().compareTo(key.getType()) == 0)
-							|| columnWithoutParent.getTypeName().compareToIgnoreCase(key.getTypeName()) == 0) {
-						// check if column lengths are same.
-						if (columnWithoutParent.getLength() - key.getLength() == 0) {
-							// found parent table.
-							primaryTable = entry.getValue();
-							numPrimaryTableFound++;
-							// if child column refrencing multiple PK(Parent) tables then dont create implied relationship and exit the loop.
-							// one column can reference only one parent table.! 
-							if (numPrimaryTableFound>1) {
-								primaryTable=null;
-								break;
-							}
-						}
-					}
-				}
-			}
+            // search for Parent(PK) table.
+            // if child column refrencing multiple PK(Parent) tables then dont create implied relationship.
+            // one column can reference only one parent table.!
+            Table primaryTable = primaryKeyIndex.findPrimaryTable(new DatabaseObject(childColumn));
             
             if (primaryTable != null && primaryTable != childColumn.getTable()) {
                 //Optional<DatabaseObject> databaseObject = primaryColumns.stream().filter(d-> d.getName().equals(primaryTable.getName())).findFirst();
@@ -116,6 +93,175 @@ public class DbAnalyzer {
         return impliedConstraints;
     }
 
+    /**
+     * Index of the primary keys that implied foreign keys can reference.<p>
+     *
+     * A column without a parent matches a primary key if its name equals the key's name,
+     * ends with <code>_</code> followed by the key's name or starts with the key's table name
+     * and ends with the key's name (all case-insensitive).
+     * Instead of testing each column against every primary key the keys are hashed by their
+     * lower-cased names so only the keys whose names are suffixes of the column's name are examined.<p>
+     *
+     * Names that can't be compared that way (non-ASCII or containing regular expression
+     * meta-characters) fall back to the original regular expression matching so the results don't change.
+     */
+    private static class PrimaryKeyIndex {
+        private static final String META_CHARACTERS = "\\^$.|?*+()[]{}";
+
+        private final Map<String, List<PrimaryKey>> keysByName = new HashMap<String, List<PrimaryKey>>();
+        private final BitSet keyNameLengths = new BitSet();
+        private final List<PrimaryKey> irregularKeys = new ArrayList<PrimaryKey>();
+        private final List<PrimaryKey> allKeys = new ArrayList<PrimaryKey>();
+
+        PrimaryKeyIndex(Map<DatabaseObject, Table> keyedTablesByPrimary) {
+            for (Map.Entry<DatabaseObject, Table> entry : keyedTablesByPrimary.entrySet()) {
+                PrimaryKey key = new PrimaryKey(entry.getKey(), entry.getValue());
+                allKeys.add(key);
+                if (!key.name.isEmpty() && isPlain(key.name, true) && isPlain(key.tableName, true)) {
+                    String lowerName = toLowerAscii(key.name);
+                    List<PrimaryKey> keys = keysByName.get(lowerName);
+                    if (keys == null) {
+                        keys = new ArrayList<PrimaryKey>(1);
+                        keysByName.put(lowerName, keys);
+                    }
+                    keys.add(key);
+                    keyNameLengths.set(lowerName.length());
+                } else {
+                    irregularKeys.add(key);
+                }
+            }
+        }
+
+        /**
+         * Returns the table whose primary key <code>column</code> implicitly references
+         * or <code>null</code> if it doesn't reference exactly one of them.
+         */
+        Table findPrimaryTable(DatabaseObject column) {
+            String name = column.getName();
+            Table primaryTable = null;
+            int numPrimaryTableFound = 0;
+
+            if (!isPlain(name, false)) {
+                for (PrimaryKey key : allKeys) {
+                    if (key.matchesName(name) && key.matchesType(column)) {
+                        primaryTable = key.table;
+                        if (++numPrimaryTableFound > 1)
+                            return null;
+                    }
+                }
+                return primaryTable;
+            }
+
+            String lowerName = toLowerAscii(name);
+            int length = lowerName.length();
+            for (int start = 0; start < length; ++start) {
+                if (!keyNameLengths.get(length - start))
+                    continue;
+                List<PrimaryKey> keys = keysByName.get(lowerName.substring(start));
+                if (keys == null)
+                    continue;
+                for (PrimaryKey key : keys) {
+                    if (key.matchesSuffix(name, lowerName, start) && key.matchesType(column)) {
+                        primaryTable = key.table;
+                        if (++numPrimaryTableFound > 1)
+                            return null;
+                    }
+                }
+            }
+
+            for (PrimaryKey key : irregularKeys) {
+                if (key.matchesName(name) && key.matchesType(column)) {
+                    primaryTable = key.table;
+                    if (++numPrimaryTableFound > 1)
+                        return null;
+                }
+            }
+
+            return primaryTable;
+        }
+
+        /**
+         * Plain names only contain printable ASCII characters, so they compare the same
+         * whether it's done by {@link String#compareToIgnoreCase(String)}, by a case-insensitive
+         * regular expression or by {@link #toLowerAscii(String)}.
+         */
+        private static boolean isPlain(String name, boolean literal) {
+            for (int i = 0; i < name.length(); ++i) {
+                char ch = name.charAt(i);
+                if (ch < ' ' || ch > '~' || (literal && META_CHARACTERS.indexOf(ch) != -1))
+                    return false;
+            }
+            return true;
+        }
+
+        private static String toLowerAscii(String name) {
+            char[] chars = null;
+            for (int i = 0; i < name.length(); ++i) {
+                char ch = name.charAt(i);
+                if (ch >= 'A' && ch <= 'Z') {
+                    if (chars == null)
+                        chars = name.toCharArray();
+                    chars[i] = (char)(ch + ('a' - 'A'));
+                }
+            }
+            return chars == null ? name : new String(chars);
+        }
+    }
+
+    private static class PrimaryKey {
+        private final DatabaseObject column;
+        private final Table table;
+        private final String name;
+        private final String tableName;
+        private Pattern suffixPattern;
+        private Pattern tablePattern;
+
+        PrimaryKey(DatabaseObject column, Table table) {
+            this.column = column;
+            this.table = table;
+            this.name = column.getName();
+            this.tableName = table.getName();
+        }
+
+        /**
+         * Name match for a plain name whose lower-cased form ends with this key's lower-cased name at <code>start</code>
+         */
+        boolean matchesSuffix(String childName, String lowerChildName, int start) {
+            // adress_id=adress_id
+            if (start == 0)
+                return true;
+            // shipping_adress_id like &description%_adress_id
+            if (lowerChildName.charAt(start - 1) == '_')
+                return true;
+            // order.adressid=>adress.id or order.adress_id=>adress.id: %tablename%PKcol%
+            return start >= tableName.length() && childName.regionMatches(true, 0, tableName, 0, tableName.length());
+        }
+
+        /**
+         * Name match for names that aren't plain enough for {@link #matchesSuffix(String, String, int)}
+         */
+        boolean matchesName(String childName) {
+            if (childName.compareToIgnoreCase(name) == 0)
+                return true;
+            if (suffixPattern == null) {
+                suffixPattern = Pattern.compile("(?i).*_" + name);
+                tablePattern = Pattern.compile("(?i)" + tableName + ".*" + name);
+            }
+            return suffixPattern.matcher(childName).matches() || tablePattern.matcher(childName).matches();
+        }
+
+        /**
+         * Checks that the column types or column type names are the same and that column lengths are the same
+         */
+        boolean matchesType(DatabaseObject child) {
+            Integer childType = child.getType();
+            Integer type = column.getType();
+            return ((childType != null && type != null && childType.intValue() == type.intValue())
+                    || child.getTypeName().compareToIgnoreCase(column.getTypeName()) == 0)
+                    && child.getLength() == column.getLength();
+        }
+    }
+
     /**
      * Ruby on Rails-based databases typically have no real referential integrity
      * constraints.  Instead they have a somewhat unusual way of associating
@@ -204,44 +350,57 @@ public class DbAnalyzer {
         List<Table> denormalizedTables = new ArrayList<Table>();
 
         for (Table table : tables) {
-            Map<String, Long> columnPrefixes = new HashMap<String, Long>();
-
-            for (TableColumn column : table.getColumns()) {
-                // search for columns that start with the same prefix
-                // and end in an incrementing number
-
-                String columnName = column.getName();
-                String numbers = null;
-                for (int i = columnName.length() - 1; i > 0; --i) {
-                    if (Character.isDigit(columnName.charAt(i))) {
-                        numbers = String.valueOf(columnName.charAt(i)) + (numbers == null ? "" : numbers);
-                    } else {
-                        break;
-                    }
-                }
+            if (hasIncrementingColumnNames(table))
+                denormalizedTables.add(table);
+        }
 
-                // attempt to detect where they had an existing column
-                // and added a "column2" type of column (we'll call this one "1")
-                if (numbers == null) {
-                    numbers = "1";
-                    columnName = columnName + numbers;
-                }
+        return sortTablesByName(denormalizedTables);
+    }
 
-                // see if we've already found a column with the same prefix
-                // that had a numeric suffix +/- 1.
-                String prefix = columnName.substring(0, columnName.length() - numbers.length());
-                long numeric = Long.parseLong(numbers);
-                Long existing = columnPrefixes.get(prefix);
-                if (existing != null && Math.abs(existing - numeric) == 1) {
-                    // found one so add it to our list and stop evaluating this table
-                    denormalizedTables.add(table);
+    /**
+     * Returns <code>true</code> if the table has columns that start with the same prefix
+     * and end in incrementing numbers (e.g. <code>phone1</code> and <code>phone2</code>).
+     *
+     * @param table Table
+     * @return boolean
+     */
+    public static boolean hasIncrementingColumnNames(Table table) {
+        Map<String, Long> columnPrefixes = new HashMap<String, Long>();
+
+        for (TableColumn column : table.getColumns()) {
+            // search for columns that start with the same prefix
+            // and end in an incrementing number
+
+            String columnName = column.getName();
+            String numbers = null;
+            for (int i = columnName.length() - 1; i > 0; --i) {
+                if (Character.isDigit(columnName.charAt(i))) {
+                    numbers = String.valueOf(columnName.charAt(i)) + (numbers == null ? "" : numbers);
+                } else {
                     break;
                 }
-                columnPrefixes.put(prefix, numeric);
             }
+
+            // attempt to detect where they had an existing column
+            // and added a "column2" type of column (we'll call this one "1")
+            if (numbers == null) {
+                numbers = "1";
+                columnName = columnName + numbers;
+            }
+
+            // see if we've already found a column with the same prefix
+            // that had a numeric suffix +/- 1.
+            String prefix = columnName.substring(0, columnName.length() - numbers.length());
+            long numeric = Long.parseLong(numbers);
+            Long existing = columnPrefixes.get(prefix);
+            if (existing != null && Math.abs(existing - numeric) == 1) {
+                // found one so stop evaluating this table
+                return true;
+            }
+            columnPrefixes.put(prefix, numeric);
         }
 
-        return sortTablesByName(denormalizedTables);
+        return false;
     }
 
     public static List<Table> getTablesWithOneColumn(Collection<Table> tables) {
@@ -292,12 +451,8 @@ public class DbAnalyzer {
 
         for (Table table : tables) {
             for (TableColumn column : table.getColumns()) {
-                Object defaultValue = column.getDefaultValue();
-                if (defaultValue != null && defaultValue instanceof String) {
-                    String defaultString = defaultValue.toString();
-                    if (defaultString.trim().equalsIgnoreCase("'null'")) {
-                        defaultNullStringColumns.add(column);
-                    }
+                if (hasDefaultNullString(column)) {
+                    defaultNullStringColumns.add(column);
                 }
             }
         }
@@ -305,6 +460,17 @@ public class DbAnalyzer {
         return sortColumnsByTable(defaultNullStringColumns);
     }
 
+    /**
+     * Returns <code>true</code> if the column has the word "NULL" or "null" as its default value
+     *
+     * @param column TableColumn
+     * @return boolean
+     */
+    public static boolean hasDefaultNullString(TableColumn column) {
+        Object defaultValue = column.getDefaultValue();
+        return defaultValue instanceof String && defaultValue.toString().trim().equalsIgnoreCase("'null'");
+    }
+
     /**
      * getSchemas - returns a List of catalog names (Strings)
      *
@@ -355,31 +521,35 @@ public class DbAnalyzer {
      * @param meta DatabaseMetaData
      */
     public static List<String> getPopulatedSchemas(DatabaseMetaData meta, String schemaSpec, boolean isCatalog) throws SQLException {
+        return getPopulatedSchemas(meta, schemaSpec, isCatalog, null, 1);
+    }
+
+    /**
+     * getSchemas - returns a List of schema names (Strings) that contain tables and
+     * match the <code>schemaSpec</code> regular expression.<p>
+     *
+     * If given, <code>populatedSchemasSql</code> (a dbtype's <code>selectPopulatedSchemasSql</code>)
+     * finds the schemas that contain tables with a single query.  Otherwise, or if it fails,
+     * each matching schema is checked for tables using up to <code>maxThreads</code> threads.
+     *
+     * @param meta DatabaseMetaData
+     * @param populatedSchemasSql returns schema_name along with its table_count
+     */
+    public static List<String> getPopulatedSchemas(DatabaseMetaData meta, String schemaSpec, boolean isCatalog,
+                                                   String populatedSchemasSql, int maxThreads) throws SQLException {
         Set<String> schemas = new TreeSet<String>(); // alpha sorted
         Pattern schemaRegex = Pattern.compile(schemaSpec);
         Logger logger = Logger.getLogger(DbAnalyzer.class.getName());
         boolean logging = logger.isLoggable(Level.FINE);
 
-        for (String schema : (isCatalog ? getCatalogs(meta) : getSchemas(meta))) {
+        Set<String> populated = null;
+        if (populatedSchemasSql != null && !isCatalog)
+            populated = selectPopulatedSchemas(meta, populatedSchemasSql);
+
+        List<String> candidates = new ArrayList<String>();
+        for (String schema : populated != null ? populated : isCatalog ? getCatalogs(meta) : getSchemas(meta)) {
             if (schemaRegex.matcher(schema).matches()) {
-                ResultSet rs = null;
-                try {
-                    rs = meta.getTables(null, schema, "%", null);
-                    if (rs.next()) {
-                        if (logging)
-                            logger.fine("Including schema " + schema +
-                                        ": matches + \"" + schemaRegex + "\" and contains tables");
-                        schemas.add(schema);
-                    } else {
-                        if (logging)
-                            logger.fine("Excluding schema " + schema +
-                                        ": matches \"" + schemaRegex + "\" but contains no tables");
-                    }
-                } catch (SQLException ignore) {
-                } finally {
-                    if (rs != null)
-                        rs.close();
-                }
+                candidates.add(schema);
             } else {
                 if (logging)
                     logger.fine("Excluding schema " + schema +
@@ -387,9 +557,103 @@ public class DbAnalyzer {
             }
         }
 
+        if (populated != null) {
+            schemas.addAll(candidates);
+        } else {
+            List<Boolean> hasTables = hasTables(meta, candidates, maxThreads);
+            for (int i = 0; i < candidates.size(); ++i) {
+                String schema = candidates.get(i);
+                if (hasTables.get(i)) {
+                    if (logging)
+                        logger.fine("Including schema " + schema +
+                                    ": matches + \"" + schemaRegex + "\" and contains tables");
+                    schemas.add(schema);
+                } else {
+                    if (logging)
+                        logger.fine("Excluding schema " + schema +
+                                    ": matches \"" + schemaRegex + "\" but contains no tables");
+                }
+            }
+        }
+
         return new ArrayList<String>(schemas);
     }
 
+    /**
+     * Returns the names of the schemas that <code>sql</code> says contain tables
+     * or <code>null</code> if it couldn't say
+     */
+    private static Set<String> selectPopulatedSchemas(DatabaseMetaData meta, String sql) {
+        Set<String> schemas = new LinkedHashSet<String>();
+        try (PreparedStatement stmt = MeasuredStatement.wrap(meta.getConnection().prepareStatement(sql), "selectPopulatedSchemasSql", null);
+             ResultSet rs = stmt.executeQuery()) {
+            while (rs.next()) {
+                String schema = rs.getString("schema_name");
+                if (schema != null && rs.getInt("table_count") > 0)
+                    schemas.add(schema);
+            }
+        } catch (SQLException exc) {
+            Logger.getLogger(DbAnalyzer.class.getName()).warning("Failed to determine the populated schemas with " + sql +
+                    ": " + exc + " - checking each of them instead");
+            return null;
+        }
+
+        return schemas;
+    }
+
+    /**
+     * Checks whether each of the <code>schemas</code> contains tables,
+     * checking up to <code>maxThreads</code> of them at a time
+     */
+    private static List<Boolean> hasTables(DatabaseMetaData meta, List<String> schemas, int maxThreads) throws SQLException {
+        List<Boolean> hasTables = new ArrayList<Boolean>(schemas.size());
+        int numThreads = Math.min(maxThreads, schemas.size());
+        if (numThreads <= 1) {
+            for (String schema : schemas)
+                hasTables.add(hasTables(meta, schema));
+            return hasTables;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>(schemas.size());
+            for (String schema : schemas)
+                results.add(executor.submit(() -> hasTables(meta, schema)));
+            for (Future<Boolean> result : results)
+                hasTables.add(result.get());
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while looking for schemas that contain tables", exc);
+        } catch (ExecutionException exc) {
+            throw new SQLException(exc.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return hasTables;
+    }
+
+    /**
+     * Returns <code>true</code> if <code>schema</code> contains any tables,
+     * only reading as far as the first one
+     */
+    private static boolean hasTables(DatabaseMetaData meta, String schema) {
+        ResultSet rs = null;
+        try {
+            rs = meta.getTables(null, schema, "%", null);
+            return rs.next();
+        } catch (SQLException ignore) {
+            return false;
+        } finally {
+            if (rs != null) {
+                try {
+                    rs.close();
+                } catch (SQLException ignore) {
+                }
+            }
+        }
+    }
+
     /**
      * For debugging/analyzing result sets
      * @param rs ResultSet
@@ -31,6 +31,7 @@ import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.Driver;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -39,6 +40,12 @@ import java.util.logging.Logger;
  */
 public class DbDriverLoader {
 
+    /**
+     * Drivers that have already been loaded, so their class loaders
+     * (and the jars they've opened) get reused by every connection
+     */
+    private static final Map<String, Driver> drivers = new ConcurrentHashMap<String, Driver>();
+
     private final Logger logger = Logger.getLogger(getClass().getName());
     private boolean loadJDBCJars = false;
 
@@ -108,6 +115,17 @@ public class DbDriverLoader {
      * @throws MalformedURLException
      */
     protected Driver getDriver(String driverClass, String driverPath) throws MalformedURLException {
+        String key = driverClass + File.pathSeparator + driverPath + File.pathSeparator + loadJDBCJars;
+        Driver driver = drivers.get(key);
+        if (driver == null) {
+            driver = loadDriver(driverClass, driverPath);
+            drivers.put(key, driver);
+        }
+
+        return driver;
+    }
+
+    private Driver loadDriver(String driverClass, String driverPath) throws MalformedURLException {
         Set<URL> classpath = getExistingUrls(driverPath);
         if (classpath.isEmpty()) {
             URL url = getClass().getResource(driverPath);
@@ -18,19 +18,37 @@
  */
 package org.schemaspy;
 
+import com.beust.jcommander.ParameterException;
 import org.schemaspy.cli.CommandLineArgumentParser;
 import org.schemaspy.cli.CommandLineArguments;
+import org.schemaspy.cli.ConfigFileArgumentParser;
+import org.schemaspy.cli.PropertyFileDefaultProvider;
+import org.schemaspy.cli.PropertyFileDefaultProviderFactory;
 import org.schemaspy.model.ConnectionFailure;
 import org.schemaspy.model.EmptySchemaException;
 import org.schemaspy.model.InvalidConfigurationException;
 import org.schemaspy.model.ProcessExecutionException;
+import org.schemaspy.service.DatabaseService;
+import org.schemaspy.service.SqlService;
+import org.schemaspy.service.TableService;
+import org.schemaspy.service.ViewService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.ResourceBanner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingInitializationContext;
+import org.springframework.boot.logging.LoggingSystem;
 import org.springframework.context.ApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.ResourcePropertySource;
 
+import java.io.IOException;
 import java.util.Arrays;
+import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -39,6 +57,14 @@ public class Main implements CommandLineRunner {
 
     private static final Logger LOGGER = Logger.getLogger(Main.class.getName());
 
+    /**
+     * System property that, when <code>true</code>, has Spring Boot scan for and wire
+     * the services instead of {@link #bootstrap(String...)} wiring them directly
+     */
+    private static final String SPRING_PROPERTY = "schemaspy.spring";
+
+    private static final String LOGGING_LEVEL_PREFIX = "logging.level.";
+
     @Autowired
     private SchemaAnalyzer analyzer;
 
@@ -52,7 +78,80 @@ public class Main implements CommandLineRunner {
     private ApplicationContext context;
 
     public static void main(String... args) throws Exception {
-        SpringApplication.run(Main.class, args);
+        if (args.length > 0 && "-server".equals(args[0])) {
+            initLogging();
+            AnalysisServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        if (Boolean.getBoolean(SPRING_PROPERTY)) {
+            SpringApplication.run(Main.class, args);
+            return;
+        }
+
+        bootstrap(args).run(args);
+    }
+
+    /**
+     * Does what starting the Spring context does for a run, without its classpath
+     * scanning and auto-configuration: configures logging from <code>application.properties</code>,
+     * prints the banner and wires the services together.
+     */
+    private static Main bootstrap(String... args) throws IOException {
+        ConfigurableEnvironment environment = initLogging();
+        new ResourceBanner(new ClassPathResource("banner.txt")).printBanner(environment, Main.class, System.out);
+
+        Optional<String> configFileName = new ConfigFileArgumentParser().parseConfigFileArgumentValue(args);
+        Optional<PropertyFileDefaultProvider> defaultProvider = new PropertyFileDefaultProviderFactory().create(configFileName.orElse(null));
+        CommandLineArgumentParser commandLineArgumentParser = new CommandLineArgumentParser(defaultProvider.orElse(null));
+        CommandLineArguments arguments;
+        try {
+            arguments = commandLineArgumentParser.parse(args);
+        } catch (ParameterException e) {
+            LOGGER.log(Level.SEVERE, e.getLocalizedMessage());
+            System.exit(1);
+            return null;
+        }
+
+        Main main = new Main();
+        main.arguments = arguments;
+        main.commandLineArgumentParser = commandLineArgumentParser;
+        main.analyzer = createAnalyzer(arguments);
+        return main;
+    }
+
+    /**
+     * Configures logging the way that Spring Boot would from <code>application.properties</code>
+     *
+     * @return the environment that logging was configured from
+     */
+    private static ConfigurableEnvironment initLogging() throws IOException {
+        // holds back logging until it's configured
+        LoggingSystem loggingSystem = LoggingSystem.get(Main.class.getClassLoader());
+        loggingSystem.beforeInitialize();
+
+        StandardEnvironment environment = new StandardEnvironment();
+        ResourcePropertySource applicationProperties = new ResourcePropertySource(new ClassPathResource("application.properties"));
+        environment.getPropertySources().addLast(applicationProperties);
+        loggingSystem.initialize(new LoggingInitializationContext(environment), null, null);
+        for (String name : applicationProperties.getPropertyNames()) {
+            if (name.startsWith(LOGGING_LEVEL_PREFIX)) {
+                String loggerName = name.substring(LOGGING_LEVEL_PREFIX.length());
+                LogLevel level = LogLevel.valueOf(environment.getProperty(name).trim().toUpperCase());
+                loggingSystem.setLogLevel("root".equalsIgnoreCase(loggerName) ? null : loggerName, level);
+            }
+        }
+        return environment;
+    }
+
+    /**
+     * Wires the services that analyze a database the same way that the Spring context does
+     */
+    static SchemaAnalyzer createAnalyzer(CommandLineArguments arguments) {
+        SqlService sqlService = new SqlService(arguments);
+        TableService tableService = new TableService(sqlService, arguments);
+        DatabaseService databaseService = new DatabaseService(tableService, new ViewService(sqlService), sqlService);
+        return new SchemaAnalyzer(sqlService, databaseService, arguments);
     }
 
     @Override
@@ -103,7 +202,9 @@ public class Main implements CommandLineRunner {
     }
 
     private void exitApplication(int returnCode) {
-        SpringApplication.exit(context, () -> returnCode);
+        // without a Spring context there's nothing to shut down
+        if (context != null)
+            SpringApplication.exit(context, () -> returnCode);
     }
 
 }
\ No newline at end of file
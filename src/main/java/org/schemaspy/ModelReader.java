@@ -0,0 +1,271 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy;
+
+import org.schemaspy.model.*;
+import org.schemaspy.util.Markdown;
+import org.schemaspy.view.BinaryModelFormatter;
+
+import java.io.*;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Rebuilds a {@link Database} from a model that a previous run wrote to a file
+ * (the XML or the {@link BinaryModelFormatter binary form}) so that it can be
+ * rendered without connecting to the database.<p>
+ *
+ * Implied constraints aren't read back since they get derived from the model
+ * again (or not) based on the options of the run that renders it.
+ */
+public abstract class ModelReader {
+    protected final Config config;
+    protected final ProgressListener listener;
+    protected Database db;
+
+    // foreign keys can refer to tables that haven't been read yet
+    private final Map<Table, Map<String, PendingForeignKey>> foreignKeys = new LinkedHashMap<Table, Map<String, PendingForeignKey>>();
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+
+    protected ModelReader(Config config, ProgressListener listener) {
+        this.config = config;
+        this.listener = listener;
+    }
+
+    /**
+     * Reads the model from <code>file</code>, which can be gzip compressed,
+     * determining its format from its contents.
+     *
+     * @param config
+     * @param file
+     * @param listener
+     * @return
+     * @throws IOException
+     */
+    public static Database read(Config config, File file, ProgressListener listener) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            if (file.getName().endsWith(".gz"))
+                in = new BufferedInputStream(new GZIPInputStream(in));
+
+            byte[] magic = new byte[BinaryModelFormatter.MAGIC.length];
+            in.mark(magic.length);
+            int length = in.read(magic);
+            in.reset();
+
+            ModelReader reader;
+            if (length == magic.length && Arrays.equals(magic, BinaryModelFormatter.MAGIC))
+                reader = new BinaryModelReader(config, listener);
+            else
+                reader = new XmlModelReader(config, listener);
+
+            return reader.read(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Reads the model from <code>in</code>
+     *
+     * @param in
+     * @return
+     * @throws IOException
+     */
+    public abstract Database read(InputStream in) throws IOException;
+
+    protected Database createDatabase(String name, String catalog, String schema, String databaseProduct) {
+        listener.startedGatheringDetails();
+
+        try {
+            // models of databases without catalogs are named after the database
+            db = new Database(config, null, name, catalog == null ? name : catalog, schema, null, listener);
+        } catch (SQLException exc) {
+            throw new IllegalStateException(exc);  // not thrown when there's no metadata
+        }
+        db.setDatabaseProduct(databaseProduct == null ? "" : databaseProduct);
+        return db;
+    }
+
+    protected Table addTable(String catalog, String schema, String name, String comments, boolean isView, String viewSql) {
+        Table table;
+        if (isView) {
+            View view = new View(db, catalog, new Schema(schema), name, comments, viewSql);
+            db.getViewsMap().put(name, view);
+            table = view;
+        } else {
+            table = new Table(db, catalog, new Schema(schema), name, comments);
+            db.getTablesMap().put(name, table);
+        }
+
+        // the pages of tables can be linked to from comments
+        Markdown.registryPage(name, "tables/" + name + ".html");
+        listener.gatheringDetailsProgressed(table);
+        return table;
+    }
+
+    /**
+     * Returns the remote table, creating it if it hasn't been read
+     */
+    protected Table getRemoteTable(String catalog, String schema, String name) {
+        String key = db.getRemoteTableKey(catalog, schema, name);
+        Table table = db.getRemoteTablesMap().get(key);
+        if (table == null) {
+            String baseContainer = db.getSchema().getName() != null ? db.getSchema().getName()
+                    : db.getCatalog().getName() != null ? db.getCatalog().getName() : db.getName();
+            table = new RemoteTable(db, catalog, new Schema(schema), name, baseContainer);
+            db.getRemoteTablesMap().put(key, table);
+        }
+
+        return table;
+    }
+
+    protected TableColumn addColumn(Table table, Object id, String name) {
+        TableColumn column = new TableColumn(table);
+        column.setId(id);
+        column.setName(db.getStringPool().get(name));
+        table.getColumnsMap().put(name, column);
+        return column;
+    }
+
+    /**
+     * Sets the length and decimal digits of <code>column</code> along with the
+     * detailed size that gets derived from them
+     */
+    protected static void setSize(TableColumn column, int length, int decimalDigits) {
+        column.setLength(length);
+        column.setDecimalDigits(decimalDigits);
+        column.setDetailedSize(decimalDigits > 0 ? length + "," + decimalDigits : String.valueOf(length));
+    }
+
+    /**
+     * IDs are usually numbers, which sort differently than their string form
+     */
+    protected static Object toId(String id) {
+        if (id == null || id.isEmpty() || id.length() > 9)
+            return id;
+
+        for (int i = 0; i < id.length(); ++i) {
+            if (!Character.isDigit(id.charAt(i)))
+                return id;
+        }
+
+        return Integer.valueOf(id);
+    }
+
+    /**
+     * Adds a column of a foreign key to be connected by {@link #connectForeignKeys()}
+     */
+    protected void addForeignKeyColumn(Table child, String name, int updateRule, int deleteRule, String childColumn,
+                                       String parentCatalog, String parentSchema, String parentTable, String parentColumn) {
+        // constraints without a name were derived (e.g. by -rails) rather than read from the database
+        if (name == null)
+            return;
+
+        Map<String, PendingForeignKey> childForeignKeys = foreignKeys.get(child);
+        if (childForeignKeys == null) {
+            childForeignKeys = new LinkedHashMap<String, PendingForeignKey>();
+            foreignKeys.put(child, childForeignKeys);
+        }
+
+        PendingForeignKey foreignKey = childForeignKeys.get(name);
+        if (foreignKey == null) {
+            foreignKey = new PendingForeignKey(name, updateRule, deleteRule, parentCatalog, parentSchema, parentTable);
+            childForeignKeys.put(name, foreignKey);
+        }
+
+        foreignKey.childColumns.add(childColumn);
+        foreignKey.parentColumns.add(parentColumn);
+    }
+
+    /**
+     * Connects the columns of the foreign keys that were read.
+     * Referenced tables that weren't read are created as remote tables.
+     */
+    protected void connectForeignKeys() {
+        listener.startedConnectingTables();
+
+        for (Map.Entry<Table, Map<String, PendingForeignKey>> childForeignKeys : foreignKeys.entrySet()) {
+            Table child = childForeignKeys.getKey();
+            listener.connectingTablesProgressed(child);
+
+            for (PendingForeignKey pending : childForeignKeys.getValue().values()) {
+                Table parent = db.getLocals().get(pending.parentTable);
+                if (parent == null || !Objects.equals(parent.getCatalog(), pending.parentCatalog)
+                        || !Objects.equals(parent.getSchema().getName(), pending.parentSchema))
+                    parent = getRemoteTable(pending.parentCatalog, pending.parentSchema, pending.parentTable);
+
+                ForeignKeyConstraint foreignKey = new ForeignKeyConstraint(child, pending.name, pending.updateRule, pending.deleteRule);
+                child.getForeignKeysMap().put(pending.name, foreignKey);
+
+                for (int i = 0; i < pending.childColumns.size(); ++i) {
+                    TableColumn childColumn = child.getColumn(pending.childColumns.get(i));
+                    TableColumn parentColumn = parent.getColumn(pending.parentColumns.get(i));
+                    if (childColumn == null) {
+                        logger.warning("Couldn't add FK '" + pending.name + "' to table '" + child.getName()
+                                + "' - Column '" + pending.childColumns.get(i) + "' doesn't exist");
+                        continue;
+                    }
+                    if (parentColumn == null) {
+                        if (!parent.isRemote()) {
+                            logger.warning("Couldn't add FK '" + pending.name + "' to table '" + child.getName()
+                                    + "' - Column '" + pending.parentColumns.get(i) + "' doesn't exist in table '" + parent + "'");
+                            continue;
+                        }
+
+                        // only the names of the referenced columns of remote tables are known
+                        parentColumn = addColumn(parent, null, pending.parentColumns.get(i));
+                        parentColumn.setTypeName(childColumn.getTypeName());
+                        parentColumn.setType(childColumn.getType());
+                        setSize(parentColumn, childColumn.getLength(), childColumn.getDecimalDigits());
+                    }
+
+                    foreignKey.addChildColumn(childColumn);
+                    foreignKey.addParentColumn(parentColumn);
+                    childColumn.addParent(parentColumn, foreignKey);
+                    parentColumn.addChild(childColumn, foreignKey);
+                }
+            }
+        }
+
+        foreignKeys.clear();
+    }
+
+    private static class PendingForeignKey {
+        private final String name;
+        private final int updateRule;
+        private final int deleteRule;
+        private final String parentCatalog;
+        private final String parentSchema;
+        private final String parentTable;
+        private final List<String> childColumns = new ArrayList<String>();
+        private final List<String> parentColumns = new ArrayList<String>();
+
+        PendingForeignKey(String name, int updateRule, int deleteRule, String parentCatalog, String parentSchema, String parentTable) {
+            this.name = name;
+            this.updateRule = updateRule;
+            this.deleteRule = deleteRule;
+            this.parentCatalog = parentCatalog;
+            this.parentSchema = parentSchema;
+            this.parentTable = parentTable;
+        }
+    }
+}
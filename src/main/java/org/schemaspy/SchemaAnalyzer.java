@@ -21,20 +21,23 @@ package org.schemaspy;
 import java.io.File;
 import java.io.FileFilter;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URL;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerException;
 //import javax.xml.validation.Schema;
 
 import org.schemaspy.cli.CommandLineArguments;
@@ -43,10 +46,12 @@ import org.schemaspy.model.Database;
 import org.schemaspy.model.EmptySchemaException;
 import org.schemaspy.model.ForeignKeyConstraint;
 import org.schemaspy.model.ImpliedForeignKeyConstraint;
-import org.schemaspy.model.InvalidConfigurationException;
+import org.schemaspy.model.MetricsProgressListener;
+import org.schemaspy.model.PersistentMetadataCache;
 import org.schemaspy.model.ProgressListener;
 import org.schemaspy.model.Table;
 import org.schemaspy.model.TableColumn;
+import org.schemaspy.model.TableMetadataCache;
 import org.schemaspy.model.xml.SchemaMeta;
 import org.schemaspy.model.xml.SchemaMetaModel;
 import org.schemaspy.service.DatabaseService;
@@ -58,8 +63,6 @@ import org.apache.commons.io.filefilter.IOFileFilter;
 import org.schemaspy.view.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
 
 /**
  * @author John Currier
@@ -75,6 +78,18 @@ public class SchemaAnalyzer {
 
     private final CommandLineArguments commandLineArguments;
 
+    /**
+     * Directory that layout files have already been written to and that
+     * schema specific output directories can share them from
+     */
+    private File sharedLayoutDir;
+
+    /**
+     * Strings and table metadata that the schemas being analyzed share
+     */
+    private StringPool sharedStrings;
+    private TableMetadataCache sharedTableMetadata;
+
     public SchemaAnalyzer(SqlService sqlService, DatabaseService databaseService, CommandLineArguments commandLineArguments) {
         this.sqlService = Objects.requireNonNull(sqlService);
         this.databaseService = Objects.requireNonNull(databaseService);
@@ -88,21 +103,72 @@ public class SchemaAnalyzer {
         boolean render = config.isHtmlGenerationEnabled() && !fineEnabled;
         ProgressListener progressListener = new ConsoleProgressListener(render, commandLineArguments);
         
-    	// if -all(evaluteAll) or -schemas given then analyzeMultipleSchemas  
-        List<String> schemas = config.getSchemas();
-        if (schemas != null || config.isEvaluateAllEnabled()) {
-        	return this.analyzeMultipleSchemas(config, progressListener);
-        } else {
-            File outputDirectory = commandLineArguments.getOutputDirectory();
-            Objects.requireNonNull(outputDirectory);
-            String schema = commandLineArguments.getSchema();
-            return analyze(schema, config, outputDirectory, progressListener);
+        File outputDirectory = commandLineArguments.getOutputDirectory();
+        Objects.requireNonNull(outputDirectory);
+
+        String bundle = config.getBundle();
+        if (bundle != null)
+            OutputSink.setInstance(new ZipOutputSink(outputDirectory, new File(bundle)));
+
+        RunMetrics metrics = config.isMetricsEnabled() ? new RunMetrics() : null;
+        RunMetrics.setInstance(metrics);
+        if (metrics != null)
+            progressListener = new MetricsProgressListener(progressListener, metrics);
+
+        try {
+            // if -all(evaluteAll) or -schemas given then analyzeMultipleSchemas
+            List<String> schemas = config.getSchemas();
+            if (schemas != null || config.isEvaluateAllEnabled()) {
+                return this.analyzeMultipleSchemas(config, progressListener);
+            } else {
+                String schema = commandLineArguments.getSchema();
+                return analyze(schema, config, outputDirectory, progressListener);
+            }
+        } finally {
+            sqlService.closeIdleConnections();
+            if (metrics != null) {
+                writeMetrics(config, outputDirectory, metrics);
+                RunMetrics.setInstance(null);
+            }
+            if (bundle != null) {
+                OutputSink.getInstance().close();
+                OutputSink.setInstance(null);
+                logger.info("Bundled the generated output into " + bundle);
+            }
+        }
+    }
+
+    private void writeMetrics(Config config, File outputDirectory, RunMetrics metrics) {
+        List<RunMetrics.Execution> slowest = metrics.getSlowestQueries();
+        if (!slowest.isEmpty()) {
+            StringBuilder report = new StringBuilder("Slowest queries of the run:");
+            for (RunMetrics.Execution execution : slowest)
+                report.append(System.lineSeparator()).append('\t').append(execution);
+            logger.info(report.toString());
+        }
+
+        File file = new File(outputDirectory, RunMetrics.FILE_NAME);
+        try {
+            outputDirectory.mkdirs();
+            try (OutputStream out = OutputSink.getInstance().open(file)) {
+                metrics.write(out);
+            }
+            logger.info("Wrote the metrics of the run to " + file);
+        } catch (IOException exc) {
+            logger.log(Level.WARNING, "Failed to write " + file, exc);
+        }
+
+        if (config.isHtmlGenerationEnabled() && outputDirectory.isDirectory()) {
+            boolean multipleSchemas = config.getSchemas() != null || config.isEvaluateAllEnabled();
+            HtmlSlowQueriesPage.getInstance().write(outputDirectory, config.getDb(), slowest, multipleSchemas);
+            logger.info("Wrote the slowest queries of the run to " + new File(outputDirectory, HtmlSlowQueriesPage.FILE_NAME));
         }
     }
 
 	public Database analyzeMultipleSchemas(Config config, ProgressListener progressListener)throws SQLException, IOException {
         try {
             // following params will be replaced by something appropriate
+            // (this also pulls all of the options before the schemas share them)
             List<String> args = config.asList();
             args.remove("-schemas");
             args.remove("-schemata");
@@ -110,7 +176,7 @@ public class SchemaAnalyzer {
             List<String> schemas = config.getSchemas();
             Database db = null;
         	String schemaSpec = config.getSchemaSpec();
-            Connection connection = this.getConnection(config);
+            Connection connection = sqlService.openConnection(config);
             DatabaseMetaData meta = connection.getMetaData();
             //-all(evaluteAll) given then get list of the database schemas
             if (schemas == null || config.isEvaluateAllEnabled()) {
@@ -118,52 +184,142 @@ public class SchemaAnalyzer {
             		schemaSpec=".*";
                 System.out.println("Analyzing schemas that match regular expression '" + schemaSpec + "':");
                 System.out.println("(use -schemaSpec on command line or in .properties to exclude other schemas)");
-                schemas = DbAnalyzer.getPopulatedSchemas(meta, schemaSpec, false);
+                String populatedSchemasSql = config.getDbProperties().getProperty("selectPopulatedSchemasSql");
+                schemas = DbAnalyzer.getPopulatedSchemas(meta, schemaSpec, false, populatedSchemasSql, config.getMaxDbThreads());
                 if (schemas.isEmpty())
-                	schemas = DbAnalyzer.getPopulatedSchemas(meta, schemaSpec, true);
+                	schemas = DbAnalyzer.getPopulatedSchemas(meta, schemaSpec, true, null, config.getMaxDbThreads());
                 if (schemas.isEmpty())
                 	schemas = Arrays.asList(new String[] {config.getUser()});
             }
 
         	System.out.println("Analyzing schemas: "+schemas.toString());
+        	// let the first schema reuse the connection
+        	sqlService.release(connection);
         	
 	        String dbName = config.getDb();
 	        File outputDir = commandLineArguments.getOutputDirectory();
 	        // set flag which later on used for generation rootPathtoHome link.
 	        config.setOneOfMultipleSchemas(true);
 
+	        // write the layout files once and let each of the schemas share them
+	        // (not possible when bundling since the shared files don't end up on disk)
+	        prepareLayoutFiles(outputDir);
+	        if (config.getBundle() == null)
+	            sharedLayoutDir = outputDir;
+	        sharedStrings = new StringPool();
+	        sharedTableMetadata = new TableMetadataCache();
+
 	        List<MustacheSchema> mustacheSchemas =new ArrayList<MustacheSchema>();
 	        MustacheCatalog  mustacheCatalog = null; 
-	        for (String schema : schemas) {
-	        	// reset -all(evaluteAll) and -schemas parametter to avoid infinite loop! now we are analyzing single schema
-	        	config.setSchemas(null);
-	            config.setEvaluateAllEnabled(false);
-	            if (dbName == null)
-	            	config.setDb(schema);
-	            else
-	        		config.setSchema(schema);
-
-                System.out.println("Analyzing " + schema);
-                System.out.flush();
-                File outputDirForSchema = new File(outputDir, schema);
-                db = this.analyze(schema, config, outputDirForSchema, progressListener);
+	        for (Database analyzed : analyzeSchemas(config, schemas, outputDir, progressListener)) {
+                db = analyzed;
                 if (db == null) //if any of analysed schema returns null
                     return db;
                 mustacheSchemas.add(new MustacheSchema(db.getSchema(),""));
                 mustacheCatalog = new MustacheCatalog(db.getCatalog(), "");
 	        }
 
-            prepareLayoutFiles(outputDir);
             HtmlMultipleSchemasIndexPage.getInstance().write(outputDir, dbName, mustacheCatalog ,mustacheSchemas, meta);
 	        
 	        return db;
         } catch (Config.MissingRequiredParameterException missingParam) {
             config.dumpUsage(missingParam.getMessage(), missingParam.isDbTypeSpecific());
             return null;
+        } finally {
+            sharedLayoutDir = null;
+            sharedStrings = null;
+            if (sharedTableMetadata != null && sharedTableMetadata.getHits() > 0)
+                logger.info("Reused the metadata of " + sharedTableMetadata.getHits() + " tables that were referenced by more than one schema");
+            sharedTableMetadata = null;
+        }
+    }
+
+    /**
+     * Analyzes each of the <code>schemas</code> with a pool of workers. Each schema gets
+     * its own copy of the configuration and, through it, its own connection.
+     *
+     * @return the analyzed databases in the same order as <code>schemas</code>,
+     * ending with <code>null</code> if one of them couldn't be analyzed
+     */
+    private List<Database> analyzeSchemas(Config config, List<String> schemas, File outputDir, ProgressListener progressListener) throws SQLException, IOException {
+        int numThreads = Math.min(config.getMaxSchemaThreads(), schemas.size());
+        List<Callable<Database>> workers = new ArrayList<Callable<Database>>();
+        for (String schema : schemas) {
+            Config schemaConfig = config.forSchema(schema);
+            File outputDirForSchema = new File(outputDir, schema);
+            // the console can only show the progress of one schema at a time
+            ProgressListener listener = numThreads == 1 ? progressListener : createQuietListener();
+            workers.add(() -> {
+                System.out.println("Analyzing " + schema);
+                System.out.flush();
+                return analyze(schema, schemaConfig, outputDirForSchema, listener);
+            });
+        }
+
+        List<Database> databases = new ArrayList<Database>();
+        if (numThreads <= 1) {
+            for (Callable<Database> worker : workers) {
+                Database db = call(worker);
+                databases.add(db);
+                if (db == null)
+                    break;
+            }
+            return databases;
+        }
+
+        logger.info("Analyzing up to " + numThreads + " schemas at a time");
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<Database>> results = new ArrayList<Future<Database>>();
+            for (Callable<Database> worker : workers)
+                results.add(executor.submit(worker));
+            for (Future<Database> result : results)
+                databases.add(result.get());
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while analyzing schemas", exc);
+        } catch (ExecutionException exc) {
+            Throwable cause = exc.getCause();
+            if (cause instanceof SQLException)
+                throw (SQLException)cause;
+            if (cause instanceof IOException)
+                throw (IOException)cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            if (cause instanceof Error)
+                throw (Error)cause;
+            throw new IllegalStateException(cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return databases;
+    }
+
+    /**
+     * Returns a listener for a schema whose progress can't be shown on the console
+     */
+    private ProgressListener createQuietListener() {
+        ProgressListener listener = new ConsoleProgressListener(false, commandLineArguments);
+        RunMetrics metrics = RunMetrics.getInstance();
+        return metrics == null ? listener : new MetricsProgressListener(listener, metrics);
+    }
+
+    /**
+     * Calls <code>worker</code>, only letting the exceptions that analysis can throw through
+     */
+    private static Database call(Callable<Database> worker) throws SQLException, IOException {
+        try {
+            return worker.call();
+        } catch (SQLException | IOException | RuntimeException exc) {
+            throw exc;
+        } catch (Exception exc) {
+            throw new IllegalStateException(exc);
         }
     }
 
     public Database analyze(String schema, Config config, File outputDir,  ProgressListener progressListener) throws SQLException, IOException {
+        DatabaseMetaData meta = null;
         try {
             // set the log level for the root logger
             Logger.getLogger("").setLevel(config.getLogLevel());
@@ -186,40 +342,79 @@ public class SchemaAnalyzer {
             }
 
             String dbName = config.getDb();
+            SchemaMetaModel schemaMeta = null;
+            Database db;
 
-            String catalog = commandLineArguments.getCatalog();
-            String metaModelExtensionClassPath = commandLineArguments.getMetaModelPath();
-            String metaModelExtensionClassName = commandLineArguments.getMetaModelClass();
+            String offlineModel = config.getOfflineModel();
+            if (offlineModel != null) {
+                // render what a previous run gathered rather than gathering it again
+                db = ModelReader.read(config, new File(offlineModel), progressListener);
+                dbName = db.getName();
+                schema = db.getSchema().getName();
 
-            DatabaseMetaData meta = sqlService.connect(config);
+                if (config.isHtmlGenerationEnabled()) {
+                    new File(outputDir, "tables").mkdirs();
+                    new File(outputDir, "diagrams/summary").mkdirs();
 
-            logger.fine("supportsSchemasInTableDefinitions: " + meta.supportsSchemasInTableDefinitions());
-            logger.fine("supportsCatalogsInTableDefinitions: " + meta.supportsCatalogsInTableDefinitions());
+                    logger.info("Loaded the model of " + db.getDatabaseProduct() + " from " + offlineModel);
+                }
+            } else {
+                String catalog = commandLineArguments.getCatalog();
+                String metaModelExtensionClassPath = commandLineArguments.getMetaModelPath();
+                String metaModelExtensionClassName = commandLineArguments.getMetaModelClass();
+
+                meta = sqlService.connect(config);
 
-            // set default Catalog and Schema of the connection
-            if(schema == null)
-            	schema = meta.getConnection().getSchema();
-            if(catalog == null)
-            	catalog = meta.getConnection().getCatalog();
+                logger.fine("supportsSchemasInTableDefinitions: " + meta.supportsSchemasInTableDefinitions());
+                logger.fine("supportsCatalogsInTableDefinitions: " + meta.supportsCatalogsInTableDefinitions());
+
+                // set default Catalog and Schema of the connection
+                if(schema == null)
+                	schema = meta.getConnection().getSchema();
+                if(catalog == null)
+                	catalog = meta.getConnection().getCatalog();
             
-            SchemaMetaModel schemaMeta = config.getMeta() == null ? null : new SchemaMetaModel(config.getMeta(), 
-            		metaModelExtensionClassPath, metaModelExtensionClassName, dbName, schema);
-            if (config.isHtmlGenerationEnabled()) {
-                new File(outputDir, "tables").mkdirs();
-                new File(outputDir, "diagrams/summary").mkdirs();
+                schemaMeta = config.getMeta() == null ? null : new SchemaMetaModel(config.getMeta(), 
+                		metaModelExtensionClassPath, metaModelExtensionClassName, dbName, schema);
+                if (config.isHtmlGenerationEnabled()) {
+                    new File(outputDir, "tables").mkdirs();
+                    new File(outputDir, "diagrams/summary").mkdirs();
 
-                logger.info("Connected to " + meta.getDatabaseProductName() + " - " + meta.getDatabaseProductVersion());
+                    logger.info("Connected to " + meta.getDatabaseProductName() + " - " + meta.getDatabaseProductVersion());
 
-                if (schemaMeta != null && schemaMeta.getFile() != null) {
-                    logger.info("Using additional metadata from " + schemaMeta.getFile());
+                    if (schemaMeta != null && schemaMeta.getFile() != null) {
+                        logger.info("Using additional metadata from " + schemaMeta.getFile());
+                    }
                 }
-            }
 
-            //
-            // create our representation of the database
-            //
-            Database db = new Database(config, meta, dbName, catalog, schema, schemaMeta, progressListener);
-            databaseService.gatheringSchemaDetails(config, db, progressListener);
+                //
+                // create our representation of the database
+                //
+                db = new Database(config, MeasuredMetaData.wrap(meta), dbName, catalog, schema, schemaMeta, progressListener);
+                if (sharedTableMetadata != null) {
+                    db.setStringPool(sharedStrings);
+                    db.setTableMetadataCache(sharedTableMetadata);
+                }
+                if (config.isMetadataCacheEnabled()) {
+                    // what was cached for another database/user/schema doesn't apply
+                    String key = config.getDbType() + '\n' + meta.getURL() + '\n' + meta.getUserName()
+                            + '\n' + catalog + '\n' + schema;
+                    db.setPersistentMetadataCache(PersistentMetadataCache.load(outputDir, key));
+                }
+                databaseService.gatheringSchemaDetails(config, db, progressListener);
+                logger.info(db.getStringPool().toString());
+                PersistentMetadataCache metadataCache = db.getPersistentMetadataCache();
+                if (metadataCache != null) {
+                    logger.info("Reused the cached metadata of " + metadataCache.getReused() + " of "
+                            + (db.getTables().size() + db.getViews().size()) + " tables/views");
+                    metadataCache.save(outputDir);
+                }
+                if (sharedTableMetadata != null) {
+                    // the schemas analyzed after this one get its tables from here rather than the database
+                    sharedTableMetadata.addEvaluated(db.getTables());
+                    sharedTableMetadata.addEvaluated(db.getViews());
+                }
+            }
 
             long duration = progressListener.startedGraphingSummaries();
 
@@ -230,33 +425,23 @@ public class SchemaAnalyzer {
             tables.addAll(db.getViews());
 
             if (tables.isEmpty()) {
-                dumpNoTablesMessage(schema, config.getUser(), meta, config.getTableInclusions() != null);
+                if (meta != null)
+                    dumpNoTablesMessage(schema, config.getUser(), meta, config.getTableInclusions() != null);
+                else
+                    System.out.println("No tables or views were found in '" + offlineModel + "'.");
                 if (!config.isOneOfMultipleSchemas()) // don't bail if we're doing the whole enchilada
                     throw new EmptySchemaException();
             }
 
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder builder;
-			try {
-				builder = factory.newDocumentBuilder();
-			} catch (ParserConfigurationException exc) {
-				throw new RuntimeException(exc);
-			}
-
-            Document document = builder.newDocument();
-            Element rootNode = document.createElement("database");
-            document.appendChild(rootNode);
-            DOMUtil.appendAttribute(rootNode, "name", dbName);
-            if (schema != null)
-                DOMUtil.appendAttribute(rootNode, "schema", schema);
-            DOMUtil.appendAttribute(rootNode, "type", db.getDatabaseProduct());
+            List<ForeignKeyConstraint> recursiveConstraints = new ArrayList<ForeignKeyConstraint>();
+            CompletableFuture<List<Table>> orderedTables;
 
             if (config.isHtmlGenerationEnabled()) {
-                generateHtmlDoc(config, progressListener, outputDir, db, duration, tables);
+                orderedTables = generateHtmlDoc(config, progressListener, outputDir, db, duration, tables, recursiveConstraints);
+            } else {
+                orderedTables = orderTables(db, recursiveConstraints);
             }
 
-            XmlTableFormatter.getInstance().appendTables(rootNode, tables);
-
             String xmlName = dbName;
 
             // some dbNames have path info in the name...strip it
@@ -269,34 +454,34 @@ public class SchemaAnalyzer {
             if (schema != null)
                 xmlName += '.' + schema;
 
-            out = new LineWriter(new File(outputDir, xmlName + ".xml"), Config.DOT_CHARSET);
+            // each table gets written as it's visited so memory use doesn't depend on the size of the schema
+            out = new LineWriter(GzipSiblingOutputStream.open(new File(outputDir, xmlName + ".xml")), Config.DOT_CHARSET);
             try {
-                document.getDocumentElement().normalize();
-                DOMUtil.printDOM(document, out);
-			} catch (TransformerException exc) {
-				throw new IOException(exc);
-			} finally {
+                XmlWriter xml = new XmlWriter(out);
+                xml.writeStartDocument();
+                xml.writeStartElement("database");
+                xml.writeAttribute("name", dbName);
+                xml.writeAttribute("schema", schema);
+                xml.writeAttribute("type", db.getDatabaseProduct());
+                XmlTableFormatter.getInstance().writeTables(xml, tables);
+                xml.writeEndDocument();
+            } finally {
                 out.close();
             }
 
-            // 'try' to make some memory available for the sorting process
-            // (some people have run out of memory while RI sorting tables)
-            builder = null;
-            document = null;
-            factory = null;
-            meta = null;
-            rootNode = null;
-
-            List<ForeignKeyConstraint> recursiveConstraints = new ArrayList<ForeignKeyConstraint>();
-
-            // create an orderer to be able to determine insertion and deletion ordering of tables
-            TableOrderer orderer = new TableOrderer();
-
-            // side effect is that the RI relationships get trashed
-            // also populates the recursiveConstraints collection
-            List<Table> orderedTables = orderer.getTablesOrderedByRI(db.getTables(), recursiveConstraints);
+            List<ModelFormatter> modelFormatters = new ArrayList<ModelFormatter>();
+            if (config.isJsonEnabled())
+                modelFormatters.add(JsonModelFormatter.getInstance());
+            if (config.isBinaryModelEnabled())
+                modelFormatters.add(BinaryModelFormatter.getInstance());
+            for (ModelFormatter modelFormatter : modelFormatters) {
+                try (OutputStream modelOut = GzipSiblingOutputStream.open(new File(outputDir, xmlName + '.' + modelFormatter.getFileExtension()))) {
+                    modelFormatter.write(db, tables, modelOut);
+                }
+            }
 
-            writeOrders(outputDir, orderedTables);
+            // the ordering also populates the recursiveConstraints collection
+            writeOrders(outputDir, orderedTables.join());
 
             duration = progressListener.finishedGatheringDetails();
             long overallDuration = progressListener.finished(tables, config);
@@ -314,12 +499,26 @@ public class SchemaAnalyzer {
         } catch (Config.MissingRequiredParameterException missingParam) {
             config.dumpUsage(missingParam.getMessage(), missingParam.isDbTypeSpecific());
             return null;
+        } finally {
+            // done with the connection, so let another schema use it
+            if (meta != null)
+                sqlService.release(meta.getConnection());
         }
     }
 
+    /**
+     * Determines the insertion and deletion ordering of tables in the background.
+     * The relationships between the tables get copied up front so they shouldn't
+     * change after this gets called.
+     */
+    private CompletableFuture<List<Table>> orderTables(Database db, List<ForeignKeyConstraint> recursiveConstraints) {
+        TableOrderer.Snapshot relationships = new TableOrderer().snapshot(db.getTables());
+        return CompletableFuture.supplyAsync(() -> relationships.getTablesOrderedByRI(recursiveConstraints));
+    }
+
     private void writeOrders(File outputDir, List<Table> orderedTables) throws IOException {
         LineWriter out;
-        out = new LineWriter(new File(outputDir, "insertionOrder.txt"), 16 * 1024, Config.DOT_CHARSET);
+        out = new LineWriter(GzipSiblingOutputStream.open(new File(outputDir, "insertionOrder.txt")), 16 * 1024, Config.DOT_CHARSET);
         try {
             TextFormatter.getInstance().write(orderedTables, false, out);
         } catch (IOException e) {
@@ -328,10 +527,11 @@ public class SchemaAnalyzer {
             out.close();
         }
 
-        out = new LineWriter(new File(outputDir, "deletionOrder.txt"), 16 * 1024, Config.DOT_CHARSET);
+        out = new LineWriter(GzipSiblingOutputStream.open(new File(outputDir, "deletionOrder.txt")), 16 * 1024, Config.DOT_CHARSET);
         try {
-            Collections.reverse(orderedTables);
-            TextFormatter.getInstance().write(orderedTables, false, out);
+            List<Table> reversed = new ArrayList<Table>(orderedTables);
+            Collections.reverse(reversed);
+            TextFormatter.getInstance().write(reversed, false, out);
         } catch (IOException e) {
             throw new IOException(e);
         } finally {
@@ -339,7 +539,8 @@ public class SchemaAnalyzer {
         }
     }
 
-    private void generateHtmlDoc(Config config, ProgressListener progressListener, File outputDir, Database db, long duration, Collection<Table> tables) throws IOException {
+    private CompletableFuture<List<Table>> generateHtmlDoc(Config config, ProgressListener progressListener, File outputDir, Database db, long duration, Collection<Table> tables,
+                                                           List<ForeignKeyConstraint> recursiveConstraints) throws IOException {
         LineWriter out;
         logger.info("Gathered schema details in " + duration / 1000 + " seconds");
         logger.info("Writing/graphing summary");
@@ -358,88 +559,108 @@ public class SchemaAnalyzer {
         if (config.isRailsEnabled())
             DbAnalyzer.getRailsConstraints(db.getTablesByName());
 
-        File summaryDir = new File(outputDir, "diagrams/summary");
-
-        // generate the compact form of the relationships .dot file
-        String dotBaseFilespec = "relationships";
-        out = new LineWriter(new File(summaryDir, dotBaseFilespec + ".real.compact.dot"), Config.DOT_CHARSET);
-        WriteStats stats = new WriteStats(tables);
-        DotFormatter.getInstance().writeRealRelationships(db, tables, true, showDetailedTables, stats, out, outputDir);
-        boolean hasRealRelationships = stats.getNumTablesWritten() > 0 || stats.getNumViewsWritten() > 0;
-        out.close();
-
-        if (hasRealRelationships) {
-            // real relationships exist so generate the 'big' form of the relationships .dot file
-            progressListener.graphingSummaryProgressed();
-            out = new LineWriter(new File(summaryDir, dotBaseFilespec + ".real.large.dot"), Config.DOT_CHARSET);
-            DotFormatter.getInstance().writeRealRelationships(db, tables, false, showDetailedTables, stats, out, outputDir);
-            out.close();
-        }
-
         // getting implied constraints has a side-effect of associating the parent/child tables, so don't do it
         // here unless they want that behavior
+        // (the 'real' relationships diagrams leave implied relationships out either way)
         List<ImpliedForeignKeyConstraint> impliedConstraints;
         if (includeImpliedConstraints)
             impliedConstraints = DbAnalyzer.getImpliedConstraints(tables);
         else
             impliedConstraints = new ArrayList<>();
 
+        // snapshot the model once all of the relationships that its pages show are in place
+        SchemaSnapshot snapshot = SchemaSnapshot.of(db, tables, config);
+        snapshot.recordNeighbours(tables);
+        // a bundle is always written from scratch so there's nothing to be incremental about
+        boolean incremental = config.isIncrementalEnabled() && config.getBundle() == null;
+        SchemaSnapshot previousSnapshot = incremental ? SchemaSnapshot.load(outputDir) : null;
+        boolean summaryChanged = snapshot.isSummaryChanged(previousSnapshot);
+
+        File summaryDir = new File(outputDir, "diagrams/summary");
+        String dotBaseFilespec = "relationships";
+        WriteStats stats = new WriteStats(tables);
+        boolean hasRealRelationships = false;
+
+        if (summaryChanged) {
+            // generate the compact form of the relationships .dot file
+            out = new LineWriter(new File(summaryDir, dotBaseFilespec + ".real.compact.dot"), Config.DOT_CHARSET);
+            DotFormatter.getInstance().writeRealRelationships(db, tables, true, showDetailedTables, stats, out, outputDir);
+            hasRealRelationships = stats.getNumTablesWritten() > 0 || stats.getNumViewsWritten() > 0;
+            out.close();
+
+            if (hasRealRelationships) {
+                // real relationships exist so generate the 'big' form of the relationships .dot file
+                progressListener.graphingSummaryProgressed();
+                out = new LineWriter(new File(summaryDir, dotBaseFilespec + ".real.large.dot"), Config.DOT_CHARSET);
+                DotFormatter.getInstance().writeRealRelationships(db, tables, false, showDetailedTables, stats, out, outputDir);
+                out.close();
+            }
+        }
+
         List<Table> orphans = DbAnalyzer.getOrphans(tables);
         config.setHasOrphans(!orphans.isEmpty() && Dot.getInstance().isValid());
         config.setHasRoutines(!db.getRoutines().isEmpty());
 
-        progressListener.graphingSummaryProgressed();
+        // the relationships won't change from here on so order the tables while the pages get written
+        CompletableFuture<List<Table>> orderedTables = orderTables(db, recursiveConstraints);
 
-        File impliedDotFile = new File(summaryDir, dotBaseFilespec + ".implied.compact.dot");
-        out = new LineWriter(impliedDotFile, Config.DOT_CHARSET);
-        boolean hasImplied = DotFormatter.getInstance().writeAllRelationships(db, tables, true, showDetailedTables, stats, out, outputDir);
+        progressListener.graphingSummaryProgressed();
 
-        Set<TableColumn> excludedColumns = stats.getExcludedColumns();
-        out.close();
-        if (hasImplied) {
-            impliedDotFile = new File(summaryDir, dotBaseFilespec + ".implied.large.dot");
+        if (summaryChanged) {
+            File impliedDotFile = new File(summaryDir, dotBaseFilespec + ".implied.compact.dot");
             out = new LineWriter(impliedDotFile, Config.DOT_CHARSET);
-            DotFormatter.getInstance().writeAllRelationships(db, tables, false, showDetailedTables, stats, out, outputDir);
+            boolean hasImplied = DotFormatter.getInstance().writeAllRelationships(db, tables, true, showDetailedTables, stats, out, outputDir);
+
+            Set<TableColumn> excludedColumns = stats.getExcludedColumns();
             out.close();
-        } else {
-            impliedDotFile.delete();
-        }
+            if (hasImplied) {
+                impliedDotFile = new File(summaryDir, dotBaseFilespec + ".implied.large.dot");
+                out = new LineWriter(impliedDotFile, Config.DOT_CHARSET);
+                DotFormatter.getInstance().writeAllRelationships(db, tables, false, showDetailedTables, stats, out, outputDir);
+                out.close();
+            } else {
+                impliedDotFile.delete();
+            }
 
-        HtmlRelationshipsPage.getInstance().write(db, summaryDir, dotBaseFilespec, hasRealRelationships, hasImplied, excludedColumns,
-                progressListener, outputDir);
+            HtmlRelationshipsPage.getInstance().write(db, summaryDir, dotBaseFilespec, hasRealRelationships, hasImplied, excludedColumns,
+                    progressListener, outputDir);
 
-        progressListener.graphingSummaryProgressed();
+            progressListener.graphingSummaryProgressed();
 
-        File orphansDir = new File(outputDir, "diagrams/orphans");
-        orphansDir.mkdirs();
-        HtmlOrphansPage.getInstance().write(db, orphans, orphansDir, outputDir);
-        out.close();
+            File orphansDir = new File(outputDir, "diagrams/orphans");
+            orphansDir.mkdirs();
+            HtmlOrphansPage.getInstance().write(db, orphans, orphansDir, outputDir);
+            out.close();
 
-        progressListener.graphingSummaryProgressed();
+            progressListener.graphingSummaryProgressed();
 
-        HtmlMainIndexPage.getInstance().write(db, tables, db.getRemoteTables(), outputDir);
+            List<ForeignKeyConstraint> constraints = DbAnalyzer.getForeignKeyConstraints(tables);
+            HtmlConstraintsPage constraintIndexFormatter = HtmlConstraintsPage.getInstance();
+            constraintIndexFormatter.write(db, constraints, tables, outputDir);
 
-        progressListener.graphingSummaryProgressed();
+            progressListener.graphingSummaryProgressed();
 
-        List<ForeignKeyConstraint> constraints = DbAnalyzer.getForeignKeyConstraints(tables);
-        HtmlConstraintsPage constraintIndexFormatter = HtmlConstraintsPage.getInstance();
-        constraintIndexFormatter.write(db, constraints, tables, outputDir);
+            HtmlAnomaliesPage.getInstance().write(db, tables, impliedConstraints, outputDir);
 
-        progressListener.graphingSummaryProgressed();
+            progressListener.graphingSummaryProgressed();
 
-        HtmlAnomaliesPage.getInstance().write(db, tables, impliedConstraints, outputDir);
+            for (HtmlColumnsPage.ColumnInfo columnInfo : HtmlColumnsPage.getInstance().getColumnInfos().values()) {
+                HtmlColumnsPage.getInstance().write(db, tables, columnInfo, outputDir);
+            }
 
-        progressListener.graphingSummaryProgressed();
+            progressListener.graphingSummaryProgressed();
 
-        for (HtmlColumnsPage.ColumnInfo columnInfo : HtmlColumnsPage.getInstance().getColumnInfos().values()) {
-       		HtmlColumnsPage.getInstance().write(db, tables, columnInfo, outputDir);
-        }
+            out = new LineWriter(GzipSiblingOutputStream.open(new File(outputDir, "routines.html")), 16 * 1024, config.getCharset());
+            HtmlRoutinesPage.getInstance().write(db, out);
+            out.close();
 
-        progressListener.graphingSummaryProgressed();
+            progressListener.graphingSummaryProgressed();
 
-        out = new LineWriter(new File(outputDir, "routines.html"), 16 * 1024, config.getCharset());
-        HtmlRoutinesPage.getInstance().write(db, out);
-        out.close();
+            // the main page lists the insertion order, so it's written last to give the ordering the most time
+            HtmlMainIndexPage.getInstance().write(db, tables, db.getRemoteTables(), orderedTables.join(), outputDir);
+        } else {
+            logger.info("Schema unchanged since the previous run, leaving summary pages as they were");
+        }
 
         // create detailed diagrams
 
@@ -448,12 +669,25 @@ public class SchemaAnalyzer {
         logger.info("Completed summary in " + duration / 1000 + " seconds");
         logger.info("Writing/diagramming details");
 
-        generateTables(progressListener, outputDir, db, tables, stats);
-        HtmlComponentPage.getInstance().write(db, tables, outputDir);
+        Set<String> staleTables = snapshot.getStaleTables(previousSnapshot);
+        if (previousSnapshot != null)
+            logger.info("Regenerating " + staleTables.size() + " of " + tables.size() + " tables/views that changed since the previous run");
+
+        // the table pages get their own stats of the model so that they don't depend
+        // on whether the summary was rewritten in this run
+        generateTables(progressListener, outputDir, db, tables, new WriteStats(tables), staleTables);
+        if (summaryChanged)
+            HtmlComponentPage.getInstance().write(db, tables, outputDir);
+
+        snapshot.save(outputDir);
+
+        return orderedTables;
     }
 
     /**
-     * This method is responsible to copy layout folder to destination directory and not copy template .html files
+     * This method is responsible to copy layout folder to destination directory and not copy template .html files.
+     * Files that are already up to date are left alone and, when analyzing multiple schemas,
+     * the files written to the shared layout directory are hard-linked instead of copied again.
      * @param outputDir
      * @throws IOException
      */
@@ -465,32 +699,20 @@ public class SchemaAnalyzer {
         FileFilter filter = FileFilterUtils.and(notHtmlFilter);
         //cleanDirectory(outputDir,"/diagrams");
         //cleanDirectory(outputDir,"/tables");
-        ResourceWriter.copyResources(url, outputDir, filter);
+        if (sharedLayoutDir != null && !sharedLayoutDir.equals(outputDir))
+            ResourceWriter.linkResources(url, sharedLayoutDir, outputDir, filter);
+        else
+            ResourceWriter.copyResources(url, outputDir, filter);
     }
 
-    private Connection getConnection(Config config) throws InvalidConfigurationException, IOException {
-
-        Properties properties = config.determineDbProperties(commandLineArguments.getDatabaseType());
-
-        ConnectionURLBuilder urlBuilder = new ConnectionURLBuilder(config, properties);
-        if (config.getDb() == null)
-            config.setDb(urlBuilder.getConnectionURL());
-
-        String driverClass = properties.getProperty("driver");
-        String driverPath = properties.getProperty("driverPath");
-        if (driverPath == null)
-            driverPath = "";
-        if (config.getDriverPath() != null)
-            driverPath = config.getDriverPath() + File.pathSeparator + driverPath;
-
-        DbDriverLoader driverLoader = new DbDriverLoader();
-        return driverLoader.getConnection(config, urlBuilder.getConnectionURL(), driverClass, driverPath);
-	}
-
-    private void generateTables(ProgressListener progressListener, File outputDir, Database db, Collection<Table> tables, WriteStats stats) throws IOException {
+    private void generateTables(ProgressListener progressListener, File outputDir, Database db, Collection<Table> tables, WriteStats stats, Set<String> staleTables) throws IOException {
         HtmlTablePage tableFormatter = HtmlTablePage.getInstance();
         for (Table table : tables) {
             progressListener.graphingDetailsProgressed(table);
+            String pagePath = Markdown.pagePath(table.getName());
+            if (!staleTables.contains(table.getName()) && pagePath != null && GzipSiblingOutputStream.exists(new File(outputDir, pagePath)))
+                continue;
+
             if (fineEnabled)
                 logger.fine("Writing details of " + table.getName());
 
@@ -0,0 +1,338 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy;
+
+import org.schemaspy.model.*;
+import org.schemaspy.util.Markdown;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Compact fingerprint of the analyzed model that gets persisted in the output directory.
+ * <p>
+ * Each table/view is reduced to a hash of everything that ends up on its page
+ * (columns, indexes, keys, relationships, comments and the pages their links resolve to,
+ * row counts) along with the names of the tables it's directly related to.  Comparing the snapshot of the current run with
+ * the one left behind by the previous run tells us which pages are stale.
+ */
+public class SchemaSnapshot {
+    public static final String FILE_NAME = "schemaspy.snapshot";
+
+    private static final String CONFIG_KEY = "config";
+    private static final String SUMMARY_KEY = "summary";
+    private static final String TABLE_PREFIX = "table.";
+    private static final String NEIGHBOURS_PREFIX = "neighbours.";
+    private static final String NEIGHBOUR_SEPARATOR = "\t";
+
+    private static final Logger logger = Logger.getLogger(SchemaSnapshot.class.getName());
+
+    private final String configHash;
+    private final String summaryHash;
+    private final Map<String, String> tableHashes = new TreeMap<>();
+    private final Map<String, Set<String>> neighbours = new TreeMap<>();
+
+    private SchemaSnapshot(String configHash, String summaryHash) {
+        this.configHash = configHash;
+        this.summaryHash = summaryHash;
+    }
+
+    /**
+     * Take a snapshot of the specified tables/views.
+     * Should be called after implied constraints have been associated with the tables
+     * since their pages show those relationships too.
+     *
+     * @param db
+     * @param tables
+     * @param config
+     * @return
+     * @throws IOException
+     */
+    public static SchemaSnapshot of(Database db, Collection<Table> tables, Config config) throws IOException {
+        StringBuilder buf = new StringBuilder();
+        buf.append(SchemaSnapshot.class.getPackage().getImplementationVersion()).append('\n');
+        for (String param : config.asList()) {
+            if (!param.equals("-incremental") && !param.equals("-metacache") && !param.equals("-metrics"))
+                buf.append(param).append('\n');
+        }
+        String configHash = hash(buf);
+
+        buf.setLength(0);
+        for (Routine routine : db.getRoutines()) {
+            buf.append(routine.getName()).append('\n');
+            buf.append(routine.getType()).append('\n');
+            buf.append(routine.getReturnType()).append('\n');
+            buf.append(routine.getDefinitionLanguage()).append('\n');
+            buf.append(routine.getDefinition()).append('\n');
+            buf.append(routine.isDeterministic()).append('\n');
+            buf.append(routine.getDataAccess()).append('\n');
+            buf.append(routine.getSecurityType()).append('\n');
+            buf.append(routine.getComment()).append('\n');
+            for (RoutineParameter param : routine.getParameters()) {
+                buf.append(param.getName()).append(' ').append(param.getType()).append(' ').append(param.getMode()).append('\n');
+            }
+        }
+        for (Table remoteTable : db.getRemoteTables()) {
+            buf.append(remoteTable.getFullName()).append('\n');
+        }
+
+        SchemaSnapshot snapshot = new SchemaSnapshot(configHash, hash(buf));
+        for (Table table : tables) {
+            snapshot.tableHashes.put(table.getName(), hash(table));
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Record which tables are directly related to each other.
+     * Like the hashes this should be done after implied constraints have been
+     * associated with the tables so that their neighbours are included.
+     *
+     * @param tables
+     */
+    public void recordNeighbours(Collection<Table> tables) {
+        neighbours.clear();
+        for (Table table : tables) {
+            Set<String> related = new TreeSet<>();
+            for (TableColumn column : table.getColumns()) {
+                for (TableColumn parent : column.getParents())
+                    related.add(parent.getTable().getName());
+                for (TableColumn child : column.getChildren())
+                    related.add(child.getTable().getName());
+            }
+            related.remove(table.getName());
+            neighbours.put(table.getName(), related);
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the summary pages (and diagrams) generated
+     * from <code>previous</code> no longer reflect this snapshot.
+     *
+     * @param previous snapshot of the previous run, <code>null</code> if none
+     * @return
+     */
+    public boolean isSummaryChanged(SchemaSnapshot previous) {
+        return previous == null
+                || !configHash.equals(previous.configHash)
+                || !summaryHash.equals(previous.summaryHash)
+                || !tableHashes.equals(previous.tableHashes);
+    }
+
+    /**
+     * Returns the names of the tables whose pages and diagrams have to be rewritten.
+     * That's every table that changed (or appeared/disappeared) since <code>previous</code>
+     * along with the tables within two degrees of separation of those, since they
+     * show up in each other's diagrams.
+     * Relationships of both runs are considered so that pages that used to show
+     * a changed table are also refreshed.
+     *
+     * @param previous snapshot of the previous run, <code>null</code> if none
+     * @return
+     */
+    public Set<String> getStaleTables(SchemaSnapshot previous) {
+        if (previous == null || !configHash.equals(previous.configHash))
+            return new TreeSet<>(tableHashes.keySet());
+
+        Set<String> stale = new TreeSet<>();
+        for (Map.Entry<String, String> entry : tableHashes.entrySet()) {
+            if (!entry.getValue().equals(previous.tableHashes.get(entry.getKey())))
+                stale.add(entry.getKey());
+        }
+        for (String name : previous.tableHashes.keySet()) {
+            if (!tableHashes.containsKey(name))
+                stale.add(name);
+        }
+
+        Set<String> separated = new TreeSet<>(stale);
+        for (int degree = 0; degree < 2; ++degree) {
+            Set<String> next = new TreeSet<>();
+            for (String name : separated) {
+                addAll(next, neighbours.get(name));
+                addAll(next, previous.neighbours.get(name));
+            }
+            next.removeAll(stale);
+            stale.addAll(next);
+            separated = next;
+        }
+
+        stale.retainAll(tableHashes.keySet());
+        return stale;
+    }
+
+    /**
+     * Load the snapshot left behind in <code>outputDir</code> by a previous run.
+     *
+     * @param outputDir
+     * @return the snapshot or <code>null</code> if there isn't a usable one
+     */
+    public static SchemaSnapshot load(File outputDir) {
+        File file = new File(outputDir, FILE_NAME);
+        if (!file.isFile())
+            return null;
+
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            props.load(in);
+        } catch (IOException exc) {
+            logger.warning("Failed to read " + file + ": " + exc);
+            return null;
+        }
+
+        String configHash = props.getProperty(CONFIG_KEY);
+        String summaryHash = props.getProperty(SUMMARY_KEY);
+        if (configHash == null || summaryHash == null)
+            return null;
+
+        SchemaSnapshot snapshot = new SchemaSnapshot(configHash, summaryHash);
+        for (String key : props.stringPropertyNames()) {
+            String value = props.getProperty(key);
+            if (key.startsWith(TABLE_PREFIX)) {
+                snapshot.tableHashes.put(key.substring(TABLE_PREFIX.length()), value);
+            } else if (key.startsWith(NEIGHBOURS_PREFIX)) {
+                Set<String> related = new TreeSet<>();
+                if (!value.isEmpty())
+                    related.addAll(Arrays.asList(value.split(NEIGHBOUR_SEPARATOR)));
+                snapshot.neighbours.put(key.substring(NEIGHBOURS_PREFIX.length()), related);
+            }
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Persist this snapshot in <code>outputDir</code>
+     *
+     * @param outputDir
+     * @throws IOException
+     */
+    public void save(File outputDir) throws IOException {
+        Properties props = new Properties();
+        props.setProperty(CONFIG_KEY, configHash);
+        props.setProperty(SUMMARY_KEY, summaryHash);
+        for (Map.Entry<String, String> entry : tableHashes.entrySet()) {
+            props.setProperty(TABLE_PREFIX + entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Set<String>> entry : neighbours.entrySet()) {
+            props.setProperty(NEIGHBOURS_PREFIX + entry.getKey(), String.join(NEIGHBOUR_SEPARATOR, entry.getValue()));
+        }
+
+        try (OutputStream out = new FileOutputStream(new File(outputDir, FILE_NAME))) {
+            props.store(out, "SchemaSpy model snapshot used for incremental regeneration");
+        }
+    }
+
+    private static void addAll(Set<String> names, Set<String> toAdd) {
+        if (toAdd != null)
+            names.addAll(toAdd);
+    }
+
+    private static String hash(Table table) {
+        StringBuilder buf = new StringBuilder();
+        buf.append(table.getType()).append('\n');
+        buf.append(table.getFullName()).append('\n');
+        buf.append(table.getId()).append('\n');
+        buf.append(table.getComments()).append('\n');
+        buf.append(Markdown.getLinkedPages(table.getComments())).append('\n');
+        buf.append(table.getNumRows()).append('\n');
+        buf.append(table.getViewSql()).append('\n');
+        buf.append(sorted(table.getMetadataMap())).append('\n');
+        buf.append(table.getCheckConstraints()).append('\n');
+
+        for (TableColumn column : table.getColumns()) {
+            buf.append("column ").append(column.getName()).append('\n');
+            buf.append(column.getId()).append(' ');
+            buf.append(column.getTypeName()).append(' ');
+            buf.append(column.getType()).append(' ');
+            buf.append(column.getDetailedSize()).append(' ');
+            buf.append(column.getLength()).append(' ');
+            buf.append(column.getDecimalDigits()).append(' ');
+            buf.append(column.isNullable()).append(' ');
+            buf.append(column.isAutoUpdated()).append(' ');
+            buf.append(column.isExcluded()).append(' ');
+            buf.append(column.isAllExcluded()).append('\n');
+            buf.append(column.getDefaultValue()).append('\n');
+            buf.append(column.getComments()).append('\n');
+            buf.append(Markdown.getLinkedPages(column.getComments())).append('\n');
+            buf.append(sorted(column.getMetadataMap())).append('\n');
+            // parents aren't kept in any particular order
+            Set<String> relationships = new TreeSet<>();
+            for (TableColumn parent : column.getParents())
+                relationships.add("parent " + describe(parent, column.getParentConstraint(parent)));
+            for (TableColumn child : column.getChildren())
+                relationships.add("child " + describe(child, column.getChildConstraint(child)));
+            for (String relationship : relationships)
+                buf.append(relationship).append('\n');
+        }
+
+        for (TableColumn primary : table.getPrimaryColumns()) {
+            buf.append("primary ").append(primary.getName()).append('\n');
+        }
+
+        for (TableIndex index : new TreeSet<>(table.getIndexes())) {
+            buf.append("index ").append(index.getName()).append(' ');
+            buf.append(index.getId()).append(' ');
+            buf.append(index.getType()).append(' ');
+            buf.append(index.isPrimaryKey()).append(' ');
+            buf.append(index.isUnique()).append('\n');
+            for (TableColumn column : index.getColumns()) {
+                buf.append(column.getName()).append(' ').append(index.isAscending(column)).append('\n');
+            }
+        }
+
+        return hash(buf);
+    }
+
+    private static String describe(TableColumn related, ForeignKeyConstraint constraint) {
+        StringBuilder buf = new StringBuilder();
+        buf.append(related.getTable().getFullName()).append('.').append(related.getName());
+        if (constraint != null) {
+            buf.append(' ').append(constraint.getName());
+            buf.append(' ').append(constraint.isImplied());
+            buf.append(' ').append(constraint.getDeleteRule());
+            buf.append(' ').append(constraint.getUpdateRule());
+        }
+        return buf.toString();
+    }
+
+    private static Map<String, String> sorted(Map<String, String> map) {
+        return map == null ? null : new TreeMap<>(map);
+    }
+
+    private static String hash(CharSequence text) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException exc) {
+            throw new RuntimeException(exc);
+        }
+
+        byte[] bytes = digest.digest(text.toString().getBytes(StandardCharsets.UTF_8));
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
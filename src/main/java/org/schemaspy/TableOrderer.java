@@ -20,18 +20,25 @@ package org.schemaspy;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
 import org.schemaspy.model.ForeignKeyConstraint;
 import org.schemaspy.model.Table;
+import org.schemaspy.model.TableColumn;
 
 /**
  * Sorts {@link Table}s by their referential integrity constraints.
  * The intent is to have a list of tables in an order that can be used
- * to insert or delete them from a database.
+ * to insert or delete them from a database.<p>
+ *
+ * The relationships are copied into an int-indexed graph so the tables
+ * themselves aren't modified.  Cycles are found as strongly connected components
+ * and broken by ignoring some of the constraints within them, after which
+ * the tables are ordered by repeatedly trimming the leaves and roots of the graph.
  *
  * @author John Currier
  */
@@ -41,160 +48,378 @@ public class TableOrderer {
      * and child tables are listed last.
      *
      * <code>recursiveConstraints</code> gets populated with <code>TableConstraint</code>s
-     * that had to be removed to resolve the returned list.
+     * that had to be ignored to resolve the returned list.
      * @param recursiveConstraints
      * @return
      */
     public List<Table> getTablesOrderedByRI(Collection<Table> tables, Collection<ForeignKeyConstraint> recursiveConstraints) {
-        List<Table> heads = new ArrayList<Table>();
-        List<Table> tails = new ArrayList<Table>();
-        List<Table> remainingTables = new ArrayList<Table>(tables);
-        List<Table> unattached = new ArrayList<Table>();
-
-        // first pass to gather the 'low hanging fruit'
-        for (Iterator<Table> iter = remainingTables.iterator(); iter.hasNext(); ) {
-            Table table = iter.next();
-            if (table.isRemote()) {
-                // ignore remote tables since there's no way to deal with them
-                table.unlinkParents();
-                table.unlinkChildren();
-                iter.remove();
-            } else if (table.isLeaf() && table.isRoot()) {
-                // floater, so add it to 'unattached'
-                unattached.add(table);
-                iter.remove();
+        return snapshot(tables).getTablesOrderedByRI(recursiveConstraints);
+    }
+
+    /**
+     * Copies the relationships between <code>tables</code> so they can be ordered later,
+     * possibly on another thread, without looking at the tables again.
+     *
+     * @param tables
+     * @return
+     */
+    public Snapshot snapshot(Collection<Table> tables) {
+        return new Snapshot(tables);
+    }
+
+    private static List<Table> order(Snapshot graph, Collection<ForeignKeyConstraint> recursiveConstraints) {
+        // the constraints ignored to break cycles are specific to this ordering so that the snapshot can be reused
+        boolean[] ignored = new boolean[graph.numEdges()];
+
+        // tables without any relationships go at the end
+        List<Integer> unattached = new ArrayList<Integer>();
+        for (int node = 0; node < graph.size(); ++node) {
+            if (graph.isUnattached(node))
+                unattached.add(node);
+        }
+
+        breakCycles(graph, ignored, recursiveConstraints);
+
+        // we've gathered all the heads and tails, so combine them here moving 'unattached' tables to the end
+        List<Table> ordered = trim(graph, ignored);
+        ordered.addAll(sortTrimmedLevel(graph, unattached));
+
+        return ordered;
+    }
+
+    /**
+     * Ignore constraints until there aren't any cycles left in <code>graph</code>
+     */
+    private static void breakCycles(Snapshot graph, boolean[] ignored, Collection<ForeignKeyConstraint> recursiveConstraints) {
+        int[] components = graph.getStronglyConnectedComponents(ignored);
+        if (components == null)
+            return;
+
+        // get rid of everything within the cycles that isn't explicitly specified by the database
+        for (int edge = 0; edge < graph.numEdges(); ++edge) {
+            if (components[graph.parents[edge]] == components[graph.children[edge]] && !graph.constraints[edge].isReal())
+                ignored[edge] = true;
+        }
+
+        components = graph.getStronglyConnectedComponents(ignored);
+        if (components == null)
+            return;
+
+        Set<ForeignKeyConstraint> removed = Collections.newSetFromMap(new IdentityHashMap<ForeignKeyConstraint, Boolean>());
+
+        // simple recursion
+        for (int edge = 0; edge < graph.numEdges(); ++edge) {
+            if (!ignored[edge] && graph.parents[edge] == graph.children[edge]) {
+                ignored[edge] = true;
+                if (removed.add(graph.constraints[edge]))
+                    recursiveConstraints.add(graph.constraints[edge]);
             }
         }
 
-        unattached = sortTrimmedLevel(unattached);
-        boolean prunedNonReals = false;
-
-        while (!remainingTables.isEmpty()) {
-            int tablesLeft = remainingTables.size();
-            tails.addAll(0, trimLeaves(remainingTables));
-            heads.addAll(trimRoots(remainingTables));
-
-            // if we could't trim anything then there's recursion....
-            // resolve it by removing a constraint, one by one, 'till the tables are all trimmed
-            if (tablesLeft == remainingTables.size()) {
-                if (!prunedNonReals) {
-                    // get ride of everything that isn't explicitly specified by the database
-                    for (Table table : remainingTables) {
-                        table.removeNonRealForeignKeys();
-                    }
+        // a depth first search within each cycle, ignoring the constraints that lead back
+        // to a table that's still being visited, leaves each of them acyclic
+        int[] state = new int[graph.size()];    // 0: not visited, 1: being visited, 2: done
+        int[] nodeStack = new int[graph.size()];
+        int[] edgeStack = new int[graph.size()];
+        for (int root = 0; root < graph.size(); ++root) {
+            if (state[root] != 0)
+                continue;
 
-                    prunedNonReals = true;
+            int depth = 0;
+            nodeStack[0] = root;
+            edgeStack[0] = graph.outStart[root];
+            state[root] = 1;
+            while (depth >= 0) {
+                int node = nodeStack[depth];
+                if (edgeStack[depth] == graph.outStart[node + 1]) {
+                    state[node] = 2;
+                    --depth;
                     continue;
                 }
 
-                boolean foundSimpleRecursion = false;
-                for (Table potentialRecursiveTable : remainingTables) {
-                    ForeignKeyConstraint recursiveConstraint = potentialRecursiveTable.removeSelfReferencingConstraint();
-                    if (recursiveConstraint != null) {
-                        recursiveConstraints.add(recursiveConstraint);
-                        foundSimpleRecursion = true;
-                    }
-                }
+                int edge = graph.outEdges[edgeStack[depth]++];
+                int child = graph.children[edge];
+                if (ignored[edge] || components[child] != components[node])
+                    continue;
 
-                if (!foundSimpleRecursion) {
-                    // expensive comparison, but we're down to the end of the tables so it shouldn't really matter
-                    Set<Table> byParentChildDelta = new TreeSet<Table>(new Comparator<Table>() {
-                        // sort on the delta between number of parents and kids so we can
-                        // target the tables with the biggest delta and therefore the most impact
-                        // on reducing the smaller of the two
-                        public int compare(Table table1, Table table2) {
-                            int rc = Math.abs(table2.getNumChildren() - table2.getNumParents()) - Math.abs(table1.getNumChildren() - table1.getNumParents());
-                            if (rc == 0)
-                                rc = table1.compareTo(table2);
-                            return rc;
-                        }
-                    });
-                    byParentChildDelta.addAll(remainingTables);
-                    Table recursiveTable = byParentChildDelta.iterator().next(); // this one has the largest delta
-                    ForeignKeyConstraint removedConstraint = recursiveTable.removeAForeignKeyConstraint();
-                    recursiveConstraints.add(removedConstraint);
+                if (state[child] == 1) {
+                    ignored[edge] = true;
+                    if (removed.add(graph.constraints[edge]))
+                        recursiveConstraints.add(graph.constraints[edge]);
+                } else if (state[child] == 0) {
+                    state[child] = 1;
+                    nodeStack[++depth] = child;
+                    edgeStack[depth] = graph.outStart[child];
                 }
             }
         }
+    }
 
-        // we've gathered all the heads and tails, so combine them here moving 'unattached' tables to the end
-        List<Table> ordered = new ArrayList<Table>(heads.size() + tails.size());
+    /**
+     * Repeatedly remove the leaf nodes (tables w/o children) and the root nodes
+     * (tables w/o parents) from the now acyclic <code>graph</code>.
+     * Roots are listed first in the order they were trimmed, followed by the leaves
+     * in the reverse order that they were trimmed.
+     */
+    private static List<Table> trim(Snapshot graph, boolean[] ignored) {
+        int[] numParents = new int[graph.size()];
+        int[] numChildren = new int[graph.size()];
+        boolean[] trimmed = new boolean[graph.size()];
+        List<Table> heads = new ArrayList<Table>();
+        List<List<Table>> tails = new ArrayList<List<Table>>();
+        List<Integer> leafCandidates = new ArrayList<Integer>();
+        List<Integer> rootCandidates = new ArrayList<Integer>();
+        int remaining = 0;
 
-        ordered.addAll(heads);
-        heads = null; // allow gc ASAP
+        for (int edge = 0; edge < graph.numEdges(); ++edge) {
+            if (!ignored[edge]) {
+                numChildren[graph.parents[edge]]++;
+                numParents[graph.children[edge]]++;
+            }
+        }
 
-        ordered.addAll(tails);
-        tails = null; // allow gc ASAP
+        for (int node = 0; node < graph.size(); ++node) {
+            if (graph.isUnattached(node)) {
+                trimmed[node] = true;
+                continue;
+            }
+            ++remaining;
+            if (numChildren[node] == 0)
+                leafCandidates.add(node);
+            if (numParents[node] == 0)
+                rootCandidates.add(node);
+        }
 
-        ordered.addAll(unattached);
+        while (remaining > 0) {
+            List<Integer> candidates = leafCandidates;
+            leafCandidates = new ArrayList<Integer>();
+            List<Integer> leaves = new ArrayList<Integer>();
+            for (int node : candidates) {
+                if (trimmed[node])
+                    continue;
+                trimmed[node] = true;
+                --remaining;
+                leaves.add(node);
+                for (int i = graph.inStart[node]; i < graph.inStart[node + 1]; ++i) {
+                    int edge = graph.inEdges[i];
+                    if (!ignored[edge] && --numChildren[graph.parents[edge]] == 0)
+                        leafCandidates.add(graph.parents[edge]);
+                }
+            }
+            tails.add(sortTrimmedLevel(graph, leaves));
 
+            candidates = rootCandidates;
+            rootCandidates = new ArrayList<Integer>();
+            List<Integer> roots = new ArrayList<Integer>();
+            for (int node : candidates) {
+                if (trimmed[node])
+                    continue;
+                trimmed[node] = true;
+                --remaining;
+                roots.add(node);
+                for (int i = graph.outStart[node]; i < graph.outStart[node + 1]; ++i) {
+                    int edge = graph.outEdges[i];
+                    if (!ignored[edge] && --numParents[graph.children[edge]] == 0)
+                        rootCandidates.add(graph.children[edge]);
+                }
+            }
+            heads.addAll(sortTrimmedLevel(graph, roots));
+        }
+
+        List<Table> ordered = new ArrayList<Table>(graph.size());
+        ordered.addAll(heads);
+        for (int i = tails.size() - 1; i >= 0; --i)
+            ordered.addAll(tails.get(i));
         return ordered;
     }
 
     /**
-     * Remove the root nodes (tables w/o parents)
-     *
-     * @param tables
-     * @return tables removed
+     * Snapshot of the relationships between the (non-remote) tables.
+     * Each column-level relationship is an edge from the parent's table to the child's table.
+     * Ordering doesn't modify the snapshot, so it can be ordered any number of times,
+     * including from several threads at once.
      */
-    private static List<Table> trimRoots(List<Table> tables) {
-        List<Table> roots = new ArrayList<Table>();
-
-        Iterator<Table> iter = tables.iterator();
-        while (iter.hasNext()) {
-            Table root = iter.next();
-            if (root.isRoot()) {
-                roots.add(root);
-                iter.remove();
+    public static class Snapshot {
+        private final List<Table> tables = new ArrayList<Table>();
+        private final int[] maxChildren;
+        private final int[] maxParents;
+        private final int[] parents;
+        private final int[] children;
+        private final ForeignKeyConstraint[] constraints;
+
+        // edges by parent and by child
+        private final int[] outStart;
+        private final int[] outEdges;
+        private final int[] inStart;
+        private final int[] inEdges;
+
+        private Snapshot(Collection<Table> allTables) {
+            Map<Table, Integer> nodes = new IdentityHashMap<Table, Integer>();
+            List<Table> sorted = new ArrayList<Table>(allTables);
+            Collections.sort(sorted);
+            for (Table table : sorted) {
+                // ignore remote tables since there's no way to deal with them
+                if (!table.isRemote()) {
+                    nodes.put(table, tables.size());
+                    tables.add(table);
+                }
+            }
+
+            maxChildren = new int[tables.size()];
+            maxParents = new int[tables.size()];
+            for (int node = 0; node < tables.size(); ++node) {
+                maxChildren[node] = tables.get(node).getMaxChildren();
+                maxParents[node] = tables.get(node).getMaxParents();
             }
+
+            List<int[]> edges = new ArrayList<int[]>();
+            List<ForeignKeyConstraint> edgeConstraints = new ArrayList<ForeignKeyConstraint>();
+            for (int parent = 0; parent < tables.size(); ++parent) {
+                for (TableColumn parentColumn : tables.get(parent).getColumns()) {
+                    for (TableColumn childColumn : parentColumn.getChildren()) {
+                        Integer child = nodes.get(childColumn.getTable());
+                        if (child != null) {
+                            edges.add(new int[] {parent, child});
+                            edgeConstraints.add(parentColumn.getChildConstraint(childColumn));
+                        }
+                    }
+                }
+            }
+
+            parents = new int[edges.size()];
+            children = new int[edges.size()];
+            for (int edge = 0; edge < edges.size(); ++edge) {
+                parents[edge] = edges.get(edge)[0];
+                children[edge] = edges.get(edge)[1];
+            }
+            constraints = edgeConstraints.toArray(new ForeignKeyConstraint[edges.size()]);
+
+            outStart = new int[tables.size() + 1];
+            outEdges = new int[edges.size()];
+            index(parents, outStart, outEdges);
+            inStart = new int[tables.size() + 1];
+            inEdges = new int[edges.size()];
+            index(children, inStart, inEdges);
         }
 
-        // now sort them so the ones with large numbers of children show up first (not required, but cool)
-        roots = sortTrimmedLevel(roots);
-        iter = roots.iterator();
-        while (iter.hasNext()) {
-            // do this after the previous loop to prevent getting roots before they're ready
-            // and so we can sort them correctly
-            iter.next().unlinkChildren();
+        /**
+         * Returns a list of the <code>Table</code>s ordered such that parents are listed first
+         * and child tables are listed last.
+         *
+         * @see TableOrderer#getTablesOrderedByRI(Collection, Collection)
+         */
+        public List<Table> getTablesOrderedByRI(Collection<ForeignKeyConstraint> recursiveConstraints) {
+            return order(this, recursiveConstraints);
         }
 
-        return roots;
-    }
+        /**
+         * Counting sort of the edges by <code>nodes</code>
+         */
+        private static void index(int[] nodes, int[] start, int[] sorted) {
+            for (int node : nodes)
+                start[node + 1]++;
+            for (int i = 1; i < start.length; ++i)
+                start[i] += start[i - 1];
+            int[] next = start.clone();
+            for (int edge = 0; edge < nodes.length; ++edge)
+                sorted[next[nodes[edge]]++] = edge;
+        }
 
-    /**
-     * Remove the leaf nodes (tables w/o children)
-     *
-     * @param tables
-     * @return tables removed
-     */
-    private static List<Table> trimLeaves(List<Table> tables) {
-        List<Table> leaves = new ArrayList<Table>();
-
-        Iterator<Table> iter = tables.iterator();
-        while (iter.hasNext()) {
-            Table leaf = iter.next();
-            if (leaf.isLeaf()) {
-                leaves.add(leaf);
-                iter.remove();
-            }
+        int size() {
+            return tables.size();
+        }
+
+        int numEdges() {
+            return parents.length;
         }
 
-        // now sort them so the ones with large numbers of children show up first (not required, but cool)
-        leaves = sortTrimmedLevel(leaves);
-        iter = leaves.iterator();
-        while (iter.hasNext()) {
-            // do this after the previous loop to prevent getting leaves before they're ready
-            // and so we can sort them correctly
-            iter.next().unlinkParents();
+        boolean isUnattached(int node) {
+            return outStart[node] == outStart[node + 1] && inStart[node] == inStart[node + 1];
         }
 
-        return leaves;
+        /**
+         * Tarjan's algorithm (without recursion) over the edges that aren't <code>ignored</code>.
+         *
+         * @return the component of each node or <code>null</code> if there aren't any cycles
+         */
+        int[] getStronglyConnectedComponents(boolean[] ignored) {
+            int n = size();
+            int[] components = new int[n];
+            int[] index = new int[n];
+            int[] lowLink = new int[n];
+            boolean[] onStack = new boolean[n];
+            int[] stack = new int[n];
+            int[] callStack = new int[n];
+            int[] edgeStack = new int[n];
+            int stackSize = 0;
+            int nextIndex = 1;  // 0 means not visited yet
+            int numComponents = 0;
+            boolean cyclic = false;
+
+            for (int edge = 0; edge < numEdges(); ++edge) {
+                if (!ignored[edge] && parents[edge] == children[edge])
+                    cyclic = true;
+            }
+
+            for (int root = 0; root < n; ++root) {
+                if (index[root] != 0)
+                    continue;
+
+                int depth = 0;
+                callStack[0] = root;
+                edgeStack[0] = outStart[root];
+                index[root] = lowLink[root] = nextIndex++;
+                stack[stackSize++] = root;
+                onStack[root] = true;
+
+                while (depth >= 0) {
+                    int node = callStack[depth];
+                    if (edgeStack[depth] < outStart[node + 1]) {
+                        int edge = outEdges[edgeStack[depth]++];
+                        if (ignored[edge])
+                            continue;
+                        int child = children[edge];
+                        if (index[child] == 0) {
+                            index[child] = lowLink[child] = nextIndex++;
+                            stack[stackSize++] = child;
+                            onStack[child] = true;
+                            callStack[++depth] = child;
+                            edgeStack[depth] = outStart[child];
+                        } else if (onStack[child]) {
+                            lowLink[node] = Math.min(lowLink[node], index[child]);
+                        }
+                        continue;
+                    }
+
+                    if (lowLink[node] == index[node]) {
+                        int member;
+                        int size = 0;
+                        do {
+                            member = stack[--stackSize];
+                            onStack[member] = false;
+                            components[member] = numComponents;
+                            ++size;
+                        } while (member != node);
+                        if (size > 1)
+                            cyclic = true;
+                        ++numComponents;
+                    }
+
+                    if (--depth >= 0) {
+                        int parent = callStack[depth];
+                        lowLink[parent] = Math.min(lowLink[parent], lowLink[node]);
+                    }
+                }
+            }
+
+            return cyclic ? components : null;
+        }
     }
 
     /**
      * this doesn't change the logical output of the program because all of these (leaves or roots) are at the same logical level
      */
-    private static List<Table> sortTrimmedLevel(List<Table> tables) {
+    private static List<Table> sortTrimmedLevel(final Snapshot graph, List<Integer> nodes) {
         /**
          * order by
          * <ul>
@@ -203,21 +428,23 @@ public class TableOrderer {
          *  <li>alpha name (ascending)
          * </ul>
          */
-        final class TrimComparator implements Comparator<Table> {
-            public int compare(Table table1, Table table2) {
+        final class TrimComparator implements Comparator<Integer> {
+            public int compare(Integer node1, Integer node2) {
                 // have to keep track of and use the 'max' versions because
                 // by the time we get here we'll (probably?) have no parents or children
-                int rc = table2.getMaxChildren() - table1.getMaxChildren();
+                int rc = graph.maxChildren[node2] - graph.maxChildren[node1];
                 if (rc == 0)
-                    rc = table1.getMaxParents() - table2.getMaxParents();
+                    rc = graph.maxParents[node1] - graph.maxParents[node2];
                 if (rc == 0)
-                    rc = table1.compareTo(table2);
+                    rc = node1 - node2;  // nodes are numbered by name
                 return rc;
             }
         }
 
-        Set<Table> sorter = new TreeSet<Table>(new TrimComparator());
-        sorter.addAll(tables);
-        return new ArrayList<Table>(sorter);
+        Collections.sort(nodes, new TrimComparator());
+        List<Table> sorted = new ArrayList<Table>(nodes.size());
+        for (int node : nodes)
+            sorted.add(graph.tables.get(node));
+        return sorted;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,235 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy;
+
+import org.schemaspy.model.*;
+import org.schemaspy.util.StringPool;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the model from the XML written by {@link org.schemaspy.view.XmlTableFormatter}.<p>
+ *
+ * The XML doesn't include routines, the update rules of foreign keys or the
+ * details of remote tables other than the names of their related columns.
+ */
+public class XmlModelReader extends ModelReader {
+    private static final XMLInputFactory factory = XMLInputFactory.newInstance();
+
+    // children in remote tables, whose foreign keys are only listed on our columns
+    private final List<RemoteChild> remoteChildren = new ArrayList<RemoteChild>();
+
+    // the catalog is only written on the tables, so the database is created with the first one
+    private String name;
+    private String schema;
+    private String type;
+
+    public XmlModelReader(Config config, ProgressListener listener) {
+        super(config, listener);
+    }
+
+    @Override
+    public Database read(InputStream in) throws IOException {
+        try {
+            XMLStreamReader xml = factory.createXMLStreamReader(in);
+            try {
+                Table table = null;
+                TableColumn column = null;
+                TableIndex index = null;
+
+                while (xml.hasNext()) {
+                    int event = xml.next();
+                    if (event == XMLStreamConstants.END_ELEMENT) {
+                        String element = xml.getLocalName();
+                        if (element.equals("table"))
+                            table = null;
+                        else if (element.equals("index"))
+                            index = null;
+                        else if (element.equals("column") && index == null)
+                            column = null;
+                        continue;
+                    }
+                    if (event != XMLStreamConstants.START_ELEMENT)
+                        continue;
+
+                    switch (xml.getLocalName()) {
+                        case "database":
+                            name = xml.getAttributeValue(null, "name");
+                            schema = xml.getAttributeValue(null, "schema");
+                            type = xml.getAttributeValue(null, "type");
+                            break;
+                        case "table":
+                            table = readTable(xml);
+                            break;
+                        case "column":
+                            if (index != null)
+                                index.addColumn(table.getColumn(xml.getAttributeValue(null, "name")),
+                                        Boolean.parseBoolean(xml.getAttributeValue(null, "ascending")) ? "A" : "D");
+                            else
+                                column = readColumn(xml, table);
+                            break;
+                        case "parent":
+                            readParent(xml, column);
+                            break;
+                        case "child":
+                            readChild(xml, column);
+                            break;
+                        case "primaryKey":
+                            table.setPrimaryColumn(table.getColumn(xml.getAttributeValue(null, "column")));
+                            break;
+                        case "index":
+                            index = new TableIndex(xml.getAttributeValue(null, "name"),
+                                    Boolean.parseBoolean(xml.getAttributeValue(null, "unique")));
+                            index.setId(toId(xml.getAttributeValue(null, "id")));
+                            table.getIndexesMap().put(index.getName(), index);
+                            break;
+                        case "checkConstraint":
+                            table.addCheckConstraint(xml.getAttributeValue(null, "name"), xml.getAttributeValue(null, "constraint"));
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            } finally {
+                xml.close();
+            }
+        } catch (XMLStreamException exc) {
+            throw new IOException("Failed to read the model: " + exc.getMessage(), exc);
+        }
+
+        if (name == null)
+            throw new IOException("Not a model written by SchemaSpy");
+        if (db == null)
+            createDatabase(name, null, schema, type);
+
+        // the columns of remote tables have to exist before foreign keys can be connected to them
+        for (RemoteChild child : remoteChildren) {
+            Table remote = getRemoteTable(child.catalog, child.schema, child.table);
+            TableColumn parentColumn = child.parentColumn;
+            if (remote.getColumn(child.column) == null) {
+                TableColumn childColumn = addColumn(remote, null, child.column);
+                childColumn.setTypeName(parentColumn.getTypeName());
+                setSize(childColumn, parentColumn.getLength(), parentColumn.getDecimalDigits());
+            }
+
+            Table parent = parentColumn.getTable();
+            addForeignKeyColumn(remote, child.foreignKey, DatabaseMetaData.importedKeyNoAction, child.deleteRule, child.column,
+                    parent.getCatalog(), parent.getSchema().getName(), parent.getName(), parentColumn.getName());
+        }
+        remoteChildren.clear();
+
+        connectForeignKeys();
+        return db;
+    }
+
+    private Table readTable(XMLStreamReader xml) throws IOException {
+        if (name == null)
+            throw new IOException("Not a model written by SchemaSpy");
+        if (db == null)
+            createDatabase(name, xml.getAttributeValue(null, "catalog"), schema, type);
+
+        String numRows = xml.getAttributeValue(null, "numRows");
+        Table table = addTable(xml.getAttributeValue(null, "catalog"), xml.getAttributeValue(null, "schema"),
+                xml.getAttributeValue(null, "name"), emptyToNull(xml.getAttributeValue(null, "remarks")),
+                "VIEW".equals(xml.getAttributeValue(null, "type")), xml.getAttributeValue(null, "viewSql"));
+        table.setId(toId(xml.getAttributeValue(null, "id")));
+        table.setNumRows(numRows == null ? -1 : Long.parseLong(numRows));
+        return table;
+    }
+
+    private TableColumn readColumn(XMLStreamReader xml, Table table) {
+        TableColumn column = addColumn(table, toId(xml.getAttributeValue(null, "id")), xml.getAttributeValue(null, "name"));
+        StringPool strings = db.getStringPool();
+        column.setTypeName(strings.get(xml.getAttributeValue(null, "type")));
+        setSize(column, Integer.parseInt(xml.getAttributeValue(null, "size")), Integer.parseInt(xml.getAttributeValue(null, "digits")));
+        column.setNullable(Boolean.parseBoolean(xml.getAttributeValue(null, "nullable")));
+        column.setIsAutoUpdated(Boolean.parseBoolean(xml.getAttributeValue(null, "autoUpdated")));
+        column.setDefaultValue(strings.get(xml.getAttributeValue(null, "defaultValue")));
+        column.setComments(strings.get(emptyToNull(xml.getAttributeValue(null, "remarks"))));
+        return column;
+    }
+
+    private void readParent(XMLStreamReader xml, TableColumn column) {
+        if (Boolean.parseBoolean(xml.getAttributeValue(null, "implied")))
+            return;
+
+        addForeignKeyColumn(column.getTable(), xml.getAttributeValue(null, "foreignKey"),
+                DatabaseMetaData.importedKeyNoAction, getDeleteRule(xml), column.getName(),
+                xml.getAttributeValue(null, "catalog"), xml.getAttributeValue(null, "schema"),
+                xml.getAttributeValue(null, "table"), xml.getAttributeValue(null, "column"));
+    }
+
+    /**
+     * Children in this schema also list the constraint as their parent,
+     * so only children in other schemas are of interest
+     */
+    private void readChild(XMLStreamReader xml, TableColumn column) {
+        if (Boolean.parseBoolean(xml.getAttributeValue(null, "implied")))
+            return;
+
+        String catalog = xml.getAttributeValue(null, "catalog");
+        String schema = xml.getAttributeValue(null, "schema");
+        Table table = column.getTable();
+        if (equals(catalog, table.getCatalog()) && equals(schema, table.getSchema().getName()))
+            return;
+
+        RemoteChild child = new RemoteChild();
+        child.catalog = catalog;
+        child.schema = schema;
+        child.table = xml.getAttributeValue(null, "table");
+        child.column = xml.getAttributeValue(null, "column");
+        child.foreignKey = xml.getAttributeValue(null, "foreignKey");
+        child.deleteRule = getDeleteRule(xml);
+        child.parentColumn = column;
+        remoteChildren.add(child);
+    }
+
+    private static int getDeleteRule(XMLStreamReader xml) {
+        return Boolean.parseBoolean(xml.getAttributeValue(null, "onDeleteCascade"))
+                ? DatabaseMetaData.importedKeyCascade : DatabaseMetaData.importedKeyNoAction;
+    }
+
+    private static boolean equals(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    /**
+     * Missing remarks are written as empty strings
+     */
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static class RemoteChild {
+        private String catalog;
+        private String schema;
+        private String table;
+        private String column;
+        private String foreignKey;
+        private int deleteRule;
+        private TableColumn parentColumn;
+    }
+}
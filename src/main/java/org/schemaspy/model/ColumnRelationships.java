@@ -0,0 +1,122 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.model;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * The columns that a {@link TableColumn} is related to along with the constraints
+ * that relate them, kept in a pair of parallel arrays.<p>
+ *
+ * Almost all columns have no more than a couple of relationships, which makes a
+ * couple of small arrays a lot cheaper than a map.  Related columns are either kept
+ * in the order that they were added and compared by identity or, given an
+ * <code>order</code>, kept sorted and compared with it.
+ */
+final class ColumnRelationships {
+    private static final int INITIAL_CAPACITY = 2;
+
+    private final Comparator<TableColumn> order;
+    private TableColumn[] columns = new TableColumn[INITIAL_CAPACITY];
+    private ForeignKeyConstraint[] constraints = new ForeignKeyConstraint[INITIAL_CAPACITY];
+    private int size;
+
+    ColumnRelationships(Comparator<TableColumn> order) {
+        this.order = order;
+    }
+
+    int size() {
+        return size;
+    }
+
+    TableColumn getColumn(int index) {
+        return columns[index];
+    }
+
+    ForeignKeyConstraint getConstraint(int index) {
+        return constraints[index];
+    }
+
+    /**
+     * Returns the index of <code>column</code>, or if it's not one of the related columns,
+     * <code>-(insertion point) - 1</code>
+     */
+    int indexOf(TableColumn column) {
+        if (order != null)
+            return Arrays.binarySearch(columns, 0, size, column, order);
+
+        for (int i = 0; i < size; ++i) {
+            if (columns[i] == column)
+                return i;
+        }
+        return -size - 1;
+    }
+
+    ForeignKeyConstraint get(TableColumn column) {
+        int index = indexOf(column);
+        return index < 0 ? null : constraints[index];
+    }
+
+    /**
+     * Relates <code>column</code> through <code>constraint</code>,
+     * replacing the constraint if they're already related
+     */
+    void put(TableColumn column, ForeignKeyConstraint constraint) {
+        int index = indexOf(column);
+        if (index >= 0) {
+            columns[index] = column;
+            constraints[index] = constraint;
+            return;
+        }
+
+        index = -index - 1;
+        if (size == columns.length) {
+            int capacity = size + (size >> 1) + 1;
+            columns = Arrays.copyOf(columns, capacity);
+            constraints = Arrays.copyOf(constraints, capacity);
+        }
+        System.arraycopy(columns, index, columns, index + 1, size - index);
+        System.arraycopy(constraints, index, constraints, index + 1, size - index);
+        columns[index] = column;
+        constraints[index] = constraint;
+        ++size;
+    }
+
+    ForeignKeyConstraint remove(TableColumn column) {
+        int index = indexOf(column);
+        return index < 0 ? null : removeAt(index);
+    }
+
+    ForeignKeyConstraint removeAt(int index) {
+        ForeignKeyConstraint constraint = constraints[index];
+        int moved = size - index - 1;
+        System.arraycopy(columns, index + 1, columns, index, moved);
+        System.arraycopy(constraints, index + 1, constraints, index, moved);
+        --size;
+        columns[size] = null;
+        constraints[size] = null;
+        return constraint;
+    }
+
+    void clear() {
+        Arrays.fill(columns, 0, size, null);
+        Arrays.fill(constraints, 0, size, null);
+        size = 0;
+    }
+}
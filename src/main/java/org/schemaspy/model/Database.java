@@ -24,9 +24,12 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.SimpleDateFormat;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -35,6 +38,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.MissingResourceException;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.logging.Level;
@@ -49,6 +53,7 @@ import org.schemaspy.model.xml.TableMeta;
 import org.schemaspy.model.Schema;
 import org.schemaspy.model.Catalog;
 import org.schemaspy.util.CaseInsensitiveMap;
+import org.schemaspy.util.StringPool;
 import org.springframework.context.expression.MapAccessor;
 
 public class Database {
@@ -65,6 +70,10 @@ public class Database {
     private final DatabaseMetaData meta;
     private final SchemaMetaModel schemaMeta;
     private final String connectTime = new SimpleDateFormat("EEE MMM dd HH:mm z yyyy").format(new Date());
+    private String databaseProduct;
+    private StringPool strings = new StringPool();
+    private TableMetadataCache tableMetadata = new TableMetadataCache();
+    private PersistentMetadataCache persistentMetadata;
     private Set<String> sqlKeywords;
     private Pattern invalidIdentifierPattern;
     private final Logger logger = Logger.getLogger(getClass().getName());
@@ -173,6 +182,9 @@ public class Database {
     }
 
     public String getDatabaseProduct() {
+        if (databaseProduct != null)
+            return databaseProduct;
+
         try {
             return meta.getDatabaseProductName() + " - " + meta.getDatabaseProductVersion();
         } catch (SQLException exc) {
@@ -180,6 +192,70 @@ public class Database {
         }
     }
 
+    /**
+     * Name and version of the database product for when there's no
+     * {@link #getMetaData() metadata} to get it from (e.g. the model was loaded from a file)
+     *
+     * @param databaseProduct
+     */
+    public void setDatabaseProduct(String databaseProduct) {
+        this.databaseProduct = databaseProduct;
+    }
+
+    /**
+     * Returns the pool that the strings of the model get shared through
+     *
+     * @return
+     */
+    public StringPool getStringPool() {
+        return strings;
+    }
+
+    /**
+     * Shares the strings of this model with other models of the same run
+     *
+     * @param strings
+     */
+    public void setStringPool(StringPool strings) {
+        this.strings = strings;
+    }
+
+    /**
+     * Returns what's known about the tables that this model might reference
+     *
+     * @return
+     */
+    public TableMetadataCache getTableMetadataCache() {
+        return tableMetadata;
+    }
+
+    /**
+     * Shares what's known about tables with other models of the same run
+     *
+     * @param tableMetadata
+     */
+    public void setTableMetadataCache(TableMetadataCache tableMetadata) {
+        this.tableMetadata = tableMetadata;
+    }
+
+    /**
+     * Returns the details of tables that a previous run persisted,
+     * or <code>null</code> if they aren't being cached
+     *
+     * @return
+     */
+    public PersistentMetadataCache getPersistentMetadataCache() {
+        return persistentMetadata;
+    }
+
+    /**
+     * @param persistentMetadata
+     * @see #getPersistentMetadataCache()
+     */
+    public void setPersistentMetadataCache(PersistentMetadataCache persistentMetadata) {
+        this.persistentMetadata = persistentMetadata;
+    }
+
     /**
      * Return an uppercased <code>Set</code> of all SQL keywords used by a database
      *
@@ -333,16 +409,19 @@ public class Database {
      * A read-only map that treats both collections of Tables and Views as one
      * combined collection.
      * This is a bit strange, but it simplifies logic that otherwise treats
-     * the two as if they were one collection.
+     * the two as if they were one collection.<p>
+     *
+     * Tables and views can't share a name, so the collections it returns are
+     * views that simply visit one map and then the other.
      */
     private class CombinedMap implements Map<String, Table> {
-        private final Map<String, ? extends Table> map1;
-        private final Map<String, ? extends Table> map2;
+        private final Map<String, Table> map1;
+        private final Map<String, Table> map2;
 
         public CombinedMap(Map<String, ? extends Table> map1, Map<String, ? extends Table> map2)
         {
-            this.map1 = map1;
-            this.map2 = map2;
+            this.map1 = Collections.unmodifiableMap(map1);
+            this.map2 = Collections.unmodifiableMap(map2);
         }
 
         @Override
@@ -378,35 +457,59 @@ public class Database {
             throw new UnsupportedOperationException();
         }
 
-        /**
-         * Warning: potentially expensive operation
-         */
         @Override
 		public Set<String> keySet() {
-            return getCombined().keySet();
+            return new AbstractSet<String>() {
+                @Override
+                public Iterator<String> iterator() {
+                    return new CombinedIterator<String>(map1.keySet(), map2.keySet());
+                }
+
+                @Override
+                public int size() {
+                    return CombinedMap.this.size();
+                }
+
+                @Override
+                public boolean contains(Object key) {
+                    return containsKey(key);
+                }
+            };
         }
 
-        /**
-         * Warning: potentially expensive operation
-         */
         @Override
 		public Set<Map.Entry<String, Table>> entrySet() {
-            return getCombined().entrySet();
+            return new AbstractSet<Map.Entry<String, Table>>() {
+                @Override
+                public Iterator<Map.Entry<String, Table>> iterator() {
+                    return new CombinedIterator<Map.Entry<String, Table>>(map1.entrySet(), map2.entrySet());
+                }
+
+                @Override
+                public int size() {
+                    return CombinedMap.this.size();
+                }
+            };
         }
 
-        /**
-         * Warning: potentially expensive operation
-         */
         @Override
 		public Collection<Table> values() {
-            return getCombined().values();
-        }
+            return new AbstractCollection<Table>() {
+                @Override
+                public Iterator<Table> iterator() {
+                    return new CombinedIterator<Table>(map1.values(), map2.values());
+                }
 
-        private Map<String, Table> getCombined() {
-            Map<String, Table> all = new CaseInsensitiveMap<Table>(size());
-            all.putAll(map1);
-            all.putAll(map2);
-            return all;
+                @Override
+                public int size() {
+                    return CombinedMap.this.size();
+                }
+
+                @Override
+                public boolean contains(Object table) {
+                    return containsValue(table);
+                }
+            };
         }
 
         @Override
@@ -424,4 +527,33 @@ public class Database {
             throw new UnsupportedOperationException();
         }
     }
+
+    /**
+     * Iterates over one collection and then the other
+     */
+    private static class CombinedIterator<T> implements Iterator<T> {
+        private Iterator<T> current;
+        private Iterator<T> next;
+
+        CombinedIterator(Collection<T> first, Collection<T> second) {
+            current = first.iterator();
+            next = second.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!current.hasNext() && next != null) {
+                current = next;
+                next = null;
+            }
+            return current.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return current.next();
+        }
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.model;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.schemaspy.Config;
+import org.schemaspy.util.RunMetrics;
+
+/**
+ * Implementation of {@link ProgressListener} that records how long each phase
+ * of analyzing a schema takes (and how many tables it goes through)
+ * in the {@link RunMetrics} of the run before passing the progress on.
+ */
+public class MetricsProgressListener implements ProgressListener {
+	private static final String CONNECTING = "connecting";
+
+	private final ProgressListener listener;
+	private final RunMetrics metrics;
+	private String phase = CONNECTING;
+	private long phaseStartedAt = System.nanoTime();
+	private final AtomicLong tables = new AtomicLong();
+
+	/**
+	 * @param listener the listener to pass the progress on to
+	 * @param metrics  where to record the phases
+	 */
+	public MetricsProgressListener(ProgressListener listener, RunMetrics metrics) {
+		this.listener = listener;
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Records the phase that's ending and starts timing <code>next</code>
+	 */
+	private synchronized void startPhase(String next) {
+		long now = System.nanoTime();
+		if (phase != null)
+			metrics.recordPhase(phase, now - phaseStartedAt, tables.getAndSet(0));
+		phase = next;
+		phaseStartedAt = now;
+	}
+
+	@Override
+	public long startedGatheringDetails() {
+		startPhase("gatheringDetails");
+		return listener.startedGatheringDetails();
+	}
+
+	@Override
+	public void gatheringDetailsProgressed(Table table) {
+		tables.incrementAndGet();
+		listener.gatheringDetailsProgressed(table);
+	}
+
+	@Override
+	public long startedConnectingTables() {
+		startPhase("connectingTables");
+		return listener.startedConnectingTables();
+	}
+
+	@Override
+	public void connectingTablesProgressed(Table table) {
+		tables.incrementAndGet();
+		listener.connectingTablesProgressed(table);
+	}
+
+	@Override
+	public long startedGraphingSummaries() {
+		startPhase("graphingSummaries");
+		return listener.startedGraphingSummaries();
+	}
+
+	@Override
+	public void graphingSummaryProgressed() {
+		listener.graphingSummaryProgressed();
+	}
+
+	@Override
+	public long startedGraphingDetails() {
+		startPhase("graphingDetails");
+		return listener.startedGraphingDetails();
+	}
+
+	@Override
+	public void graphingDetailsProgressed(Table table) {
+		tables.incrementAndGet();
+		listener.graphingDetailsProgressed(table);
+	}
+
+	@Override
+	public long finishedGatheringDetails() {
+		startPhase(null);
+		return listener.finishedGatheringDetails();
+	}
+
+	@Override
+	public long finished(Collection<Table> tables, Config config) {
+		long duration = listener.finished(tables, config);
+		// the next schema (if any) starts by connecting
+		startPhase(CONNECTING);
+		return duration;
+	}
+
+	@Override
+	public String recoverableExceptionEncountered(String msg, Exception exc, String sql) {
+		return listener.recoverableExceptionEncountered(msg, exc, sql);
+	}
+}
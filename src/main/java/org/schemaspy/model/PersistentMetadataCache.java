@@ -0,0 +1,421 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The columns, indexes, primary keys and imported foreign keys of each table/view,
+ * persisted in the output directory so that the next run only has to query
+ * the details of the tables that changed in the meantime.<p>
+ *
+ * Whether a table changed is based on the token (typically the time of its last DDL)
+ * that the dbtype's <code>selectTableModificationTimesSql</code> returns for it.
+ * Anything that isn't part of a table's definition (row counts, comments and ids
+ * that are queried for the whole schema, etc.) is still queried every time.
+ */
+public class PersistentMetadataCache {
+    public static final String FILE_NAME = "schemaspy.metadata";
+
+    private static final int MAGIC = 0x53534d43;
+    private static final int VERSION = 1;
+
+    private static final Logger logger = Logger.getLogger(PersistentMetadataCache.class.getName());
+
+    private final String key;
+    private final Map<String, Entry> previous;
+    private final Map<String, String> modificationTimes = new HashMap<String, String>();
+    private final Map<String, Entry> current = new ConcurrentHashMap<String, Entry>();
+    private final AtomicInteger reused = new AtomicInteger();
+
+    private PersistentMetadataCache(String key, Map<String, Entry> previous) {
+        this.key = key;
+        this.previous = previous;
+    }
+
+    /**
+     * Load what a previous run left behind in <code>outputDir</code>.
+     * What was persisted for a different <code>key</code> (database, user, schema...)
+     * is ignored.
+     *
+     * @param outputDir
+     * @param key
+     * @return
+     */
+    public static PersistentMetadataCache load(File outputDir, String key) {
+        Map<String, Entry> previous = new HashMap<String, Entry>();
+        File file = new File(outputDir, FILE_NAME);
+        if (file.isFile()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new FileInputStream(file))))) {
+                if (in.readInt() == MAGIC && in.readInt() == VERSION && key.equals(readString(in))) {
+                    for (int count = in.readInt(); count > 0; --count) {
+                        String table = readString(in);
+                        previous.put(table, readEntry(in));
+                    }
+                }
+            } catch (IOException exc) {
+                logger.warning("Failed to read " + file + ": " + exc);
+                previous.clear();
+            }
+        }
+
+        return new PersistentMetadataCache(key, previous);
+    }
+
+    /**
+     * Records the token that identifies the current definition of <code>table</code>.
+     * Tables without one are always queried and never persisted.
+     *
+     * @param table
+     * @param modified
+     */
+    public void setModificationTime(String table, String modified) {
+        modificationTimes.put(table, modified);
+    }
+
+    /**
+     * Returns what the previous run found out about <code>table</code> if it
+     * hasn't been modified since, otherwise <code>null</code>
+     *
+     * @param table
+     * @return
+     */
+    public Entry getUnchanged(String table) {
+        String modified = modificationTimes.get(table);
+        Entry entry = previous.get(table);
+        if (modified == null || entry == null || !modified.equals(entry.modified))
+            return null;
+
+        current.put(table, entry);
+        reused.incrementAndGet();
+        return entry;
+    }
+
+    /**
+     * Takes the details of a <code>table</code> that just got queried
+     * so that they can be persisted for the next run
+     *
+     * @param table
+     */
+    public void add(Table table) {
+        String modified = modificationTimes.get(table.getName());
+        if (modified != null)
+            current.put(table.getName(), new Entry(modified, table));
+    }
+
+    /**
+     * Returns the entry of <code>table</code> for this run, or <code>null</code> if it isn't cached
+     *
+     * @param table
+     * @return
+     */
+    public Entry get(String table) {
+        return current.get(table);
+    }
+
+    /**
+     * Returns the number of tables whose details didn't have to be queried
+     */
+    public int getReused() {
+        return reused.get();
+    }
+
+    /**
+     * Persist the details of this run's tables in <code>outputDir</code>
+     *
+     * @param outputDir
+     * @throws IOException
+     */
+    public void save(File outputDir) throws IOException {
+        Map<String, Entry> complete = new HashMap<String, Entry>();
+        for (Map.Entry<String, Entry> entry : current.entrySet()) {
+            if (entry.getValue().importedKeys != null)
+                complete.put(entry.getKey(), entry.getValue());
+        }
+
+        File file = new File(outputDir, FILE_NAME);
+        File temp = new File(outputDir, FILE_NAME + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(new FileOutputStream(temp))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, key);
+            out.writeInt(complete.size());
+            for (Map.Entry<String, Entry> entry : complete.entrySet()) {
+                writeString(out, entry.getKey());
+                writeEntry(out, entry.getValue());
+            }
+        }
+
+        // a run that dies while writing shouldn't leave a corrupt cache behind
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void writeEntry(DataOutputStream out, Entry entry) throws IOException {
+        writeString(out, entry.modified);
+
+        out.writeInt(entry.columns.size());
+        for (TableMetadataCache.Column column : entry.columns) {
+            Object id = column.getId();
+            out.writeBoolean(id instanceof Integer);
+            writeString(out, toString(id));
+            writeString(out, column.getName());
+            writeString(out, column.getTypeName());
+            writeString(out, toString(column.getType()));
+            out.writeInt(column.getLength());
+            out.writeInt(column.getDecimalDigits());
+            writeString(out, column.getDetailedSize());
+            out.writeBoolean(column.isNullable());
+            writeString(out, toString(column.getDefaultValue()));
+            writeString(out, column.getComments());
+            out.writeBoolean(column.isAutoUpdated());
+        }
+
+        out.writeInt(entry.indexes.size());
+        for (Index index : entry.indexes) {
+            writeString(out, index.name);
+            out.writeBoolean(index.unique);
+            out.writeBoolean(index.primaryKey);
+            out.writeInt(index.columns.size());
+            for (int i = 0; i < index.columns.size(); ++i) {
+                writeString(out, index.columns.get(i));
+                out.writeBoolean(index.ascending.get(i));
+            }
+        }
+
+        out.writeInt(entry.primaryColumns.size());
+        for (String column : entry.primaryColumns)
+            writeString(out, column);
+
+        out.writeInt(entry.importedKeys.size());
+        for (TableMetadataCache.ImportedKey importedKey : entry.importedKeys) {
+            writeString(out, importedKey.getFkName());
+            writeString(out, importedKey.getFkColumnName());
+            writeString(out, importedKey.getPkCatalog());
+            writeString(out, importedKey.getPkSchema());
+            writeString(out, importedKey.getPkTableName());
+            writeString(out, importedKey.getPkColumnName());
+            out.writeInt(importedKey.getUpdateRule());
+            out.writeInt(importedKey.getDeleteRule());
+        }
+    }
+
+    private static Entry readEntry(DataInputStream in) throws IOException {
+        String modified = readString(in);
+
+        int count = in.readInt();
+        List<TableMetadataCache.Column> columns = new ArrayList<TableMetadataCache.Column>(count);
+        for (; count > 0; --count) {
+            boolean numericId = in.readBoolean();
+            String id = readString(in);
+            String name = readString(in);
+            String typeName = readString(in);
+            String type = readString(in);
+            columns.add(new TableMetadataCache.Column(numericId ? Integer.valueOf(id) : id, name, typeName,
+                    type == null ? null : Integer.valueOf(type), in.readInt(), in.readInt(), readString(in),
+                    in.readBoolean(), readString(in), readString(in), in.readBoolean()));
+        }
+
+        count = in.readInt();
+        List<Index> indexes = new ArrayList<Index>(count);
+        for (; count > 0; --count) {
+            Index index = new Index(readString(in), in.readBoolean(), in.readBoolean());
+            for (int numColumns = in.readInt(); numColumns > 0; --numColumns) {
+                index.columns.add(readString(in));
+                index.ascending.add(in.readBoolean());
+            }
+            indexes.add(index);
+        }
+
+        count = in.readInt();
+        List<String> primaryColumns = new ArrayList<String>(count);
+        for (; count > 0; --count)
+            primaryColumns.add(readString(in));
+
+        count = in.readInt();
+        List<TableMetadataCache.ImportedKey> importedKeys = new ArrayList<TableMetadataCache.ImportedKey>(count);
+        for (; count > 0; --count) {
+            importedKeys.add(new TableMetadataCache.ImportedKey(readString(in), readString(in), readString(in),
+                    readString(in), readString(in), readString(in), in.readInt(), in.readInt()));
+        }
+
+        Entry entry = new Entry(modified, columns, indexes, primaryColumns);
+        entry.importedKeys = importedKeys;
+        return entry;
+    }
+
+    private static String toString(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Unlike {@link DataOutputStream#writeUTF(String)} this handles <code>null</code>
+     * and strings (like comments) that are longer than 64K
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0)
+            return null;
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The definition of a table as of the time identified by its modification token
+     */
+    public static final class Entry {
+        private final String modified;
+        private final List<TableMetadataCache.Column> columns;
+        private final List<Index> indexes;
+        private final List<String> primaryColumns;
+        private volatile List<TableMetadataCache.ImportedKey> importedKeys;
+
+        private Entry(String modified, List<TableMetadataCache.Column> columns, List<Index> indexes,
+                      List<String> primaryColumns) {
+            this.modified = modified;
+            this.columns = Collections.unmodifiableList(columns);
+            this.indexes = Collections.unmodifiableList(indexes);
+            this.primaryColumns = Collections.unmodifiableList(primaryColumns);
+        }
+
+        private Entry(String modified, Table table) {
+            this(modified, columnsOf(table), indexesOf(table), primaryColumnsOf(table));
+        }
+
+        public List<TableMetadataCache.Column> getColumns() {
+            return columns;
+        }
+
+        public List<Index> getIndexes() {
+            return indexes;
+        }
+
+        public List<String> getPrimaryColumns() {
+            return primaryColumns;
+        }
+
+        /**
+         * Returns the keys that the table imports or <code>null</code>
+         * if they haven't been queried yet
+         */
+        public List<TableMetadataCache.ImportedKey> getImportedKeys() {
+            return importedKeys;
+        }
+
+        public void setImportedKeys(List<TableMetadataCache.ImportedKey> importedKeys) {
+            this.importedKeys = Collections.unmodifiableList(new ArrayList<TableMetadataCache.ImportedKey>(importedKeys));
+        }
+
+        private static List<TableMetadataCache.Column> columnsOf(Table table) {
+            List<TableMetadataCache.Column> columns = new ArrayList<TableMetadataCache.Column>();
+            for (TableColumn column : table.getColumnsMap().values())
+                columns.add(new TableMetadataCache.Column(column));
+            return columns;
+        }
+
+        private static List<Index> indexesOf(Table table) {
+            List<Index> indexes = new ArrayList<Index>();
+            for (TableIndex tableIndex : table.getIndexesMap().values()) {
+                Index index = new Index(tableIndex.getName(), tableIndex.isUnique(), tableIndex.isPrimaryKey());
+                for (TableColumn column : tableIndex.getColumns()) {
+                    index.columns.add(column.getName());
+                    index.ascending.add(tableIndex.isAscending(column));
+                }
+                indexes.add(index);
+            }
+            return indexes;
+        }
+
+        private static List<String> primaryColumnsOf(Table table) {
+            List<String> primaryColumns = new ArrayList<String>();
+            for (TableColumn column : table.getPrimaryColumns()) {
+                if (column != null)
+                    primaryColumns.add(column.getName());
+            }
+            return primaryColumns;
+        }
+    }
+
+    /**
+     * An index along with the names of its columns
+     */
+    public static final class Index {
+        private final String name;
+        private final boolean unique;
+        private final boolean primaryKey;
+        private final List<String> columns = new ArrayList<String>();
+        private final List<Boolean> ascending = new ArrayList<Boolean>();
+
+        private Index(String name, boolean unique, boolean primaryKey) {
+            this.name = name;
+            this.unique = unique;
+            this.primaryKey = primaryKey;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isUnique() {
+            return unique;
+        }
+
+        public boolean isPrimaryKey() {
+            return primaryKey;
+        }
+
+        public List<String> getColumns() {
+            return Collections.unmodifiableList(columns);
+        }
+
+        public boolean isAscending(int column) {
+            return ascending.get(column);
+        }
+    }
+}
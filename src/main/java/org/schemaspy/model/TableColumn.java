@@ -23,38 +23,48 @@ import org.schemaspy.model.xml.ModelExtension;
 import org.schemaspy.model.xml.TableColumnMeta;
 
 import java.sql.DatabaseMetaData;
+import java.util.AbstractSet;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
-import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 
 public class TableColumn {
+    // large schemas have hundreds of thousands of columns, so the state that
+    // most of them share (no relationships, no type yet, the default flags)
+    // is kept as cheap as possible
+    private static final int NULLABLE = 1;
+    private static final int AUTO_UPDATED = 1 << 1;
+    private static final int NO_IMPLIED_PARENTS = 1 << 2;
+    private static final int NO_IMPLIED_CHILDREN = 1 << 3;
+    private static final int EXCLUDED = 1 << 4;
+    private static final int ALL_EXCLUDED = 1 << 5;
+    private static final int HAS_TYPE = 1 << 6;
+
+    private static final Comparator<TableColumn> childOrder = new ColumnComparator();
+
     private final Table table;
     private String name;
     private Object id;
     private String typeName;
     private String shortTypeName;
-    private Integer type;
+    private int type;
     private int length;
     private int decimalDigits;
+    private short flags;
     private String detailedSize;
-    private boolean isNullable;
-    private boolean isAutoUpdated;
-    private Boolean isUnique;
     private Object defaultValue;
     private String comments;
-    private final Map<TableColumn, ForeignKeyConstraint> parents = new HashMap<TableColumn, ForeignKeyConstraint>();
-    private final Map<TableColumn, ForeignKeyConstraint> children = new TreeMap<TableColumn, ForeignKeyConstraint>(new ColumnComparator());
-    private boolean allowImpliedParents = true;
-    private boolean allowImpliedChildren = true;
-    private boolean isExcluded = false;
-    private boolean isAllExcluded = false;
+    private ColumnRelationships parents;   // null until the first parent is added
+    private ColumnRelationships children;  // null until the first child is added
     private Map<String, String> metaData;
     private static final Logger logger = Logger.getLogger(TableColumn.class.getName());
     private static final boolean finerEnabled = logger.isLoggable(Level.FINER);
@@ -89,8 +99,8 @@ public class TableColumn {
             buf.append(decimalDigits);
         }
         detailedSize = buf.toString();
-        isNullable = colMeta.isNullable();
-        isAutoUpdated = colMeta.isAutoUpdated();
+        setFlag(NULLABLE, colMeta.isNullable());
+        setFlag(AUTO_UPDATED, colMeta.isAutoUpdated());
         defaultValue = colMeta.getDefaultValue();
         comments = colMeta.getComments();
     }
@@ -138,11 +148,12 @@ public class TableColumn {
      * @return integer from java.sql.Types or <code>null</code> if not set
      */
     public Integer getType() {
-        return type;
+        return hasFlag(HAS_TYPE) ? Integer.valueOf(type) : null;
     }
 
     public void setType(Integer type) {
-    	this.type = type;
+        setFlag(HAS_TYPE, type != null);
+        this.type = type == null ? 0 : type;
     }
     
     /**
@@ -228,11 +239,11 @@ public class TableColumn {
      * @return
      */
     public boolean isNullable() {
-        return isNullable;
+        return hasFlag(NULLABLE);
     }
 
     public void setNullable(boolean nullable) {
-        isNullable = nullable;
+        setFlag(NULLABLE, nullable);
     }
 
     /**
@@ -241,7 +252,7 @@ public class TableColumn {
      * @return
      */
     public boolean isAutoUpdated() {
-        return isAutoUpdated;
+        return hasFlag(AUTO_UPDATED);
     }
 
     /**
@@ -250,7 +261,7 @@ public class TableColumn {
      * @param isAutoUpdated boolean
      */
     public void setIsAutoUpdated(boolean isAutoUpdated) {
-        this.isAutoUpdated = isAutoUpdated;
+        setFlag(AUTO_UPDATED, isAutoUpdated);
     }
 
     /**
@@ -259,25 +270,20 @@ public class TableColumn {
      * @return
      */
     public boolean isUnique() {
-        if (isUnique == null) {
-            // see if there's a unique index on this column by itself
-            for (TableIndex index : table.getIndexes()) {
-                if (index.isUnique()) {
-                    List<TableColumn> indexColumns = index.getColumns();
-                    if (indexColumns.size() == 1 && indexColumns.contains(this)) {
-                        isUnique = true;
-                        break;
-                    }
-                }
-            }
-
-            if (isUnique == null) {
-                // if it's a single PK column then it's unique
-                isUnique = table.getPrimaryColumns().size() == 1 && isPrimary();
+        // not cached in the flags: they're only written while the model is
+        // being built, while this gets asked from the threads that render it
+
+        // see if there's a unique index on this column by itself
+        for (TableIndex index : table.getIndexesMap().values()) {
+            if (index.isUnique()) {
+                List<TableColumn> indexColumns = index.getColumns();
+                if (indexColumns.size() == 1 && indexColumns.contains(this))
+                    return true;
             }
         }
 
-        return isUnique;
+        // if it's a single PK column then it's unique
+        return table.getPrimaryColumns().size() == 1 && isPrimary();
     }
 
     /**
@@ -298,7 +304,7 @@ public class TableColumn {
      * @return
      */
     public boolean isForeignKey() {
-        return !parents.isEmpty();
+        return parents != null && parents.size() > 0;
     }
 
     /**
@@ -340,11 +346,11 @@ public class TableColumn {
      * @return
      */
     public boolean isExcluded() {
-        return isExcluded;
+        return hasFlag(EXCLUDED);
     }
 
     public void setExcluded(boolean excluded) {
-        isExcluded = excluded;
+        setFlag(EXCLUDED, excluded);
     }
 
     /**
@@ -357,11 +363,11 @@ public class TableColumn {
      * @return
      */
     public boolean isAllExcluded() {
-        return isAllExcluded;
+        return hasFlag(ALL_EXCLUDED);
     }
 
     public void setAllExcluded(boolean allExcluded) {
-        isAllExcluded = allExcluded;
+        setFlag(ALL_EXCLUDED, allExcluded);
     }
 
     /**
@@ -371,6 +377,8 @@ public class TableColumn {
      * @param constraint
      */
     public void addParent(TableColumn parent, ForeignKeyConstraint constraint) {
+        if (parents == null)
+            parents = new ColumnRelationships(null);
         parents.put(parent, constraint);
         table.addedParent();
     }
@@ -381,15 +389,18 @@ public class TableColumn {
      * @param parent
      */
     public void removeParent(TableColumn parent) {
-        parents.remove(parent);
+        if (parents != null)
+            parents.remove(parent);
     }
 
     /**
      * Disassociate all parents from this column
      */
     public void unlinkParents() {
-        for (TableColumn parent : parents.keySet()) {
-            parent.removeChild(this);
+        if (parents == null)
+            return;
+        for (int i = 0; i < parents.size(); ++i) {
+            parents.getColumn(i).removeChild(this);
         }
         parents.clear();
     }
@@ -400,14 +411,14 @@ public class TableColumn {
      * @return
      */
     public Set<TableColumn> getParents() {
-        return parents.keySet();
+        return new RelatedColumns(false);
     }
 
     /**
      * Returns the constraint that connects this column to the specified column (this 'child' column to specified 'parent' column)
      */
     public ForeignKeyConstraint getParentConstraint(TableColumn parent) {
-        return parents.get(parent);
+        return parents == null ? null : parents.get(parent);
     }
 
     /**
@@ -416,13 +427,13 @@ public class TableColumn {
      * @return the removed {@link ForeignKeyConstraint}
      */
     public ForeignKeyConstraint removeAParentFKConstraint() {
-        for (TableColumn relatedColumn : parents.keySet()) {
-            ForeignKeyConstraint constraint = parents.remove(relatedColumn);
-            relatedColumn.removeChild(this);
-            return constraint;
-        }
+        if (parents == null || parents.size() == 0)
+            return null;
 
-        return null;
+        TableColumn relatedColumn = parents.getColumn(0);
+        ForeignKeyConstraint constraint = parents.removeAt(0);
+        relatedColumn.removeChild(this);
+        return constraint;
     }
 
     /**
@@ -431,13 +442,13 @@ public class TableColumn {
      * @return the removed constraint, or <code>null</code> if none were available to be removed
      */
     public ForeignKeyConstraint removeAChildFKConstraint() {
-        for (TableColumn relatedColumn : children.keySet()) {
-            ForeignKeyConstraint constraint = children.remove(relatedColumn);
-            relatedColumn.removeParent(this);
-            return constraint;
-        }
+        if (children == null || children.size() == 0)
+            return null;
 
-        return null;
+        TableColumn relatedColumn = children.getColumn(0);
+        ForeignKeyConstraint constraint = children.removeAt(0);
+        relatedColumn.removeParent(this);
+        return constraint;
     }
 
     /**
@@ -447,6 +458,8 @@ public class TableColumn {
      * @param constraint
      */
     public void addChild(TableColumn child, ForeignKeyConstraint constraint) {
+        if (children == null)
+            children = new ColumnRelationships(childOrder);
         children.put(child, constraint);
         table.addedChild();
     }
@@ -457,15 +470,18 @@ public class TableColumn {
      * @param child
      */
     public void removeChild(TableColumn child) {
-        children.remove(child);
+        if (children != null)
+            children.remove(child);
     }
 
     /**
      * Disassociate all children from this column
      */
     public void unlinkChildren() {
-        for (TableColumn child : children.keySet())
-            child.removeParent(this);
+        if (children == null)
+            return;
+        for (int i = 0; i < children.size(); ++i)
+            children.getColumn(i).removeParent(this);
         children.clear();
     }
 
@@ -475,7 +491,7 @@ public class TableColumn {
      * @return Set
      */
     public Set<TableColumn> getChildren() {
-        return children.keySet();
+        return new RelatedColumns(true);
     }
 
     /**
@@ -483,7 +499,7 @@ public class TableColumn {
      * (specified 'child' to this 'parent' column)
      */
     public ForeignKeyConstraint getChildConstraint(TableColumn child) {
-        return children.get(child);
+        return children == null ? null : children.get(child);
     }
 
     /**
@@ -512,10 +528,12 @@ public class TableColumn {
             table.setPrimaryColumn(this);
         }
 
-        allowImpliedParents  = !colMeta.isImpliedParentsDisabled();
-        allowImpliedChildren = !colMeta.isImpliedChildrenDisabled();
-        isExcluded |= colMeta.isExcluded();
-        isAllExcluded |= colMeta.isAllExcluded();
+        setFlag(NO_IMPLIED_PARENTS, colMeta.isImpliedParentsDisabled());
+        setFlag(NO_IMPLIED_CHILDREN, colMeta.isImpliedChildrenDisabled());
+        if (colMeta.isExcluded())
+            setFlag(EXCLUDED, true);
+        if (colMeta.isAllExcluded())
+            setFlag(ALL_EXCLUDED, true);
         
         length = colMeta.getSize() < 1 ? length : colMeta.getSize();
         //type = colMeta.getType() == null ? type : colMeta.getType();
@@ -542,10 +560,12 @@ public class TableColumn {
             table.setPrimaryColumn(this);
         }
 
-        allowImpliedParents  = !(modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isImpliedParentsDisabled") == null ? false : Boolean.parseBoolean(modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isImpliedParentsDisabled")));
-        allowImpliedChildren = !(modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isImpliedChildrenDisabled") == null ? false : Boolean.parseBoolean(modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isImpliedChildrenDisabled")));
-        isExcluded |= modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isExcluded") == null ? false : Boolean.parseBoolean(modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isExcluded"));
-        isAllExcluded |= modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isAllExcluded") == null ? false : Boolean.parseBoolean(modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isAllExcluded"));
+        setFlag(NO_IMPLIED_PARENTS, modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isImpliedParentsDisabled") == null ? false : Boolean.parseBoolean(modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isImpliedParentsDisabled")));
+        setFlag(NO_IMPLIED_CHILDREN, modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isImpliedChildrenDisabled") == null ? false : Boolean.parseBoolean(modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isImpliedChildrenDisabled")));
+        if (modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isExcluded") == null ? false : Boolean.parseBoolean(modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isExcluded")))
+            setFlag(EXCLUDED, true);
+        if (modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isAllExcluded") == null ? false : Boolean.parseBoolean(modelExtension.getValue(table.getSchema().getName(), table.getName(), getName(), "isAllExcluded")))
+            setFlag(ALL_EXCLUDED, true);
 
         setMetadataMap(modelExtension.get(table.getSchema().getName(), getTable().getName(), getName()));
     }
@@ -589,10 +609,75 @@ public class TableColumn {
         return getName();
     }
 
+    private boolean hasFlag(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    private void setFlag(int flag, boolean value) {
+        flags = (short)(value ? flags | flag : flags & ~flag);
+    }
+
+    /**
+     * Live view of the parents or children of this column
+     */
+    private final class RelatedColumns extends AbstractSet<TableColumn> {
+        private final boolean children;
+
+        RelatedColumns(boolean children) {
+            this.children = children;
+        }
+
+        private ColumnRelationships relationships() {
+            return children ? TableColumn.this.children : parents;
+        }
+
+        @Override
+        public int size() {
+            ColumnRelationships relationships = relationships();
+            return relationships == null ? 0 : relationships.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            ColumnRelationships relationships = relationships();
+            return o instanceof TableColumn && relationships != null && relationships.indexOf((TableColumn)o) >= 0;
+        }
+
+        @Override
+        public Iterator<TableColumn> iterator() {
+            final ColumnRelationships relationships = relationships();
+            if (relationships == null)
+                return Collections.<TableColumn>emptySet().iterator();
+
+            return new Iterator<TableColumn>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < relationships.size();
+                }
+
+                @Override
+                public TableColumn next() {
+                    if (!hasNext())
+                        throw new NoSuchElementException();
+                    return relationships.getColumn(next++);
+                }
+
+                @Override
+                public void remove() {
+                    if (next == 0)
+                        throw new IllegalStateException();
+                    relationships.removeAt(--next);
+                }
+            };
+        }
+    }
+
     /**
      * Two {@link TableColumn}s are considered equal if their tables and names match.
      */
-    private class ColumnComparator implements Comparator<TableColumn> {
+    private static class ColumnComparator implements Comparator<TableColumn> {
         public int compare(TableColumn column1, TableColumn column2) {
             int rc = column1.getTable().compareTo(column2.getTable());
             if (rc == 0)
@@ -608,7 +693,7 @@ public class TableColumn {
      * @return
      */
     public boolean allowsImpliedParents() {
-        return allowImpliedParents;
+        return !hasFlag(NO_IMPLIED_PARENTS);
     }
 
     /**
@@ -618,6 +703,6 @@ public class TableColumn {
      * @return
      */
     public boolean allowsImpliedChildren() {
-        return allowImpliedChildren;
+        return !hasFlag(NO_IMPLIED_CHILDREN);
     }
 }
\ No newline at end of file
@@ -42,6 +42,11 @@ public class TableIndex implements Comparable<TableIndex> {
         isUnique = !rs.getBoolean("NON_UNIQUE");
     }
 
+    public TableIndex(String name, boolean isUnique) {
+        this.name = name;
+        this.isUnique = isUnique;
+    }
+
     public void setId(Object id) {
         this.id = id;
     }
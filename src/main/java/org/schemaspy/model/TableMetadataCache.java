@@ -0,0 +1,298 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The columns and foreign keys of tables, shared by all of the schemas that get
+ * evaluated in a run so that a table that's referenced from several schemas only
+ * gets queried once.<p>
+ *
+ * The tables of a schema that's already been evaluated take precedence
+ * over what was queried about them as remote tables.
+ */
+public class TableMetadataCache {
+    private final ConcurrentHashMap<String, Entry> tables = new ConcurrentHashMap<String, Entry>();
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Returns what's known about the table or <code>null</code> if it hasn't been seen yet
+     */
+    public Entry get(String catalog, String schema, String table) {
+        Entry entry = tables.get(key(catalog, schema, table));
+        if (entry != null)
+            hits.increment();
+        return entry;
+    }
+
+    /**
+     * Adds what was queried about a table, returning what another schema
+     * found out about it in the meantime if it beat us to it
+     */
+    public Entry add(String catalog, String schema, String table, Entry entry) {
+        Entry existing = tables.putIfAbsent(key(catalog, schema, table), entry);
+        return existing == null ? entry : existing;
+    }
+
+    /**
+     * Adds the <code>tables</code> of a schema that's been evaluated,
+     * replacing anything that was queried about them
+     */
+    public void addEvaluated(Collection<? extends Table> tables) {
+        for (Table table : tables) {
+            Schema schema = table.getSchema();
+            this.tables.put(key(table.getCatalog(), schema == null ? null : schema.getName(), table.getName()),
+                    new Entry(table, Entry.importedKeysOf(table)));
+        }
+    }
+
+    /**
+     * Returns the number of tables whose metadata didn't have to be queried
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    private static String key(String catalog, String schema, String table) {
+        return (catalog == null ? "" : catalog) + '\u0000' + (schema == null ? "" : schema) + '\u0000' + table;
+    }
+
+    /**
+     * The columns of a table along with the foreign keys that it imports
+     */
+    public static final class Entry {
+        private final List<Column> columns;
+        private final List<ImportedKey> importedKeys;
+
+        /**
+         * @param table        table whose columns are to be kept
+         * @param importedKeys all of the keys that the table imports, including
+         *                     those that don't reference the schema being evaluated
+         */
+        public Entry(Table table, List<ImportedKey> importedKeys) {
+            List<Column> columns = new ArrayList<Column>(table.getColumnsMap().size());
+            for (TableColumn column : table.getColumns())
+                columns.add(new Column(column));
+            this.columns = Collections.unmodifiableList(columns);
+            this.importedKeys = Collections.unmodifiableList(importedKeys);
+        }
+
+        public List<Column> getColumns() {
+            return columns;
+        }
+
+        public List<ImportedKey> getImportedKeys() {
+            return importedKeys;
+        }
+
+        private static List<ImportedKey> importedKeysOf(Table table) {
+            List<ImportedKey> importedKeys = new ArrayList<ImportedKey>();
+            for (ForeignKeyConstraint foreignKey : table.getForeignKeys()) {
+                Table parent = foreignKey.getParentTable();
+                if (!foreignKey.isReal() || parent == null)
+                    continue;
+
+                Schema parentSchema = parent.getSchema();
+                List<TableColumn> childColumns = foreignKey.getChildColumns();
+                List<TableColumn> parentColumns = foreignKey.getParentColumns();
+                for (int i = 0; i < childColumns.size() && i < parentColumns.size(); ++i) {
+                    importedKeys.add(new ImportedKey(foreignKey.getName(), childColumns.get(i).getName(),
+                            parent.getCatalog(), parentSchema == null ? null : parentSchema.getName(), parent.getName(),
+                            parentColumns.get(i).getName(), foreignKey.getUpdateRule(), foreignKey.getDeleteRule()));
+                }
+            }
+            return importedKeys;
+        }
+    }
+
+    /**
+     * The details of a column that don't depend on the schema that it's viewed from
+     */
+    public static final class Column {
+        private final Object id;
+        private final String name;
+        private final String typeName;
+        private final Integer type;
+        private final int length;
+        private final int decimalDigits;
+        private final String detailedSize;
+        private final boolean nullable;
+        private final Object defaultValue;
+        private final String comments;
+        private final boolean autoUpdated;
+
+        Column(TableColumn column) {
+            id = column.getId();
+            name = column.getName();
+            typeName = column.getTypeName();
+            type = column.getType();
+            length = column.getLength();
+            decimalDigits = column.getDecimalDigits();
+            detailedSize = column.getDetailedSize();
+            nullable = column.isNullable();
+            defaultValue = column.getDefaultValue();
+            comments = column.getComments();
+            autoUpdated = column.isAutoUpdated();
+        }
+
+        Column(Object id, String name, String typeName, Integer type, int length, int decimalDigits,
+               String detailedSize, boolean nullable, Object defaultValue, String comments, boolean autoUpdated) {
+            this.id = id;
+            this.name = name;
+            this.typeName = typeName;
+            this.type = type;
+            this.length = length;
+            this.decimalDigits = decimalDigits;
+            this.detailedSize = detailedSize;
+            this.nullable = nullable;
+            this.defaultValue = defaultValue;
+            this.comments = comments;
+            this.autoUpdated = autoUpdated;
+        }
+
+        /**
+         * Gives <code>column</code> the details of this one
+         */
+        public void copyTo(TableColumn column) {
+            column.setId(id);
+            column.setName(name);
+            column.setTypeName(typeName);
+            if (type != null)
+                column.setType(type);
+            column.setLength(length);
+            column.setDecimalDigits(decimalDigits);
+            column.setDetailedSize(detailedSize);
+            column.setNullable(nullable);
+            column.setDefaultValue(defaultValue);
+            column.setComments(comments);
+        }
+
+        public Object getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getTypeName() {
+            return typeName;
+        }
+
+        public Integer getType() {
+            return type;
+        }
+
+        public int getLength() {
+            return length;
+        }
+
+        public int getDecimalDigits() {
+            return decimalDigits;
+        }
+
+        public String getDetailedSize() {
+            return detailedSize;
+        }
+
+        public boolean isNullable() {
+            return nullable;
+        }
+
+        public Object getDefaultValue() {
+            return defaultValue;
+        }
+
+        public String getComments() {
+            return comments;
+        }
+
+        /**
+         * Whether the column was auto updated when the details were taken,
+         * which {@link #copyTo(TableColumn)} leaves alone since it's only
+         * determined for the tables of the schema being evaluated
+         */
+        public boolean isAutoUpdated() {
+            return autoUpdated;
+        }
+    }
+
+    /**
+     * A row of {@link java.sql.DatabaseMetaData#getImportedKeys(String, String, String)}
+     */
+    public static final class ImportedKey {
+        private final String fkName;
+        private final String fkColumnName;
+        private final String pkCatalog;
+        private final String pkSchema;
+        private final String pkTableName;
+        private final String pkColumnName;
+        private final int updateRule;
+        private final int deleteRule;
+
+        public ImportedKey(String fkName, String fkColumnName, String pkCatalog, String pkSchema,
+                           String pkTableName, String pkColumnName, int updateRule, int deleteRule) {
+            this.fkName = fkName;
+            this.fkColumnName = fkColumnName;
+            this.pkCatalog = pkCatalog;
+            this.pkSchema = pkSchema;
+            this.pkTableName = pkTableName;
+            this.pkColumnName = pkColumnName;
+            this.updateRule = updateRule;
+            this.deleteRule = deleteRule;
+        }
+
+        public String getFkName() {
+            return fkName;
+        }
+
+        public String getFkColumnName() {
+            return fkColumnName;
+        }
+
+        public String getPkCatalog() {
+            return pkCatalog;
+        }
+
+        public String getPkSchema() {
+            return pkSchema;
+        }
+
+        public String getPkTableName() {
+            return pkTableName;
+        }
+
+        public String getPkColumnName() {
+            return pkColumnName;
+        }
+
+        public int getUpdateRule() {
+            return updateRule;
+        }
+
+        public int getDeleteRule() {
+            return deleteRule;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.service;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the connections that have been released so that analyzing another schema
+ * of the same database doesn't have to connect (and authenticate) all over again.<p>
+ *
+ * A connection is only reused for the same URL and user.  When it's reused for
+ * a different schema its session gets switched to that schema with
+ * {@link Connection#setSchema(String)} or, for databases whose schemas are really
+ * catalogs, {@link Connection#setCatalog(String)}.
+ */
+class ConnectionPool {
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+    private static final int VALIDATION_TIMEOUT = 5;  // seconds
+
+    private final List<Session> idle = new ArrayList<Session>();
+    private final Map<Connection, Session> active = new IdentityHashMap<Connection, Session>();
+
+    /**
+     * Returns an idle connection to <code>url</code> as <code>user</code>
+     * or <code>null</code> if there isn't a usable one.
+     *
+     * @param schema the schema that the session should be in, or <code>null</code>
+     *               for the one that it was originally connected to
+     */
+    synchronized Connection acquire(String url, String user, String schema) {
+        String key = key(url, user);
+        for (Iterator<Session> iter = idle.iterator(); iter.hasNext(); ) {
+            Session session = iter.next();
+            if (!session.key.equals(key))
+                continue;
+
+            iter.remove();
+            if (isValid(session.connection)) {
+                session.switchTo(schema);
+                active.put(session.connection, session);
+                LOGGER.fine("Reusing connection to " + url);
+                return session.connection;
+            }
+            close(session.connection);
+        }
+
+        return null;
+    }
+
+    /**
+     * Starts keeping track of a newly opened <code>connection</code>
+     */
+    synchronized void add(Connection connection, String url, String user, String schema) {
+        Session session = new Session(connection, key(url, user));
+        session.switchTo(schema);
+        active.put(connection, session);
+    }
+
+    /**
+     * Makes <code>connection</code> available to the next {@link #acquire(String, String, String)}.
+     * Connections that the pool didn't hand out are left alone.
+     */
+    synchronized void release(Connection connection) {
+        Session session = active.remove(connection);
+        if (session != null)
+            idle.add(session);
+    }
+
+    /**
+     * Closes the connections that aren't being used
+     */
+    synchronized void closeIdle() {
+        for (Session session : idle)
+            close(session.connection);
+        idle.clear();
+    }
+
+    private static String key(String url, String user) {
+        return user == null ? url : url + '\u0000' + user;
+    }
+
+    private static boolean isValid(Connection connection) {
+        try {
+            return !connection.isClosed() && connection.isValid(VALIDATION_TIMEOUT);
+        } catch (SQLException | AbstractMethodError exc) {
+            // drivers that predate JDBC 4 don't know how to validate themselves
+            return true;
+        }
+    }
+
+    private static void close(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException exc) {
+            LOGGER.log(Level.FINE, "Failed to close connection", exc);
+        }
+    }
+
+    /**
+     * A connection along with the schema/catalog that it originally connected to
+     */
+    private static final class Session {
+        private final Connection connection;
+        private final String key;
+        private final boolean catalogs;
+        private String schema;
+
+        Session(Connection connection, String key) {
+            this.connection = connection;
+            this.key = key;
+            boolean catalogs = false;
+            try {
+                DatabaseMetaData meta = connection.getMetaData();
+                catalogs = !meta.supportsSchemasInDataManipulation() && meta.supportsCatalogsInDataManipulation();
+                schema = catalogs ? connection.getCatalog() : connection.getSchema();
+            } catch (SQLException | AbstractMethodError exc) {
+                LOGGER.log(Level.FINE, "Unable to determine the schema of the connection", exc);
+            }
+            this.catalogs = catalogs;
+        }
+
+        /**
+         * Switches the session to <code>schema</code> (or back to the original one).
+         * Everything that gets queried names its schema, so failing to switch
+         * only matters to unqualified SQL.
+         */
+        void switchTo(String schema) {
+            String target = schema != null ? schema : this.schema;
+            if (target == null)
+                return;
+
+            try {
+                if (catalogs) {
+                    if (!target.equals(connection.getCatalog()))
+                        connection.setCatalog(target);
+                } else if (!target.equals(connection.getSchema())) {
+                    connection.setSchema(target);
+                }
+            } catch (SQLException | AbstractMethodError exc) {
+                LOGGER.log(Level.FINE, "Unable to switch the connection to " + target, exc);
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.schemaspy.service;
 import org.schemaspy.Config;
 import org.schemaspy.model.Database;
 import org.schemaspy.model.LogicalTable;
+import org.schemaspy.model.PersistentMetadataCache;
 import org.schemaspy.model.ProgressListener;
 import org.schemaspy.model.Routine;
 import org.schemaspy.model.RoutineParameter;
@@ -17,6 +18,7 @@ import org.schemaspy.model.xml.SchemaMeta;
 import org.schemaspy.model.xml.SchemaMetaModel;
 import org.schemaspy.model.xml.TableMeta;
 import org.schemaspy.service.helper.BasicTableMeta;
+import org.schemaspy.util.StringPool;
 import org.schemaspy.validator.NameValidator;
 import org.springframework.stereotype.Service;
 
@@ -28,6 +30,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.logging.Level;
@@ -60,8 +63,9 @@ public class DatabaseService {
 
 		listener.startedGatheringDetails();
 
-		DatabaseMetaData meta = sqlService.getMeta();
+		DatabaseMetaData meta = db.getMetaData();
 
+		initModificationTimes(config, db, listener);
 		initTables(config, db, listener, meta);
 		if (config.isViewsEnabled())
 			initViews(config, db, listener, meta);
@@ -85,9 +89,57 @@ public class DatabaseService {
 		updateFromXmlMetadata(config, db, db.getSchemaMeta());
 	}
 
+	/**
+	 * Tells the persistent metadata cache (if there is one) when each of the
+	 * tables/views was last modified so it knows which ones it can answer for.
+	 * The cache is dropped if the dbtype can't tell.
+	 *
+	 * @throws SQLException
+	 */
+	private void initModificationTimes(Config config, Database db, ProgressListener listener) throws SQLException {
+		PersistentMetadataCache cache = db.getPersistentMetadataCache();
+		if (cache == null)
+			return;
+
+		String sql = config.getDbProperties().getProperty("selectTableModificationTimesSql");
+		if (sql == null) {
+			logger.warning("Metadata isn't cached since the " + config.getDbType()
+					+ " dbtype doesn't specify selectTableModificationTimesSql");
+			db.setPersistentMetadataCache(null);
+			return;
+		}
+
+		PreparedStatement stmt = null;
+		ResultSet rs = null;
+
+		try {
+			stmt = sqlService.prepareStatement(sql, db, null);
+			rs = stmt.executeQuery();
+
+			while (rs.next()) {
+				String modified = rs.getString("last_modified");
+				if (modified != null)
+					cache.setModificationTime(rs.getString("table_name"), modified);
+			}
+		} catch (SQLException sqlException) {
+			// don't die just because this failed, just query everything
+			String msg = listener.recoverableExceptionEncountered("Failed to retrieve table modification times",
+					sqlException, sql);
+			if (msg != null) {
+				logger.warning(msg);
+			}
+			db.setPersistentMetadataCache(null);
+		} finally {
+			if (rs != null)
+				rs.close();
+			if (stmt != null)
+				stmt.close();
+		}
+	}
+
 	private void initCatalogs(Config config, Database db, ProgressListener listener) throws SQLException {
 
-		String sql = Config.getInstance().getDbProperties().getProperty("selectCatalogsSql");
+		String sql = config.getDbProperties().getProperty("selectCatalogsSql");
 		PreparedStatement stmt = null;
 		ResultSet rs = null;
 		if (sql != null && db.getCatalog() != null) {
@@ -108,7 +160,7 @@ public class DatabaseService {
 	}
 
 	private void initSchemas(Config config, Database db, ProgressListener listener) throws SQLException {
-		String sql = Config.getInstance().getDbProperties().getProperty("selectSchemasSql");
+		String sql = config.getDbProperties().getProperty("selectSchemasSql");
 		PreparedStatement stmt = null;
 		ResultSet rs = null;
 		if (sql != null && db.getSchema() != null) {
@@ -143,6 +195,7 @@ public class DatabaseService {
 		String[] types = getTypes(config, "tableTypes", "TABLE");
 		NameValidator validator = new NameValidator("table", include, exclude, types);
 		List<BasicTableMeta> entries = getBasicTableMeta(config, db, listener, metadata, true, types);
+		List<BasicTableMeta> listed = new ArrayList<BasicTableMeta>(entries);
 
 		TableCreator creator;
 		if (maxThreads == 1) {
@@ -177,6 +230,21 @@ public class DatabaseService {
 
 		// wait for everyone to finish
 		creator.join();
+
+		// tables are added as they're finished, so put them back in the order they were listed in
+		if (maxThreads != 1) {
+			Map<String, Table> tables = db.getTablesMap();
+			List<Table> created = new ArrayList<Table>(tables.size());
+			for (BasicTableMeta entry : listed) {
+				Table table = tables.remove(entry.getName());
+				if (table != null)
+					created.add(table);
+			}
+			created.addAll(tables.values());
+			tables.clear();
+			for (Table table : created)
+				tables.put(table.getName(), table);
+		}
 	}
 
 	/**
@@ -331,7 +399,7 @@ public class DatabaseService {
 			}
 
 			if (table.getNumRows() == 0) {
-				long numRows = Config.getInstance().isNumRowsEnabled() ? tableService.fetchNumRows(db, table) : -1;
+				long numRows = db.getConfig().isNumRowsEnabled() ? tableService.fetchNumRows(db, table) : -1;
 				table.setNumRows(numRows);
 			}
 
@@ -437,6 +505,7 @@ public class DatabaseService {
 		String queryName = forTables ? "selectTablesSql" : "selectViewsSql";
 		String sql = config.getDbProperties().getProperty(queryName);
 		List<BasicTableMeta> basics = new ArrayList<BasicTableMeta>();
+		StringPool strings = db.getStringPool();
 		ResultSet rs = null;
 
 		if (sql != null) {
@@ -449,11 +518,11 @@ public class DatabaseService {
 
 				while (rs.next()) {
 					String name = rs.getString(clazz + "_name");
-					String cat = getOptionalString(rs, clazz + "_catalog");
-					String sch = getOptionalString(rs, clazz + "_schema");
+					String cat = strings.get(getOptionalString(rs, clazz + "_catalog"));
+					String sch = strings.get(getOptionalString(rs, clazz + "_schema"));
 					if (cat == null && sch == null)
 						sch = db.getSchema().getName();
-					String remarks = getOptionalString(rs, clazz + "_comment");
+					String remarks = strings.get(getOptionalString(rs, clazz + "_comment"));
 					String text = forTables ? null : getOptionalString(rs, "view_definition");
 					String rows = forTables ? getOptionalString(rs, "table_rows") : null;
 					long numRows = rows == null ? -1 : Long.parseLong(rows);
@@ -482,9 +551,9 @@ public class DatabaseService {
 				while (rs.next()) {
 					String name = rs.getString("TABLE_NAME");
 					String type = rs.getString("TABLE_TYPE");
-					String cat = rs.getString("TABLE_CAT");
-					String schem = rs.getString("TABLE_SCHEM");
-					String remarks = getOptionalString(rs, "REMARKS");
+					String cat = strings.get(rs.getString("TABLE_CAT"));
+					String schem = strings.get(rs.getString("TABLE_SCHEM"));
+					String remarks = strings.get(getOptionalString(rs, "REMARKS"));
 
 					basics.add(new BasicTableMeta(cat, schem, name, type, remarks, null, -1));
 				}
@@ -568,8 +637,8 @@ public class DatabaseService {
 						String columnName = rs.getString("column_name");
 						TableColumn column = table.getColumn(columnName);
 						if (column != null) {
-							column.setTypeName(rs.getString("column_type"));
-							column.setShortType(getOptionalString(rs, "short_column_type"));
+							column.setTypeName(db.getStringPool().get(rs.getString("column_type")));
+							column.setShortType(db.getStringPool().get(getOptionalString(rs, "short_column_type")));
 						}
 					}
 				}
@@ -750,7 +819,7 @@ public class DatabaseService {
 					if (table != null) {
 						TableColumn column = table.getColumn(rs.getString("column_name"));
 						if (column != null)
-							column.setComments(rs.getString("comments"));
+							column.setComments(db.getStringPool().get(rs.getString("comments")));
 					}
 				}
 			} catch (SQLException sqlException) {
@@ -793,7 +862,7 @@ public class DatabaseService {
 					if (view != null) {
 						TableColumn column = view.getColumn(rs.getString("column_name"));
 						if (column != null)
-							column.setComments(rs.getString("comments"));
+							column.setComments(db.getStringPool().get(rs.getString("comments")));
 					}
 				}
 			} catch (SQLException sqlException) {
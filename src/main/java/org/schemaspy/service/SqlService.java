@@ -7,6 +7,8 @@ import org.schemaspy.model.Database;
 import org.schemaspy.model.InvalidConfigurationException;
 import org.schemaspy.util.ConnectionURLBuilder;
 import org.schemaspy.util.DbSpecificOption;
+import org.schemaspy.util.MeasuredStatement;
+import org.schemaspy.util.RunMetrics;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
@@ -35,46 +37,20 @@ public class SqlService {
     private final Logger logger = Logger.getLogger(getClass().getName());
     private final boolean fineEnabled = logger.isLoggable(Level.FINE);
 
-    private Connection connection;
-    private DatabaseMetaData meta;
-
-    private String defaultSchema;
-    private String databaseName;
+    private final ConnectionPool connectionPool = new ConnectionPool();
 
     public SqlService(CommandLineArguments commandLineArguments) {
         this.commandLineArguments = Objects.requireNonNull(commandLineArguments);
     }
 
-    public Connection getConnection() {
-        return connection;
-    }
-
-    public DatabaseMetaData getMeta() {
-        return meta;
-    }
-
     public DatabaseMetaData connect(Config config) throws IOException, SQLException {
-        Properties properties = config.determineDbProperties(commandLineArguments.getDatabaseType());
+        Properties properties = getDbProperties(config);
 
         ConnectionURLBuilder urlBuilder = new ConnectionURLBuilder(config, properties);
         if (config.getDb() == null)
             config.setDb(urlBuilder.getConnectionURL());
 
-        String driverClass = properties.getProperty("driver");
-        String driverPath = properties.getProperty("driverPath");
-        if (driverPath == null)
-            driverPath = "";
-
-        if (config.getDriverPath() != null)
-            driverPath = config.getDriverPath();
-
-        DbDriverLoader driverLoader = new DbDriverLoader();
-        connection = driverLoader.getConnection(config, urlBuilder.getConnectionURL(), driverClass, driverPath);
-
-        meta = connection.getMetaData();
-
-        databaseName = config.getDb();
-        defaultSchema = commandLineArguments.getSchema();
+        DatabaseMetaData meta = openConnection(config, properties, urlBuilder).getMetaData();
 
         if (config.isEvaluateAllEnabled()) {
             List<String> args = config.asList();
@@ -89,12 +65,75 @@ public class SqlService {
             if (schemaSpec == null)
                 schemaSpec = properties.getProperty("schemaSpec", ".*");
 
+            release(meta.getConnection());
             return null;    // no database to return
         }
 
         return meta;
     }
 
+    /**
+     * Returns a connection to the database described by <code>config</code>,
+     * reusing one that's been {@link #release(Connection) released} if possible.
+     */
+    public Connection openConnection(Config config) throws IOException {
+        Properties properties = getDbProperties(config);
+
+        ConnectionURLBuilder urlBuilder = new ConnectionURLBuilder(config, properties);
+        if (config.getDb() == null)
+            config.setDb(urlBuilder.getConnectionURL());
+
+        return openConnection(config, properties, urlBuilder);
+    }
+
+    private Connection openConnection(Config config, Properties properties, ConnectionURLBuilder urlBuilder) throws IOException {
+        String connectionURL = urlBuilder.getConnectionURL();
+        // only switch sessions between schemas when we're the ones picking the schema
+        String schema = config.isOneOfMultipleSchemas() ? config.getSchema() : null;
+
+        Connection pooled = connectionPool.acquire(connectionURL, config.getUser(), schema);
+        if (pooled != null)
+            return pooled;
+
+        String driverClass = properties.getProperty("driver");
+        String driverPath = properties.getProperty("driverPath");
+        if (driverPath == null)
+            driverPath = "";
+
+        if (config.getDriverPath() != null)
+            driverPath = config.getDriverPath();
+
+        DbDriverLoader driverLoader = new DbDriverLoader();
+        Connection opened = driverLoader.getConnection(config, connectionURL, driverClass, driverPath);
+        connectionPool.add(opened, connectionURL, config.getUser(), schema);
+        return opened;
+    }
+
+    /**
+     * Lets the next {@link #connect(Config)} or {@link #openConnection(Config)}
+     * to the same database reuse <code>connection</code> instead of connecting again.
+     */
+    public void release(Connection connection) {
+        connectionPool.release(connection);
+    }
+
+    /**
+     * Closes the connections that have been released
+     */
+    public void closeIdleConnections() {
+        connectionPool.closeIdle();
+    }
+
+    /**
+     * The properties of the database type, only loading them once per configuration
+     */
+    private Properties getDbProperties(Config config) throws IOException {
+        String dbType = commandLineArguments.getDatabaseType();
+        if (dbType.equals(config.getDbType()))
+            return config.getDbProperties();
+        return config.determineDbProperties(dbType);
+    }
+
     /**
      * Create a <code>PreparedStatement</code> from the specified SQL.
      * The SQL can contain these named parameters (but <b>not</b> question marks).
@@ -115,7 +154,9 @@ public class SqlService {
         if (fineEnabled)
             logger.fine(sqlBuf + " " + sqlParams);
 
-        PreparedStatement stmt = connection.prepareStatement(sqlBuf.toString());
+        PreparedStatement stmt = getConnection(db).prepareStatement(sqlBuf.toString());
+        if (RunMetrics.getInstance() != null)
+            stmt = MeasuredStatement.wrap(stmt, getPropertyName(db, sql), tableName);
         try {
             for (int i = 0; i < sqlParams.size(); ++i) {
                 stmt.setString(i + 1, sqlParams.get(i).toString());
@@ -128,6 +169,15 @@ public class SqlService {
         return stmt;
     }
 
+    /**
+     * Returns the name of the dbtype property that <code>sql</code> came from
+     * so that its executions can be told apart from the rest
+     */
+    private String getPropertyName(Database db, String sql) {
+        String name = db.getConfig().getDbPropertyName(sql);
+        return name == null ? MeasuredStatement.UNNAMED : name;
+    }
+
     /**
      * Replaces named parameters in <code>sql</code> with question marks and
      * returns appropriate matching values in the returned <code>List</code> of <code>String</code>s.
@@ -169,7 +219,29 @@ public class SqlService {
         return sqlParams;
     }
 
-    public PreparedStatement prepareStatement(String sqlQuery) throws SQLException {
-        return connection.prepareStatement(sqlQuery);
+    /**
+     * Create a <code>PreparedStatement</code> from the specified SQL
+     * on the connection that <code>db</code> is being evaluated through.
+     */
+    public PreparedStatement prepareStatement(String sqlQuery, Database db) throws SQLException {
+        return MeasuredStatement.wrap(getConnection(db).prepareStatement(sqlQuery));
+    }
+
+    /**
+     * Create a <code>PreparedStatement</code> from the specified SQL
+     * on the connection that <code>db</code> is being evaluated through,
+     * with its executions measured as <code>name</code> for <code>tableName</code>.
+     * Unlike {@link #prepareStatement(String, Database, String)} the SQL doesn't contain named parameters.
+     */
+    public PreparedStatement prepareStatement(String sqlQuery, Database db, String name, String tableName) throws SQLException {
+        return MeasuredStatement.wrap(getConnection(db).prepareStatement(sqlQuery), name, tableName);
+    }
+
+    /**
+     * Each of the schemas being evaluated at the same time has its own connection,
+     * so use the one that the database's metadata came from
+     */
+    private Connection getConnection(Database db) throws SQLException {
+        return db.getMetaData().getConnection();
     }
 }
@@ -6,16 +6,20 @@ import org.schemaspy.model.Database;
 import org.schemaspy.model.ForeignKey;
 import org.schemaspy.model.ForeignKeyConstraint;
 import org.schemaspy.model.LogicalRemoteTable;
+import org.schemaspy.model.PersistentMetadataCache;
 import org.schemaspy.model.RemoteTable;
 import org.schemaspy.model.Schema;
 import org.schemaspy.model.Table;
 import org.schemaspy.model.TableColumn;
 import org.schemaspy.model.TableIndex;
+import org.schemaspy.model.TableMetadataCache;
 import org.schemaspy.model.xml.ForeignKeyMeta;
 import org.schemaspy.model.xml.ModelExtension;
 import org.schemaspy.model.xml.TableColumnMeta;
 import org.schemaspy.model.xml.TableMeta;
 import org.schemaspy.util.Markdown;
+import org.schemaspy.util.MeasuredStatement;
+import org.schemaspy.util.StringPool;
 import org.springframework.stereotype.Service;
 
 import java.sql.DatabaseMetaData;
@@ -24,6 +28,7 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.logging.Level;
@@ -52,9 +57,27 @@ public class TableService {
 
 	public void gatheringTableDetails(Database db, Table table) throws SQLException {
 		markDownRegistryPage(table);
+
+		PersistentMetadataCache cache = db.getPersistentMetadataCache();
+		PersistentMetadataCache.Entry unchanged = cache == null ? null : cache.getUnchanged(table.getName());
+		if (unchanged != null) {
+			addColumns(db, table, unchanged.getColumns());
+			for (TableMetadataCache.Column column : unchanged.getColumns()) {
+				if (column.isAutoUpdated())
+					table.getColumn(column.getName()).setIsAutoUpdated(true);
+			}
+			addIndexes(db, table, unchanged.getIndexes());
+			for (String columnName : unchanged.getPrimaryColumns())
+				table.setPrimaryColumn(table.getColumn(columnName));
+			return;
+		}
+
 		initColumns(db, table);
 		initIndexes(db, table);
 		initPrimaryKeys(db, table);
+
+		if (cache != null)
+			cache.add(table);
 	}
 
 	/**
@@ -68,7 +91,7 @@ public class TableService {
 				rs = db.getMetaData().getColumns(table.getCatalog(), table.getSchema().getName(), table.getName(), "%");
 
 				while (rs.next())
-					addColumn(table, rs);
+					addColumn(db, table, rs);
 			} catch (SQLException exc) {
 				if (!table.isLogical()) {
 					class ColumnInitializationFailure extends SQLException {
@@ -124,7 +147,8 @@ public class TableService {
 		sql.append(" where 0 = 1");
 
 		try {
-			stmt = db.getMetaData().getConnection().prepareStatement(sql.toString());
+			stmt = MeasuredStatement.wrap(db.getMetaData().getConnection().prepareStatement(sql.toString()),
+					"select * where 0 = 1", table.getName());
 			rs = stmt.executeQuery();
 
 			ResultSetMetaData rsMeta = rs.getMetaData();
@@ -157,27 +181,27 @@ public class TableService {
 	 *            {@link DatabaseMetaData#getColumns(String, String, String, String)}
 	 * @throws SQLException
 	 */
-	protected void addColumn(Table table, ResultSet rs) throws SQLException {
+	protected void addColumn(Database db, Table table, ResultSet rs) throws SQLException {
 		String columnName = rs.getString("COLUMN_NAME");
 
 		if (columnName == null)
 			return;
 
 		if (table.getColumn(columnName) == null) {
-			TableColumn column = initColumn(table, rs);
+			TableColumn column = initColumn(db, table, columnName, rs);
 			table.getColumnsMap().put(column.getName(), column);
 		}
 	}
 
-	private TableColumn initColumn(Table table, ResultSet rs) throws SQLException {
+	private TableColumn initColumn(Database db, Table table, String columnName, ResultSet rs) throws SQLException {
+		StringPool strings = db.getStringPool();
 		TableColumn column = new TableColumn(table);
 		// names and types are typically reused *many* times in a database,
 		// so keep a single instance of each distinct one
 		// (thanks to Mike Barnes for the suggestion)
-		String tmp = rs.getString("COLUMN_NAME");
-		column.setName(tmp == null ? null : tmp.intern());
-		tmp = rs.getString("TYPE_NAME");
-		column.setTypeName(tmp == null ? "unknown" : tmp.intern());
+		column.setName(strings.get(columnName));
+		String typeName = rs.getString("TYPE_NAME");
+		column.setTypeName(typeName == null ? "unknown" : strings.get(typeName));
 		column.setType(rs.getInt("DATA_TYPE"));
 
 		column.setDecimalDigits(rs.getInt("DECIMAL_DIGITS"));
@@ -193,15 +217,48 @@ public class TableService {
 			buf.append(',');
 			buf.append(column.getDecimalDigits());
 		}
-		column.setDetailedSize(buf.toString());
+		column.setDetailedSize(strings.get(buf.toString()));
 
 		column.setNullable(rs.getInt("NULLABLE") == DatabaseMetaData.columnNullable);
-		column.setDefaultValue(rs.getString("COLUMN_DEF"));
-		column.setComments(rs.getString("REMARKS"));
+		column.setDefaultValue(strings.get(rs.getString("COLUMN_DEF")));
+		column.setComments(strings.get(rs.getString("REMARKS")));
 		column.setId(rs.getInt("ORDINAL_POSITION") - 1);
 
-		Pattern excludeIndirectColumns = Config.getInstance().getIndirectColumnExclusions();
-		Pattern excludeColumns = Config.getInstance().getColumnExclusions();
+		initExclusions(db.getConfig(), column);
+		return column;
+	}
+
+	/**
+	 * Adds the <code>columns</code> that are already known about to <code>table</code>
+	 */
+	private void addColumns(Database db, Table table, List<TableMetadataCache.Column> columns) {
+		for (TableMetadataCache.Column known : columns) {
+			if (table.getColumn(known.getName()) == null) {
+				TableColumn column = new TableColumn(table);
+				known.copyTo(column);
+				initExclusions(db.getConfig(), column);
+				table.getColumnsMap().put(column.getName(), column);
+			}
+		}
+	}
+
+	/**
+	 * Adds the <code>indexes</code> that are already known about to <code>table</code>
+	 */
+	private void addIndexes(Database db, Table table, List<PersistentMetadataCache.Index> indexes) {
+		for (PersistentMetadataCache.Index known : indexes) {
+			TableIndex index = new TableIndex(db.getStringPool().get(known.getName()), known.isUnique());
+			index.setIsPrimaryKey(known.isPrimaryKey());
+			for (int i = 0; i < known.getColumns().size(); ++i)
+				index.addColumn(table.getColumn(known.getColumns().get(i)), known.isAscending(i) ? "A" : "D");
+
+			table.getIndexesMap().put(index.getName(), index);
+		}
+	}
+
+	private void initExclusions(Config config, TableColumn column) {
+		Pattern excludeIndirectColumns = config.getIndirectColumnExclusions();
+		Pattern excludeColumns = config.getColumnExclusions();
 
 		column.setAllExcluded(column.matches(excludeColumns));
 		column.setExcluded(column.isAllExcluded() || column.matches(excludeIndirectColumns));
@@ -210,8 +267,6 @@ public class TableService {
 					+ excludeColumns + ":" + column.isAllExcluded() + " " + excludeIndirectColumns + ":"
 					+ column.matches(excludeIndirectColumns));
 		}
-
-		return column;
 	}
 
 	/**
@@ -226,33 +281,37 @@ public class TableService {
 			LOGGER.finer("Connecting foreign keys to " + table.getFullName());
 		ResultSet rs = null;
 
-		try {
-			// get our foreign keys that reference other tables' primary keys
-			rs = db.getMetaData().getImportedKeys(table.getCatalog(), table.getSchema().getName(), table.getName());
-			ArrayList<ForeignKey> importedKeys = new ArrayList<>();
+		// a table that hasn't changed since the previous run imports the same keys as it did then
+		PersistentMetadataCache cache = db.getPersistentMetadataCache();
+		PersistentMetadataCache.Entry known = cache == null ? null : cache.get(table.getName());
+		List<TableMetadataCache.ImportedKey> importedKeys = known == null ? null : known.getImportedKeys();
 
-			while (rs.next()) {
-				ForeignKey key = new ForeignKey();
-				key.setFK_NAME(rs.getString("FK_NAME"));
-				key.setFKCOLUMN_NAME(rs.getString("FKCOLUMN_NAME"));
-				key.setPKTABLE_CAT(rs.getString("PKTABLE_CAT"));
-				key.setPKTABLE_SCHEM(rs.getString("PKTABLE_SCHEM"));
-				key.setPKTABLE_NAME(rs.getString("PKTABLE_NAME"));
-				key.setPKCOLUMN_NAME(rs.getString("PKCOLUMN_NAME"));
-				key.setUPDATE_RULE(rs.getInt("UPDATE_RULE"));
-				key.setDELETE_RULE(rs.getInt("DELETE_RULE"));
-				importedKeys.add(key);
-			}
+		if (importedKeys == null) {
+			try {
+				// get our foreign keys that reference other tables' primary keys
+				rs = db.getMetaData().getImportedKeys(table.getCatalog(), table.getSchema().getName(), table.getName());
+				importedKeys = new ArrayList<>();
 
-			for (ForeignKey importedKey : importedKeys) {
-				addForeignKey(db, table, importedKey.getFK_NAME(), importedKey.getFKCOLUMN_NAME(),
-						importedKey.getPKTABLE_CAT(), importedKey.getPKTABLE_SCHEM(), importedKey.getPKTABLE_NAME(),
-						importedKey.getPKCOLUMN_NAME(), importedKey.getUPDATE_RULE(), importedKey.getDELETE_RULE(),
-						tables);
+				while (rs.next()) {
+					importedKeys.add(new TableMetadataCache.ImportedKey(rs.getString("FK_NAME"),
+							rs.getString("FKCOLUMN_NAME"), rs.getString("PKTABLE_CAT"), rs.getString("PKTABLE_SCHEM"),
+							rs.getString("PKTABLE_NAME"), rs.getString("PKCOLUMN_NAME"), rs.getInt("UPDATE_RULE"),
+							rs.getInt("DELETE_RULE")));
+				}
+			} finally {
+				if (rs != null)
+					rs.close();
 			}
-		} finally {
-			if (rs != null)
-				rs.close();
+
+			if (known != null)
+				known.setImportedKeys(importedKeys);
+		}
+
+		for (TableMetadataCache.ImportedKey importedKey : importedKeys) {
+			addForeignKey(db, table, importedKey.getFkName(), importedKey.getFkColumnName(),
+					importedKey.getPkCatalog(), importedKey.getPkSchema(), importedKey.getPkTableName(),
+					importedKey.getPkColumnName(), importedKey.getUpdateRule(), importedKey.getDeleteRule(),
+					tables);
 		}
 
 		// also try to find all of the 'remote' tables in other schemas that
@@ -297,44 +356,63 @@ public class TableService {
 	 * 
 	 * @throws SQLException
 	 */
-	private void connectForeignKeysRemoteTable(Database db, RemoteTable remoteTable, Map<String, Table> tables)
-			throws SQLException {
+	private void connectForeignKeysRemoteTable(Database db, RemoteTable remoteTable,
+			List<TableMetadataCache.ImportedKey> importedKeys, Map<String, Table> tables) throws SQLException {
 		if (finerEnabled)
 			LOGGER.finer("Connecting foreign keys to " + remoteTable.getFullName());
+
+		for (TableMetadataCache.ImportedKey importedKey : importedKeys) {
+			String otherSchema = importedKey.getPkSchema();
+			String otherCatalog = importedKey.getPkCatalog();
+
+			// if it points back to our schema then use it
+			if (remoteTable.getBaseContainer().equals(otherSchema)
+					|| remoteTable.getBaseContainer().equals(otherCatalog)) {
+				addForeignKey(db, remoteTable, importedKey.getFkName(), importedKey.getFkColumnName(), otherCatalog,
+						otherSchema, importedKey.getPkTableName(), importedKey.getPkColumnName(),
+						importedKey.getUpdateRule(), importedKey.getDeleteRule(), tables);
+			}
+		}
+	}
+
+	/**
+	 * Returns all of the keys that <code>remoteTable</code> imports
+	 * or <code>null</code> if they couldn't be determined
+	 */
+	private List<TableMetadataCache.ImportedKey> getImportedKeys(Database db, RemoteTable remoteTable)
+			throws SQLException {
+		List<TableMetadataCache.ImportedKey> importedKeys = new ArrayList<TableMetadataCache.ImportedKey>();
 		ResultSet rs = null;
 
 		try {
-			// get remote table's FKs that reference PKs in our schema
 			rs = db.getMetaData().getImportedKeys(remoteTable.getCatalog(), remoteTable.getSchema().getName(),
 					remoteTable.getName());
 
+			StringPool strings = db.getStringPool();
 			while (rs.next()) {
-				String otherSchema = rs.getString("PKTABLE_SCHEM");
-				String otherCatalog = rs.getString("PKTABLE_CAT");
-
-				// if it points back to our schema then use it
-				if (remoteTable.getBaseContainer().equals(otherSchema)
-						|| remoteTable.getBaseContainer().equals(otherCatalog)) {
-					addForeignKey(db, remoteTable, rs.getString("FK_NAME"), rs.getString("FKCOLUMN_NAME"), otherCatalog,
-							otherSchema, rs.getString("PKTABLE_NAME"), rs.getString("PKCOLUMN_NAME"),
-							rs.getInt("UPDATE_RULE"), rs.getInt("DELETE_RULE"), tables);
-				}
+				importedKeys.add(new TableMetadataCache.ImportedKey(strings.get(rs.getString("FK_NAME")),
+						strings.get(rs.getString("FKCOLUMN_NAME")), strings.get(rs.getString("PKTABLE_CAT")),
+						strings.get(rs.getString("PKTABLE_SCHEM")), strings.get(rs.getString("PKTABLE_NAME")),
+						strings.get(rs.getString("PKCOLUMN_NAME")), rs.getInt("UPDATE_RULE"), rs.getInt("DELETE_RULE")));
 			}
 		} catch (SQLException sqlExc) {
 			if (!remoteTable.isLogical()) {
 				// if explicitly asking for these details then propagate the
 				// exception
-				if (Config.getInstance().isOneOfMultipleSchemas())
+				if (db.getConfig().isOneOfMultipleSchemas())
 					throw sqlExc;
 
 				// otherwise just report the fact that we tried & couldn't
 				System.err.println(
 						"Couldn't resolve foreign keys for remote table " + remoteTable.getFullName() + ": " + sqlExc);
 			}
+			return null;
 		} finally {
 			if (rs != null)
 				rs.close();
 		}
+
+		return importedKeys;
 	}
 
 	/**
@@ -355,8 +433,8 @@ public class TableService {
 		if (fkName == null)
 			return;
 
-		Pattern include = Config.getInstance().getTableInclusions();
-		Pattern exclude = Config.getInstance().getTableExclusions();
+		Pattern include = db.getConfig().getTableInclusions();
+		Pattern exclude = db.getConfig().getTableExclusions();
 		
 		if (!include.matcher(pkTableName).matches() || exclude.matcher(pkTableName).matches()) {
 			if (fineEnabled)
@@ -367,7 +445,7 @@ public class TableService {
 
 		ForeignKeyConstraint foreignKey = table.getForeignKeysMap().get(fkName);
 		if (foreignKey == null) {
-			foreignKey = new ForeignKeyConstraint(table, fkName, updateRule, deleteRule);
+			foreignKey = new ForeignKeyConstraint(table, db.getStringPool().get(fkName), updateRule, deleteRule);
 
 			table.getForeignKeysMap().put(fkName, foreignKey);
 		}
@@ -376,7 +454,7 @@ public class TableService {
 		if (childColumn != null) {
 			foreignKey.addChildColumn(childColumn);
 
-			Config config = Config.getInstance();
+			Config config = db.getConfig();
 			Table parentTable = tables.get(pkTableName);
 
 			String parentContainer = pkSchema != null ? pkSchema : pkCatalog != null ? pkCatalog : db.getName();
@@ -439,7 +517,7 @@ public class TableService {
 		try {
 			if (finerEnabled)
 				LOGGER.finer(sql.toString());
-			stmt = sqlService.prepareStatement(sql.toString());
+			stmt = sqlService.prepareStatement(sql.toString(), db, "select " + clause, table.getName());
 			rs = stmt.executeQuery();
 			while (rs.next()) {
 				return rs.getLong(1);
@@ -474,7 +552,7 @@ public class TableService {
 
 		SQLException originalFailure = null;
 
-		String sql = Config.getInstance().getDbProperties().getProperty("selectRowCountSql");
+		String sql = db.getConfig().getDbProperties().getProperty("selectRowCountSql");
 		if (sql != null) {
 			PreparedStatement stmt = null;
 			ResultSet rs = null;
@@ -537,18 +615,37 @@ public class TableService {
 			if (fineEnabled)
 				LOGGER.fine("Creating remote table " + fullName);
 
+			// another schema of this run might have already told us about it
+			TableMetadataCache cache = db.getTableMetadataCache();
+			TableMetadataCache.Entry known = cache.get(remoteCatalog, remoteSchema.getName(), remoteTableName);
+
 			if (logical)
 				remoteTable = new LogicalRemoteTable(db, remoteCatalog, remoteSchema, remoteTableName, baseContainer);
 			else {
 				remoteTable = new RemoteTable(db, remoteCatalog, remoteSchema, remoteTableName, baseContainer);
-				this.initColumns(db, remoteTable);
+				if (known == null)
+					this.initColumns(db, remoteTable);
+				else
+					addColumns(db, remoteTable, known.getColumns());
 			}
 
 			if (fineEnabled)
 				LOGGER.fine("Adding remote table " + fullName);
 
 			db.getRemoteTablesMap().put(fullName, remoteTable);
-			connectForeignKeysRemoteTable(db, remoteTable, db.getLocals());
+
+			List<TableMetadataCache.ImportedKey> importedKeys;
+			if (known != null) {
+				importedKeys = known.getImportedKeys();
+			} else {
+				importedKeys = getImportedKeys(db, remoteTable);
+				if (importedKeys != null && !logical)
+					cache.add(remoteCatalog, remoteSchema.getName(), remoteTableName,
+							new TableMetadataCache.Entry(remoteTable, importedKeys));
+			}
+
+			if (importedKeys != null)
+				connectForeignKeysRemoteTable(db, remoteTable, importedKeys, db.getLocals());
 		}
 
 		return remoteTable;
@@ -721,7 +818,7 @@ public class TableService {
 		// do this first because some DB's (e.g. Oracle) do 'bad' things with
 		// getIndexInfo()
 		// (they try to do a DDL analyze command that has some bad side-effects)
-		if (initIndexes(db, table, Config.getInstance().getDbProperties().getProperty("selectIndexesSql")))
+		if (initIndexes(db, table, db.getConfig().getDbProperties().getProperty("selectIndexesSql")))
 			return;
 
 		// couldn't, so try the old fashioned approach
@@ -732,7 +829,7 @@ public class TableService {
 
 			while (rs.next()) {
 				if (rs.getShort("TYPE") != DatabaseMetaData.tableIndexStatistic)
-					addIndex(table, rs);
+					addIndex(db, table, rs);
 			}
 		} catch (SQLException exc) {
 			if (!table.isLogical())
@@ -763,7 +860,7 @@ public class TableService {
 
 			while (rs.next()) {
 				if (rs.getShort("TYPE") != DatabaseMetaData.tableIndexStatistic)
-					addIndex(table, rs);
+					addIndex(db, table, rs);
 			}
 		} catch (SQLException sqlException) {
 			LOGGER.warning("Failed to query index information with SQL: " + selectIndexesSql);
@@ -793,7 +890,7 @@ public class TableService {
 	 * @param rs
 	 * @throws SQLException
 	 */
-	private void addIndex(Table table, ResultSet rs) throws SQLException {
+	private void addIndex(Database db, Table table, ResultSet rs) throws SQLException {
 		String indexName = rs.getString("INDEX_NAME");
 
 		if (indexName == null)
@@ -802,7 +899,8 @@ public class TableService {
 		TableIndex index = table.getIndex(indexName);
 
 		if (index == null) {
-			index = new TableIndex(rs);
+			// names like PRIMARY are used by every table
+			index = new TableIndex(db.getStringPool().get(indexName), !rs.getBoolean("NON_UNIQUE"));
 
 			table.getIndexesMap().put(index.getName(), index);
 		}
@@ -1,6 +1,5 @@
 package org.schemaspy.service;
 
-import org.schemaspy.Config;
 import org.schemaspy.model.Database;
 import org.schemaspy.model.View;
 import org.springframework.stereotype.Service;
@@ -33,7 +32,7 @@ public class ViewService {
      * @throws SQLException
      */
     public String fetchViewSql(Database db, View view) throws SQLException {
-        String selectViewSql = Config.getInstance().getDbProperties().getProperty("selectViewSql");
+        String selectViewSql = db.getConfig().getDbProperties().getProperty("selectViewSql");
         if (selectViewSql == null) {
             return null;
         }
@@ -0,0 +1,164 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Tiny static file server that serves a site directly out of a bundle
+ * written by {@link ZipOutputSink}, without extracting it.
+ * Pre-compressed <code>.gz</code> siblings in the bundle are served to clients that accept them.
+ * <p>
+ * Only the local machine can reach it unless it's given the host or address to listen on
+ * (<code>0.0.0.0</code> for every interface).
+ * <p>
+ * Usage: <code>java -cp schemaspy.jar org.schemaspy.util.BundleServer &lt;bundle.zip&gt; [port] [host]</code>
+ */
+public class BundleServer implements Closeable {
+    private static final Logger logger = Logger.getLogger(BundleServer.class.getName());
+    private static final Map<String, String> contentTypes = new HashMap<>();
+
+    static {
+        contentTypes.put("html", "text/html; charset=UTF-8");
+        contentTypes.put("css", "text/css");
+        contentTypes.put("js", "application/javascript");
+        contentTypes.put("json", "application/json");
+        contentTypes.put("xml", "application/xml");
+        contentTypes.put("txt", "text/plain; charset=UTF-8");
+        contentTypes.put("svg", "image/svg+xml");
+        contentTypes.put("png", "image/png");
+        contentTypes.put("gif", "image/gif");
+        contentTypes.put("jpg", "image/jpeg");
+        contentTypes.put("ico", "image/x-icon");
+        contentTypes.put("woff", "font/woff");
+        contentTypes.put("woff2", "font/woff2");
+        contentTypes.put("ttf", "font/ttf");
+        contentTypes.put("eot", "application/vnd.ms-fontobject");
+    }
+
+    private final ZipFile bundle;
+    private final HttpServer server;
+
+    /**
+     * Serves <code>bundleFile</code> on <code>port</code> of the loopback interface
+     */
+    public BundleServer(File bundleFile, int port) throws IOException {
+        this(bundleFile, InetAddress.getLoopbackAddress(), port);
+    }
+
+    public BundleServer(File bundleFile, InetAddress host, int port) throws IOException {
+        bundle = new ZipFile(bundleFile);
+        server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/", this::handle);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: " + BundleServer.class.getName() + " <bundle.zip> [port] [host]");
+            System.exit(1);
+        }
+
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+        InetAddress host = args.length > 2 ? InetAddress.getByName(args[2]) : InetAddress.getLoopbackAddress();
+        BundleServer server = new BundleServer(new File(args[0]), host, port);
+        server.start();
+        System.out.println("Serving " + args[0] + " on http://" + host.getHostAddress() + ":" + server.getPort() + "/");
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.stop(0);
+        bundle.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            String path = URLDecoder.decode(exchange.getRequestURI().getRawPath(), "UTF-8");
+            String name = path.startsWith("/") ? path.substring(1) : path;
+            if (name.isEmpty() || name.endsWith("/"))
+                name += "index.html";
+
+            ZipEntry entry = bundle.getEntry(name);
+            ZipEntry compressed = bundle.getEntry(name + GzipSiblingOutputStream.SUFFIX);
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (compressed != null)
+                exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+            if (compressed != null && (entry == null || (acceptEncoding != null && acceptEncoding.contains("gzip")))) {
+                entry = compressed;
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+
+            if (entry == null || entry.isDirectory()) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+
+            String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+            String contentType = contentTypes.get(extension);
+            exchange.getResponseHeaders().set("Content-Type", contentType == null ? "application/octet-stream" : contentType);
+
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            exchange.sendResponseHeaders(200, entry.getSize() < 0 ? 0 : entry.getSize());
+            try (InputStream in = bundle.getInputStream(entry); OutputStream out = exchange.getResponseBody()) {
+                IOUtils.copy(in, out);
+            }
+        } catch (IOException | RuntimeException exc) {
+            logger.warning("Failed to serve " + exchange.getRequestURI() + ": " + exc);
+            throw exc;
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -18,62 +18,351 @@
  */
 package org.schemaspy.util;
 
-import java.util.HashMap;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
- * A {@link HashMap} implementation that uses {@link String}s as its keys
+ * A hash map that uses {@link String}s as its keys
  * where the keys are treated without regard to case.  That is, <code>get("MyTableName")</code>
- * will return the same object as <code>get("MYTABLENAME")</code>.
+ * will return the same object as <code>get("MYTABLENAME")</code>.<p>
+ *
+ * Keys are stored as {@link String#toUpperCase()} makes them, in the default locale.
+ * Lookups of ASCII keys hash and compare their characters in place rather than
+ * creating an upper case copy of them, so <code>get</code> and <code>containsKey</code>
+ * don't allocate anything. Other keys, and all keys in locales that upper case
+ * ASCII differently (Turkish and Azerbaijani dotted i), get copied as before.
+ * Entries are iterated in the order that they were first added.
  *
  * @author John Currier
  */
-public class CaseInsensitiveMap<V> extends HashMap<String, V>
+public class CaseInsensitiveMap<V> extends AbstractMap<String, V>
 {
-    private static final long serialVersionUID = 1L;
+    private static final int DEFAULT_CAPACITY = 16;
+    // the languages in which String.toUpperCase() doesn't upper case ASCII as ASCII
+    private static final Set<String> TURKIC_LANGUAGES = new HashSet<String>(Arrays.asList("tr", "az"));
+
+    private Node<V>[] buckets;
+    private Node<V> head;
+    private Node<V> tail;
+    private int size;
+    private int modCount;
+    private Set<Map.Entry<String, V>> entrySet;
 
     public CaseInsensitiveMap()
     {
+        this(DEFAULT_CAPACITY);
     }
 
+    @SuppressWarnings("unchecked")
     public CaseInsensitiveMap(int initialCapacity)
     {
-        super(initialCapacity);
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * 3 / 4 < initialCapacity)
+            capacity <<= 1;
+        buckets = (Node<V>[])new Node[capacity];
+    }
+
+    @Override
+    public int size() {
+        return size;
     }
 
     @Override
     public V get(Object key) {
-        V name = null;
-        if (key != null) {
-            name = super.get(((String)key).toUpperCase());
-        }
-        return name;
+        Node<V> node = getNode(key);
+        return node == null ? null : node.value;
     }
 
     @Override
-    public V put(String key, V value) {
-        return super.put(key.toUpperCase(), value);
+    public boolean containsKey(Object key) {
+        return getNode(key) != null;
     }
 
     @Override
-    public void putAll(Map<? extends String, ? extends V> map) {
-        Iterator<? extends Map.Entry<? extends String, ? extends V>> iter
-                        = map.entrySet().iterator();
+    public V put(String key, V value) {
+        key = normalize(key);
+        int hash = hash(key);
+        Node<V>[] buckets = this.buckets;
+        int index = hash & (buckets.length - 1);
+        for (Node<V> node = buckets[index]; node != null; node = node.next) {
+            if (node.hash == hash && matches(node.key, key)) {
+                V old = node.value;
+                node.value = value;
+                return old;
+            }
+        }
 
-        while (iter.hasNext()) {
-            Map.Entry<? extends String, ? extends V> e = iter.next();
-            put(e.getKey(), e.getValue());
+        Node<V> node = new Node<V>(hash, toUpperCase(key), value, buckets[index]);
+        buckets[index] = node;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.after = node;
+            node.before = tail;
         }
+        tail = node;
+        ++modCount;
+        if (++size > buckets.length * 3 / 4)
+            resize();
+        return null;
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends V> map) {
+        for (Map.Entry<? extends String, ? extends V> entry : map.entrySet())
+            put(entry.getKey(), entry.getValue());
     }
 
     @Override
     public V remove(Object key) {
-        return super.remove(((String)key).toUpperCase());
+        Node<V> node = getNode(key);
+        if (node == null)
+            return null;
+
+        removeNode(node);
+        return node.value;
     }
 
     @Override
-    public boolean containsKey(Object key) {
-        return super.containsKey(((String)key).toUpperCase());
+    public void clear() {
+        for (int i = 0; i < buckets.length; ++i)
+            buckets[i] = null;
+        head = tail = null;
+        size = 0;
+        ++modCount;
+    }
+
+    @Override
+    public Set<Map.Entry<String, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new AbstractSet<Map.Entry<String, V>>() {
+                @Override
+                public Iterator<Map.Entry<String, V>> iterator() {
+                    return new NodeIterator();
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public void clear() {
+                    CaseInsensitiveMap.this.clear();
+                }
+            };
+        }
+        return entrySet;
+    }
+
+    private Node<V> getNode(Object key) {
+        if (!(key instanceof String))
+            return null;
+
+        String name = normalize((String)key);
+        int hash = hash(name);
+        for (Node<V> node = buckets[hash & (buckets.length - 1)]; node != null; node = node.next) {
+            if (node.hash == hash && matches(node.key, name))
+                return node;
+        }
+        return null;
+    }
+
+    private void removeNode(Node<V> node) {
+        int index = node.hash & (buckets.length - 1);
+        if (buckets[index] == node) {
+            buckets[index] = node.next;
+        } else {
+            Node<V> previous = buckets[index];
+            while (previous.next != node)
+                previous = previous.next;
+            previous.next = node.next;
+        }
+
+        if (node.before == null)
+            head = node.after;
+        else
+            node.before.after = node.after;
+        if (node.after == null)
+            tail = node.before;
+        else
+            node.after.before = node.before;
+
+        --size;
+        ++modCount;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resize() {
+        Node<V>[] resized = (Node<V>[])new Node[buckets.length << 1];
+        int mask = resized.length - 1;
+        for (Node<V> node = head; node != null; node = node.after) {
+            int index = node.hash & mask;
+            node.next = resized[index];
+            resized[index] = node;
+        }
+        buckets = resized;
+    }
+
+    /**
+     * Returns <code>key</code> itself if its ASCII characters can be upper cased in place,
+     * otherwise its {@link String#toUpperCase() upper case} form, which can differ in length
+     * (<code>"ß"</code> is <code>"SS"</code>) or use non-ASCII letters (Turkish <code>"i"</code> is <code>"İ"</code>)
+     */
+    private static String normalize(String key) {
+        if (TURKIC_LANGUAGES.contains(Locale.getDefault().getLanguage()))
+            return key.toUpperCase();
+        for (int i = 0; i < key.length(); ++i) {
+            if (key.charAt(i) >= 0x80)
+                return key.toUpperCase();
+        }
+        return key;
+    }
+
+    /**
+     * Upper cases an ASCII character, leaving the rest alone as they've been
+     * {@link #normalize(String) normalized} already
+     */
+    private static char toUpperCase(char c) {
+        return c >= 'a' && c <= 'z' ? (char)(c - ('a' - 'A')) : c;
+    }
+
+    /**
+     * The hash of the upper case form of <code>key</code> without creating it
+     */
+    private static int hash(String key) {
+        int hash = 0;
+        for (int i = 0; i < key.length(); ++i)
+            hash = 31 * hash + toUpperCase(key.charAt(i));
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Returns <code>true</code> if <code>key</code> is <code>upperCaseKey</code>
+     * without regard to case
+     */
+    private static boolean matches(String upperCaseKey, String key) {
+        if (upperCaseKey == key)
+            return true;
+
+        int length = key.length();
+        if (upperCaseKey.length() != length)
+            return false;
+
+        for (int i = 0; i < length; ++i) {
+            char c = key.charAt(i);
+            char upper = upperCaseKey.charAt(i);
+            if (c != upper && toUpperCase(c) != upper)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns <code>key</code> itself if it's already in upper case
+     */
+    private static String toUpperCase(String key) {
+        for (int i = 0; i < key.length(); ++i) {
+            char c = key.charAt(i);
+            if (toUpperCase(c) != c) {
+                char[] chars = key.toCharArray();
+                for (int j = i; j < chars.length; ++j)
+                    chars[j] = toUpperCase(chars[j]);
+                return new String(chars);
+            }
+        }
+        return key;
+    }
+
+    private static final class Node<V> implements Map.Entry<String, V> {
+        private final int hash;
+        private final String key;
+        private V value;
+        private Node<V> next;    // within the bucket
+        private Node<V> before;  // in the order they were added
+        private Node<V> after;
+
+        Node(int hash, String key, V value, Node<V> next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+
+        @Override
+        public String getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>)o;
+            return key.equals(other.getKey()) && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    private final class NodeIterator implements Iterator<Map.Entry<String, V>> {
+        private Node<V> next = head;
+        private Node<V> current;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<String, V> next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (next == null)
+                throw new NoSuchElementException();
+            current = next;
+            next = next.after;
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (current == null)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            removeNode(current);
+            current = null;
+            expectedModCount = modCount;
+        }
     }
-}
\ No newline at end of file
+}
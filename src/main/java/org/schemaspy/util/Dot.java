@@ -21,9 +21,13 @@ package org.schemaspy.util;
 import org.schemaspy.Config;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -40,6 +44,11 @@ public class Dot {
     private String renderer;
     private final Set<String> validatedRenderers = Collections.synchronizedSet(new HashSet<String>());
     private final Set<String> invalidatedRenderers = Collections.synchronizedSet(new HashSet<String>());
+    // what dot -T<format>: reported by format
+    private final Map<String, List<String>> rendererLines = new ConcurrentHashMap<String, List<String>>();
+    // the formats that dot was asked about by this run rather than a previous one
+    private final Set<String> probedFormats = Collections.synchronizedSet(new HashSet<String>());
+    private final DotProbeCache probeCache;
     private final Logger logger = Logger.getLogger(Dot.class.getName());
 
     private static final String CAIRO_RENDERER = ":cairo";
@@ -47,6 +56,25 @@ public class Dot {
     private static final String EMPTY_RENDERER = "";
 
     private Dot() {
+        probeCache = new DotProbeCache(DotProbeCache.getDefaultFile(), getExe());
+        String versionText = probeCache.getVersion();
+        if (versionText != null) {
+            logger.config("GraphvizVersion: " + versionText + " (previously probed)");
+        } else {
+            versionText = probeVersion();
+            if (versionText != null)
+                probeCache.setVersion(versionText);
+        }
+
+        graphvizVersion = new GraphvizVersion(versionText);
+        validatedRenderers.add("");
+    }
+
+    /**
+     * Runs <code>dot -V</code> and returns the version that it reports
+     * or <code>null</code> if it couldn't be determined
+     */
+    private String probeVersion() {
         String versionText = null;
         // dot -V should return something similar to:
         //  dot graphvizVersion 2.8 (Fri Feb  3 22:38:53 UTC 2006)
@@ -55,6 +83,7 @@ public class Dot {
         String[] dotCommand = new String[]{getExe(), "-V"};
 
         try {
+            recordProbe();
             Process process = Runtime.getRuntime().exec(dotCommand);
             BufferedReader reader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
             String versionLine = reader.readLine();
@@ -82,8 +111,7 @@ public class Dot {
             }
         }
 
-        graphvizVersion = new GraphvizVersion(versionText);
-        validatedRenderers.add("");
+        return versionText;
     }
 
     public static Dot getInstance() {
@@ -214,22 +242,11 @@ public class Dot {
         if (invalidatedRenderers.contains(renderer))
             return false;
 
-        try {
-            String[] dotCommand = new String[]{
-                    getExe(),
-                    "-T" + getFormat() + ':'
-            };
-            Process process = Runtime.getRuntime().exec(dotCommand);
-            BufferedReader errors = new BufferedReader(new InputStreamReader(process.getErrorStream()));
-            String line;
-            while ((line = errors.readLine()) != null) {
-                if (line.contains(getFormat() + renderer)) {
-                    validatedRenderers.add(renderer);
-                }
-            }
-            process.waitFor();
-        } catch (Exception exc) {
-            exc.printStackTrace();
+        // only what's supported is trusted from previous runs: plugins can be
+        // installed without touching dot, so ask it again before giving up
+        if (isListed(renderer, getRendererLines(getFormat(), false))
+                || isListed(renderer, getRendererLines(getFormat(), true))) {
+            validatedRenderers.add(renderer);
         }
 
         if (!validatedRenderers.contains(renderer)) {
@@ -241,6 +258,59 @@ public class Dot {
         return true;
     }
 
+    private boolean isListed(String renderer, List<String> lines) {
+        for (String line : lines) {
+            if (line.contains(getFormat() + renderer))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns what <code>dot -T&lt;format&gt;:</code> reports about the renderers of <code>format</code>,
+     * only running it if this install of dot hasn't been asked before or if <code>probe</code>
+     * is <code>true</code> and it hasn't been asked during this run
+     */
+    private List<String> getRendererLines(String format, boolean probe) {
+        List<String> lines = rendererLines.get(format);
+        if (lines != null && (!probe || probedFormats.contains(format)))
+            return lines;
+
+        lines = probe ? null : probeCache.getRenderers(format);
+        if (lines == null) {
+            try {
+                String[] dotCommand = new String[]{
+                        getExe(),
+                        "-T" + format + ':'
+                };
+                recordProbe();
+                Process process = Runtime.getRuntime().exec(dotCommand);
+                BufferedReader errors = new BufferedReader(new InputStreamReader(process.getErrorStream()));
+                List<String> probed = new ArrayList<String>();
+                String line;
+                while ((line = errors.readLine()) != null) {
+                    probed.add(line);
+                }
+                process.waitFor();
+                probeCache.setRenderers(format, probed);
+                probedFormats.add(format);
+                lines = probed;
+            } catch (Exception exc) {
+                exc.printStackTrace();
+                return Collections.emptyList();
+            }
+        }
+
+        rendererLines.put(format, lines);
+        return lines;
+    }
+
+    private static void recordProbe() {
+        RunMetrics metrics = RunMetrics.getInstance();
+        if (metrics != null)
+            metrics.recordDotProbe();
+    }
+
     /**
      * Returns the executable to use to run dot
      *
@@ -282,6 +352,9 @@ public class Dot {
         String commandLine = getDisplayableCommand(dotCommand);
         logger.fine(commandLine);
 
+        RunMetrics metrics = RunMetrics.getInstance();
+        long started = System.nanoTime();
+        boolean drawn = false;
         try {
             Process process = Runtime.getRuntime().exec(dotCommand);
             new ProcessOutputReader(commandLine, process.getErrorStream()).start();
@@ -297,6 +370,14 @@ public class Dot {
             if (!diagramFile.exists())
                 throw new DotFailure("'" + commandLine + "' failed to create output file");
 
+            OutputSink.getInstance().add(diagramFile);
+
+            // the other formats are already compressed
+            if ("svg".equalsIgnoreCase(getFormat()))
+                GzipSiblingOutputStream.compress(diagramFile);
+
+            drawn = true;
+
             // dot generates post-HTML 4.0.1 output...convert trailing />'s to >'s
             return mapBuffer.toString().replace("/>", ">");
         } catch (InterruptedException interrupted) {
@@ -308,6 +389,8 @@ public class Dot {
             diagramFile.delete();
             throw new DotFailure("'" + commandLine + "' failed with exception " + failed);
         } finally {
+            if (metrics != null)
+                metrics.recordDiagram(System.nanoTime() - started, drawn ? diagramFile.length() : 0, !drawn);
             if (mapReader != null) {
                 try {
                     mapReader.close();
@@ -0,0 +1,190 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * What's been probed about a Graphviz install (its version and the renderers
+ * of each output format), kept in a properties file so that each install only
+ * gets probed once instead of on every run.<p>
+ *
+ * Entries are keyed by the path of the dot executable and when it was last modified,
+ * so upgrading Graphviz in place makes them stale.  The cache is only an optimization:
+ * failing to read or write it just means that dot gets probed again.<p>
+ *
+ * The file is read once, when the cache is created, and again just before
+ * it's written so that entries written by other processes are kept.
+ */
+class DotProbeCache {
+    /**
+     * System property that overrides where the cache is kept
+     */
+    static final String FILE_PROPERTY = "schemaspy.graphvizCache";
+
+    private static final Logger LOGGER = Logger.getLogger(DotProbeCache.class.getName());
+    private static final String LINE_SEPARATOR = "\n";
+
+    private final File file;
+    private final String key;
+    private Properties properties;
+
+    /**
+     * @param file   where the cache is kept
+     * @param dotExe the dot executable, either a path or a command to find on the <code>PATH</code>
+     */
+    DotProbeCache(File file, String dotExe) {
+        this.file = file;
+        File exe = locate(dotExe);
+        key = exe == null ? null : exe.getAbsolutePath() + '@' + exe.lastModified();
+        properties = key == null ? new Properties() : load();
+    }
+
+    /**
+     * Returns where the cache is kept unless overridden with {@link #FILE_PROPERTY}
+     */
+    static File getDefaultFile() {
+        String override = System.getProperty(FILE_PROPERTY);
+        if (override != null)
+            return new File(override);
+        return new File(new File(System.getProperty("user.home"), ".schemaspy"), "graphviz.properties");
+    }
+
+    /**
+     * Returns the version text that was parsed from <code>dot -V</code>
+     * or <code>null</code> if it hasn't been probed
+     */
+    String getVersion() {
+        return get("version");
+    }
+
+    void setVersion(String version) {
+        put("version", version);
+    }
+
+    /**
+     * Returns what <code>dot -T&lt;format&gt;:</code> reported about the renderers
+     * of <code>format</code>, one line per element, or <code>null</code> if it hasn't been probed
+     */
+    List<String> getRenderers(String format) {
+        String renderers = get("renderers." + format);
+        if (renderers == null)
+            return null;
+        if (renderers.isEmpty())
+            return Collections.emptyList();
+        return Arrays.asList(renderers.split(LINE_SEPARATOR));
+    }
+
+    void setRenderers(String format, List<String> lines) {
+        put("renderers." + format, String.join(LINE_SEPARATOR, lines));
+    }
+
+    private synchronized String get(String name) {
+        if (key == null)
+            return null;
+        return properties.getProperty(key + ' ' + name);
+    }
+
+    /**
+     * Adds an entry to what's in the file (which another process might have
+     * just written to) and replaces the file with the result
+     */
+    private synchronized void put(String name, String value) {
+        if (key == null)
+            return;
+
+        properties = load();
+        properties.setProperty(key + ' ' + name, value);
+
+        File parent = file.getAbsoluteFile().getParentFile();
+        File temp = null;
+        try {
+            Files.createDirectories(parent.toPath());
+            temp = File.createTempFile(file.getName(), ".tmp", parent);
+            try (OutputStream out = new FileOutputStream(temp)) {
+                properties.store(out, "What's been probed about Graphviz installs, by dot executable and modification time");
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException exc) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException | SecurityException exc) {
+            LOGGER.log(Level.FINE, "Failed to write " + file, exc);
+        } finally {
+            if (temp != null && temp.exists() && !temp.delete())
+                LOGGER.fine("Failed to delete " + temp);
+        }
+    }
+
+    private Properties load() {
+        Properties properties = new Properties();
+        if (file.exists()) {
+            try (InputStream in = new FileInputStream(file)) {
+                properties.load(in);
+            } catch (IOException | IllegalArgumentException exc) {
+                LOGGER.log(Level.FINE, "Failed to read " + file, exc);
+            }
+        }
+        return properties;
+    }
+
+    /**
+     * Returns the executable file that running <code>exe</code> would run
+     * or <code>null</code> if it can't be found
+     */
+    static File locate(String exe) {
+        File file = new File(exe);
+        if (file.getParent() != null)
+            return file.isFile() ? file : null;
+
+        String path = System.getenv("PATH");
+        if (path == null)
+            return null;
+
+        List<String> names = new ArrayList<>();
+        names.add(exe);
+        if (File.separatorChar == '\\')
+            names.add(exe + ".exe");
+        for (String dir : path.split(File.pathSeparator)) {
+            if (dir.isEmpty())
+                continue;
+            for (String name : names) {
+                File candidate = new File(dir, name);
+                if (candidate.isFile() && candidate.canExecute())
+                    return candidate;
+            }
+        }
+        return null;
+    }
+}
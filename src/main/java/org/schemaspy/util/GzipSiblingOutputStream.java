@@ -0,0 +1,173 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.util;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CountingOutputStream;
+import org.schemaspy.Config;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * OutputStream that writes to a file and, as the bytes go by, to a gzip compressed
+ * sibling of it (<code>&lt;file&gt;.gz</code>) so that web servers can serve the
+ * pre-compressed copy (nginx's <code>gzip_static</code>, for example).
+ * The uncompressed file can optionally be omitted.
+ * Both are written to the current {@link OutputSink}.
+ */
+public class GzipSiblingOutputStream extends OutputStream {
+    public static final String SUFFIX = ".gz";
+
+    private final OutputStream uncompressed;
+    private final OutputStream compressed;
+
+    /**
+     * @param file               the (uncompressed) file being written
+     * @param writeUncompressed  <code>false</code> if only the <code>.gz</code> sibling should be written
+     * @throws IOException
+     */
+    public GzipSiblingOutputStream(File file, boolean writeUncompressed) throws IOException {
+        if (writeUncompressed) {
+            uncompressed = OutputSink.getInstance().open(file);
+        } else {
+            uncompressed = null;
+            file.delete();  // don't leave a stale copy from a previous run behind
+        }
+
+        try {
+            compressed = new GZIPOutputStream(OutputSink.getInstance().open(getSibling(file)), 8192);
+        } catch (IOException exc) {
+            if (uncompressed != null)
+                uncompressed.close();
+            throw exc;
+        }
+    }
+
+    /**
+     * Opens <code>file</code> for writing, also writing a compressed sibling of it
+     * if that's been {@link Config#isGzipEnabled() configured}.
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public static OutputStream open(File file) throws IOException {
+        Config config = Config.getInstance();
+        if (config.isGzipEnabled())
+            return measured(file, new GzipSiblingOutputStream(file, !config.isGzipOnlyEnabled()));
+
+        getSibling(file).delete();  // it would no longer match what we're about to write
+        return measured(file, OutputSink.getInstance().open(file));
+    }
+
+    /**
+     * Counts the (uncompressed) bytes written to <code>file</code>
+     * if {@link RunMetrics} are being collected
+     */
+    private static OutputStream measured(File file, OutputStream out) {
+        RunMetrics metrics = RunMetrics.getInstance();
+        if (metrics == null)
+            return out;
+
+        return new CountingOutputStream(out) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (!closed)
+                        metrics.recordFile(file, getByteCount());
+                    closed = true;
+                }
+            }
+        };
+    }
+
+    /**
+     * Writes a compressed sibling of an already existing <code>file</code>
+     * if that's been {@link Config#isGzipEnabled() configured}.
+     * Intended for files that are written by something else (e.g. <code>dot</code>).
+     * The original file is always kept.
+     *
+     * @param file
+     * @throws IOException
+     */
+    public static void compress(File file) throws IOException {
+        if (!Config.getInstance().isGzipEnabled()) {
+            getSibling(file).delete();
+            return;
+        }
+
+        try (InputStream in = new FileInputStream(file);
+             OutputStream out = new GZIPOutputStream(OutputSink.getInstance().open(getSibling(file)), 8192)) {
+            IOUtils.copy(in, out);
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if either <code>file</code> or its compressed sibling exists
+     *
+     * @param file
+     * @return
+     */
+    public static boolean exists(File file) {
+        return file.isFile() || getSibling(file).isFile();
+    }
+
+    private static File getSibling(File file) {
+        return new File(file.getPath() + SUFFIX);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (uncompressed != null)
+            uncompressed.write(b);
+        compressed.write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (uncompressed != null)
+            uncompressed.write(b, off, len);
+        compressed.write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (uncompressed != null)
+            uncompressed.flush();
+        compressed.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (uncompressed != null)
+                uncompressed.close();
+        } finally {
+            compressed.close();
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package org.schemaspy.util;
 
+import org.commonmark.parser.Parser;
+import org.commonmark.renderer.html.HtmlRenderer;
 import org.pegdown.PegDownProcessor;
+import org.schemaspy.Config;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -13,64 +17,102 @@ import java.util.regex.Pattern;
  */
 public class Markdown {
 
-    private final static PegDownProcessor processor = new PegDownProcessor();
-    private final static HashMap<String, String> pages = new HashMap<>();
+    private static final Pattern referenceLink = Pattern.compile("\\[(.*?)\\]");
+    private static final String newLine = "\r\n";
 
-    public static String toHtml(String markdownText, String rootPath) {
-        String text = markdownText;
+    // PegDown processors aren't thread-safe, the CommonMark parser and renderer are
+    private static final ThreadLocal<PegDownProcessor> processor = ThreadLocal.withInitial(PegDownProcessor::new);
+    private static final Parser commonMarkParser = Parser.builder().build();
+    private static final HtmlRenderer commonMarkRenderer = HtmlRenderer.builder().build();
+
+    private static final Map<String, String> pages = new ConcurrentHashMap<>();
 
-        if (text != null) {
-            text = addReferenceLink(text, rootPath);
-            text = processor.markdownToHtml(text);
+    // rendered html by renderer and rootPath and then by markdown text
+    private static final Map<String, Map<String, String>> rendered = new ConcurrentHashMap<>();
+
+    public static String toHtml(String markdownText, String rootPath) {
+        if (markdownText == null)
+            return null;
+
+        boolean commonMark = Config.getInstance().isCommonMarkEnabled();
+        String renderKey = (commonMark ? "commonmark:" : "pegdown:") + rootPath;
+        Map<String, String> renderedForRoot = rendered.computeIfAbsent(renderKey, key -> new ConcurrentHashMap<>());
+        String html = renderedForRoot.get(markdownText);
+        if (html == null) {
+            html = render(addReferenceLink(markdownText, rootPath), commonMark);
+            renderedForRoot.put(markdownText, html);
         }
 
-        return text;
+        return html;
     }
 
     public static void registryPage(String name, String path) {
-        pages.put(name, path);
+        // previously rendered text might have referenced this page without it being known
+        if (!path.equals(pages.put(name, path)))
+            rendered.clear();
     }
 
     public static String pagePath(String page) {
         return pages.get(page);
     }
 
-    private static String addReferenceLink(String markdownText, String rootPath) {
-        String text = markdownText;
-        String newLine = "\r\n";
+    /**
+     * Returns the pages that the reference links in <code>markdownText</code> currently resolve to,
+     * in the order they're referenced, with <code>null</code> for links to pages that aren't known
+     */
+    public static List<String> getLinkedPages(String markdownText) {
+        List<String> linked = new ArrayList<>();
+        if (markdownText != null) {
+            Matcher m = referenceLink.matcher(markdownText);
+            while (m.find())
+                linked.add(pagePath(getPageName(m.group(1))));
+        }
+        return linked;
+    }
+
+    /**
+     * Forgets the registered pages and what's been rendered so that
+     * another analysis in the same JVM doesn't link to the pages of this one
+     */
+    public static void clear() {
+        pages.clear();
+        rendered.clear();
+    }
 
-        Pattern p = Pattern.compile("\\[(.*?)\\]");
-        Matcher m = p.matcher(markdownText);
+    private static String render(String text, boolean commonMark) {
+        if (commonMark)
+            return commonMarkRenderer.render(commonMarkParser.parse(text));
 
-        List<String> links = new ArrayList<>();
+        return processor.get().markdownToHtml(text);
+    }
 
-        while(m.find()) {
-            links.add(m.group(1));
-        }
+    private static String addReferenceLink(String markdownText, String rootPath) {
+        Matcher m = referenceLink.matcher(markdownText);
+        if (!m.find())
+            return markdownText;
 
-        if (links.size() > 0) {
-            text = text + newLine + newLine;
-        }
+        StringBuilder text = new StringBuilder(markdownText.length() * 2);
+        text.append(markdownText).append(newLine).append(newLine);
 
-        for (String link : links) {
-            String anchorLink = "";
-            String pageLink = link;
+        do {
+            String link = m.group(1);
             int anchorPosition = link.lastIndexOf('.');
 
+            text.append('[').append(link).append("]: ./").append(rootPath).append(pagePath(getPageName(link)));
             if (anchorPosition > -1) {
-                anchorLink = link.substring(anchorPosition + 1).trim();
-                pageLink = link.substring(0, anchorPosition);
+                text.append('#').append(link.substring(anchorPosition + 1).trim());
             }
+            text.append(newLine);
+        } while (m.find());
 
-            String path = rootPath+pagePath(pageLink);
-            if (path != null) {
-                if (anchorLink != "") {
-                    path = path + "#" + anchorLink;
-                }
-                text = text + "[" +link+ "]: ./" + path + newLine;
-            }
-        }
+        return text.toString();
+    }
 
-        return text;
+    /**
+     * Returns the name of the page that <code>link</code> refers to, without the anchor (if any)
+     */
+    private static String getPageName(String link) {
+        int anchorPosition = link.lastIndexOf('.');
+        return anchorPosition > -1 ? link.substring(0, anchorPosition) : link;
     }
 }
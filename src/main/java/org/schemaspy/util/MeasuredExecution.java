@@ -0,0 +1,107 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.util;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+
+/**
+ * One execution of a statement or metadata call: how long it took, including
+ * fetching its results, and how many rows were fetched.<p>
+ *
+ * Gets recorded in the {@link RunMetrics} of the run once, when it's {@link #finish() finished}.
+ */
+class MeasuredExecution {
+    private final RunMetrics metrics;
+    private final String name;
+    private final String table;
+    private long nanos;
+    private long rows;
+    private boolean failed;
+    private boolean finished;
+
+    /**
+     * @param metrics where to record the execution
+     * @param name    what's being executed, e.g. the dbtype property that the SQL came from
+     * @param table   the table that it's executed for or <code>null</code> if it isn't table-specific
+     */
+    MeasuredExecution(RunMetrics metrics, String name, String table) {
+        this.metrics = metrics;
+        this.name = name;
+        this.table = table;
+    }
+
+    /**
+     * Calls <code>method</code>, adding how long it took to this execution
+     */
+    Object timed(Object target, Method method, Object[] args) throws Throwable {
+        long started = System.nanoTime();
+        try {
+            return call(target, method, args);
+        } catch (Throwable exc) {
+            failed = true;
+            throw exc;
+        } finally {
+            nanos += System.nanoTime() - started;
+        }
+    }
+
+    /**
+     * Returns <code>results</code> with fetching them counted towards this execution,
+     * which finishes when they get closed
+     */
+    ResultSet wrap(ResultSet results) {
+        return (ResultSet)Proxy.newProxyInstance(MeasuredExecution.class.getClassLoader(),
+                new Class<?>[] {ResultSet.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "next":
+                            Object hasNext = timed(results, method, args);
+                            if (Boolean.TRUE.equals(hasNext))
+                                ++rows;
+                            return hasNext;
+                        case "close":
+                            try {
+                                return call(results, method, args);
+                            } finally {
+                                finish();
+                            }
+                        default:
+                            return call(results, method, args);
+                    }
+                });
+    }
+
+    /**
+     * Records the execution unless it's already been recorded
+     */
+    void finish() {
+        if (!finished)
+            metrics.recordQuery(name, table, nanos, rows, failed);
+        finished = true;
+    }
+
+    static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException exc) {
+            throw exc.getCause();
+        }
+    }
+}
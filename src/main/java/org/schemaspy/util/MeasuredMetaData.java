@@ -0,0 +1,88 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+
+/**
+ * Times the {@link DatabaseMetaData} calls that return results (<code>getColumns</code>,
+ * <code>getIndexInfo</code>, <code>getImportedKeys</code>, etc.), including fetching those results,
+ * for the {@link RunMetrics} of the run.<p>
+ *
+ * Each call is recorded as <code>DatabaseMetaData.&lt;method&gt;</code> for the table
+ * that it was made for, which is the third argument of the calls that deal with tables.
+ */
+public final class MeasuredMetaData implements InvocationHandler {
+    private final DatabaseMetaData meta;
+    private final RunMetrics metrics;
+
+    private MeasuredMetaData(DatabaseMetaData meta, RunMetrics metrics) {
+        this.meta = meta;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Returns <code>meta</code> measured if metrics are being collected,
+     * otherwise <code>meta</code> itself
+     */
+    public static DatabaseMetaData wrap(DatabaseMetaData meta) {
+        RunMetrics metrics = RunMetrics.getInstance();
+        if (metrics == null || meta == null)
+            return meta;
+
+        return (DatabaseMetaData)Proxy.newProxyInstance(MeasuredMetaData.class.getClassLoader(),
+                new Class<?>[] {DatabaseMetaData.class}, new MeasuredMetaData(meta, metrics));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getReturnType() != ResultSet.class)
+            return MeasuredExecution.call(meta, method, args);
+
+        MeasuredExecution execution = new MeasuredExecution(metrics,
+                "DatabaseMetaData." + method.getName(), getTable(args));
+        Object result;
+        try {
+            result = execution.timed(meta, method, args);
+        } catch (Throwable exc) {
+            execution.finish();
+            throw exc;
+        }
+
+        if (result == null) {
+            execution.finish();
+            return null;
+        }
+        return execution.wrap((ResultSet)result);
+    }
+
+    /**
+     * Returns the table (name pattern) that the call was made for,
+     * or <code>null</code> if it was made for all of them
+     */
+    private static String getTable(Object[] args) {
+        if (args == null || args.length < 3 || !(args[2] instanceof String))
+            return null;
+        String table = (String)args[2];
+        return "%".equals(table) ? null : table;
+    }
+}
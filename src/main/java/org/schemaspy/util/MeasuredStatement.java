@@ -0,0 +1,109 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+
+/**
+ * Times each execution of a statement, including fetching its results,
+ * and counts the rows that get fetched for the {@link RunMetrics} of the run.<p>
+ *
+ * An execution is over when its results or the statement get closed
+ * or the statement gets executed again.
+ */
+public final class MeasuredStatement implements InvocationHandler {
+    /**
+     * What statements that aren't named get recorded as
+     */
+    public static final String UNNAMED = "SQL";
+
+    private final PreparedStatement statement;
+    private final RunMetrics metrics;
+    private final String name;
+    private final String table;
+    private MeasuredExecution execution;
+
+    private MeasuredStatement(PreparedStatement statement, RunMetrics metrics, String name, String table) {
+        this.statement = statement;
+        this.metrics = metrics;
+        this.name = name;
+        this.table = table;
+    }
+
+    /**
+     * Returns <code>statement</code> measured if metrics are being collected,
+     * otherwise <code>statement</code> itself
+     */
+    public static PreparedStatement wrap(PreparedStatement statement) {
+        return wrap(statement, UNNAMED, null);
+    }
+
+    /**
+     * Returns <code>statement</code> measured as <code>name</code> (e.g. the dbtype property
+     * that its SQL came from) if metrics are being collected, otherwise <code>statement</code> itself
+     *
+     * @param table the table that the statement is executed for or <code>null</code> if it isn't table-specific
+     */
+    public static PreparedStatement wrap(PreparedStatement statement, String name, String table) {
+        RunMetrics metrics = RunMetrics.getInstance();
+        if (metrics == null || statement == null)
+            return statement;
+
+        return (PreparedStatement)Proxy.newProxyInstance(MeasuredStatement.class.getClassLoader(),
+                new Class<?>[] {PreparedStatement.class}, new MeasuredStatement(statement, metrics, name, table));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String methodName = method.getName();
+        if (methodName.startsWith("execute")) {
+            finish();
+            execution = new MeasuredExecution(metrics, name, table);
+            Object result = execution.timed(statement, method, args);
+            return result instanceof ResultSet ? execution.wrap((ResultSet)result) : result;
+        }
+
+        if ("getResultSet".equals(methodName) && execution != null) {
+            Object result = execution.timed(statement, method, args);
+            return result instanceof ResultSet ? execution.wrap((ResultSet)result) : result;
+        }
+
+        if ("close".equals(methodName)) {
+            try {
+                return MeasuredExecution.call(statement, method, args);
+            } finally {
+                finish();
+            }
+        }
+
+        return MeasuredExecution.call(statement, method, args);
+    }
+
+    /**
+     * Records the execution that's in progress, if any
+     */
+    private void finish() {
+        if (execution != null)
+            execution.finish();
+        execution = null;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.util;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Destination of the generated output.
+ * <p>
+ * Files are identified by where they'd live in the output directory.
+ * The default sink simply writes them there, other sinks (e.g. {@link ZipOutputSink})
+ * collect them elsewhere.  Files that have to exist on disk because something else
+ * writes or reads them (<code>dot</code>, for example) are still written to the output
+ * directory and then {@link #add(File) added} to the sink once they're complete.
+ */
+public abstract class OutputSink implements Closeable {
+    private static volatile OutputSink instance = new DirectoryOutputSink();
+
+    /**
+     * Returns the sink that output of the current run should be written to
+     *
+     * @return
+     */
+    public static OutputSink getInstance() {
+        return instance;
+    }
+
+    /**
+     * Sets the sink that output should be written to.
+     * <code>null</code> restores the default of writing to the output directory.
+     *
+     * @param sink
+     */
+    public static void setInstance(OutputSink sink) {
+        instance = sink == null ? new DirectoryOutputSink() : sink;
+    }
+
+    /**
+     * Opens a stream for writing the final contents of <code>file</code>
+     *
+     * @param file
+     * @return
+     * @throws IOException
+     */
+    public abstract OutputStream open(File file) throws IOException;
+
+    /**
+     * Indicates that <code>file</code>, written directly to disk by something else, is complete
+     *
+     * @param file
+     * @throws IOException
+     */
+    public abstract void add(File file) throws IOException;
+
+    /**
+     * Returns <code>true</code> if files {@link #open(File) opened} by this sink end up in the output directory
+     *
+     * @return
+     */
+    public abstract boolean isOutputDirectory();
+
+    /**
+     * Sink that writes everything straight to the output directory
+     */
+    private static class DirectoryOutputSink extends OutputSink {
+        @Override
+        public OutputStream open(File file) throws IOException {
+            return FileUtils.openOutputStream(file);
+        }
+
+        @Override
+        public void add(File file) {
+            // already where it belongs
+        }
+
+        @Override
+        public boolean isOutputDirectory() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
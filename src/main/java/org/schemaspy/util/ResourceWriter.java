@@ -23,13 +23,17 @@ import org.apache.commons.io.IOUtils;
 
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.JarURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.List;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.logging.Logger;
@@ -59,13 +63,56 @@ public class ResourceWriter {
         } else {
             File file = new File(resourceUrl.getPath());
             if (file.isDirectory()) {
-                FileUtils.copyDirectory(file, targetPath, filter);
+                for (String filename : listDirectory(file, filter)) {
+                    File source = new File(file, filename);
+                    File target = new File(targetPath, filename);
+                    if (!isUnchanged(source, target)) {
+                        try (InputStream in = new FileInputStream(source)) {
+                            write(in, target);
+                        }
+                    }
+                }
             } else {
                 FileUtils.copyFile(file, targetPath);
             }
         }
     }
 
+    /**
+     * Makes the resources that were previously copied to <code>sharedPath</code>
+     * (by {@link #copyResources(URL, File, FileFilter)}) available in <code>targetPath</code>
+     * by hard-linking them rather than copying them again.
+     * Falls back to copying when the file system doesn't support hard links.
+     *
+     * @param resourceUrl
+     * @param sharedPath
+     * @param targetPath
+     * @param filter
+     * @throws IOException
+     */
+    public static void linkResources(URL resourceUrl, File sharedPath, File targetPath, FileFilter filter) throws IOException {
+        if (resourceUrl == null) {
+            return;
+        }
+
+        List<String> filenames;
+        URLConnection urlConnection = resourceUrl.openConnection();
+        if (urlConnection instanceof JarURLConnection) {
+            filenames = listJarResources((JarURLConnection) urlConnection, targetPath, filter);
+        } else {
+            filenames = listDirectory(new File(resourceUrl.getPath()), filter);
+        }
+
+        boolean linksSupported = true;
+        for (String filename : filenames) {
+            File source = new File(sharedPath, filename);
+            File target = new File(targetPath, filename);
+            if (!target.exists() || !Files.isSameFile(source.toPath(), target.toPath())) {
+                linksSupported = linkOrCopy(source, target, linksSupported);
+            }
+        }
+    }
+
     /**
      * Copies resources from the jar file of the current thread and extract it
      * to the destination path.
@@ -97,11 +144,11 @@ public class ResourceWriter {
                         currentFile.mkdirs();
                     } else {
                         if (filter == null || filter.accept(currentFile)) {
-                            InputStream is = jarFile.getInputStream(jarEntry);
-                            OutputStream out = FileUtils.openOutputStream(currentFile);
-                            IOUtils.copy(is, out);
-                            is.close();
-                            out.close();
+                            if (!isUnchanged(jarEntry, currentFile)) {
+                                InputStream is = jarFile.getInputStream(jarEntry);
+                                write(is, currentFile);
+                                is.close();
+                            }
                         }
                     }
                 }
@@ -110,4 +157,102 @@ public class ResourceWriter {
             logger.warning(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Writes the resource to the current {@link OutputSink}
+     */
+    private static void write(InputStream in, File target) throws IOException {
+        try (OutputStream out = OutputSink.getInstance().open(target)) {
+            IOUtils.copy(in, out);
+        }
+    }
+
+    /**
+     * Hard-links <code>target</code> to <code>source</code> if <code>linksSupported</code>,
+     * otherwise copies it if it's not already up to date.
+     *
+     * @return whether hard links are (still) known to be supported
+     */
+    private static boolean linkOrCopy(File source, File target, boolean linksSupported) throws IOException {
+        if (!linksSupported && isUnchanged(source, target))
+            return false;
+
+        target.delete();
+        if (linksSupported) {
+            try {
+                target.getParentFile().mkdirs();
+                Files.createLink(target.toPath(), source.toPath());
+                return true;
+            } catch (IOException | UnsupportedOperationException exc) {
+                logger.fine("Hard links not supported, copying layout files instead: " + exc);
+            }
+        }
+
+        FileUtils.copyFile(source, target);
+        return false;
+    }
+
+    /**
+     * Returns the paths (relative to the resource) of the files in the jar that match <code>filter</code>.
+     */
+    private static List<String> listJarResources(JarURLConnection jarConnection, File destPath, FileFilter filter) throws IOException {
+        List<String> filenames = new ArrayList<>();
+        JarFile jarFile = jarConnection.getJarFile();
+        String jarConnectionEntryName = jarConnection.getEntryName();
+
+        for (Enumeration<JarEntry> e = jarFile.entries(); e.hasMoreElements();) {
+            JarEntry jarEntry = e.nextElement();
+            String jarEntryName = jarEntry.getName();
+
+            if (!jarEntry.isDirectory() && jarEntryName.startsWith(jarConnectionEntryName + "/")) {
+                String filename = jarEntryName.substring(jarConnectionEntryName.length());
+                if (filter == null || filter.accept(new File(destPath, filename)))
+                    filenames.add(filename);
+            }
+        }
+
+        return filenames;
+    }
+
+    /**
+     * Returns the paths (relative to <code>directory</code>) of the files under it that match <code>filter</code>.
+     */
+    private static List<String> listDirectory(File directory, FileFilter filter) {
+        List<String> filenames = new ArrayList<>();
+        listDirectory(directory, "", filter, filenames);
+        return filenames;
+    }
+
+    private static void listDirectory(File directory, String path, FileFilter filter, List<String> filenames) {
+        File[] files = directory.listFiles(filter);
+        if (files == null)
+            return;
+
+        for (File file : files) {
+            String filename = path + "/" + file.getName();
+            if (file.isDirectory())
+                listDirectory(file, filename, filter, filenames);
+            else
+                filenames.add(filename);
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if <code>target</code> has already been written with the content of the jar entry,
+     * based on the size and CRC recorded in the jar.
+     */
+    private static boolean isUnchanged(JarEntry jarEntry, File target) throws IOException {
+        return OutputSink.getInstance().isOutputDirectory()
+                && target.isFile()
+                && jarEntry.getSize() == target.length()
+                && jarEntry.getCrc() != -1
+                && jarEntry.getCrc() == FileUtils.checksumCRC32(target);
+    }
+
+    private static boolean isUnchanged(File source, File target) throws IOException {
+        return OutputSink.getInstance().isOutputDirectory()
+                && target.isFile()
+                && source.length() == target.length()
+                && FileUtils.contentEquals(source, target);
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.util;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Where the time of a run goes: the phases of the analysis, the SQL that gets run,
+ * the diagrams that dot draws and the files that get written, along with what
+ * the JVM used.  Everything can be recorded from any number of threads.<p>
+ *
+ * The SQL (and the metadata calls) are also broken down by statement, with a histogram
+ * of how long each of them took, and the {@link #SLOWEST_QUERIES slowest} executions
+ * are kept so that a query that's slow against a particular server can be pinned down.<p>
+ *
+ * Only collected while there's an {@link #getInstance() instance}, which is
+ * written to <code>metrics.json</code> at the end of the run.
+ */
+public class RunMetrics {
+    public static final String FILE_NAME = "metrics.json";
+
+    /**
+     * How many of the slowest executions are kept
+     */
+    public static final int SLOWEST_QUERIES = 20;
+
+    // upper bounds of the buckets of the statement histograms (the last bucket has none)
+    private static final long[] BUCKET_MILLIS = {1, 10, 100, 1000, 10000};
+
+    private static volatile RunMetrics instance;
+
+    private final Instant startedAt = Instant.now();
+    private final long startedNanos = System.nanoTime();
+    private final Map<String, Timer> phases = Collections.synchronizedMap(new LinkedHashMap<String, Timer>());
+    private final Timer queries = new Timer();
+    private final LongAdder queryFailures = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final Map<String, Statement> statements = Collections.synchronizedMap(new LinkedHashMap<String, Statement>());
+    private final PriorityQueue<Execution> slowest = new PriorityQueue<>(SLOWEST_QUERIES + 1);
+    private final Timer diagrams = new Timer();
+    private final LongAdder diagramFailures = new LongAdder();
+    private final LongAdder diagramBytes = new LongAdder();
+    private final LongAdder dotProbes = new LongAdder();
+    private final Map<String, Timer> files = Collections.synchronizedMap(new LinkedHashMap<String, Timer>());
+
+    /**
+     * Returns what's being collected about the current run
+     * or <code>null</code> if metrics aren't being collected
+     */
+    public static RunMetrics getInstance() {
+        return instance;
+    }
+
+    public static void setInstance(RunMetrics metrics) {
+        instance = metrics;
+    }
+
+    /**
+     * A phase of analyzing a schema took <code>nanos</code> and progressed
+     * through <code>items</code> tables
+     */
+    public void recordPhase(String phase, long nanos, long items) {
+        Timer timer = phases.computeIfAbsent(phase, name -> new Timer());
+        timer.record(nanos);
+        timer.items.add(items);
+    }
+
+    /**
+     * A statement was executed and its results fetched
+     *
+     * @param name  what was executed, e.g. the dbtype property that the SQL came from
+     * @param table the table that it was executed for or <code>null</code> if it isn't table-specific
+     */
+    public void recordQuery(String name, String table, long nanos, long rowsFetched, boolean failed) {
+        queries.record(nanos);
+        rows.add(rowsFetched);
+        if (failed)
+            queryFailures.increment();
+
+        Statement statement = statements.computeIfAbsent(name, key -> new Statement());
+        statement.record(nanos);
+        statement.items.add(rowsFetched);
+        if (failed)
+            statement.failures.increment();
+
+        synchronized (slowest) {
+            if (slowest.size() < SLOWEST_QUERIES || slowest.peek().nanos < nanos) {
+                slowest.add(new Execution(name, table, nanos, rowsFetched, failed));
+                if (slowest.size() > SLOWEST_QUERIES)
+                    slowest.poll();
+            }
+        }
+    }
+
+    /**
+     * Returns the {@link #SLOWEST_QUERIES slowest} executions, slowest first
+     */
+    public List<Execution> getSlowestQueries() {
+        List<Execution> executions;
+        synchronized (slowest) {
+            executions = new ArrayList<>(slowest);
+        }
+        executions.sort(Collections.reverseOrder());
+        return executions;
+    }
+
+    /**
+     * dot was run to draw a diagram of <code>bytes</code>
+     */
+    public void recordDiagram(long nanos, long bytes, boolean failed) {
+        diagrams.record(nanos);
+        diagramBytes.add(bytes);
+        if (failed)
+            diagramFailures.increment();
+    }
+
+    /**
+     * dot was run to find out what it's capable of
+     */
+    public void recordDotProbe() {
+        dotProbes.increment();
+    }
+
+    /**
+     * <code>bytes</code> were written to <code>file</code>
+     */
+    public void recordFile(File file, long bytes) {
+        String name = file.getName();
+        int dot = name.lastIndexOf('.');
+        Timer timer = files.computeIfAbsent(dot == -1 ? "" : name.substring(dot + 1).toLowerCase(), type -> new Timer());
+        timer.count.increment();
+        timer.items.add(bytes);
+    }
+
+    /**
+     * Writes what's been collected as JSON
+     */
+    public void write(OutputStream out) throws IOException {
+        try (JsonGenerator json = new JsonFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            json.useDefaultPrettyPrinter();
+            json.writeStartObject();
+            json.writeStringField("startedAt", startedAt.toString());
+            json.writeNumberField("durationMillis", millis(System.nanoTime() - startedNanos));
+
+            json.writeObjectFieldStart("phases");
+            for (Map.Entry<String, Timer> phase : snapshot(phases)) {
+                json.writeObjectFieldStart(phase.getKey());
+                phase.getValue().writeTimes(json);
+                json.writeNumberField("tables", phase.getValue().items.sum());
+                json.writeEndObject();
+            }
+            json.writeEndObject();
+
+            json.writeObjectFieldStart("queries");
+            queries.writeTimes(json);
+            json.writeNumberField("failures", queryFailures.sum());
+            json.writeNumberField("rows", rows.sum());
+            json.writeObjectFieldStart("statements");
+            for (Map.Entry<String, Statement> statement : snapshot(statements)) {
+                json.writeObjectFieldStart(statement.getKey());
+                statement.getValue().write(json);
+                json.writeEndObject();
+            }
+            json.writeEndObject();
+            json.writeArrayFieldStart("slowest");
+            for (Execution execution : getSlowestQueries()) {
+                json.writeStartObject();
+                json.writeStringField("statement", execution.getName());
+                if (execution.getTable() != null)
+                    json.writeStringField("table", execution.getTable());
+                json.writeNumberField("millis", execution.getMillis());
+                json.writeNumberField("rows", execution.getRows());
+                json.writeBooleanField("failed", execution.isFailed());
+                json.writeEndObject();
+            }
+            json.writeEndArray();
+            json.writeEndObject();
+
+            json.writeObjectFieldStart("dot");
+            json.writeNumberField("processes", diagrams.count.sum() + dotProbes.sum());
+            json.writeNumberField("probes", dotProbes.sum());
+            json.writeObjectFieldStart("diagrams");
+            diagrams.writeTimes(json);
+            json.writeNumberField("failures", diagramFailures.sum());
+            json.writeNumberField("bytes", diagramBytes.sum());
+            json.writeEndObject();
+            json.writeEndObject();
+
+            json.writeObjectFieldStart("files");
+            for (Map.Entry<String, Timer> type : snapshot(files)) {
+                json.writeObjectFieldStart(type.getKey());
+                json.writeNumberField("count", type.getValue().count.sum());
+                json.writeNumberField("bytes", type.getValue().items.sum());
+                json.writeEndObject();
+            }
+            json.writeEndObject();
+
+            writeJvm(json);
+            json.writeEndObject();
+        }
+    }
+
+    private static void writeJvm(JsonGenerator json) throws IOException {
+        json.writeObjectFieldStart("jvm");
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        json.writeNumberField("heapUsedBytes", heap.getUsed());
+        json.writeNumberField("heapCommittedBytes", heap.getCommitted());
+        json.writeNumberField("heapMaxBytes", heap.getMax());
+        long collections = 0;
+        long collectionMillis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += Math.max(0, collector.getCollectionCount());
+            collectionMillis += Math.max(0, collector.getCollectionTime());
+        }
+        json.writeNumberField("gcCount", collections);
+        json.writeNumberField("gcMillis", collectionMillis);
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            long cpuNanos = ((com.sun.management.OperatingSystemMXBean)os).getProcessCpuTime();
+            if (cpuNanos >= 0)
+                json.writeNumberField("cpuMillis", millis(cpuNanos));
+        }
+        json.writeNumberField("threads", ManagementFactory.getThreadMXBean().getPeakThreadCount());
+        json.writeEndObject();
+    }
+
+    private static <T> List<Map.Entry<String, T>> snapshot(Map<String, T> timers) {
+        synchronized (timers) {
+            return new ArrayList<>(timers.entrySet());
+        }
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    /**
+     * How many times something happened, how long it took and how many items it went through
+     */
+    private static class Timer {
+        final LongAdder count = new LongAdder();
+        final LongAdder totalNanos = new LongAdder();
+        final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        final LongAdder items = new LongAdder();
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        void writeTimes(JsonGenerator json) throws IOException {
+            json.writeNumberField("count", count.sum());
+            json.writeNumberField("totalMillis", millis(totalNanos.sum()));
+            json.writeNumberField("maxMillis", millis(maxNanos.get()));
+        }
+    }
+
+    /**
+     * The executions of one statement, with a histogram of how long they took
+     */
+    private static final class Statement extends Timer {
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder[] buckets = new LongAdder[BUCKET_MILLIS.length + 1];
+
+        Statement() {
+            for (int i = 0; i < buckets.length; ++i)
+                buckets[i] = new LongAdder();
+        }
+
+        @Override
+        void record(long nanos) {
+            super.record(nanos);
+            int bucket = 0;
+            while (bucket < BUCKET_MILLIS.length && nanos >= BUCKET_MILLIS[bucket] * 1000000)
+                ++bucket;
+            buckets[bucket].increment();
+        }
+
+        void write(JsonGenerator json) throws IOException {
+            writeTimes(json);
+            json.writeNumberField("failures", failures.sum());
+            json.writeNumberField("rows", items.sum());
+            json.writeObjectFieldStart("histogram");
+            for (int i = 0; i < buckets.length; ++i) {
+                String label = i < BUCKET_MILLIS.length ? "<" + duration(BUCKET_MILLIS[i])
+                        : ">=" + duration(BUCKET_MILLIS[BUCKET_MILLIS.length - 1]);
+                json.writeNumberField(label, buckets[i].sum());
+            }
+            json.writeEndObject();
+        }
+
+        private static String duration(long millis) {
+            return millis < 1000 ? millis + "ms" : millis / 1000 + "s";
+        }
+    }
+
+    /**
+     * One execution of a statement
+     */
+    public static final class Execution implements Comparable<Execution> {
+        private final String name;
+        private final String table;
+        private final long nanos;
+        private final long rows;
+        private final boolean failed;
+
+        Execution(String name, String table, long nanos, long rows, boolean failed) {
+            this.name = name;
+            this.table = table;
+            this.nanos = nanos;
+            this.rows = rows;
+            this.failed = failed;
+        }
+
+        /**
+         * What was executed, e.g. the dbtype property that the SQL came from
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * The table that it was executed for or <code>null</code> if it isn't table-specific
+         */
+        public String getTable() {
+            return table;
+        }
+
+        public double getMillis() {
+            return millis(nanos);
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+
+        @Override
+        public int compareTo(Execution other) {
+            return Long.compare(nanos, other.nanos);
+        }
+
+        @Override
+        public String toString() {
+            return getMillis() + "ms " + name + (table == null ? "" : " " + table)
+                    + " (" + rows + " rows" + (failed ? ", failed" : "") + ")";
+        }
+    }
+}
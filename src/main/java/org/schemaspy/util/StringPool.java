@@ -0,0 +1,102 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps a single instance of each distinct string that's put into the model.<p>
+ *
+ * Names, types, catalogs, schemas, default values and even comments are
+ * typically repeated <i>many</i> times in a database.  Unlike {@link String#intern()}
+ * the pool only lives as long as the run that uses it and doesn't contend on the
+ * JVM's string table, so it's safe to use from several threads gathering metadata.
+ */
+public class StringPool {
+    // long strings are rarely repeated, so they'd only make the pool bigger
+    private static final int MAX_LENGTH = 1024;
+
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<String, String>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * Returns the pooled instance that equals <code>value</code>,
+     * adding <code>value</code> to the pool if there isn't one yet.
+     *
+     * @param value
+     * @return
+     */
+    public String get(String value) {
+        if (value == null || value.length() > MAX_LENGTH)
+            return value;
+
+        String pooled = strings.putIfAbsent(value, value);
+        if (pooled == null)
+            return value;
+
+        if (pooled != value) {
+            hits.increment();
+            bytesSaved.add(sizeOf(pooled));
+        }
+        return pooled;
+    }
+
+    /**
+     * Returns the number of distinct strings in the pool
+     *
+     * @return
+     */
+    public int size() {
+        return strings.size();
+    }
+
+    /**
+     * Returns the number of times that an equal string was replaced with the pooled one
+     *
+     * @return
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns an estimate of the heap that wasn't retained due to pooling
+     *
+     * @return
+     */
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    /**
+     * Estimated size of a string along with its characters
+     * (with compressed references and 8 byte alignment)
+     */
+    private static long sizeOf(String value) {
+        long chars = 16 + 2L * value.length();
+        return 24 + ((chars + 7) & ~7L);
+    }
+
+    @Override
+    public String toString() {
+        return "Shared " + getHits() + " repeated strings among " + size() + " distinct ones, saving about "
+                + getBytesSaved() / 1024 + " KB";
+    }
+}
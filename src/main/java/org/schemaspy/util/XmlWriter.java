@@ -0,0 +1,159 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Streaming writer for documents made of elements and attributes (no text content).<p>
+ *
+ * Elements are written as soon as their first child starts or they end, so memory use
+ * only depends on the depth of the document.  The output matches what the JDK's
+ * <code>Transformer</code> produces when serializing the equivalent DOM with an indent
+ * of 3: attributes are sorted by name, values are escaped the same way and childless
+ * elements are written as empty-element tags.
+ * (<code>javax.xml.stream.XMLStreamWriter</code> doesn't indent and escapes attribute
+ * values differently.)
+ */
+public class XmlWriter {
+    private static final int INDENT = 3;
+
+    private final Writer out;
+    private final String lineSeparator = System.lineSeparator();
+    private final Deque<String> elements = new ArrayDeque<String>();
+    private final Map<String, String> attributes = new TreeMap<String, String>();
+    private boolean startTagOpen;
+
+    public XmlWriter(Writer out) {
+        this.out = out;
+    }
+
+    public void writeStartDocument() throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>");
+        out.write(lineSeparator);
+    }
+
+    public void writeStartElement(String name) throws IOException {
+        if (startTagOpen) {
+            closeStartTag();
+            out.write('>');
+        }
+
+        if (!elements.isEmpty()) {
+            out.write(lineSeparator);
+            indent(elements.size());
+        }
+        elements.push(name);
+        startTagOpen = true;
+    }
+
+    /**
+     * Adds an attribute to the element that was just started.
+     * <code>null</code> values are ignored.
+     */
+    public void writeAttribute(String name, String value) {
+        if (!startTagOpen)
+            throw new IllegalStateException("Attribute " + name + " doesn't follow the start of an element");
+        if (value != null)
+            attributes.put(name, value);
+    }
+
+    public void writeEndElement() throws IOException {
+        if (startTagOpen) {
+            closeStartTag();
+            out.write("/>");
+            elements.pop();
+        } else {
+            String name = elements.pop();
+            out.write(lineSeparator);
+            indent(elements.size());
+            out.write("</");
+            out.write(name);
+            out.write('>');
+        }
+    }
+
+    /**
+     * Ends any elements that are still open
+     */
+    public void writeEndDocument() throws IOException {
+        while (!elements.isEmpty())
+            writeEndElement();
+        out.write(lineSeparator);
+        out.flush();
+    }
+
+    private void closeStartTag() throws IOException {
+        out.write('<');
+        out.write(elements.peek());
+        for (Map.Entry<String, String> attribute : attributes.entrySet()) {
+            out.write(' ');
+            out.write(attribute.getKey());
+            out.write("=\"");
+            writeEscaped(attribute.getValue());
+            out.write('"');
+        }
+        attributes.clear();
+        startTagOpen = false;
+    }
+
+    private void indent(int depth) throws IOException {
+        for (int i = depth * INDENT; i > 0; --i)
+            out.write(' ');
+    }
+
+    /**
+     * Escapes markup characters and control characters.  Supplementary characters
+     * are written as character references, everything else is written as is.
+     */
+    private void writeEscaped(String value) throws IOException {
+        int length = value.length();
+        int unescaped = 0;
+        for (int i = 0; i < length; ++i) {
+            char ch = value.charAt(i);
+            String escaped = null;
+            int next = i + 1;
+
+            if (ch == '&')
+                escaped = "&amp;";
+            else if (ch == '<')
+                escaped = "&lt;";
+            else if (ch == '>')
+                escaped = "&gt;";
+            else if (ch == '"')
+                escaped = "&quot;";
+            else if (ch < 0x20)
+                escaped = "&#" + (int)ch + ';';
+            else if (Character.isHighSurrogate(ch) && next < length && Character.isLowSurrogate(value.charAt(next)))
+                escaped = "&#" + Character.toCodePoint(ch, value.charAt(next++)) + ';';
+
+            if (escaped != null) {
+                out.write(value, unescaped, i - unescaped);
+                out.write(escaped);
+                unescaped = next;
+                i = next - 1;
+            }
+        }
+        out.write(value, unescaped, length - unescaped);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.util;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * {@link OutputSink} that streams the generated output into a single ZIP file
+ * rather than leaving tens of thousands of small files in the output directory.
+ * Entries are named relative to the output directory.
+ * <p>
+ * The ZIP's central directory doubles as an index, so the resulting bundle can be
+ * served directly by {@link BundleServer}.
+ * <p>
+ * Files written through {@link #open(File)} are held in memory until they're closed,
+ * so a large file such as <code>&lt;db&gt;.&lt;schema&gt;.xml</code> isn't streamed
+ * when bundling the way it is when writing to the output directory.
+ */
+public class ZipOutputSink extends OutputSink {
+    private static final Logger logger = Logger.getLogger(ZipOutputSink.class.getName());
+
+    private final File rootDir;
+    private final ZipOutputStream zip;
+    private final Set<String> entryNames = new HashSet<>();
+
+    /**
+     * @param rootDir   the output directory that entries are relative to
+     * @param zipFile   the bundle to write
+     * @throws IOException
+     */
+    public ZipOutputSink(File rootDir, File zipFile) throws IOException {
+        this.rootDir = rootDir.getAbsoluteFile();
+        zip = new ZipOutputStream(new BufferedOutputStream(FileUtils.openOutputStream(zipFile), 64 * 1024));
+    }
+
+    @Override
+    public OutputStream open(File file) {
+        String entryName = getEntryName(file);
+
+        // entries have to be written one at a time, so buffer each whole file until it's complete
+        return new ByteArrayOutputStream(8192) {
+            private boolean closed;
+
+            @Override
+            public void close() throws IOException {
+                if (!closed) {
+                    closed = true;
+                    putEntry(entryName, this);
+                }
+            }
+        };
+    }
+
+    @Override
+    public void add(File file) throws IOException {
+        String entryName = getEntryName(file);
+        synchronized (zip) {
+            if (isDuplicate(entryName))
+                return;
+            zip.putNextEntry(new ZipEntry(entryName));
+            FileUtils.copyFile(file, zip);
+            zip.closeEntry();
+        }
+    }
+
+    @Override
+    public boolean isOutputDirectory() {
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (zip) {
+            zip.close();
+        }
+    }
+
+    private void putEntry(String entryName, ByteArrayOutputStream content) throws IOException {
+        synchronized (zip) {
+            if (isDuplicate(entryName))
+                return;
+            zip.putNextEntry(new ZipEntry(entryName));
+            content.writeTo(zip);
+            zip.closeEntry();
+        }
+    }
+
+    /**
+     * ZIPs can't replace entries, so the first version of a file wins
+     */
+    private boolean isDuplicate(String entryName) {
+        if (entryNames.add(entryName))
+            return false;
+
+        logger.fine("Ignoring repeated write of " + entryName);
+        return true;
+    }
+
+    private String getEntryName(File file) {
+        String entryName = rootDir.toPath().relativize(file.getAbsoluteFile().toPath()).toString();
+        return entryName.replace(File.separatorChar, '/');
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.view;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.schemaspy.model.Database;
+import org.schemaspy.model.ForeignKeyConstraint;
+import org.schemaspy.model.Routine;
+import org.schemaspy.model.RoutineParameter;
+import org.schemaspy.model.Table;
+import org.schemaspy.model.TableColumn;
+import org.schemaspy.model.TableIndex;
+
+/**
+ * Formats the model in a compact binary form that's cheap to load.<p>
+ *
+ * All numbers are unsigned LEB128 varints (sizes and digits, which can be negative,
+ * are zigzag encoded first).  Every string is written once to a string table at the
+ * start of the file and referred to by <code>index + 1</code>, <code>0</code> meaning
+ * <code>null</code>.  Tables and routines are length-prefixed records so readers can
+ * skip the ones they aren't interested in.  Columns are referred to by their position
+ * within their table.  Remote tables (tables in other schemas that are related to the
+ * ones in this schema) are written the same way as the tables of the schema.
+ * <pre>
+ * file:       'S' 'S' 'P' 'Y' version(byte)
+ *             count {length utf8-bytes}                     string table
+ *             name:str catalog:str schema:str type:str comments:str
+ *             count {length table}
+ *             count {length table}                          remote tables
+ *             count {length routine}
+ * table:      catalog:str schema:str name:str id:str flags(byte: 1=view) numRows+1 remarks:str viewSql:str
+ *             count {id:str name:str type:str size digits flags(byte: 1=nullable 2=autoUpdated) default:str remarks:str}
+ *             count {column}                                primary key
+ *             count {name:str id:str flags(byte: 1=unique 2=primaryKey) count {column &lt;&lt; 1 | ascending}}
+ *             count {name:str flags(byte: 1=implied) updateRule deleteRule
+ *                    parentCatalog:str parentSchema:str parentTable:str count {column parentColumn:str}}
+ *             count {name:str constraint:str}               check constraints
+ * routine:    name:str type:str returnType:str language:str dataAccess:str securityType:str
+ *             deterministic(byte) comment:str definition:str
+ *             count {name:str type:str mode:str}
+ * </pre>
+ * The string table has to precede the records that refer to it, so the records
+ * are buffered until all of them have been written.
+ */
+public class BinaryModelFormatter extends ModelFormatter {
+    public static final byte[] MAGIC = {'S', 'S', 'P', 'Y'};
+    public static final int VERSION = 1;
+
+    private static final BinaryModelFormatter instance = new BinaryModelFormatter();
+
+    /**
+     * Singleton...don't allow instantiation
+     */
+    private BinaryModelFormatter() {}
+
+    /**
+     * Singleton accessor
+     *
+     * @return
+     */
+    public static BinaryModelFormatter getInstance() {
+        return instance;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "bin";
+    }
+
+    @Override
+    public void write(Database db, Collection<Table> tables, OutputStream out) throws IOException {
+        Encoder body = new Encoder();
+        body.writeString(db.getName());
+        body.writeString(db.getCatalog() == null ? null : db.getCatalog().getName());
+        body.writeString(getSchemaName(db));
+        body.writeString(db.getDatabaseProduct());
+        body.writeString(db.getComments());
+
+        List<Table> sorted = sortByName(tables);
+        body.writeVarInt(sorted.size());
+        for (Table table : sorted) {
+            writeTable(body.record, table);
+            body.endRecord();
+        }
+
+        body.writeVarInt(db.getRemoteTables().size());
+        for (Table table : db.getRemoteTables()) {
+            writeTable(body.record, table);
+            body.endRecord();
+        }
+
+        body.writeVarInt(db.getRoutines().size());
+        for (Routine routine : db.getRoutines()) {
+            writeRoutine(body.record, routine);
+            body.endRecord();
+        }
+
+        out.write(MAGIC);
+        out.write(VERSION);
+        body.writeDocument(out);
+        out.flush();
+    }
+
+    private void writeTable(Encoder out, Table table) {
+        out.writeString(table.getCatalog());
+        out.writeString(getSchemaName(table));
+        out.writeString(table.getName());
+        out.writeString(asString(table.getId()));
+        out.write(table.isView() ? 1 : 0);
+        out.writeVarLong(Math.max(table.getNumRows(), -1) + 1);
+        out.writeString(table.getComments());
+        out.writeString(table.isView() ? table.getViewSql() : null);
+
+        List<TableColumn> columns = table.getColumns();
+        Map<TableColumn, Integer> positions = new IdentityHashMap<TableColumn, Integer>(columns.size() * 2);
+        out.writeVarInt(columns.size());
+        for (TableColumn column : columns) {
+            positions.put(column, positions.size());
+            out.writeString(asString(column.getId()));
+            out.writeString(column.getName());
+            out.writeString(column.getTypeName());
+            out.writeVarInt(zigzag(column.getLength()));
+            out.writeVarInt(zigzag(column.getDecimalDigits()));
+            out.write((column.isNullable() ? 1 : 0) | (column.isAutoUpdated() ? 2 : 0));
+            out.writeString(asString(column.getDefaultValue()));
+            out.writeString(column.getComments());
+        }
+
+        List<TableColumn> primaryColumns = table.getPrimaryColumns();
+        out.writeVarInt(primaryColumns.size());
+        for (TableColumn column : primaryColumns)
+            out.writeVarInt(position(positions, column));
+
+        Collection<TableIndex> indexes = getIndexes(table);
+        out.writeVarInt(indexes.size());
+        for (TableIndex index : indexes) {
+            out.writeString(index.getName());
+            out.writeString(asString(index.getId()));
+            out.write((index.isUnique() ? 1 : 0) | (index.isPrimaryKey() ? 2 : 0));
+            out.writeVarInt(index.getColumns().size());
+            for (TableColumn column : index.getColumns())
+                out.writeVarInt(position(positions, column) << 1 | (index.isAscending(column) ? 1 : 0));
+        }
+
+        List<ForeignKeyConstraint> foreignKeys = getForeignKeys(table);
+        out.writeVarInt(foreignKeys.size());
+        for (ForeignKeyConstraint foreignKey : foreignKeys) {
+            Table parent = foreignKey.getParentTable();
+            List<TableColumn> childColumns = foreignKey.getChildColumns();
+            List<TableColumn> parentColumns = foreignKey.getParentColumns();
+            int count = Math.min(childColumns.size(), parentColumns.size());
+
+            out.writeString(foreignKey.getName());
+            out.write(foreignKey.isImplied() ? 1 : 0);
+            out.writeVarInt(foreignKey.getUpdateRule());
+            out.writeVarInt(foreignKey.getDeleteRule());
+            out.writeString(parent.getCatalog());
+            out.writeString(getSchemaName(parent));
+            out.writeString(parent.getName());
+            out.writeVarInt(count);
+            for (int i = 0; i < count; ++i) {
+                out.writeVarInt(position(positions, childColumns.get(i)));
+                out.writeString(parentColumns.get(i).getName());
+            }
+        }
+
+        Map<String, String> constraints = table.getCheckConstraints();
+        out.writeVarInt(constraints == null ? 0 : constraints.size());
+        if (constraints != null) {
+            for (Map.Entry<String, String> constraint : constraints.entrySet()) {
+                out.writeString(constraint.getKey());
+                out.writeString(constraint.getValue());
+            }
+        }
+    }
+
+    private void writeRoutine(Encoder out, Routine routine) {
+        out.writeString(routine.getName());
+        out.writeString(routine.getType());
+        out.writeString(routine.getReturnType());
+        out.writeString(routine.getDefinitionLanguage());
+        out.writeString(routine.getDataAccess());
+        out.writeString(routine.getSecurityType());
+        out.write(routine.isDeterministic() ? 1 : 0);
+        out.writeString(routine.getComment());
+        out.writeString(routine.getDefinition());
+
+        List<RoutineParameter> parameters = routine.getParameters();
+        out.writeVarInt(parameters.size());
+        for (RoutineParameter parameter : parameters) {
+            out.writeString(parameter.getName());
+            out.writeString(parameter.getType());
+            out.writeString(parameter.getMode());
+        }
+    }
+
+    private static int position(Map<TableColumn, Integer> positions, TableColumn column) {
+        Integer position = positions.get(column);
+        if (position == null)
+            throw new IllegalArgumentException(column.getTable().getName() + '.' + column.getName() + " isn't one of the table's columns");
+        return position;
+    }
+
+    private static String asString(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Buffer that refers to strings by their position in a shared string table.
+     * The buffer of the main document also keeps the current record
+     * until it's appended with its length.
+     */
+    private static class Encoder extends ByteArrayOutputStream {
+        private final Map<String, Integer> strings;
+        private final Encoder record;
+
+        Encoder() {
+            super(8192);
+            strings = new HashMap<String, Integer>();
+            record = new Encoder(strings);
+        }
+
+        private Encoder(Map<String, Integer> strings) {
+            super(1024);
+            this.strings = strings;
+            record = null;
+        }
+
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int)(value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write((int)value);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                write(0);
+                return;
+            }
+
+            Integer index = strings.get(value);
+            if (index == null) {
+                index = strings.size();
+                strings.put(value, index);
+            }
+            writeVarInt(index + 1);
+        }
+
+        void endRecord() {
+            writeVarInt(record.size());
+            record.appendTo(this);
+            record.reset();
+        }
+
+        /**
+         * Writes the string table followed by what's been buffered
+         */
+        void writeDocument(OutputStream out) throws IOException {
+            String[] table = new String[strings.size()];
+            for (Map.Entry<String, Integer> string : strings.entrySet())
+                table[string.getValue()] = string.getKey();
+
+            Encoder header = new Encoder(null);
+            header.writeVarInt(table.length);
+            for (String string : table) {
+                byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                header.writeVarInt(bytes.length);
+                header.write(bytes, 0, bytes.length);
+            }
+            header.writeTo(out);
+            writeTo(out);
+        }
+
+        private void appendTo(Encoder other) {
+            other.write(buf, 0, count);
+        }
+    }
+}
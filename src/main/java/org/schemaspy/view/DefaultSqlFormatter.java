@@ -232,6 +232,10 @@ public class DefaultSqlFormatter implements SqlFormatter {
                 "ZONE"
             }));
 
+            // there's no metadata when the model was loaded from a file
+            if (meta == null)
+                return keywords;
+
             try {
                 String keywordsArray[] = new String[] {
                     meta.getSQLKeywords(),
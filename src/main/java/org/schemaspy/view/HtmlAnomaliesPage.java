@@ -22,15 +22,13 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import org.schemaspy.DbAnalyzer;
+import org.schemaspy.AnomalyDetector;
 import org.schemaspy.model.Database;
 import org.schemaspy.model.ForeignKeyConstraint;
 import org.schemaspy.model.Table;
-import org.schemaspy.model.TableColumn;
 
 /**
  * This page lists all of the 'things that might not be quite right'
@@ -58,18 +56,11 @@ public class HtmlAnomaliesPage extends HtmlFormatter {
 
     public void write(Database database, Collection<Table> tables, List<? extends ForeignKeyConstraint> impliedConstraints, File outputDir) throws IOException {
         HashMap<String, Object> scopes = new HashMap<String, Object>();
-        List<Table> unIndexedTables = DbAnalyzer.getTablesWithoutIndexes(new HashSet<Table>(tables));
         List<ForeignKeyConstraint> impliedConstraintColumns = impliedConstraints.stream().filter(c -> !c.getChildTable().isView()).collect(Collectors.toList());
-        List<Table> oneColumnTables = DbAnalyzer.getTablesWithOneColumn(tables).stream().filter(t -> !t.isView()).collect(Collectors.toList());
-        List<Table> incrementingColumnNames =  DbAnalyzer.getTablesWithIncrementingColumnNames(tables).stream().filter(t -> !t.isView()).collect(Collectors.toList());
-        List<TableColumn> uniqueNullables = DbAnalyzer.getDefaultNullStringColumns(new HashSet<Table>(tables));
 
         scopes.put("displayNumRows", (displayNumRows ? new Object() : null));
         scopes.put("impliedConstraints", impliedConstraintColumns);
-        scopes.put("unIndexedTables", unIndexedTables);
-        scopes.put("oneColumnTables", oneColumnTables);
-        scopes.put("incrementingColumnNames", incrementingColumnNames);
-        scopes.put("uniqueNullables", uniqueNullables);
+        scopes.putAll(AnomalyDetector.getDefault().detect(tables).byName());
 
         MustacheWriter mw = new MustacheWriter( outputDir, scopes, getPathToRoot(), database.getName(), false);
         mw.write("anomalies.html", "anomalies.html", "anomalies.js");
@@ -71,7 +71,7 @@ public class HtmlFormatter {
         }
         out.writeln("</head>");
         out.writeln("<body>");
-        writeTableOfContents(out);
+        writeTableOfContents(db, out);
         out.writeln("<div class='content' style='clear:both;'>");
         out.writeln("<table width='100%' border='0' cellpadding='0'>");
         out.writeln(" <tr>");
@@ -110,9 +110,9 @@ public class HtmlFormatter {
         html.writeln("</span>");
     }
 
-    protected void writeTableOfContents(LineWriter html) throws IOException {
+    protected void writeTableOfContents(Database db, LineWriter html) throws IOException {
         // don't forget to modify HtmlMultipleSchemasIndexPage with any changes to 'header' or 'headerHolder'
-        Config config = Config.getInstance();
+        Config config = db.getConfig();
         String path = getPathToRoot();
         // have to use a table to deal with a horizontal scrollbar showing up inappropriately
         html.writeln("<table id='headerHolder' cellspacing='0' cellpadding='0'><tr><td>");
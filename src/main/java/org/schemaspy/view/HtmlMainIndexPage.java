@@ -51,7 +51,7 @@ public class HtmlMainIndexPage extends HtmlFormatter {
         return instance;
     }
 
-    public void write(Database database, Collection<Table> tables, Collection<Table> remotes, File outputDir) throws IOException {
+    public void write(Database database, Collection<Table> tables, Collection<Table> remotes, List<Table> orderedTables, File outputDir) throws IOException {
         Comparator<Table> sorter = new Comparator<Table>() {
             public int compare(Table table1, Table table2) {
                 return table1.compareTo(table2);
@@ -66,6 +66,11 @@ public class HtmlMainIndexPage extends HtmlFormatter {
 
         String databaseName = getDatabaseDescription(database);
 
+        Map<Table, Integer> insertionOrder = new IdentityHashMap<>();
+        for (Table table : orderedTables) {
+            insertionOrder.put(table, insertionOrder.size() + 1);
+        }
+
         List<MustacheTable> mustacheTables = new ArrayList<>();
 
         long columnsAmount = 0;
@@ -75,6 +80,7 @@ public class HtmlMainIndexPage extends HtmlFormatter {
             String comments = Markdown.toHtml(table.getComments(), "");
             MustacheTable mustacheTable = new MustacheTable(table, "");
             mustacheTable.setComments(comments);
+            mustacheTable.setInsertionOrder(insertionOrder.get(table));
             mustacheTables.add(mustacheTable);
         }
 
@@ -0,0 +1,58 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.view;
+
+import org.schemaspy.util.RunMetrics;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The page that lists the slowest queries (and metadata calls) of the run,
+ * along with the dbtype property and table that each of them was for
+ */
+public class HtmlSlowQueriesPage extends HtmlFormatter {
+    public static final String FILE_NAME = "slowqueries.html";
+
+    private static HtmlSlowQueriesPage instance = new HtmlSlowQueriesPage();
+
+    /**
+     * Singleton: Don't allow instantiation
+     */
+    private HtmlSlowQueriesPage() {
+    }
+
+    /**
+     * Singleton accessor
+     *
+     * @return the singleton instance
+     */
+    public static HtmlSlowQueriesPage getInstance() {
+        return instance;
+    }
+
+    public void write(File outputDir, String dbName, List<RunMetrics.Execution> queries, boolean isMultipleSchemas) {
+        HashMap<String, Object> scopes = new HashMap<String, Object>();
+        scopes.put("queries", queries);
+        scopes.put("metricsFile", RunMetrics.FILE_NAME);
+
+        MustacheWriter mw = new MustacheWriter(outputDir, scopes, "", dbName, isMultipleSchemas);
+        mw.write("slowqueries.html", FILE_NAME, "");
+    }
+}
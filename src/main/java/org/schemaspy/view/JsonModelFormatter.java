@@ -0,0 +1,224 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.view;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import org.schemaspy.model.Database;
+import org.schemaspy.model.ForeignKeyConstraint;
+import org.schemaspy.model.Routine;
+import org.schemaspy.model.RoutineParameter;
+import org.schemaspy.model.Table;
+import org.schemaspy.model.TableColumn;
+import org.schemaspy.model.TableIndex;
+
+/**
+ * Formats the model as JSON, writing each table as it's visited.<p>
+ *
+ * The document holds the same details as the XML, but foreign keys (including
+ * the implied ones) are listed once per child table instead of on both sides
+ * of every column, and the database's routines are included.
+ */
+public class JsonModelFormatter extends ModelFormatter {
+    private static final JsonModelFormatter instance = new JsonModelFormatter();
+    private static final JsonFactory factory = new JsonFactory();
+
+    /**
+     * Singleton...don't allow instantiation
+     */
+    private JsonModelFormatter() {}
+
+    /**
+     * Singleton accessor
+     *
+     * @return
+     */
+    public static JsonModelFormatter getInstance() {
+        return instance;
+    }
+
+    @Override
+    public String getFileExtension() {
+        return "json";
+    }
+
+    @Override
+    public void write(Database db, Collection<Table> tables, OutputStream out) throws IOException {
+        JsonGenerator json = factory.createGenerator(out, JsonEncoding.UTF8);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.useDefaultPrettyPrinter();
+
+        json.writeStartObject();
+        writeString(json, "name", db.getName());
+        writeString(json, "schema", getSchemaName(db));
+        writeString(json, "type", db.getDatabaseProduct());
+
+        json.writeArrayFieldStart("tables");
+        for (Table table : sortByName(tables))
+            writeTable(json, table);
+        json.writeEndArray();
+
+        json.writeArrayFieldStart("routines");
+        for (Routine routine : db.getRoutines())
+            writeRoutine(json, routine);
+        json.writeEndArray();
+
+        json.writeEndObject();
+        json.close();
+    }
+
+    private void writeTable(JsonGenerator json, Table table) throws IOException {
+        json.writeStartObject();
+        if (table.getId() != null)
+            json.writeStringField("id", String.valueOf(table.getId()));
+        writeString(json, "catalog", table.getCatalog());
+        writeString(json, "schema", getSchemaName(table));
+        json.writeStringField("name", table.getName());
+        json.writeStringField("type", table.isView() ? "VIEW" : "TABLE");
+        if (table.getNumRows() >= 0)
+            json.writeNumberField("numRows", table.getNumRows());
+        writeString(json, "remarks", table.getComments());
+        if (table.isView())
+            writeString(json, "viewSql", table.getViewSql());
+
+        json.writeArrayFieldStart("columns");
+        for (TableColumn column : table.getColumns())
+            writeColumn(json, column);
+        json.writeEndArray();
+
+        json.writeArrayFieldStart("primaryKey");
+        for (TableColumn column : table.getPrimaryColumns())
+            json.writeString(column.getName());
+        json.writeEndArray();
+
+        json.writeArrayFieldStart("indexes");
+        for (TableIndex index : getIndexes(table))
+            writeIndex(json, index);
+        json.writeEndArray();
+
+        json.writeArrayFieldStart("foreignKeys");
+        for (ForeignKeyConstraint foreignKey : getForeignKeys(table))
+            writeForeignKey(json, foreignKey);
+        json.writeEndArray();
+
+        json.writeArrayFieldStart("checkConstraints");
+        Map<String, String> constraints = table.getCheckConstraints();
+        if (constraints != null) {
+            for (Map.Entry<String, String> constraint : constraints.entrySet()) {
+                json.writeStartObject();
+                json.writeStringField("name", constraint.getKey());
+                writeString(json, "constraint", constraint.getValue());
+                json.writeEndObject();
+            }
+        }
+        json.writeEndArray();
+
+        json.writeEndObject();
+    }
+
+    private void writeColumn(JsonGenerator json, TableColumn column) throws IOException {
+        json.writeStartObject();
+        if (column.getId() != null)
+            json.writeStringField("id", String.valueOf(column.getId()));
+        json.writeStringField("name", column.getName());
+        writeString(json, "type", column.getTypeName());
+        json.writeNumberField("size", column.getLength());
+        json.writeNumberField("digits", column.getDecimalDigits());
+        json.writeBooleanField("nullable", column.isNullable());
+        json.writeBooleanField("autoUpdated", column.isAutoUpdated());
+        if (column.getDefaultValue() != null)
+            json.writeStringField("defaultValue", column.getDefaultValue().toString());
+        writeString(json, "remarks", column.getComments());
+        json.writeEndObject();
+    }
+
+    private void writeIndex(JsonGenerator json, TableIndex index) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("name", index.getName());
+        json.writeBooleanField("unique", index.isUnique());
+        json.writeBooleanField("primaryKey", index.isPrimaryKey());
+        json.writeArrayFieldStart("columns");
+        for (TableColumn column : index.getColumns()) {
+            json.writeStartObject();
+            json.writeStringField("name", column.getName());
+            json.writeBooleanField("ascending", index.isAscending(column));
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    private void writeForeignKey(JsonGenerator json, ForeignKeyConstraint foreignKey) throws IOException {
+        Table parent = foreignKey.getParentTable();
+
+        json.writeStartObject();
+        writeString(json, "name", foreignKey.getName());
+        json.writeBooleanField("implied", foreignKey.isImplied());
+        json.writeBooleanField("onDeleteCascade", foreignKey.isCascadeOnDelete());
+        json.writeArrayFieldStart("columns");
+        for (TableColumn column : foreignKey.getChildColumns())
+            json.writeString(column.getName());
+        json.writeEndArray();
+        json.writeObjectFieldStart("parent");
+        writeString(json, "catalog", parent.getCatalog());
+        writeString(json, "schema", getSchemaName(parent));
+        json.writeStringField("table", parent.getName());
+        json.writeArrayFieldStart("columns");
+        for (TableColumn column : foreignKey.getParentColumns())
+            json.writeString(column.getName());
+        json.writeEndArray();
+        json.writeEndObject();
+        json.writeEndObject();
+    }
+
+    private void writeRoutine(JsonGenerator json, Routine routine) throws IOException {
+        json.writeStartObject();
+        json.writeStringField("name", routine.getName());
+        writeString(json, "type", routine.getType());
+        writeString(json, "returnType", routine.getReturnType());
+        writeString(json, "language", routine.getDefinitionLanguage());
+        writeString(json, "dataAccess", routine.getDataAccess());
+        writeString(json, "securityType", routine.getSecurityType());
+        json.writeBooleanField("deterministic", routine.isDeterministic());
+        writeString(json, "comment", routine.getComment());
+        writeString(json, "definition", routine.getDefinition());
+        json.writeArrayFieldStart("parameters");
+        for (RoutineParameter parameter : routine.getParameters()) {
+            json.writeStartObject();
+            writeString(json, "name", parameter.getName());
+            writeString(json, "type", parameter.getType());
+            writeString(json, "mode", parameter.getMode());
+            json.writeEndObject();
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+    }
+
+    /**
+     * Null values are left out rather than written as <code>null</code>
+     */
+    private static void writeString(JsonGenerator json, String name, String value) throws IOException {
+        if (value != null)
+            json.writeStringField(name, value);
+    }
+}
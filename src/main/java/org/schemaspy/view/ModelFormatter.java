@@ -0,0 +1,110 @@
+/*
+ * This file is a part of the SchemaSpy project (http://schemaspy.org).
+ *
+ * SchemaSpy is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 2.1 of the License, or (at your option) any later version.
+ *
+ * SchemaSpy is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301  USA
+ */
+package org.schemaspy.view;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import org.schemaspy.model.Database;
+import org.schemaspy.model.ForeignKeyConstraint;
+import org.schemaspy.model.Table;
+import org.schemaspy.model.TableColumn;
+import org.schemaspy.model.TableIndex;
+
+/**
+ * Writes the gathered model of a {@link Database} in a machine-readable format
+ * for tools that would otherwise have to re-parse the XML.
+ * Implementations are expected to stream the model rather than build it up in memory.
+ */
+public abstract class ModelFormatter {
+    /**
+     * Extension (without the leading '.') of the files written by this formatter
+     *
+     * @return
+     */
+    public abstract String getFileExtension();
+
+    /**
+     * Write <code>db</code>, its <code>tables</code> and its routines to <code>out</code>.
+     * <code>out</code> is left open.
+     *
+     * @param db
+     * @param tables
+     * @param out
+     * @throws IOException
+     */
+    public abstract void write(Database db, Collection<Table> tables, OutputStream out) throws IOException;
+
+    /**
+     * Returns the tables in the same order as they're written to the XML
+     *
+     * @param tables
+     * @return
+     */
+    protected static List<Table> sortByName(Collection<Table> tables) {
+        Set<Table> byName = new TreeSet<Table>((table1, table2) -> table1.getName().compareToIgnoreCase(table2.getName()));
+        byName.addAll(tables);
+        return new ArrayList<Table>(byName);
+    }
+
+    /**
+     * Returns the indexes of <code>table</code> with the primary key first
+     *
+     * @param table
+     * @return
+     */
+    protected static Collection<TableIndex> getIndexes(Table table) {
+        Set<TableIndex> indexes = table.getIndexes();
+        return indexes == null ? Collections.<TableIndex>emptySet() : new TreeSet<TableIndex>(indexes);
+    }
+
+    /**
+     * Returns the constraints that <code>table</code> is the child of,
+     * both the real and the implied ones, in the order of their first column.
+     *
+     * @param table
+     * @return
+     */
+    protected static List<ForeignKeyConstraint> getForeignKeys(Table table) {
+        // constraints consider themselves equal when they join the same tables
+        Set<ForeignKeyConstraint> seen = Collections.newSetFromMap(new IdentityHashMap<ForeignKeyConstraint, Boolean>());
+        List<ForeignKeyConstraint> foreignKeys = new ArrayList<ForeignKeyConstraint>();
+        for (TableColumn column : table.getColumns()) {
+            for (TableColumn parentColumn : column.getParents()) {
+                ForeignKeyConstraint constraint = column.getParentConstraint(parentColumn);
+                if (constraint != null && seen.add(constraint))
+                    foreignKeys.add(constraint);
+            }
+        }
+        return foreignKeys;
+    }
+
+    protected static String getSchemaName(Database db) {
+        return db.getSchema() == null ? null : db.getSchema().getName();
+    }
+
+    protected static String getSchemaName(Table table) {
+        return table.getSchema() == null ? null : table.getSchema().getName();
+    }
+}
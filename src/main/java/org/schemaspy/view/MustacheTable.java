@@ -11,6 +11,7 @@ public class MustacheTable {
     private Table table;
     private String diagramName;
     private String comments;
+    private Integer insertionOrder;
 
     public MustacheTable(Table table, String imageFile) {
         this.table = table;
@@ -25,6 +26,17 @@ public class MustacheTable {
         this.comments = comments;
     }
 
+    /**
+     * Position of the table in insertionOrder.txt, <code>null</code> for views
+     */
+    public Integer getInsertionOrder() {
+        return insertionOrder;
+    }
+
+    public void setInsertionOrder(Integer insertionOrder) {
+        this.insertionOrder = insertionOrder;
+    }
+
     public Table getTable() {
         return table;
     }
@@ -3,26 +3,34 @@ package org.schemaspy.view;
 import com.github.mustachejava.DefaultMustacheFactory;
 import com.github.mustachejava.Mustache;
 import com.github.mustachejava.MustacheFactory;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.schemaspy.Config;
 import org.schemaspy.model.InvalidConfigurationException;
+import org.schemaspy.util.GzipSiblingOutputStream;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.io.Writer;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by rkasa on 2016-03-22.
  */
 public class MustacheWriter {
+    // compiled templates by template directory and file name, kept for the life of the JVM
+    private static final Map<String, CompiledTemplate> compiled = new ConcurrentHashMap<>();
+
     private File outputDir;
     private HashMap<String, Object> scopes;
     private String rootPath;
@@ -47,15 +55,12 @@ public class MustacheWriter {
     }
 
     public void write(String templatePath, String destination, String scriptFileName) {
-        MustacheFactory mf = new DefaultMustacheFactory();
-        MustacheFactory contentMf = new DefaultMustacheFactory();
-        StringWriter content = new StringWriter();
         StringWriter result = new StringWriter();
 
         HashMap<String, Object> mainScope = new HashMap<>();
 
         try {
-            Mustache mustache = mf.compile(getReader(templatePath),"template");
+            Mustache mustache = compile(templatePath, "template");
             mustache.execute(result, scopes).flush();
 
             mainScope.put("databaseName", databaseName);
@@ -65,22 +70,54 @@ public class MustacheWriter {
             mainScope.put("rootPathtoHome", rootPathtoHome);
             mainScope.put("isMultipleSchemas", isMultipleSchemas);
 
-            Mustache mustacheContent = contentMf.compile(getReader("container.html"), "container");
-            mustacheContent.execute(content, mainScope).flush();
+            Mustache mustacheContent = compile("container.html", "container");
 
             File destinationFile = new File(outputDir, destination);
 
-            FileUtils.writeStringToFile(destinationFile, content.toString(), "UTF-8");
+            // write (and compress if requested) the page as it's rendered
+            try (Writer content = new BufferedWriter(new OutputStreamWriter(GzipSiblingOutputStream.open(destinationFile), "UTF-8"))) {
+                mustacheContent.execute(content, mainScope).flush();
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Returns the compiled template, only compiling it again if it's
+     * a file that's been modified since it was last compiled
+     */
+    private Mustache compile(String fileName, String name) throws IOException {
+        String key = templateDirectory + '/' + fileName;
+        long lastModified = lastModified(templateDirectory, fileName);
+        CompiledTemplate template = compiled.get(key);
+        if (template == null || template.lastModified != lastModified) {
+            MustacheFactory mf = new DefaultMustacheFactory();
+            template = new CompiledTemplate(mf.compile(getReader(fileName), name), lastModified);
+            compiled.put(key, template);
+        }
+        return template.mustache;
+    }
+
     private Reader getReader(String fileName) throws IOException {
         String parent = templateDirectory;
         return getReader(parent, fileName);
     }
 
+    /**
+     * Returns when the file that {@link #getReader(String, String)} would read was modified,
+     * or <code>0</code> if it would come from the class path
+     */
+    private static long lastModified(String parent, String fileName) {
+        File file = new File(parent, fileName);
+        if (file.exists())
+            return file.lastModified();
+        File fileInUserHomeDirectory = new File(System.getProperty("user.dir"), file.getPath());
+        if (fileInUserHomeDirectory.exists())
+            return fileInUserHomeDirectory.lastModified();
+        return 0;
+    }
+
     /**
      * Returns a {@link Reader} that can be used to read the contents
      * of the specified file in the parent directory.<p>
@@ -122,6 +159,16 @@ public class MustacheWriter {
         return new StringReader(fileContent);
     }
 
+    private static final class CompiledTemplate {
+        private final Mustache mustache;
+        private final long lastModified;
+
+        CompiledTemplate(Mustache mustache, long lastModified) {
+            this.mustache = mustache;
+            this.lastModified = lastModified;
+        }
+    }
+
     /**
      * Indicates an exception in parsing the css
      */
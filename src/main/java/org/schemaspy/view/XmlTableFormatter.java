@@ -18,35 +18,26 @@
  */
 package org.schemaspy.view;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.regex.Pattern;
 import org.schemaspy.model.ForeignKeyConstraint;
 import org.schemaspy.model.Table;
 import org.schemaspy.model.TableColumn;
 import org.schemaspy.model.TableIndex;
-import org.schemaspy.util.DOMUtil;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
+import org.schemaspy.util.XmlWriter;
 
 /**
- * Formats {@link Table}s into an XML DOM tree.
+ * Formats {@link Table}s as XML, writing each table as it's visited.
  *
  * @author John Currier
  */
 public class XmlTableFormatter {
     private static final XmlTableFormatter instance = new XmlTableFormatter();
 
-    // valid chars came from http://www.w3.org/TR/REC-xml/#charsets
-    // and attempting to match 0x10000-0x10FFFF with the \p Unicode escapes
-    // (from http://www.regular-expressions.info/unicode.html)
-    private static final Pattern validXmlChars =
-        Pattern.compile("^[ -\uD7FF\uE000-\uFFFD\\p{L}\\p{M}\\p{Z}\\p{S}\\p{N}\\p{P}]*$");
-
     /**
      * Singleton...don't allow instantiation
      */
@@ -62,12 +53,13 @@ public class XmlTableFormatter {
     }
 
     /**
-     * Append the specified tables to the XML node
+     * Write the specified tables as children of the current element
      *
-     * @param schemaNode
+     * @param xml
      * @param tables
+     * @throws IOException
      */
-    public void appendTables(Element schemaNode, Collection<Table> tables) {
+    public void writeTables(XmlWriter xml, Collection<Table> tables) throws IOException {
         Set<Table> byName = new TreeSet<Table>(new Comparator<Table>() {
             public int compare(Table table1, Table table2) {
                 return table1.getName().compareToIgnoreCase(table2.getName());
@@ -75,195 +67,183 @@ public class XmlTableFormatter {
         });
         byName.addAll(tables);
 
-        Document document = schemaNode.getOwnerDocument();
-        Element tablesNode = document.createElement("tables");
-        schemaNode.appendChild(tablesNode);
+        xml.writeStartElement("tables");
         for (Table table : byName)
-            appendTable(tablesNode, table);
+            writeTable(xml, table);
+        xml.writeEndElement();
     }
 
     /**
-     * Append table details to the XML node
+     * Write table details
      *
-     * @param tablesNode
+     * @param xml
      * @param table
      */
-    private void appendTable(Element tablesNode, Table table) {
-        Document document = tablesNode.getOwnerDocument();
-        Element tableNode = document.createElement("table");
-        tablesNode.appendChild(tableNode);
+    private void writeTable(XmlWriter xml, Table table) throws IOException {
+        xml.writeStartElement("table");
         if (table.getId() != null)
-            DOMUtil.appendAttribute(tableNode, "id", String.valueOf(table.getId()));
-        DOMUtil.appendAttribute(tableNode, "catalog", table.getCatalog());
-        DOMUtil.appendAttribute(tableNode, "schema", table.getSchema().getName());
-        DOMUtil.appendAttribute(tableNode, "name", table.getName());
+            xml.writeAttribute("id", String.valueOf(table.getId()));
+        xml.writeAttribute("catalog", table.getCatalog());
+        xml.writeAttribute("schema", table.getSchema().getName());
+        xml.writeAttribute("name", table.getName());
         if (table.getNumRows() >= 0)
-            DOMUtil.appendAttribute(tableNode, "numRows", String.valueOf(table.getNumRows()));
-        DOMUtil.appendAttribute(tableNode, "type", table.isView() ? "VIEW" : "TABLE");
-        DOMUtil.appendAttribute(tableNode, "remarks", table.getComments() == null ? "" : table.getComments());
-        appendColumns(tableNode, table);
-        appendPrimaryKeys(tableNode, table);
-        appendIndexes(tableNode, table);
-        appendCheckConstraints(tableNode, table);
-        appendView(tableNode, table);
+            xml.writeAttribute("numRows", String.valueOf(table.getNumRows()));
+        xml.writeAttribute("type", table.isView() ? "VIEW" : "TABLE");
+        xml.writeAttribute("remarks", table.getComments() == null ? "" : table.getComments());
+        writeView(xml, table);
+        writeColumns(xml, table);
+        writePrimaryKeys(xml, table);
+        writeIndexes(xml, table);
+        writeCheckConstraints(xml, table);
+        xml.writeEndElement();
     }
 
     /**
-     * Append all columns in the table to the XML node
+     * Write all columns in the table
      *
-     * @param tableNode
+     * @param xml
      * @param table
      */
-    private void appendColumns(Element tableNode, Table table) {
+    private void writeColumns(XmlWriter xml, Table table) throws IOException {
         for (TableColumn column : table.getColumns()) {
-            appendColumn(tableNode, column);
+            writeColumn(xml, column);
         }
     }
 
     /**
-     * Append column details to the XML node
+     * Write column details
      *
-     * @param tableNode
+     * @param xml
      * @param column
-     * @return
      */
-    private Node appendColumn(Node tableNode, TableColumn column) {
-        Document document = tableNode.getOwnerDocument();
-        Node columnNode = document.createElement("column");
-        tableNode.appendChild(columnNode);
-
-        DOMUtil.appendAttribute(columnNode, "id", String.valueOf(column.getId()));
-        DOMUtil.appendAttribute(columnNode, "name", column.getName());
-        DOMUtil.appendAttribute(columnNode, "type", column.getTypeName());
-        DOMUtil.appendAttribute(columnNode, "size", String.valueOf(column.getLength()));
-        DOMUtil.appendAttribute(columnNode, "digits", String.valueOf(column.getDecimalDigits()));
-        DOMUtil.appendAttribute(columnNode, "nullable", String.valueOf(column.isNullable()));
-        DOMUtil.appendAttribute(columnNode, "autoUpdated", String.valueOf(column.isAutoUpdated()));
+    private void writeColumn(XmlWriter xml, TableColumn column) throws IOException {
+        xml.writeStartElement("column");
+        xml.writeAttribute("id", String.valueOf(column.getId()));
+        xml.writeAttribute("name", column.getName());
+        xml.writeAttribute("type", column.getTypeName());
+        xml.writeAttribute("size", String.valueOf(column.getLength()));
+        xml.writeAttribute("digits", String.valueOf(column.getDecimalDigits()));
+        xml.writeAttribute("nullable", String.valueOf(column.isNullable()));
+        xml.writeAttribute("autoUpdated", String.valueOf(column.isAutoUpdated()));
         if (column.getDefaultValue() != null) {
             String defaultValue = column.getDefaultValue().toString();
             if (isBinary(defaultValue)) {
                 // we're run into a binary default value, convert it to its hex equivalent
                 defaultValue = asBinary(defaultValue);
                 // and indicate that it's been converted
-                DOMUtil.appendAttribute(columnNode, "defaultValueIsBinary", "true");
+                xml.writeAttribute("defaultValueIsBinary", "true");
             }
-            DOMUtil.appendAttribute(columnNode, "defaultValue", defaultValue);
+            xml.writeAttribute("defaultValue", defaultValue);
         }
-        DOMUtil.appendAttribute(columnNode, "remarks", column.getComments() == null ? "" : column.getComments());
+        xml.writeAttribute("remarks", column.getComments() == null ? "" : column.getComments());
 
         for (TableColumn childColumn : column.getChildren()) {
-            Node childNode = document.createElement("child");
+            xml.writeStartElement("child");
             Table table = childColumn.getTable();
-            columnNode.appendChild(childNode);
             ForeignKeyConstraint constraint = column.getChildConstraint(childColumn);
-            DOMUtil.appendAttribute(childNode, "foreignKey", constraint.getName());
-            DOMUtil.appendAttribute(childNode, "catalog", table.getCatalog());
-            DOMUtil.appendAttribute(childNode, "schema", table.getSchema().getName());
-            DOMUtil.appendAttribute(childNode, "table", table.getName());
-            DOMUtil.appendAttribute(childNode, "column", childColumn.getName());
-            DOMUtil.appendAttribute(childNode, "implied", String.valueOf(constraint.isImplied()));
-            DOMUtil.appendAttribute(childNode, "onDeleteCascade", String.valueOf(constraint.isCascadeOnDelete()));
+            xml.writeAttribute("foreignKey", constraint.getName());
+            xml.writeAttribute("catalog", table.getCatalog());
+            xml.writeAttribute("schema", table.getSchema().getName());
+            xml.writeAttribute("table", table.getName());
+            xml.writeAttribute("column", childColumn.getName());
+            xml.writeAttribute("implied", String.valueOf(constraint.isImplied()));
+            xml.writeAttribute("onDeleteCascade", String.valueOf(constraint.isCascadeOnDelete()));
+            xml.writeEndElement();
         }
 
         for (TableColumn parentColumn : column.getParents()) {
-            Node parentNode = document.createElement("parent");
+            xml.writeStartElement("parent");
             Table table = parentColumn.getTable();
-            columnNode.appendChild(parentNode);
             ForeignKeyConstraint constraint = column.getParentConstraint(parentColumn);
-            DOMUtil.appendAttribute(parentNode, "foreignKey", constraint.getName());
-            DOMUtil.appendAttribute(parentNode, "catalog", table.getCatalog());
-            DOMUtil.appendAttribute(parentNode, "schema", table.getSchema().getName());
-            DOMUtil.appendAttribute(parentNode, "table", table.getName());
-            DOMUtil.appendAttribute(parentNode, "column", parentColumn.getName());
-            DOMUtil.appendAttribute(parentNode, "implied", String.valueOf(constraint.isImplied()));
-            DOMUtil.appendAttribute(parentNode, "onDeleteCascade", String.valueOf(constraint.isCascadeOnDelete()));
+            xml.writeAttribute("foreignKey", constraint.getName());
+            xml.writeAttribute("catalog", table.getCatalog());
+            xml.writeAttribute("schema", table.getSchema().getName());
+            xml.writeAttribute("table", table.getName());
+            xml.writeAttribute("column", parentColumn.getName());
+            xml.writeAttribute("implied", String.valueOf(constraint.isImplied()));
+            xml.writeAttribute("onDeleteCascade", String.valueOf(constraint.isCascadeOnDelete()));
+            xml.writeEndElement();
         }
 
-        return columnNode;
+        xml.writeEndElement();
     }
 
     /**
-     * Append primary key details to the XML node
+     * Write primary key details
      *
-     * @param tableNode
+     * @param xml
      * @param table
      */
-    private void appendPrimaryKeys(Element tableNode, Table table) {
-        Document document = tableNode.getOwnerDocument();
+    private void writePrimaryKeys(XmlWriter xml, Table table) throws IOException {
         int index = 1;
 
         for (TableColumn primaryKeyColumn : table.getPrimaryColumns()) {
-            Node primaryKeyNode = document.createElement("primaryKey");
-            tableNode.appendChild(primaryKeyNode);
-
-            DOMUtil.appendAttribute(primaryKeyNode, "column", primaryKeyColumn.getName());
-            DOMUtil.appendAttribute(primaryKeyNode, "sequenceNumberInPK", String.valueOf(index++));
+            xml.writeStartElement("primaryKey");
+            xml.writeAttribute("column", primaryKeyColumn.getName());
+            xml.writeAttribute("sequenceNumberInPK", String.valueOf(index++));
+            xml.writeEndElement();
         }
     }
 
     /**
-     * Append check constraint details to the XML node
+     * Write check constraint details
      *
-     * @param tableNode
+     * @param xml
      * @param table
      */
-    private void appendCheckConstraints(Element tableNode, Table table) {
-        Document document = tableNode.getOwnerDocument();
+    private void writeCheckConstraints(XmlWriter xml, Table table) throws IOException {
         Map<String, String> constraints = table.getCheckConstraints();
         if (constraints != null && !constraints.isEmpty()) {
             for (String name : constraints.keySet()) {
-                Node constraintNode = document.createElement("checkConstraint");
-                tableNode.appendChild(constraintNode);
-
-                DOMUtil.appendAttribute(constraintNode, "name", name);
-                DOMUtil.appendAttribute(constraintNode, "constraint", constraints.get(name).toString());
+                xml.writeStartElement("checkConstraint");
+                xml.writeAttribute("name", name);
+                xml.writeAttribute("constraint", constraints.get(name).toString());
+                xml.writeEndElement();
             }
         }
     }
 
     /**
-     * Append index details to the XML node
+     * Write index details
      *
-     * @param tableNode
+     * @param xml
      * @param table
      */
-    private void appendIndexes(Node tableNode, Table table) {
+    private void writeIndexes(XmlWriter xml, Table table) throws IOException {
         boolean showId = table.getId() != null;
         Set<TableIndex> indexes = table.getIndexes();
         if (indexes != null && !indexes.isEmpty()) {
             indexes = new TreeSet<TableIndex>(indexes); // sort primary keys first
-            Document document = tableNode.getOwnerDocument();
 
             for (TableIndex index : indexes) {
-                Node indexNode = document.createElement("index");
+                xml.writeStartElement("index");
 
                 if (showId)
-                    DOMUtil.appendAttribute(indexNode, "id", String.valueOf(index.getId()));
-                DOMUtil.appendAttribute(indexNode, "name", index.getName());
-                DOMUtil.appendAttribute(indexNode, "unique", String.valueOf(index.isUnique()));
+                    xml.writeAttribute("id", String.valueOf(index.getId()));
+                xml.writeAttribute("name", index.getName());
+                xml.writeAttribute("unique", String.valueOf(index.isUnique()));
 
                 for (TableColumn column : index.getColumns()) {
-                    Node columnNode = document.createElement("column");
-
-                    DOMUtil.appendAttribute(columnNode, "name", column.getName());
-                    DOMUtil.appendAttribute(columnNode, "ascending", String.valueOf(index.isAscending(column)));
-                    indexNode.appendChild(columnNode);
+                    xml.writeStartElement("column");
+                    xml.writeAttribute("name", column.getName());
+                    xml.writeAttribute("ascending", String.valueOf(index.isAscending(column)));
+                    xml.writeEndElement();
                 }
-                tableNode.appendChild(indexNode);
+                xml.writeEndElement();
             }
         }
     }
 
     /**
-     * Append view SQL to the XML node
+     * Write view SQL as an attribute of the table
      *
-     * @param tableNode
+     * @param xml
      * @param table
      */
-    private void appendView(Element tableNode, Table table) {
+    private void writeView(XmlWriter xml, Table table) {
         String sql;
         if (table.isView() && (sql = table.getViewSql()) != null) {
-            DOMUtil.appendAttribute(tableNode, "viewSql", sql);
+            xml.writeAttribute("viewSql", sql);
         }
     }
 
@@ -274,8 +254,58 @@ public class XmlTableFormatter {
      * @param str
      * @return
      */
-    private static boolean isBinary(String str) {
-        return !validXmlChars.matcher(str).matches();
+    static boolean isBinary(String str) {
+        for (int i = 0; i < str.length(); ) {
+            int ch = str.codePointAt(i);
+            if (!isValidXmlChar(ch))
+                return true;
+            i += Character.charCount(ch);
+        }
+        return false;
+    }
+
+    /**
+     * Valid chars came from http://www.w3.org/TR/REC-xml/#charsets.
+     * In the 0x10000-0x10FFFF range letters, marks, separators, symbols, numbers and
+     * punctuation are accepted (what <code>\p{L}\p{M}\p{Z}\p{S}\p{N}\p{P}</code> would match).
+     *
+     * @param ch code point
+     * @return
+     */
+    private static boolean isValidXmlChar(int ch) {
+        if ((ch >= ' ' && ch <= 0xD7FF) || (ch >= 0xE000 && ch <= 0xFFFD))
+            return true;
+
+        switch (Character.getType(ch)) {
+            case Character.UPPERCASE_LETTER:
+            case Character.LOWERCASE_LETTER:
+            case Character.TITLECASE_LETTER:
+            case Character.MODIFIER_LETTER:
+            case Character.OTHER_LETTER:
+            case Character.NON_SPACING_MARK:
+            case Character.ENCLOSING_MARK:
+            case Character.COMBINING_SPACING_MARK:
+            case Character.SPACE_SEPARATOR:
+            case Character.LINE_SEPARATOR:
+            case Character.PARAGRAPH_SEPARATOR:
+            case Character.MATH_SYMBOL:
+            case Character.CURRENCY_SYMBOL:
+            case Character.MODIFIER_SYMBOL:
+            case Character.OTHER_SYMBOL:
+            case Character.DECIMAL_DIGIT_NUMBER:
+            case Character.LETTER_NUMBER:
+            case Character.OTHER_NUMBER:
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+                return true;
+            default:
+                return false;
+        }
     }
 
     /**
@@ -0,0 +1,161 @@
+package org.schemaspy;
+
+import com.beust.jcommander.ParameterException;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.schemaspy.testing.H2MemoryRule;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AnalysisServerTest {
+
+    @Rule
+    public H2MemoryRule h2 = new H2MemoryRule("AnalysisServerTest",
+            "CREATE SCHEMA APP",
+            "CREATE TABLE APP.ARTIST(ID INT PRIMARY KEY, NAME VARCHAR(100))");
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void jobsAreAnalyzedInTheBackground() throws Exception {
+        File outputDir = new File(temp.getRoot(), "output");
+        try (AnalysisServer server = new AnalysisServer(0, 10, temp.getRoot(), null, null)) {
+            assertThatThrownBy(() -> server.submit("-t", "h2")).isInstanceOf(ParameterException.class);
+
+            AnalysisServer.Job job = server.submit("-t", "h2", "-db", "mem:AnalysisServerTest", "-s", "APP",
+                    "-u", "sa", "-p", "", "-o", "output", "-nohtml");
+            assertThat(job.getOutputDirectory()).isEqualTo(outputDir.getCanonicalFile());
+            assertThat(server.getJob(job.getId())).isSameAs(job);
+
+            long deadline = System.currentTimeMillis() + 60000;
+            while (job.getExitCode() == null && System.currentTimeMillis() < deadline)
+                Thread.sleep(100);
+
+            assertThat(job.getError()).isNull();
+            assertThat(job.getStatus()).isEqualTo(AnalysisServer.Status.SUCCEEDED);
+            assertThat(job.getExitCode()).isEqualTo(0);
+            assertThat(outputDir.list()).contains("AnalysisServerTest.APP.xml");
+            assertThat(server.getJob(job.getId() + 1)).isNull();
+        }
+    }
+
+    @Test
+    public void bundlesAreWrittenWithinTheOutputRoot() throws Exception {
+        try (AnalysisServer server = new AnalysisServer(0, 10, temp.getRoot(), null, null)) {
+            AnalysisServer.Job job = server.submit("-t", "h2", "-db", "mem:AnalysisServerTest", "-s", "APP",
+                    "-u", "sa", "-p", "", "-o", "bundled", "-nohtml", "-connprops", "MODE\\=REGULAR",
+                    "-bundle", "site.zip");
+
+            long deadline = System.currentTimeMillis() + 60000;
+            while (job.getExitCode() == null && System.currentTimeMillis() < deadline)
+                Thread.sleep(100);
+
+            assertThat(job.getError()).isNull();
+            assertThat(job.getExitCode()).isEqualTo(0);
+            assertThat(new File(temp.getRoot(), "site.zip")).isFile();
+        }
+    }
+
+    @Test
+    public void onlyAuthorizedRequestsFromOutsideBrowsersAreAccepted() throws Exception {
+        try (AnalysisServer server = new AnalysisServer(0, 10, temp.getRoot(), null, null)) {
+            server.start();
+            String authorization = "Authorization: Bearer " + server.getToken();
+            String arguments = "Content-Type: " + AnalysisServer.ARGUMENTS_CONTENT_TYPE;
+
+            assertThat(request(server, "GET", "", "")).isEqualTo(401);
+            assertThat(request(server, "GET", "", "Authorization: Bearer wrong")).isEqualTo(401);
+            assertThat(request(server, "GET", "", authorization)).isEqualTo(200);
+            assertThat(request(server, "GET", "", authorization, "Origin: http://example.com")).isEqualTo(403);
+            assertThat(request(server, "POST", "-t\nh2\n", authorization, "Content-Type: text/plain")).isEqualTo(415);
+            assertThat(request(server, "POST", "-t\nh2\n-o\nout\n", authorization, arguments)).isEqualTo(400);
+        }
+    }
+
+    @Test
+    public void jobsCantPickWhatTheServerWasStartedWith() throws Exception {
+        try (AnalysisServer server = new AnalysisServer(0, 10, temp.getRoot(), null, null)) {
+            String[] valid = {"-t", "h2", "-db", "mem:AnalysisServerTest", "-s", "APP", "-u", "sa"};
+            assertThatThrownBy(() -> server.submit(with(valid, "-o", "../elsewhere")))
+                    .isInstanceOf(ParameterException.class).hasMessageContaining("within");
+            for (String option : Arrays.asList(
+                    "-dp", "--driverPath", "driverPath", "schemaspy.dp", "schemaspy.driverPath", "-cp", "-loadjars",
+                    "-mmp", "-metamodelPath", "schemaspy.mmp", "schemaspy.metamodelPath",
+                    "-mmc", "-metamodelClass", "schemaspy.mmc", "schemaspy.metamodelClass",
+                    "-meta", "-configFile", "-gv", "-sqlFormatter", "-offline", "-template", "-css", "-pfp",
+                    "--outputDirectory", "outputDirectory", "schemaspy.o", "schemaspy.outputDirectory")) {
+                assertThatThrownBy(() -> server.submit(with(valid, "-o", "out", option, "/etc")))
+                        .isInstanceOf(ParameterException.class).hasMessageContaining(option);
+            }
+            for (String option : Arrays.asList(
+                    "-t", "--database-type", "database-type", "schemaspy.t", "schemaspy.database-type")) {
+                assertThatThrownBy(() -> server.submit(option, "../types/h2", "-o", "out"))
+                        .isInstanceOf(ParameterException.class).hasMessageContaining(option);
+                assertThatThrownBy(() -> server.submit(option, "/etc/types/h2", "-o", "out"))
+                        .isInstanceOf(ParameterException.class).hasMessageContaining(option);
+            }
+            assertThatThrownBy(() -> server.submit(with(valid, "-o", "out", "-connprops", "/etc/passwd")))
+                    .isInstanceOf(ParameterException.class).hasMessageContaining("-connprops");
+            assertThatThrownBy(() -> server.submit(with(valid, "-o", "out", "-bundle", "../site.zip")))
+                    .isInstanceOf(ParameterException.class).hasMessageContaining("-bundle");
+            assertThatThrownBy(() -> server.submit(with(valid, "-o", "out", "@/etc/passwd")))
+                    .isInstanceOf(ParameterException.class).hasMessageContaining("@/etc/passwd");
+            assertThatThrownBy(() -> server.submit(valid))
+                    .isInstanceOf(ParameterException.class).hasMessageContaining("-o");
+        }
+    }
+
+    @Test
+    public void tokenIsOnlyReadableByItsOwner() throws Exception {
+        try (AnalysisServer server = new AnalysisServer(0, 10, temp.getRoot(), null, null)) {
+            File file = server.writeToken(new File(temp.getRoot(), "tokens/server.token"));
+            assertThat(file).hasContent(server.getToken());
+            Assume.assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+            assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(file.toPath()))).isEqualTo("rw-------");
+        }
+    }
+
+    private static String[] with(String[] args, String... more) {
+        List<String> all = new ArrayList<>(Arrays.asList(args));
+        all.addAll(Arrays.asList(more));
+        return all.toArray(new String[0]);
+    }
+
+    /**
+     * Sends a request as is (HttpURLConnection drops the Origin header) and returns its status
+     */
+    private static int request(AnalysisServer server, String method, String body, String... headers) throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            byte[] content = body.getBytes(StandardCharsets.UTF_8);
+            StringBuilder request = new StringBuilder(method + " /jobs HTTP/1.1\r\nHost: localhost\r\nConnection: close\r\n");
+            for (String header : headers)
+                request.append(header).append("\r\n");
+            request.append("Content-Length: ").append(content.length).append("\r\n\r\n");
+            OutputStream out = socket.getOutputStream();
+            out.write(request.toString().getBytes(StandardCharsets.US_ASCII));
+            out.write(content);
+            out.flush();
+
+            String statusLine = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+            return Integer.parseInt(statusLine.split(" ")[1]);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.schemaspy;
+
+import org.junit.Test;
+import org.schemaspy.model.Schema;
+import org.schemaspy.model.Table;
+import org.schemaspy.testing.TestTables;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AnomalyDetectorTest {
+
+    private final TestTables model = new TestTables("catalog", new Schema("schema"));
+
+    @Test
+    public void detectsAllAnomaliesInOnePass() {
+        List<Table> tables = new ArrayList<>();
+        for (int i = 0; i < 50; ++i) {
+            tables.add(model.createTable("T" + i, "ID", "NAME"));
+        }
+        Table phones = model.createTable("PHONES", "PHONE1", "PHONE2");
+        Table single = model.createTable("SINGLE", "STATUS");
+        single.getColumn("STATUS").setDefaultValue(" 'NULL' ");
+        tables.add(single);
+        tables.add(phones);
+
+        AnomalyDetector.Anomalies anomalies = AnomalyDetector.getDefault().detect(tables);
+
+        assertThat(anomalies.byName().keySet()).containsExactly("unIndexedTables", "oneColumnTables", "incrementingColumnNames", "uniqueNullables");
+        assertThat(anomalies.get(AnomalyDetector.UNINDEXED_TABLES)).hasSize(52).startsWith(phones, single);
+        assertThat(anomalies.get(AnomalyDetector.ONE_COLUMN_TABLES)).containsExactly(single);
+        assertThat(anomalies.get(AnomalyDetector.INCREMENTING_COLUMN_NAMES)).containsExactly(phones);
+        assertThat(anomalies.get(AnomalyDetector.UNIQUE_NULLABLES)).containsExactly(single.getColumn("STATUS"));
+    }
+}
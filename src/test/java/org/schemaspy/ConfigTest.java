@@ -28,4 +28,27 @@ public class ConfigTest extends TestCase {
         assertThat(config.isLoadJDBCJarsEnabled()).isTrue();
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testForSchema() {
+        Config config = new Config("-t", "h2", "-db", "library", "-schemas", "app, sales", "-i", "ALBUM.*");
+        assertThat(config.getSchemas()).containsExactly("app", "sales");
+
+        Config sales = config.forSchema("sales");
+        assertThat(Config.getInstance()).isSameAs(config);
+        assertThat(sales.getSchema()).isEqualTo("sales");
+        assertThat(sales.getSchemas()).isNull();
+        assertThat(sales.isEvaluateAllEnabled()).isFalse();
+        assertThat(sales.getTableInclusions().pattern()).isEqualTo("ALBUM.*");
+        assertThat(config.getSchema()).isNull();
+        assertThat(config.getTableInclusions().pattern()).isEqualTo("ALBUM.*");
+    }
+
+    @Test
+    public void testDbPropertyName() {
+        Config config = new Config("-t", "h2");
+        String sql = config.getDbProperties().getProperty("selectPopulatedSchemasSql");
+
+        assertThat(config.getDbPropertyName(sql)).isEqualTo("selectPopulatedSchemasSql");
+        assertThat(config.getDbPropertyName("select 1")).isNull();
+    }
+}
@@ -0,0 +1,45 @@
+package org.schemaspy;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.schemaspy.testing.H2MemoryRule;
+
+import java.sql.DatabaseMetaData;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DbAnalyzerPopulatedSchemasTest {
+
+    private static final String SQL = "select table_schema as schema_name, count(*) as table_count from information_schema.tables group by table_schema";
+
+    @Rule
+    public H2MemoryRule h2 = new H2MemoryRule("DbAnalyzerPopulatedSchemasTest",
+            "CREATE SCHEMA SALES",
+            "CREATE SCHEMA STAFF",
+            "CREATE SCHEMA EMPTY",
+            "CREATE TABLE SALES.ORDERS (ID INT)",
+            "CREATE TABLE STAFF.PEOPLE (ID INT)");
+
+    @Test
+    public void singleQueryFindsTheSameSchemasAsCheckingEachOfThem() throws Exception {
+        DatabaseMetaData meta = h2.getConnection().getMetaData();
+
+        List<String> queried = DbAnalyzer.getPopulatedSchemas(meta, "S.*", false, SQL, 4);
+        List<String> probed = DbAnalyzer.getPopulatedSchemas(meta, "S.*", false, null, 4);
+        List<String> serial = DbAnalyzer.getPopulatedSchemas(meta, "S.*", false);
+
+        assertThat(queried).containsExactly("SALES", "STAFF");
+        assertThat(probed).isEqualTo(queried);
+        assertThat(serial).isEqualTo(queried);
+    }
+
+    @Test
+    public void fallsBackToCheckingEachSchemaWhenTheQueryFails() throws Exception {
+        DatabaseMetaData meta = h2.getConnection().getMetaData();
+
+        List<String> schemas = DbAnalyzer.getPopulatedSchemas(meta, ".*", false, "select nothing from nowhere", 2);
+
+        assertThat(schemas).contains("SALES", "STAFF").doesNotContain("EMPTY");
+    }
+}
@@ -9,6 +9,7 @@ import org.schemaspy.model.ImpliedForeignKeyConstraint;
 import org.schemaspy.model.Schema;
 import org.schemaspy.model.Table;
 import org.schemaspy.model.TableColumn;
+import org.schemaspy.testing.TestTables;
 import org.schemaspy.util.CaseInsensitiveMap;
 
 import java.sql.SQLException;
@@ -54,6 +55,31 @@ public class DbAnalyzerTest {
         assertThat(impliedForeignKeyConstraintList).containsExactlyInAnyOrder(invoiceLineTrackId, trackAlbumId, albumArtistId);
     }
 
+    @Test
+    public void impliedConstraintsMatchSuffixesAndSkipAmbiguousParents() throws Exception {
+        TestTables model = new TestTables(database, catalog, schema);
+        Table address = model.createKeyedTable("Address", "address_id");
+        Table customer = model.createKeyedTable("Customer", "Number", "shipping_ADDRESS_ID", "CustomerTypeCode");
+        Table customerType = model.createKeyedTable("CustomerType", "Code");
+        Table item = model.createKeyedTable("Item", "Code");
+        Table order = model.createKeyedTable("Order", "order_id", "Code");
+
+        List<Table> tables = new ArrayList<>();
+        tables.add(address);
+        tables.add(customer);
+        tables.add(customerType);
+        tables.add(item);
+        tables.add(order);
+
+        List<ImpliedForeignKeyConstraint> impliedForeignKeyConstraintList = DbAnalyzer.getImpliedConstraints(tables);
+
+        ImpliedForeignKeyConstraint customerAddress = new ImpliedForeignKeyConstraint(address.getColumn("address_id"), customer.getColumn("shipping_ADDRESS_ID"));
+        ImpliedForeignKeyConstraint customerCustomerType = new ImpliedForeignKeyConstraint(customerType.getColumn("Code"), customer.getColumn("CustomerTypeCode"));
+
+        // Order.Code could be either CustomerType.Code or Item.Code
+        assertThat(impliedForeignKeyConstraintList).containsExactlyInAnyOrder(customerAddress, customerCustomerType);
+    }
+
     private Table createAlbumTable() {
         Table table = new Table(database, catalog, schema, "ALbum", "This is comment for database on PostgresSQL [Invoice] link is also working");
         TableColumn column1 = new TableColumn(table);
@@ -0,0 +1,93 @@
+package org.schemaspy;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares how long a fresh JVM takes to run SchemaSpy when {@link Main} wires
+ * the services itself and when Spring Boot does (<code>-Dschemaspy.spring=true</code>).
+ * Each path is run several times against the same small H2 database and the median is kept.
+ */
+public class MainStartupIT {
+    private static final int RUNS = 3;
+    private static final Logger logger = Logger.getLogger(MainStartupIT.class.getName());
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private String database;
+
+    @Before
+    public void createDatabase() throws Exception {
+        database = new File(temp.getRoot(), "startup").getAbsolutePath();
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:" + database, "sa", "");
+             Statement stmt = connection.createStatement()) {
+            stmt.execute("CREATE TABLE ARTIST(ID INT PRIMARY KEY, NAME VARCHAR(120))");
+            stmt.execute("CREATE TABLE ALBUM(ID INT PRIMARY KEY, TITLE VARCHAR(160), ARTIST_ID INT REFERENCES ARTIST(ID))");
+        }
+    }
+
+    @Test
+    public void leanStartupIsFasterThanSpring() throws Exception {
+        long help = median(false, "-help");
+        long springHelp = median(true, "-help");
+        long run = median(false, analyze("lean"));
+        long springRun = median(true, analyze("spring"));
+
+        logger.info("-help: " + help + "ms lean, " + springHelp + "ms with Spring");
+        logger.info("-nohtml run: " + run + "ms lean, " + springRun + "ms with Spring");
+        assertThat(help).isLessThan(springHelp);
+        assertThat(run).isLessThan(springRun);
+        assertThat(new File(temp.getRoot(), "lean").list())
+                .containsOnly(new File(temp.getRoot(), "spring").list());
+    }
+
+    private String[] analyze(String outputDir) {
+        return new String[] {"-t", "h2", "-db", database, "-u", "sa", "-s", "PUBLIC",
+                "-o", new File(temp.getRoot(), outputDir).getPath(), "-nohtml"};
+    }
+
+    private long median(boolean spring, String... args) throws Exception {
+        long[] millis = new long[RUNS];
+        for (int i = 0; i < RUNS; ++i)
+            millis[i] = time(spring, args);
+        Arrays.sort(millis);
+        return millis[RUNS / 2];
+    }
+
+    /**
+     * Runs {@link Main} in a new JVM, returning how long it took in milliseconds
+     */
+    private long time(boolean spring, String... args) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(new File(new File(System.getProperty("java.home"), "bin"), "java").getPath());
+        command.add("-Dschemaspy.spring=" + spring);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Main.class.getName());
+        command.addAll(Arrays.asList(args));
+
+        File log = temp.newFile();
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(log).start();
+        assertThat(process.waitFor(2, TimeUnit.MINUTES)).isTrue();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        assertThat(process.exitValue()).as("exit code of %s, see %s", command, log).isEqualTo(0);
+        return millis;
+    }
+}
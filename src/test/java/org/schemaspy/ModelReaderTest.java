@@ -0,0 +1,87 @@
+package org.schemaspy;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.schemaspy.model.Database;
+import org.schemaspy.model.ForeignKeyConstraint;
+import org.schemaspy.model.ImpliedForeignKeyConstraint;
+import org.schemaspy.model.ProgressListener;
+import org.schemaspy.model.Schema;
+import org.schemaspy.model.Table;
+import org.schemaspy.model.TableColumn;
+import org.schemaspy.testing.TestTables;
+import org.schemaspy.view.BinaryModelFormatter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.DatabaseMetaData;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ModelReaderTest {
+    private Config config;
+    private ProgressListener listener;
+    private Database database;
+    private TestTables model;
+
+    @Before
+    public void setUp() {
+        config = new Config("-t", "pgsql", "-u", "user", "-db", "db");
+        listener = Mockito.mock(ProgressListener.class);
+        database = TestTables.mockDatabase("db", new Schema("music"), "H2");
+        model = new TestTables(database, null, database.getSchema());
+    }
+
+    @Test
+    public void binaryModelRoundTripsWithoutImpliedConstraints() throws Exception {
+        Table artist = model.createKeyedTable("Artist", "id", "name");
+        Table album = model.createKeyedTable("Album", "id", "artist_id", "genre_id");
+        album.setNumRows(42);
+        ForeignKeyConstraint foreignKey = new ForeignKeyConstraint(album, "album_artist_fk",
+                DatabaseMetaData.importedKeyNoAction, DatabaseMetaData.importedKeyCascade);
+        foreignKey.addChildColumn(album.getColumn("artist_id"));
+        foreignKey.addParentColumn(artist.getColumn("id"));
+        album.getColumn("artist_id").addParent(artist.getColumn("id"), foreignKey);
+        artist.getColumn("id").addChild(album.getColumn("artist_id"), foreignKey);
+        new ImpliedForeignKeyConstraint(artist.getColumn("id"), album.getColumn("genre_id"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryModelFormatter.getInstance().write(database, Arrays.asList(artist, album), out);
+        Database db = new BinaryModelReader(config, listener).read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(db.getName()).isEqualTo("db");
+        assertThat(db.getSchema().getName()).isEqualTo("music");
+        assertThat(db.getDatabaseProduct()).isEqualTo("H2");
+        assertThat(db.getTables()).extracting(Table::getName).containsOnly("Artist", "Album");
+
+        Table read = db.getTablesMap().get("Album");
+        assertThat(read.getNumRows()).isEqualTo(42);
+        assertThat(read.getPrimaryColumns()).extracting(TableColumn::getName).containsExactly("id");
+        assertThat(read.getForeignKeys()).hasSize(1);
+        ForeignKeyConstraint readForeignKey = read.getForeignKeys().iterator().next();
+        assertThat(readForeignKey.getDeleteRule()).isEqualTo(DatabaseMetaData.importedKeyCascade);
+        assertThat(readForeignKey.getParentTable()).isSameAs(db.getTablesMap().get("Artist"));
+        assertThat(read.getColumn("genre_id").getParents()).isEmpty();
+    }
+
+    @Test
+    public void xmlWithoutCatalogsIsNamedAfterTheDatabase() throws Exception {
+        String xml = "<database name=\"db\" schema=\"music\" type=\"H2\"><tables>"
+                + "<table name=\"Artist\" numRows=\"1\" remarks=\"\" schema=\"music\" type=\"TABLE\">"
+                + "<column autoUpdated=\"false\" digits=\"0\" id=\"0\" name=\"id\" nullable=\"false\" remarks=\"\" size=\"10\" type=\"int\"/>"
+                + "<primaryKey column=\"id\" sequenceNumberInPK=\"1\"/>"
+                + "</table></tables></database>";
+
+        Database db = new XmlModelReader(config, listener).read(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(db.getCatalog().getName()).isEqualTo("db");
+        Table artist = db.getTablesMap().get("Artist");
+        assertThat(artist.getNumRows()).isEqualTo(1);
+        assertThat(artist.getComments()).isNull();
+        assertThat(artist.getColumn("id").getId()).isEqualTo(0);
+        assertThat(artist.getPrimaryColumns()).hasSize(1);
+    }
+}
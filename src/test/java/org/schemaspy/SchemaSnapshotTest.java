@@ -0,0 +1,111 @@
+package org.schemaspy;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.schemaspy.model.Database;
+import org.schemaspy.model.Schema;
+import org.schemaspy.model.Table;
+import org.schemaspy.testing.TestTables;
+import org.schemaspy.util.Markdown;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SchemaSnapshotTest {
+
+    @Rule
+    public TemporaryFolder outputDir = new TemporaryFolder();
+
+    private Database database;
+    private TestTables model;
+    private Config config;
+
+    @Before
+    public void setUp() {
+        database = Mockito.mock(Database.class);
+        model = new TestTables(database, "catalog", new Schema("schema"));
+        config = new Config("-t", "pgsql", "-u", "user", "-db", "db");
+    }
+
+    @After
+    public void forgetPages() {
+        Markdown.clear();
+    }
+
+    @Test
+    public void unchangedModelHasNothingStale() throws Exception {
+        List<Table> tables = createChain("A", "B", "C", "D", "E");
+        SchemaSnapshot previous = takeAndSave(tables);
+
+        SchemaSnapshot current = SchemaSnapshot.of(database, createChain("A", "B", "C", "D", "E"), config);
+        current.recordNeighbours(tables);
+
+        assertThat(current.isSummaryChanged(previous)).isFalse();
+        assertThat(current.getStaleTables(previous)).isEmpty();
+    }
+
+    @Test
+    public void changedTableMarksNeighboursWithinTwoDegreesStale() throws Exception {
+        SchemaSnapshot previous = takeAndSave(createChain("A", "B", "C", "D", "E"));
+
+        List<Table> tables = createChain("A", "B", "C", "D", "E");
+        tables.get(0).setComments("changed");
+        SchemaSnapshot current = SchemaSnapshot.of(database, tables, config);
+        current.recordNeighbours(tables);
+
+        assertThat(current.isSummaryChanged(previous)).isTrue();
+        assertThat(current.getStaleTables(previous)).containsExactly("A", "B", "C");
+    }
+
+    @Test
+    public void commentLinkingToAnAddedTableMarksItsPageStale() throws Exception {
+        List<Table> tables = createChain("A", "B", "C", "D", "E");
+        tables.get(4).getColumn("ID").setComments("see [NEW.ID]");
+        SchemaSnapshot previous = takeAndSave(tables);
+
+        Markdown.registryPage("NEW", "tables/NEW.html");
+        SchemaSnapshot current = SchemaSnapshot.of(database, tables, config);
+        current.recordNeighbours(tables);
+
+        assertThat(current.getStaleTables(previous)).containsExactly("C", "D", "E");
+    }
+
+    @Test
+    public void noPreviousSnapshotMarksEverythingStale() throws Exception {
+        List<Table> tables = createChain("A", "B");
+        SchemaSnapshot current = SchemaSnapshot.of(database, tables, config);
+        current.recordNeighbours(tables);
+
+        assertThat(SchemaSnapshot.load(outputDir.getRoot())).isNull();
+        assertThat(current.getStaleTables(null)).containsExactly("A", "B");
+    }
+
+    private SchemaSnapshot takeAndSave(List<Table> tables) throws Exception {
+        SchemaSnapshot snapshot = SchemaSnapshot.of(database, tables, config);
+        snapshot.recordNeighbours(tables);
+        snapshot.save(outputDir.getRoot());
+        return SchemaSnapshot.load(outputDir.getRoot());
+    }
+
+    /**
+     * Each table has an ID and a PARENT_ID that references the ID of the table before it
+     */
+    private List<Table> createChain(String... names) {
+        List<Table> tables = new ArrayList<>();
+        Table previous = null;
+        for (String name : names) {
+            Table table = model.createKeyedTable(name, "ID", "PARENT_ID");
+            if (previous != null)
+                TestTables.reference(table, "PARENT_ID", previous, "ID");
+            tables.add(table);
+            previous = table;
+        }
+        return tables;
+    }
+}
@@ -0,0 +1,104 @@
+package org.schemaspy;
+
+import org.junit.Test;
+import org.schemaspy.model.ForeignKeyConstraint;
+import org.schemaspy.model.Schema;
+import org.schemaspy.model.Table;
+import org.schemaspy.testing.TestTables;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TableOrdererTest {
+
+    private final TestTables model = new TestTables("catalog", new Schema("schema"));
+
+    @Test
+    public void parentsAreListedBeforeChildren() {
+        Table country = createTable("COUNTRY");
+        Table city = createTable("CITY");
+        Table street = createTable("STREET");
+        Table lonely = createTable("LONELY");
+        ForeignKeyConstraint cityCountry = reference(city, country);
+        reference(street, city);
+
+        List<ForeignKeyConstraint> recursiveConstraints = new ArrayList<>();
+        List<Table> ordered = new TableOrderer().getTablesOrderedByRI(Arrays.asList(street, lonely, city, country), recursiveConstraints);
+
+        assertThat(ordered).containsExactly(country, city, street, lonely);
+        assertThat(recursiveConstraints).isEmpty();
+        // the relationships are left alone
+        assertThat(country.getNumChildren()).isEqualTo(1);
+        assertThat(city.getColumn("PARENT_ID").getParentConstraint(country.getColumn("ID"))).isSameAs(cityCountry);
+    }
+
+    @Test
+    public void cyclesAreBrokenAndReported() {
+        Table a = createTable("A");
+        Table b = createTable("B");
+        Table c = createTable("C");
+        Table d = createTable("D");
+        Table e = createTable("E");
+        reference(b, a);
+        reference(c, b);
+        ForeignKeyConstraint cycle = reference(a, c);
+        reference(d, c);
+        ForeignKeyConstraint self = reference(e, e);
+        reference(e, "OTHER_ID", d);
+
+        List<ForeignKeyConstraint> recursiveConstraints = new ArrayList<>();
+        List<Table> ordered = new TableOrderer().getTablesOrderedByRI(Arrays.asList(a, b, c, d, e), recursiveConstraints);
+
+        assertThat(ordered).containsExactly(a, b, c, d, e);
+        assertThat(recursiveConstraints).containsExactly(self, cycle);
+        assertThat(a.getNumParents()).isEqualTo(1);
+        assertThat(e.getNumParents()).isEqualTo(2);
+    }
+
+    @Test
+    public void snapshotIsNotAffectedByLaterChanges() {
+        Table parent = createTable("PARENT");
+        Table child = createTable("CHILD");
+        reference(child, parent);
+
+        TableOrderer.Snapshot snapshot = new TableOrderer().snapshot(Arrays.asList(parent, child));
+        reference(parent, "OTHER_ID", child);
+
+        assertThat(snapshot.getTablesOrderedByRI(new ArrayList<>())).containsExactly(parent, child);
+        // and it can be ordered again
+        assertThat(snapshot.getTablesOrderedByRI(new ArrayList<>())).containsExactly(parent, child);
+    }
+
+    @Test
+    public void snapshotCanBeOrderedFromSeveralThreadsAtOnce() {
+        Table a = createTable("A");
+        Table b = createTable("B");
+        Table c = createTable("C");
+        reference(b, a);
+        reference(c, b);
+        ForeignKeyConstraint cycle = reference(a, c);
+
+        TableOrderer.Snapshot snapshot = new TableOrderer().snapshot(Arrays.asList(a, b, c));
+        IntStream.range(0, 200).parallel().forEach(i -> {
+            List<ForeignKeyConstraint> recursiveConstraints = new ArrayList<>();
+            assertThat(snapshot.getTablesOrderedByRI(recursiveConstraints)).containsExactly(a, b, c);
+            assertThat(recursiveConstraints).containsExactly(cycle);
+        });
+    }
+
+    private ForeignKeyConstraint reference(Table child, Table parent) {
+        return reference(child, "PARENT_ID", parent);
+    }
+
+    private ForeignKeyConstraint reference(Table child, String columnName, Table parent) {
+        return TestTables.reference(child, columnName, parent, "ID");
+    }
+
+    private Table createTable(String name) {
+        return model.createKeyedTable(name, "ID", "PARENT_ID", "OTHER_ID");
+    }
+}
@@ -0,0 +1,106 @@
+package org.schemaspy.model;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.schemaspy.testing.TestTables;
+
+import java.util.Comparator;
+
+import static java.sql.DatabaseMetaData.importedKeyNoAction;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ColumnRelationshipsTest {
+
+    private Table albums;
+    private Table artists;
+    private Table tracks;
+
+    @Before
+    public void createTables() {
+        TestTables tables = new TestTables(null, new Schema("s"));
+        albums = tables.createTable("album", "artist_id", "id", "title");
+        artists = tables.createTable("artist", "id", "name");
+        tracks = tables.createTable("track", "album_id", "id");
+    }
+
+    @Test
+    public void sortedRelationshipsAreOrderedByTableThenName() {
+        ColumnRelationships relationships = new ColumnRelationships(Comparator.comparing(TableColumn::getTable)
+                .thenComparing(TableColumn::getName, String.CASE_INSENSITIVE_ORDER));
+        relationships.put(tracks.getColumn("id"), null);
+        relationships.put(albums.getColumn("title"), null);
+        relationships.put(artists.getColumn("id"), null);
+        relationships.put(albums.getColumn("artist_id"), null);
+        relationships.put(tracks.getColumn("album_id"), null);
+
+        assertThat(columns(relationships)).containsExactly(
+                albums.getColumn("artist_id"), albums.getColumn("title"),
+                artists.getColumn("id"),
+                tracks.getColumn("album_id"), tracks.getColumn("id"));
+        assertThat(relationships.indexOf(artists.getColumn("name"))).isEqualTo(-3 - 1);
+    }
+
+    @Test
+    public void unsortedRelationshipsKeepTheirInsertionOrder() {
+        ColumnRelationships relationships = new ColumnRelationships(null);
+        relationships.put(tracks.getColumn("id"), null);
+        relationships.put(albums.getColumn("title"), null);
+        relationships.put(artists.getColumn("id"), null);
+
+        assertThat(columns(relationships)).containsExactly(
+                tracks.getColumn("id"), albums.getColumn("title"), artists.getColumn("id"));
+        assertThat(relationships.indexOf(artists.getColumn("name"))).isEqualTo(-3 - 1);
+    }
+
+    @Test
+    public void puttingARelatedColumnAgainReplacesItsConstraint() {
+        ColumnRelationships relationships = new ColumnRelationships(null);
+        ForeignKeyConstraint first = constraint();
+        ForeignKeyConstraint second = constraint();
+        relationships.put(artists.getColumn("id"), first);
+        relationships.put(albums.getColumn("id"), first);
+        relationships.put(artists.getColumn("id"), second);
+
+        assertThat(relationships.size()).isEqualTo(2);
+        assertThat(relationships.get(artists.getColumn("id"))).isSameAs(second);
+        assertThat(relationships.get(albums.getColumn("id"))).isSameAs(first);
+        assertThat(columns(relationships)).containsExactly(artists.getColumn("id"), albums.getColumn("id"));
+    }
+
+    @Test
+    public void removingShiftsTheRestDown() {
+        ColumnRelationships relationships = new ColumnRelationships(null);
+        ForeignKeyConstraint[] constraints = new ForeignKeyConstraint[4];
+        TableColumn[] related = {albums.getColumn("id"), albums.getColumn("title"),
+                artists.getColumn("id"), tracks.getColumn("id")};
+        for (int i = 0; i < related.length; ++i) {
+            constraints[i] = constraint();
+            relationships.put(related[i], constraints[i]);
+        }
+
+        assertThat(relationships.removeAt(1)).isSameAs(constraints[1]);
+        assertThat(columns(relationships)).containsExactly(related[0], related[2], related[3]);
+        assertThat(relationships.getConstraint(1)).isSameAs(constraints[2]);
+        assertThat(relationships.getConstraint(2)).isSameAs(constraints[3]);
+
+        assertThat(relationships.removeAt(2)).isSameAs(constraints[3]);
+        assertThat(relationships.remove(related[0])).isSameAs(constraints[0]);
+        assertThat(relationships.remove(related[0])).isNull();
+        assertThat(columns(relationships)).containsExactly(related[2]);
+        assertThat(relationships.getConstraint(0)).isSameAs(constraints[2]);
+
+        relationships.put(related[3], constraints[3]);
+        assertThat(columns(relationships)).containsExactly(related[2], related[3]);
+    }
+
+    private ForeignKeyConstraint constraint() {
+        return new ForeignKeyConstraint(albums, "fk", importedKeyNoAction, importedKeyNoAction);
+    }
+
+    private static TableColumn[] columns(ColumnRelationships relationships) {
+        TableColumn[] columns = new TableColumn[relationships.size()];
+        for (int i = 0; i < columns.length; ++i)
+            columns[i] = relationships.getColumn(i);
+        return columns;
+    }
+}
@@ -0,0 +1,94 @@
+package org.schemaspy.model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.sql.DatabaseMetaData;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PersistentMetadataCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void onlyUnmodifiedTablesAreReused() throws Exception {
+        File outputDir = temp.getRoot();
+        Database db = Mockito.mock(Database.class);
+        Table album = new Table(db, "db", new Schema("app"), "album", null);
+        TableColumn id = addColumn(album, "id", 0);
+        id.setIsAutoUpdated(true);
+        addColumn(album, "artist_id", 1);
+        TableIndex index = new TableIndex("pk_album", true);
+        index.addColumn(id, "D");
+        index.setIsPrimaryKey(true);
+        album.getIndexesMap().put(index.getName(), index);
+        album.setPrimaryColumn(id);
+        Table artist = new Table(db, "db", new Schema("app"), "artist", null);
+        addColumn(artist, "id", 0);
+
+        PersistentMetadataCache cache = PersistentMetadataCache.load(outputDir, "h2 app");
+        cache.setModificationTime("album", "1");
+        cache.setModificationTime("artist", "1");
+        assertThat(cache.getUnchanged("album")).isNull();
+        cache.add(album);
+        cache.add(artist);
+        cache.get("album").setImportedKeys(Collections.singletonList(new TableMetadataCache.ImportedKey("fk_artist",
+                "artist_id", null, "app", "artist", "id", DatabaseMetaData.importedKeyNoAction,
+                DatabaseMetaData.importedKeyCascade)));
+        // artist never got connected, so it's incomplete
+        cache.save(outputDir);
+
+        cache = PersistentMetadataCache.load(outputDir, "h2 app");
+        cache.setModificationTime("album", "1");
+        cache.setModificationTime("artist", "1");
+        PersistentMetadataCache.Entry entry = cache.getUnchanged("album");
+        assertThat(entry).isNotNull();
+        assertThat(cache.get("album")).isSameAs(entry);
+        assertThat(cache.getUnchanged("artist")).isNull();
+        assertThat(cache.getReused()).isEqualTo(1);
+
+        assertThat(entry.getColumns()).extracting(TableMetadataCache.Column::getName).containsExactly("id", "artist_id");
+        TableMetadataCache.Column column = entry.getColumns().get(0);
+        assertThat(column.getId()).isEqualTo(0);
+        assertThat(column.getTypeName()).isEqualTo("integer");
+        assertThat(column.getDetailedSize()).isEqualTo("10");
+        assertThat(column.isAutoUpdated()).isTrue();
+        assertThat(column.getComments()).isNull();
+        assertThat(entry.getPrimaryColumns()).containsExactly("id");
+        PersistentMetadataCache.Index pk = entry.getIndexes().get(0);
+        assertThat(pk.getName()).isEqualTo("pk_album");
+        assertThat(pk.isPrimaryKey()).isTrue();
+        assertThat(pk.getColumns()).containsExactly("id");
+        assertThat(pk.isAscending(0)).isFalse();
+        TableMetadataCache.ImportedKey importedKey = entry.getImportedKeys().get(0);
+        assertThat(importedKey.getPkCatalog()).isNull();
+        assertThat(importedKey.getPkTableName()).isEqualTo("artist");
+        assertThat(importedKey.getDeleteRule()).isEqualTo(DatabaseMetaData.importedKeyCascade);
+
+        cache = PersistentMetadataCache.load(outputDir, "h2 app");
+        cache.setModificationTime("album", "2");
+        assertThat(cache.getUnchanged("album")).isNull();
+
+        cache = PersistentMetadataCache.load(outputDir, "h2 sales");
+        cache.setModificationTime("album", "1");
+        assertThat(cache.getUnchanged("album")).isNull();
+    }
+
+    private static TableColumn addColumn(Table table, String name, int id) {
+        TableColumn column = new TableColumn(table);
+        column.setId(id);
+        column.setName(name);
+        column.setTypeName("integer");
+        column.setType(4);
+        column.setLength(10);
+        column.setDetailedSize("10");
+        table.getColumnsMap().put(name, column);
+        return column;
+    }
+}
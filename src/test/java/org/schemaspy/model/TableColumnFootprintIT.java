@@ -0,0 +1,82 @@
+package org.schemaspy.model;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Logs how much heap the model needs per column.
+ * Columns are measured in bulk, so the result includes the slot that refers to each of them.<p>
+ *
+ * The numbers depend on the JVM (compressed oops, heap size, whether <code>System.gc()</code>
+ * is honoured) so they're only logged, and this is run with <code>mvn verify</code>
+ * rather than with every build.
+ */
+public class TableColumnFootprintIT {
+    private static final int COLUMNS = 200000;
+    private static final Logger logger = Logger.getLogger(TableColumnFootprintIT.class.getName());
+
+    @Test
+    public void unrelatedColumns() {
+        Table table = new Table(Mockito.mock(Database.class), null, new Schema("s"), "t", null);
+
+        long bytesPerColumn = measure(() -> {
+            TableColumn[] columns = new TableColumn[COLUMNS];
+            for (int i = 0; i < COLUMNS; ++i) {
+                TableColumn column = new TableColumn(table);
+                column.setName("c");
+                column.setTypeName("int");
+                column.setType(4);
+                column.setNullable(true);
+                columns[i] = column;
+            }
+            return columns;
+        });
+
+        logger.info(bytesPerColumn + " bytes per unrelated column");
+    }
+
+    @Test
+    public void columnsWithAParent() {
+        Table parentTable = new Table(Mockito.mock(Database.class), null, new Schema("s"), "parent", null);
+        Table childTable = new Table(Mockito.mock(Database.class), null, new Schema("s"), "child", null);
+        TableColumn parent = new TableColumn(parentTable);
+        parent.setName("id");
+
+        long bytesPerColumn = measure(() -> {
+            TableColumn[] columns = new TableColumn[COLUMNS];
+            for (int i = 0; i < COLUMNS; ++i) {
+                TableColumn column = new TableColumn(childTable);
+                column.setName("parent_id");
+                column.addParent(parent, null);
+                columns[i] = column;
+            }
+            return columns;
+        });
+
+        logger.info(bytesPerColumn + " bytes per column with a parent");
+    }
+
+    private static long measure(Supplier<Object> allocation) {
+        long before = usedMemory();
+        Object retained = allocation.get();
+        long after = usedMemory();
+        // keep what was allocated reachable until it's been measured
+        return retained == null ? 0 : (after - before) / COLUMNS;
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; ++i) {
+            System.gc();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException exc) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,105 @@
+package org.schemaspy.model;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.schemaspy.testing.TestTables;
+
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.schemaspy.testing.TestTables.reference;
+
+public class TableColumnTest {
+
+    private Table artists;
+    private Table albums;
+    private Table playlists;
+    private Table tracks;
+
+    @Before
+    public void createTables() {
+        TestTables tables = new TestTables(null, new Schema("s"));
+        artists = tables.createKeyedTable("artist", "id");
+        tracks = tables.createKeyedTable("track", "id", "artist_id", "album_id");
+        albums = tables.createKeyedTable("album", "id", "main_artist_id", "guest_artist_id");
+        playlists = tables.createKeyedTable("playlist", "id", "track_id", "album_id");
+    }
+
+    @Test
+    public void childrenAreSortedByTableThenName() {
+        reference(tracks, "artist_id", artists, "id");
+        reference(albums, "main_artist_id", artists, "id");
+        reference(albums, "guest_artist_id", artists, "id");
+
+        assertThat(artists.getColumn("id").getChildren()).containsExactly(
+                albums.getColumn("guest_artist_id"), albums.getColumn("main_artist_id"),
+                tracks.getColumn("artist_id"));
+    }
+
+    @Test
+    public void parentsKeepTheOrderTheyWereAddedIn() {
+        TableColumn albumId = playlists.getColumn("album_id");
+        reference(playlists, "album_id", tracks, "id");
+        reference(playlists, "album_id", albums, "id");
+        reference(playlists, "album_id", artists, "id");
+
+        assertThat(albumId.getParents()).containsExactly(
+                tracks.getColumn("id"), albums.getColumn("id"), artists.getColumn("id"));
+    }
+
+    @Test
+    public void relatingColumnsAgainReplacesTheirConstraint() {
+        TableColumn artistId = tracks.getColumn("artist_id");
+        TableColumn id = artists.getColumn("id");
+        ForeignKeyConstraint first = reference(tracks, "artist_id", artists, "id");
+        ForeignKeyConstraint second = reference(tracks, "artist_id", artists, "id");
+
+        assertThat(first).isNotSameAs(second);
+        assertThat(artistId.getParents()).containsExactly(id);
+        assertThat(artistId.getParentConstraint(id)).isSameAs(second);
+        assertThat(id.getChildren()).containsExactly(artistId);
+        assertThat(id.getChildConstraint(artistId)).isSameAs(second);
+    }
+
+    @Test
+    public void relatedColumnsAreLiveViews() {
+        TableColumn id = artists.getColumn("id");
+        Set<TableColumn> children = id.getChildren();
+        assertThat(children).isEmpty();
+
+        reference(tracks, "artist_id", artists, "id");
+        reference(albums, "main_artist_id", artists, "id");
+        reference(albums, "guest_artist_id", artists, "id");
+        assertThat(children).hasSize(3).contains(tracks.getColumn("artist_id"));
+
+        id.removeChild(albums.getColumn("main_artist_id"));
+        assertThat(children).containsExactly(albums.getColumn("guest_artist_id"), tracks.getColumn("artist_id"));
+    }
+
+    @Test
+    public void removingThroughTheIteratorRemovesFromTheColumn() {
+        TableColumn id = artists.getColumn("id");
+        reference(tracks, "artist_id", artists, "id");
+        reference(albums, "main_artist_id", artists, "id");
+        reference(albums, "guest_artist_id", artists, "id");
+
+        for (Iterator<TableColumn> iter = id.getChildren().iterator(); iter.hasNext(); ) {
+            if (iter.next().getTable() == albums)
+                iter.remove();
+        }
+        assertThat(id.getChildren()).containsExactly(tracks.getColumn("artist_id"));
+        assertThat(id.getChildConstraint(tracks.getColumn("artist_id"))).isNotNull();
+        assertThat(id.getChildConstraint(albums.getColumn("main_artist_id"))).isNull();
+
+        TableColumn albumId = playlists.getColumn("album_id");
+        reference(playlists, "album_id", tracks, "id");
+        reference(playlists, "album_id", albums, "id");
+        Iterator<TableColumn> parents = albumId.getParents().iterator();
+        parents.next();
+        parents.remove();
+        assertThat(parents.next()).isSameAs(albums.getColumn("id"));
+        assertThat(parents.hasNext()).isFalse();
+        assertThat(albumId.getParents()).containsExactly(albums.getColumn("id"));
+    }
+}
@@ -0,0 +1,69 @@
+package org.schemaspy.model;
+
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.sql.DatabaseMetaData;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TableMetadataCacheTest {
+
+    @Test
+    public void evaluatedTablesTakePrecedenceOverQueriedOnes() {
+        Database db = Mockito.mock(Database.class);
+        Table country = new Table(db, "db", new Schema("common"), "country", null);
+        TableColumn code = addColumn(country, "code", "char");
+        Table region = new Table(db, "db", new Schema("common"), "region", null);
+        TableColumn regionCountry = addColumn(region, "country", "char");
+
+        ForeignKeyConstraint foreignKey = new ForeignKeyConstraint(region, "fk_region_country",
+                DatabaseMetaData.importedKeyCascade, DatabaseMetaData.importedKeyNoAction);
+        foreignKey.addChildColumn(regionCountry);
+        foreignKey.addParentColumn(code);
+        region.getForeignKeysMap().put(foreignKey.getName(), foreignKey);
+
+        TableMetadataCache cache = new TableMetadataCache();
+        TableMetadataCache.Entry queried = new TableMetadataCache.Entry(region, Collections.emptyList());
+        assertThat(cache.add("db", "common", "region", queried)).isSameAs(queried);
+        assertThat(cache.add("db", "common", "region", new TableMetadataCache.Entry(region, Collections.emptyList()))).isSameAs(queried);
+        assertThat(cache.get("db", "common", "region")).isSameAs(queried);
+
+        cache.addEvaluated(Arrays.asList(country, region));
+
+        TableMetadataCache.Entry evaluated = cache.get("db", "common", "region");
+        assertThat(evaluated).isNotSameAs(queried);
+        assertThat(evaluated.getImportedKeys()).hasSize(1);
+        TableMetadataCache.ImportedKey importedKey = evaluated.getImportedKeys().get(0);
+        assertThat(importedKey.getFkName()).isEqualTo("fk_region_country");
+        assertThat(importedKey.getFkColumnName()).isEqualTo("country");
+        assertThat(importedKey.getPkSchema()).isEqualTo("common");
+        assertThat(importedKey.getPkTableName()).isEqualTo("country");
+        assertThat(importedKey.getPkColumnName()).isEqualTo("code");
+        assertThat(importedKey.getUpdateRule()).isEqualTo(DatabaseMetaData.importedKeyCascade);
+
+        Table remote = new Table(db, "db", new Schema("common"), "region", null);
+        TableColumn copy = new TableColumn(remote);
+        evaluated.getColumns().get(0).copyTo(copy);
+        assertThat(copy.getName()).isEqualTo("country");
+        assertThat(copy.getTypeName()).isEqualTo("char");
+        assertThat(copy.getDetailedSize()).isEqualTo("2");
+        assertThat(copy.isNullable()).isTrue();
+
+        assertThat(cache.get("db", "sales", "region")).isNull();
+        assertThat(cache.getHits()).isEqualTo(2);
+    }
+
+    private static TableColumn addColumn(Table table, String name, String type) {
+        TableColumn column = new TableColumn(table);
+        column.setName(name);
+        column.setTypeName(type);
+        column.setLength(2);
+        column.setDetailedSize("2");
+        column.setNullable(true);
+        table.getColumnsMap().put(name, column);
+        return column;
+    }
+}
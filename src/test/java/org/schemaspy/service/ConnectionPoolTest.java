@@ -0,0 +1,42 @@
+package org.schemaspy.service;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.schemaspy.testing.H2MemoryRule;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConnectionPoolTest {
+
+    @Rule
+    public H2MemoryRule h2 = new H2MemoryRule("ConnectionPoolTest", "CREATE SCHEMA SALES");
+
+    @Test
+    public void releasedConnectionsAreReusedForOtherSchemas() throws Exception {
+        ConnectionPool pool = new ConnectionPool();
+        String url = h2.getConnectionURL();
+        assertThat(pool.acquire(url, "sa", null)).isNull();
+
+        Connection connection = DriverManager.getConnection(url, "sa", "");
+        pool.add(connection, url, "sa", null);
+        assertThat(pool.acquire(url, "sa", "SALES")).isNull();
+
+        pool.release(connection);
+        assertThat(pool.acquire(url, "someoneElse", "SALES")).isNull();
+        assertThat(pool.acquire(url, "sa", "SALES")).isSameAs(connection);
+        assertThat(connection.getSchema()).isEqualTo("SALES");
+
+        // back to the schema that it originally connected to
+        pool.release(connection);
+        assertThat(pool.acquire(url, "sa", null)).isSameAs(connection);
+        assertThat(connection.getSchema()).isEqualTo("PUBLIC");
+
+        pool.release(connection);
+        pool.closeIdle();
+        assertThat(connection.isClosed()).isTrue();
+        assertThat(pool.acquire(url, "sa", null)).isNull();
+    }
+}
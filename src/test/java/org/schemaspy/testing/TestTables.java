@@ -0,0 +1,88 @@
+package org.schemaspy.testing;
+
+import java.util.Collections;
+
+import org.mockito.Mockito;
+import org.schemaspy.model.Database;
+import org.schemaspy.model.ForeignKeyConstraint;
+import org.schemaspy.model.Schema;
+import org.schemaspy.model.Table;
+import org.schemaspy.model.TableColumn;
+import org.schemaspy.util.CaseInsensitiveMap;
+
+/**
+ * Builds the tables of a mocked {@link Database} for tests that only need a model,
+ * not a connection. Every column is an <code>int</code>, numbered in the order it's given.
+ */
+public class TestTables {
+
+  private final Database database;
+  private final String catalog;
+  private final Schema schema;
+
+  public TestTables(String catalog, Schema schema) {
+    this(Mockito.mock(Database.class), catalog, schema);
+  }
+
+  public TestTables(Database database, String catalog, Schema schema) {
+    this.database = database;
+    this.catalog = catalog;
+    this.schema = schema;
+  }
+
+  /**
+   * A mocked database named <code>name</code> with no routines, as the model exporters expect
+   */
+  public static Database mockDatabase(String name, Schema schema, String product) {
+    Database database = Mockito.mock(Database.class);
+    Mockito.when(database.getName()).thenReturn(name);
+    Mockito.when(database.getSchema()).thenReturn(schema);
+    Mockito.when(database.getDatabaseProduct()).thenReturn(product);
+    Mockito.when(database.getRoutines()).thenReturn(Collections.emptyList());
+    return database;
+  }
+
+  public Database getDatabase() {
+    return database;
+  }
+
+  /**
+   * A table without a primary key
+   */
+  public Table createTable(String name, String... columnNames) {
+    Table table = new Table(database, catalog, schema, name, null);
+    CaseInsensitiveMap<TableColumn> columns = new CaseInsensitiveMap<>();
+    int id = 0;
+    for (String columnName : columnNames) {
+      TableColumn column = new TableColumn(table);
+      column.setId(id++);
+      column.setName(columnName);
+      column.setTypeName("int");
+      column.setType(4);
+      column.setLength(10);
+      columns.put(columnName, column);
+    }
+    table.setColumns(columns);
+    return table;
+  }
+
+  /**
+   * A table whose first column is its primary key
+   */
+  public Table createKeyedTable(String name, String primaryColumn, String... otherColumnNames) {
+    String[] columnNames = new String[otherColumnNames.length + 1];
+    columnNames[0] = primaryColumn;
+    System.arraycopy(otherColumnNames, 0, columnNames, 1, otherColumnNames.length);
+
+    Table table = createTable(name, columnNames);
+    table.setPrimaryColumn(table.getColumn(primaryColumn));
+    return table;
+  }
+
+  /**
+   * Makes <code>childColumn</code> of <code>child</code> reference <code>parentColumn</code> of <code>parent</code>
+   */
+  public static ForeignKeyConstraint reference(Table child, String childColumn, Table parent, String parentColumn) {
+    return new ForeignKeyConstraint(parent.getColumn(parentColumn), child.getColumn(childColumn));
+  }
+}
@@ -0,0 +1,78 @@
+package org.schemaspy.util;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BundleServerTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void compressedSiblingsAreServedToClientsThatAcceptThem() throws Exception {
+        File outputDir = temp.newFolder("output");
+        File bundle = new File(temp.getRoot(), "site.zip");
+        try (ZipOutputSink sink = new ZipOutputSink(outputDir, bundle)) {
+            try (OutputStream out = sink.open(new File(outputDir, "index.html"))) {
+                out.write("<html>".getBytes(StandardCharsets.UTF_8));
+            }
+            try (OutputStream out = new GZIPOutputStream(sink.open(new File(outputDir, "index.html.gz")))) {
+                out.write("<html>".getBytes(StandardCharsets.UTF_8));
+            }
+            try (OutputStream out = sink.open(new File(outputDir, "schemaSpy.css"))) {
+                out.write("body {}".getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        try (BundleServer server = new BundleServer(bundle, 0)) {
+            server.start();
+
+            HttpURLConnection plain = get(server, "/", null);
+            assertThat(plain.getResponseCode()).isEqualTo(200);
+            assertThat(plain.getHeaderField("Content-Encoding")).isNull();
+            assertThat(plain.getHeaderField("Vary")).isEqualTo("Accept-Encoding");
+            assertThat(IOUtils.toString(plain.getInputStream(), StandardCharsets.UTF_8)).isEqualTo("<html>");
+
+            HttpURLConnection compressed = get(server, "/index.html", "gzip, deflate");
+            assertThat(compressed.getResponseCode()).isEqualTo(200);
+            assertThat(compressed.getHeaderField("Content-Encoding")).isEqualTo("gzip");
+            assertThat(compressed.getHeaderField("Vary")).isEqualTo("Accept-Encoding");
+            compressed.getInputStream().close();
+
+            HttpURLConnection uncompressible = get(server, "/schemaSpy.css", "gzip");
+            assertThat(uncompressible.getResponseCode()).isEqualTo(200);
+            assertThat(uncompressible.getHeaderField("Vary")).isNull();
+            uncompressible.getInputStream().close();
+        }
+    }
+
+    @Test
+    public void onlyListensOnTheLoopbackInterfaceByDefault() throws Exception {
+        File bundle = new File(temp.getRoot(), "empty.zip");
+        new ZipOutputSink(temp.getRoot(), bundle).close();
+
+        try (BundleServer server = new BundleServer(bundle, 0)) {
+            assertThat(server.getAddress().getAddress()).isEqualTo(InetAddress.getLoopbackAddress());
+        }
+    }
+
+    private static HttpURLConnection get(BundleServer server, String path, String acceptEncoding) throws Exception {
+        URL url = new URL("http", InetAddress.getLoopbackAddress().getHostAddress(), server.getPort(), path);
+        HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+        if (acceptEncoding != null)
+            connection.setRequestProperty("Accept-Encoding", acceptEncoding);
+        return connection;
+    }
+}
@@ -0,0 +1,105 @@
+package org.schemaspy.util;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CaseInsensitiveMapTest {
+
+    @Test
+    public void keysMatchRegardlessOfCase() {
+        Map<String, Integer> map = new CaseInsensitiveMap<>();
+        map.put("Album", 1);
+        map.put("café", 2);
+
+        assertThat(map.get("ALBUM")).isEqualTo(1);
+        assertThat(map.get("album")).isEqualTo(1);
+        assertThat(map.containsKey("CAFÉ")).isTrue();
+        assertThat(map.get("Albums")).isNull();
+        assertThat(map.get(null)).isNull();
+        assertThat(map.keySet()).containsExactly("ALBUM", "CAFÉ");
+
+        assertThat(map.put("ALBUM", 3)).isEqualTo(1);
+        assertThat(map).hasSize(2);
+        assertThat(map.remove("album")).isEqualTo(3);
+        assertThat(map).hasSize(1).containsOnlyKeys("CAFÉ");
+    }
+
+    @Test
+    public void keysAreUpperCasedLikeStringsAre() {
+        Map<String, Integer> map = new CaseInsensitiveMap<>();
+        map.put("straße", 1);
+
+        assertThat(map.keySet()).containsExactly("STRASSE");
+        assertThat(map.get("STRASSE")).isEqualTo(1);
+        assertThat(map.get("Straße")).isEqualTo(1);
+    }
+
+    @Test
+    public void keysAreUpperCasedInTheDefaultLocale() {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            Map<String, Integer> map = new CaseInsensitiveMap<>();
+            map.put("id", 1);
+
+            assertThat(map.keySet()).containsExactly("id".toUpperCase());
+            assertThat(map.get("iD")).isEqualTo(1);
+            assertThat(map.get("ID")).isNull();
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test
+    public void keepsTheOrderThatEntriesWereAddedAcrossResizes() {
+        Map<String, Integer> map = new CaseInsensitiveMap<>(2);
+        for (int i = 0; i < 1000; ++i)
+            map.put("column" + i, i);
+
+        int expected = 0;
+        for (Map.Entry<String, Integer> entry : map.entrySet()) {
+            assertThat(entry.getKey()).isEqualTo("COLUMN" + expected);
+            assertThat(entry.getValue()).isEqualTo(expected++);
+        }
+        assertThat(map.get("Column999")).isEqualTo(999);
+
+        Iterator<String> keys = map.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().endsWith("7"))
+                keys.remove();
+        }
+        assertThat(map).hasSize(900).doesNotContainKey("column17");
+        assertThat(map.get("column18")).isEqualTo(18);
+    }
+
+    @Test
+    public void lookupsDontAllocate() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean)threads;
+        Assume.assumeTrue(allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+
+        Map<String, Integer> map = new CaseInsensitiveMap<>();
+        map.put("ARTIST_ID", 1);
+        String key = "artist_id";
+        int found = 0;
+
+        long before = allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+        for (int i = 0; i < 100000; ++i) {
+            if (map.containsKey(key) && map.get(key) != null)
+                ++found;
+        }
+        long allocated = allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+
+        assertThat(found).isEqualTo(100000);
+        assertThat(allocated).isLessThan(64 * 1024);
+    }
+}
@@ -0,0 +1,64 @@
+package org.schemaspy.util;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DotProbeCacheTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void probesAreKeptUntilDotChanges() throws Exception {
+        File file = new File(temp.getRoot(), "cache/graphviz.properties");
+        File dot = temp.newFile("dot");
+        dot.setLastModified(1000000000000L);
+
+        DotProbeCache cache = new DotProbeCache(file, dot.getPath());
+        assertThat(cache.getVersion()).isNull();
+        assertThat(cache.getRenderers("png")).isNull();
+        cache.setVersion("2.38");
+        cache.setRenderers("png", Arrays.asList("Format: \"png:\" not recognized. Use one of:", "png:cairo:cairo png:gd:gd"));
+        cache.setRenderers("svg", Arrays.asList());
+
+        cache = new DotProbeCache(file, dot.getPath());
+        assertThat(cache.getVersion()).isEqualTo("2.38");
+        assertThat(cache.getRenderers("png")).containsExactly("Format: \"png:\" not recognized. Use one of:", "png:cairo:cairo png:gd:gd");
+        assertThat(cache.getRenderers("svg")).isEmpty();
+        assertThat(cache.getRenderers("gif")).isNull();
+
+        dot.setLastModified(1100000000000L);
+        assertThat(new DotProbeCache(file, dot.getPath()).getVersion()).isNull();
+    }
+
+    @Test
+    public void fileIsReadOnceAndReplacedWithoutLeavingTemporaryFiles() throws Exception {
+        File file = new File(temp.getRoot(), "graphviz.properties");
+        File dot = temp.newFile("dot");
+
+        DotProbeCache cache = new DotProbeCache(file, dot.getPath());
+        cache.setVersion("2.38");
+        DotProbeCache other = new DotProbeCache(file, dot.getPath());
+        new DotProbeCache(file, dot.getPath()).setVersion("2.40");
+
+        assertThat(other.getVersion()).isEqualTo("2.38");
+        other.setRenderers("png", Arrays.asList("png:cairo:cairo"));
+        assertThat(other.getVersion()).isEqualTo("2.40");
+        assertThat(temp.getRoot().list()).containsOnly("dot", "graphviz.properties");
+    }
+
+    @Test
+    public void nothingIsKeptForAnExecutableThatCantBeFound() {
+        File file = new File(temp.getRoot(), "graphviz.properties");
+        DotProbeCache cache = new DotProbeCache(file, new File(temp.getRoot(), "missing/dot").getPath());
+        cache.setVersion("2.38");
+        assertThat(cache.getVersion()).isNull();
+        assertThat(file).doesNotExist();
+    }
+}
@@ -1,6 +1,10 @@
 package org.schemaspy.util;
 
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.schemaspy.Config;
 
 import java.lang.reflect.Constructor;
@@ -11,6 +15,19 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 public class DotTest {
 
+    @ClassRule
+    public static TemporaryFolder temp = new TemporaryFolder();
+
+    @BeforeClass
+    public static void keepProbesOutOfTheUsersCache() {
+        System.setProperty(DotProbeCache.FILE_PROPERTY, temp.getRoot() + "/graphviz.properties");
+    }
+
+    @AfterClass
+    public static void restoreTheCache() {
+        System.clearProperty(DotProbeCache.FILE_PROPERTY);
+    }
+
     @Test
     public void version2_26_0() throws InvocationTargetException, NoSuchMethodException, InstantiationException, IllegalAccessException {
         Config config = Config.getInstance();
@@ -0,0 +1,52 @@
+package org.schemaspy.util;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GzipSiblingOutputStreamTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void writesCompressedSibling() throws Exception {
+        File file = new File(temp.getRoot(), "tables/table.html");
+        try (OutputStream out = new GzipSiblingOutputStream(file, true)) {
+            out.write("<html>".getBytes(StandardCharsets.UTF_8));
+            out.write('!');
+        }
+
+        assertThat(file).hasContent("<html>!");
+        assertThat(gunzip(new File(file.getPath() + ".gz"))).isEqualTo("<html>!");
+        assertThat(GzipSiblingOutputStream.exists(file)).isTrue();
+    }
+
+    @Test
+    public void canOmitUncompressedFile() throws Exception {
+        File file = temp.newFile("index.html");
+        try (OutputStream out = new GzipSiblingOutputStream(file, false)) {
+            out.write("<html>".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertThat(file).doesNotExist();
+        assertThat(gunzip(new File(file.getPath() + ".gz"))).isEqualTo("<html>");
+        assertThat(GzipSiblingOutputStream.exists(file)).isTrue();
+    }
+
+    private String gunzip(File file) throws Exception {
+        try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.schemaspy.util;
+
+import org.junit.After;
+import org.junit.Test;
+import org.schemaspy.Config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MarkdownTest {
+
+    @After
+    public void resetConfig() {
+        Config.setInstance(null);
+    }
+
+    @Test
+    public void referencedPagesBecomeLinks() {
+        Config.setInstance(new Config());
+        Markdown.registryPage("markdownTestTable", "tables/markdownTestTable.html");
+
+        assertThat(Markdown.toHtml("see [markdownTestTable] and [markdownTestTable.id]", "../"))
+                .isEqualTo("<p>see <a href=\"./../tables/markdownTestTable.html\">markdownTestTable</a>"
+                        + " and <a href=\"./../tables/markdownTestTable.html#id\">markdownTestTable.id</a></p>");
+    }
+
+    @Test
+    public void renderedTextIsReused() {
+        Config.setInstance(new Config());
+        String html = Markdown.toHtml("*emphasis*", "");
+
+        assertThat(html).isEqualTo("<p><em>emphasis</em></p>");
+        assertThat(Markdown.toHtml("*emphasis*", "")).isSameAs(html);
+    }
+
+    @Test
+    public void commonMarkCanBeUsedInstead() {
+        Config.setInstance(new Config("-commonmark"));
+
+        assertThat(Markdown.toHtml("*emphasis*", "")).isEqualTo("<p><em>emphasis</em></p>\n");
+        assertThat(Markdown.toHtml(null, "")).isNull();
+    }
+}
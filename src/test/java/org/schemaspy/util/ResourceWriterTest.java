@@ -0,0 +1,60 @@
+package org.schemaspy.util;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.FileFilterUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResourceWriterTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private File layout;
+    private final FileFilter notHtml = FileFilterUtils.notFileFilter(FileFilterUtils.suffixFileFilter(".html"));
+
+    @Before
+    public void setUp() throws Exception {
+        layout = temp.newFolder("layout");
+        FileUtils.writeStringToFile(new File(layout, "bower/lib/lib.js"), "var lib;", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(layout, "schemaSpy.css"), "body {}", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(new File(layout, "main.html"), "<html/>", StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void copyLeavesUnchangedFilesAlone() throws Exception {
+        File output = temp.newFolder("output");
+        ResourceWriter.copyResources(layout.toURI().toURL(), output, notHtml);
+
+        File css = new File(output, "schemaSpy.css");
+        assertThat(css).hasContent("body {}");
+        assertThat(new File(output, "bower/lib/lib.js")).hasContent("var lib;");
+        assertThat(new File(output, "main.html")).doesNotExist();
+
+        assertThat(css.setLastModified(0)).isTrue();
+        ResourceWriter.copyResources(layout.toURI().toURL(), output, notHtml);
+        assertThat(css.lastModified()).isEqualTo(0);
+    }
+
+    @Test
+    public void linkSharesFilesWithSharedDirectory() throws Exception {
+        File shared = temp.newFolder("shared");
+        File schema = new File(shared, "schema");
+        ResourceWriter.copyResources(layout.toURI().toURL(), shared, notHtml);
+        ResourceWriter.linkResources(layout.toURI().toURL(), shared, schema, notHtml);
+
+        File linked = new File(schema, "bower/lib/lib.js");
+        assertThat(linked).hasContent("var lib;");
+        assertThat(Files.isSameFile(linked.toPath(), new File(shared, "bower/lib/lib.js").toPath())).isTrue();
+        assertThat(new File(schema, "main.html")).doesNotExist();
+    }
+}
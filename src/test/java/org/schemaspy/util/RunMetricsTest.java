@@ -0,0 +1,103 @@
+package org.schemaspy.util;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.schemaspy.model.MetricsProgressListener;
+import org.schemaspy.model.ProgressListener;
+import org.schemaspy.testing.H2MemoryRule;
+
+import java.io.ByteArrayOutputStream;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RunMetricsTest {
+
+    @Rule
+    public H2MemoryRule h2 = new H2MemoryRule("RunMetricsTest",
+            "CREATE TABLE ARTIST(ID INT PRIMARY KEY, NAME VARCHAR(100))",
+            "INSERT INTO ARTIST VALUES (1, 'a'), (2, 'b'), (3, 'c')");
+
+    @After
+    public void stopCollecting() {
+        RunMetrics.setInstance(null);
+    }
+
+    @Test
+    public void statementsAreOnlyMeasuredWhileCollecting() throws Exception {
+        PreparedStatement statement = h2.getConnection().prepareStatement("select * from ARTIST");
+        assertThat(MeasuredStatement.wrap(statement)).isSameAs(statement);
+        statement.close();
+    }
+
+    @Test
+    public void executionsAndTheirRowsAreCounted() throws Exception {
+        RunMetrics metrics = new RunMetrics();
+        RunMetrics.setInstance(metrics);
+
+        try (PreparedStatement statement = MeasuredStatement.wrap(h2.getConnection().prepareStatement("select * from ARTIST where ID > ?"))) {
+            statement.setInt(1, 0);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next())
+                    assertThat(rs.getString("NAME")).isNotNull();
+            }
+            statement.setInt(1, 2);
+            ResultSet rs = statement.executeQuery();
+            assertThat(rs.next()).isTrue();
+            // left for the statement to close
+        }
+
+        ProgressListener listener = new MetricsProgressListener(Mockito.mock(ProgressListener.class), metrics);
+        listener.startedGatheringDetails();
+        listener.gatheringDetailsProgressed(null);
+        listener.gatheringDetailsProgressed(null);
+        listener.startedConnectingTables();
+        listener.finishedGatheringDetails();
+        listener.finished(null, null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        metrics.write(out);
+        String json = out.toString("UTF-8").replaceAll("\\s", "");
+        assertThat(json).contains("\"queries\":{\"count\":2,");
+        assertThat(json).contains("\"failures\":0,\"rows\":4,\"statements\"");
+        assertThat(json).containsPattern("\"gatheringDetails\":\\{\"count\":1,[^}]*\"tables\":2}");
+        assertThat(json).containsPattern("\"connectingTables\":\\{\"count\":1,[^}]*\"tables\":0}");
+        assertThat(json).containsPattern("\"statements\":\\{\"SQL\":\\{\"count\":2,[^}]*\"rows\":4,\"histogram\":");
+    }
+
+    @Test
+    public void slowestQueriesAreNamedAfterTheStatementAndTable() throws Exception {
+        RunMetrics metrics = new RunMetrics();
+        RunMetrics.setInstance(metrics);
+
+        DatabaseMetaData meta = MeasuredMetaData.wrap(h2.getConnection().getMetaData());
+        try (ResultSet rs = meta.getColumns(null, null, "ARTIST", "%")) {
+            while (rs.next())
+                assertThat(rs.getString("COLUMN_NAME")).isNotNull();
+        }
+        for (int i = 0; i < RunMetrics.SLOWEST_QUERIES + 5; ++i) {
+            try (PreparedStatement statement = MeasuredStatement.wrap(h2.getConnection().prepareStatement("select count(*) from ARTIST"),
+                    "selectRowCountSql", "ARTIST");
+                 ResultSet rs = statement.executeQuery()) {
+                assertThat(rs.next()).isTrue();
+            }
+        }
+
+        List<RunMetrics.Execution> slowest = metrics.getSlowestQueries();
+        assertThat(slowest).hasSize(RunMetrics.SLOWEST_QUERIES);
+        for (int i = 1; i < slowest.size(); ++i)
+            assertThat(slowest.get(i - 1).getMillis()).isGreaterThanOrEqualTo(slowest.get(i).getMillis());
+        assertThat(slowest).extracting(RunMetrics.Execution::getTable).containsOnly("ARTIST");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        metrics.write(out);
+        String json = out.toString("UTF-8").replaceAll("\\s", "");
+        assertThat(json).containsPattern("\"DatabaseMetaData.getColumns\":\\{\"count\":1,[^}]*\"rows\":2,");
+        assertThat(json).containsPattern("\"selectRowCountSql\":\\{\"count\":25,[^}]*\"rows\":25,");
+    }
+}
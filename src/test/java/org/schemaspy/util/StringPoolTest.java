@@ -0,0 +1,37 @@
+package org.schemaspy.util;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StringPoolTest {
+
+    @Test
+    public void equalStringsShareOneInstance() {
+        StringPool pool = new StringPool();
+        String first = pool.get(new String("VARCHAR"));
+        String second = pool.get(new String("VARCHAR"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(pool.get(first)).isSameAs(first);
+        assertThat(pool.get(null)).isNull();
+        assertThat(pool.size()).isEqualTo(1);
+        assertThat(pool.getHits()).isEqualTo(1);
+        assertThat(pool.getBytesSaved()).isEqualTo(24 + 32);
+    }
+
+    @Test
+    public void longStringsArentPooled() {
+        StringPool pool = new StringPool();
+        StringBuilder comment = new StringBuilder();
+        while (comment.length() <= 1024)
+            comment.append("a long comment ");
+
+        String first = comment.toString();
+        String second = comment.toString();
+
+        assertThat(pool.get(first)).isSameAs(first);
+        assertThat(pool.get(second)).isSameAs(second);
+        assertThat(pool.size()).isZero();
+    }
+}
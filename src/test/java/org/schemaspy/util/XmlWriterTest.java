@@ -0,0 +1,34 @@
+package org.schemaspy.util;
+
+import org.junit.Test;
+
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class XmlWriterTest {
+
+    @Test
+    public void writesIndentedElementsWithSortedEscapedAttributes() throws Exception {
+        StringWriter out = new StringWriter();
+        XmlWriter xml = new XmlWriter(out);
+        xml.writeStartDocument();
+        xml.writeStartElement("database");
+        xml.writeAttribute("type", "H2");
+        xml.writeAttribute("name", "a <\"b\"> & c\n\uD83D\uDE00");
+        xml.writeAttribute("schema", null);
+        xml.writeStartElement("tables");
+        xml.writeStartElement("table");
+        xml.writeEndElement();
+        xml.writeEndDocument();
+
+        String nl = System.lineSeparator();
+        assertThat(out.toString()).isEqualTo(
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>" + nl +
+                "<database name=\"a &lt;&quot;b&quot;&gt; &amp; c&#10;&#128512;\" type=\"H2\">" + nl +
+                "   <tables>" + nl +
+                "      <table/>" + nl +
+                "   </tables>" + nl +
+                "</database>" + nl);
+    }
+}
@@ -0,0 +1,46 @@
+package org.schemaspy.util;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ZipOutputSinkTest {
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    @Test
+    public void entriesAreRelativeToOutputDirectory() throws Exception {
+        File outputDir = temp.newFolder("output");
+        File bundle = new File(temp.getRoot(), "site.zip");
+
+        File diagram = new File(outputDir, "diagrams/table.1degree.png");
+        FileUtils.writeStringToFile(diagram, "png", StandardCharsets.UTF_8);
+
+        try (ZipOutputSink sink = new ZipOutputSink(outputDir, bundle)) {
+            try (OutputStream out = sink.open(new File(outputDir, "tables/table.html"))) {
+                out.write("<html>".getBytes(StandardCharsets.UTF_8));
+            }
+            try (OutputStream out = sink.open(new File(outputDir, "tables/table.html"))) {
+                out.write("ignored".getBytes(StandardCharsets.UTF_8));
+            }
+            sink.add(diagram);
+        }
+
+        assertThat(new File(outputDir, "tables")).doesNotExist();
+        try (ZipFile zip = new ZipFile(bundle)) {
+            assertThat(zip.size()).isEqualTo(2);
+            assertThat(IOUtils.toString(zip.getInputStream(zip.getEntry("tables/table.html")), StandardCharsets.UTF_8)).isEqualTo("<html>");
+            assertThat(IOUtils.toString(zip.getInputStream(zip.getEntry("diagrams/table.1degree.png")), StandardCharsets.UTF_8)).isEqualTo("png");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.schemaspy.view;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.schemaspy.BinaryModelReader;
+import org.schemaspy.Config;
+import org.schemaspy.model.Database;
+import org.schemaspy.model.ImpliedForeignKeyConstraint;
+import org.schemaspy.model.ProgressListener;
+import org.schemaspy.model.Schema;
+import org.schemaspy.model.Table;
+import org.schemaspy.model.TableColumn;
+import org.schemaspy.testing.TestTables;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ModelFormatterTest {
+    private Database database;
+    private List<Table> tables;
+
+    @Before
+    public void setUp() {
+        Schema schema = new Schema("music");
+        database = TestTables.mockDatabase("db", schema, "H2");
+        TestTables model = new TestTables(database, null, schema);
+
+        Table artist = model.createKeyedTable("Artist", "id", "name");
+        Table album = model.createKeyedTable("Album", "id", "artist_id");
+        album.setNumRows(42);
+        new ImpliedForeignKeyConstraint(artist.getColumn("id"), album.getColumn("artist_id"));
+
+        tables = Arrays.asList(artist, album);
+    }
+
+    @Test
+    public void jsonListsImpliedForeignKeysOnTheChild() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonModelFormatter.getInstance().write(database, tables, out);
+        String json = new String(out.toByteArray(), StandardCharsets.UTF_8);
+
+        assertThat(json).contains("\"schema\" : \"music\"", "\"numRows\" : 42", "\"implied\" : true", "\"table\" : \"Artist\"");
+        assertThat(json.indexOf("\"Album\"")).isLessThan(json.indexOf("\"Artist\""));
+        assertThat(json).containsOnlyOnce("\"foreignKeys\" : [ {");
+    }
+
+    @Test
+    public void binaryWritesEachStringOnceAndReadsBack() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryModelFormatter.getInstance().write(database, tables, out);
+        String raw = new String(out.toByteArray(), StandardCharsets.ISO_8859_1);
+
+        assertThat(raw).startsWith(new String(BinaryModelFormatter.MAGIC, StandardCharsets.ISO_8859_1));
+        assertThat(raw).containsOnlyOnce("music").containsOnlyOnce("Artist").containsOnlyOnce("artist_id");
+
+        Config config = new Config("-t", "pgsql", "-u", "user", "-db", "db");
+        Database read = new BinaryModelReader(config, Mockito.mock(ProgressListener.class))
+                .read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(read.getName()).isEqualTo("db");
+        assertThat(read.getSchema().getName()).isEqualTo("music");
+        assertThat(read.getDatabaseProduct()).isEqualTo("H2");
+        assertThat(read.getTables()).extracting(Table::getName).containsOnly("Artist", "Album");
+        assertThat(read.getRoutines()).isEmpty();
+        Table album = read.getTablesMap().get("Album");
+        assertThat(album.getNumRows()).isEqualTo(42);
+        assertThat(album.getColumns()).extracting(TableColumn::getName).containsOnly("id", "artist_id");
+        assertThat(album.getPrimaryColumns()).extracting(TableColumn::getName).containsExactly("id");
+        // implied constraints aren't part of the model
+        assertThat(album.getColumn("artist_id").getParents()).isEmpty();
+    }
+}